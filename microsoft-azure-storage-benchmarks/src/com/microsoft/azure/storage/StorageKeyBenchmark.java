@@ -0,0 +1,84 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.security.InvalidKeyException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.storage.core.Base64;
+
+/**
+ * Benchmarks request signing with {@link StorageKey}. All threads sign with the same key, as the requests of a single
+ * service client do, so the thread count variants show how signing throughput scales with concurrency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StorageKeyBenchmark {
+
+    /**
+     * A shared key canonicalized string for a typical Put Message request.
+     */
+    private static final String STRING_TO_SIGN = "POST\n\n\n80\n\napplication/xml\n\n\n\n\n\n\n"
+            + "x-ms-client-request-id:8d2fd6a0-6ab7-4a4e-b4b1-1f6dbfc2d10b\nx-ms-date:Wed, 01 Apr 2015 00:00:00 GMT\n"
+            + "x-ms-version:2014-02-14\n/myaccount/myqueue/messages\ntimeout:30";
+
+    private final StorageKey key = new StorageKey(Base64.decode(Base64.encode("benchmark storage account key"
+            .getBytes())));
+
+    @Benchmark
+    @Threads(1)
+    public String computeMacSha256SingleThread() throws InvalidKeyException {
+        return StorageKey.computeMacSha256(this.key, STRING_TO_SIGN);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public String computeMacSha256FourThreads() throws InvalidKeyException {
+        return StorageKey.computeMacSha256(this.key, STRING_TO_SIGN);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String computeMacSha256MaxThreads() throws InvalidKeyException {
+        return StorageKey.computeMacSha256(this.key, STRING_TO_SIGN);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String computeMacSha512SingleThread() throws InvalidKeyException {
+        return StorageKey.computeMacSha512(this.key, STRING_TO_SIGN);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String computeMacSha512MaxThreads() throws InvalidKeyException {
+        return StorageKey.computeMacSha512(this.key, STRING_TO_SIGN);
+    }
+}
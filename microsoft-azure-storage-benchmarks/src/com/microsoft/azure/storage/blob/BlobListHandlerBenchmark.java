@@ -0,0 +1,85 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.blob;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.storage.Constants;
+import com.microsoft.azure.storage.StorageCredentialsAnonymous;
+
+/**
+ * Benchmarks parsing a full page of a List Blobs response with {@link BlobListHandler}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlobListHandlerBenchmark {
+
+    private static final int BLOBS_PER_PAGE = 1000;
+
+    private CloudBlobContainer container;
+
+    private byte[] listResponse;
+
+    @Setup
+    public void setup() throws Exception {
+        final CloudBlobClient client = new CloudBlobClient(new URI("https://myaccount.blob.core.windows.net"),
+                StorageCredentialsAnonymous.ANONYMOUS);
+        this.container = client.getContainerReference("mycontainer");
+
+        final StringBuilder builder = new StringBuilder();
+        builder.append("<?xml version=\"1.0\" encoding=\"utf-8\"?>");
+        builder.append("<EnumerationResults ServiceEndpoint=\"https://myaccount.blob.core.windows.net/\"");
+        builder.append(" ContainerName=\"mycontainer\"><MaxResults>").append(BLOBS_PER_PAGE).append("</MaxResults>");
+        builder.append("<Blobs>");
+        for (int i = 0; i < BLOBS_PER_PAGE; i++) {
+            builder.append("<Blob><Name>folder").append(i % 10).append("/blob").append(i).append(".dat</Name>");
+            builder.append("<Properties><Last-Modified>Wed, 01 Apr 2015 00:00:00 GMT</Last-Modified>");
+            builder.append("<Etag>0x8D23A1B2C3D4E").append(String.format("%03X", i)).append("</Etag>");
+            builder.append("<Content-Length>").append(i * 1024L).append("</Content-Length>");
+            builder.append("<Content-Type>application/octet-stream</Content-Type><Content-Encoding />");
+            builder.append("<Content-Language /><Content-MD5>1B2M2Y8AsgTpgAmY7PhCfg==</Content-MD5>");
+            builder.append("<Cache-Control /><Content-Disposition /><BlobType>BlockBlob</BlobType>");
+            builder.append("<LeaseStatus>unlocked</LeaseStatus><LeaseState>available</LeaseState></Properties>");
+            builder.append("<Metadata><category>benchmark</category><index>").append(i).append("</index></Metadata>");
+            builder.append("</Blob>");
+        }
+
+        builder.append("</Blobs><NextMarker>2!92!MDAwMDA0IWJsb2IxMDAwITAwMDAyOCE5OTk5LTEyLTMxVDIzOjU5OjU5Ljk5OTk5OTlaIQ--</NextMarker>");
+        builder.append("</EnumerationResults>");
+        this.listResponse = builder.toString().getBytes(Constants.UTF8_CHARSET);
+    }
+
+    @Benchmark
+    public ListBlobsResponse parseBlobList() throws Exception {
+        return BlobListHandler.getBlobList(new ByteArrayInputStream(this.listResponse), this.container);
+    }
+}
@@ -0,0 +1,72 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link Base64} encoding and decoding. The small size matches an MD5 hash or block ID, the larger sizes
+ * match binary table properties and queue messages.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Base64Benchmark {
+
+    @Param({ "16", "4096", "65536" })
+    private int size;
+
+    private byte[] data;
+
+    private String encoded;
+
+    @Setup
+    public void setup() {
+        this.data = new byte[this.size];
+        new Random(0).nextBytes(this.data);
+        this.encoded = Base64.encode(this.data);
+    }
+
+    @Benchmark
+    public String encode() {
+        return Base64.encode(this.data);
+    }
+
+    @Benchmark
+    public byte[] decode() {
+        return Base64.decode(this.encoded);
+    }
+
+    @Benchmark
+    public boolean validateIsBase64String() {
+        return Base64.validateIsBase64String(this.encoded);
+    }
+}
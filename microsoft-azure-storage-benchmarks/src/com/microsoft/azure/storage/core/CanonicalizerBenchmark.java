@@ -0,0 +1,104 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.core;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.storage.Constants;
+import com.microsoft.azure.storage.StorageException;
+
+/**
+ * Benchmarks the {@link Canonicalizer} variants on representative requests. The connections are never opened; the
+ * canonicalizers only read the URL, method and request headers.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CanonicalizerBenchmark {
+
+    private static final String ACCOUNT_NAME = "myaccount";
+
+    private HttpURLConnection blobRequest;
+
+    private HttpURLConnection tableRequest;
+
+    @Setup
+    public void setup() throws IOException {
+        this.blobRequest = (HttpURLConnection) new URL(
+                "https://myaccount.blob.core.windows.net/mycontainer/folder/myblob.txt?comp=block"
+                        + "&blockid=YmxvY2stMDAwMDAx&timeout=90").openConnection();
+        this.blobRequest.setRequestMethod("PUT");
+        this.blobRequest.setRequestProperty(Constants.HeaderConstants.CONTENT_TYPE, "application/octet-stream");
+        this.blobRequest.setRequestProperty(Constants.HeaderConstants.CONTENT_MD5, "1B2M2Y8AsgTpgAmY7PhCfg==");
+        this.blobRequest.setRequestProperty(Constants.HeaderConstants.DATE, "Wed, 01 Apr 2015 00:00:00 GMT");
+        this.blobRequest.setRequestProperty(Constants.HeaderConstants.STORAGE_VERSION_HEADER, "2014-02-14");
+        this.blobRequest.setRequestProperty(Constants.HeaderConstants.CLIENT_REQUEST_ID_HEADER,
+                "8d2fd6a0-6ab7-4a4e-b4b1-1f6dbfc2d10b");
+        this.blobRequest.setRequestProperty(Constants.HeaderConstants.LEASE_ID_HEADER,
+                "c6e2a3a0-2f31-4b4f-8f3d-6a8e7d1c2b10");
+
+        this.tableRequest = (HttpURLConnection) new URL(
+                "https://myaccount.table.core.windows.net/mytable(PartitionKey='pk',RowKey='rk')?timeout=30")
+                .openConnection();
+        this.tableRequest.setRequestMethod("PUT");
+        this.tableRequest.setRequestProperty(Constants.HeaderConstants.CONTENT_TYPE, "application/json");
+        this.tableRequest.setRequestProperty(Constants.HeaderConstants.DATE, "Wed, 01 Apr 2015 00:00:00 GMT");
+        this.tableRequest.setRequestProperty(Constants.HeaderConstants.STORAGE_VERSION_HEADER, "2014-02-14");
+        this.tableRequest.setRequestProperty(Constants.HeaderConstants.CLIENT_REQUEST_ID_HEADER,
+                "8d2fd6a0-6ab7-4a4e-b4b1-1f6dbfc2d10b");
+        this.tableRequest.setRequestProperty(Constants.HeaderConstants.IF_MATCH, "*");
+    }
+
+    @Benchmark
+    public String blobQueueFull() throws StorageException {
+        return CanonicalizerFactory.getBlobQueueFullCanonicalizer(this.blobRequest).canonicalize(this.blobRequest,
+                ACCOUNT_NAME, 4096L);
+    }
+
+    @Benchmark
+    public String blobQueueLite() throws StorageException {
+        return CanonicalizerFactory.getBlobQueueLiteCanonicalizer(this.blobRequest).canonicalize(this.blobRequest,
+                ACCOUNT_NAME, 4096L);
+    }
+
+    @Benchmark
+    public String tableFull() throws StorageException {
+        return CanonicalizerFactory.getTableFullCanonicalizer(this.tableRequest).canonicalize(this.tableRequest,
+                ACCOUNT_NAME, 512L);
+    }
+
+    @Benchmark
+    public String tableLite() throws StorageException {
+        return CanonicalizerFactory.getTableLiteCanonicalizer(this.tableRequest).canonicalize(this.tableRequest,
+                ACCOUNT_NAME, 512L);
+    }
+}
@@ -0,0 +1,119 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.table;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.storage.Constants;
+import com.microsoft.azure.storage.OperationContext;
+
+/**
+ * Benchmarks writing a full entity group transaction with {@link MimeHelper} and reading the multipart response to it.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MimeHelperBenchmark {
+
+    private static final int OPERATIONS_PER_BATCH = 100;
+
+    private static final String BATCH_ID = "batch_7a2fbc1c-1b1d-4c9e-9f0e-2b6a3a8c7e11";
+
+    private static final String CHANGE_SET_ID = "changeset_0f1e2d3c-4b5a-6978-8796-a5b4c3d2e1f0";
+
+    private static final String BATCH_RESPONSE_ID = "batchresponse_4b0c3c0e-5c8f-4d3e-9a2b-1c0d9e8f7a6b";
+
+    private TableBatchOperation batch;
+
+    private TableRequestOptions options;
+
+    private OperationContext opContext;
+
+    private URI baseUri;
+
+    private byte[] batchResponse;
+
+    @Setup
+    public void setup() throws Exception {
+        this.batch = new TableBatchOperation();
+        for (int i = 0; i < OPERATIONS_PER_BATCH; i++) {
+            final DynamicTableEntity entity = new DynamicTableEntity("partition", String.format("row%06d", i));
+            entity.getProperties().put("Name", new EntityProperty("Entity " + i));
+            entity.getProperties().put("Count", new EntityProperty(i));
+            entity.getProperties().put("Total", new EntityProperty(i * 1000000000L));
+            this.batch.insert(entity);
+        }
+
+        this.options = new TableRequestOptions();
+        this.options.setTablePayloadFormat(TablePayloadFormat.Json);
+        this.opContext = new OperationContext();
+        this.baseUri = new URI("https://myaccount.table.core.windows.net");
+
+        final String changeSetResponseId = "changesetresponse_9d8c7b6a-5f4e-3d2c-1b0a-f9e8d7c6b5a4";
+        final StringBuilder builder = new StringBuilder();
+        builder.append("--").append(BATCH_RESPONSE_ID).append("\r\n");
+        builder.append("Content-Type: multipart/mixed; boundary=").append(changeSetResponseId).append("\r\n\r\n");
+        for (int i = 0; i < OPERATIONS_PER_BATCH; i++) {
+            builder.append("--").append(changeSetResponseId).append("\r\n");
+            builder.append("Content-Type: application/http\r\n");
+            builder.append("Content-Transfer-Encoding: binary\r\n\r\n");
+            builder.append("HTTP/1.1 204 No Content\r\n");
+            builder.append("Content-ID: ").append(i).append("\r\n");
+            builder.append("X-Content-Type-Options: nosniff\r\n");
+            builder.append("Cache-Control: no-cache\r\n");
+            builder.append("Preference-Applied: return-no-content\r\n");
+            builder.append("DataServiceVersion: 3.0;\r\n");
+            builder.append("Location: https://myaccount.table.core.windows.net/mytable(PartitionKey='partition',RowKey='")
+                    .append(String.format("row%06d", i)).append("')\r\n");
+            builder.append("ETag: W/\"datetime'2015-04-01T00%3A00%3A00.1234567Z'\"\r\n\r\n");
+        }
+
+        builder.append("--").append(changeSetResponseId).append("--\r\n");
+        builder.append("--").append(BATCH_RESPONSE_ID).append("--\r\n");
+        this.batchResponse = builder.toString().getBytes(Constants.UTF8_CHARSET);
+    }
+
+    @Benchmark
+    public byte[] writeBatch() throws Exception {
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream(32 * 1024);
+        MimeHelper.writeBatchToStream(outStream, this.options, "mytable", this.baseUri, this.batch, BATCH_ID,
+                CHANGE_SET_ID, this.opContext);
+        return outStream.toByteArray();
+    }
+
+    @Benchmark
+    public ArrayList<MimePart> readBatchResponse() throws Exception {
+        return MimeHelper.readBatchResponseStream(new ByteArrayInputStream(this.batchResponse), BATCH_RESPONSE_ID,
+                this.opContext, TablePayloadFormat.Json);
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.table;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks copying the properties of a {@link TableServiceEntity} subclass to and from a property map with the
+ * cached reflected accessors, as is done for every entity of a query result.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableEntityReflectionBenchmark {
+
+    private CustomerEntity entity;
+
+    private HashMap<String, EntityProperty> properties;
+
+    @Setup
+    public void setup() throws Exception {
+        this.entity = new CustomerEntity();
+        this.entity.setPartitionKey("partition");
+        this.entity.setRowKey("row000001");
+        this.entity.setName("Customer 1");
+        this.entity.setEmail("customer1@contoso.com");
+        this.entity.setOrders(42);
+        this.entity.setBalance(1234.5);
+        this.entity.setActive(true);
+        this.entity.setCustomerId(new UUID(1, 1));
+        this.entity.setCreated(new Date(1427846400000L));
+        this.entity.setLifetimeValue(123456789012L);
+        this.properties = TableServiceEntity.writeEntityWithReflection(this.entity);
+    }
+
+    @Benchmark
+    public HashMap<String, EntityProperty> writeEntity() throws Exception {
+        return TableServiceEntity.writeEntityWithReflection(this.entity);
+    }
+
+    @Benchmark
+    public CustomerEntity readEntity() throws Exception {
+        final CustomerEntity result = new CustomerEntity();
+        TableServiceEntity.readEntityWithReflection(result, this.properties, null);
+        return result;
+    }
+
+    /**
+     * A typical entity type with a mix of primitive, boxed and reference properties.
+     */
+    public static class CustomerEntity extends TableServiceEntity {
+        private String name;
+        private String email;
+        private int orders;
+        private double balance;
+        private Boolean active;
+        private UUID customerId;
+        private Date created;
+        private Long lifetimeValue;
+
+        public String getName() {
+            return this.name;
+        }
+
+        public void setName(final String name) {
+            this.name = name;
+        }
+
+        public String getEmail() {
+            return this.email;
+        }
+
+        public void setEmail(final String email) {
+            this.email = email;
+        }
+
+        public int getOrders() {
+            return this.orders;
+        }
+
+        public void setOrders(final int orders) {
+            this.orders = orders;
+        }
+
+        public double getBalance() {
+            return this.balance;
+        }
+
+        public void setBalance(final double balance) {
+            this.balance = balance;
+        }
+
+        public Boolean getActive() {
+            return this.active;
+        }
+
+        public void setActive(final Boolean active) {
+            this.active = active;
+        }
+
+        public UUID getCustomerId() {
+            return this.customerId;
+        }
+
+        public void setCustomerId(final UUID customerId) {
+            this.customerId = customerId;
+        }
+
+        public Date getCreated() {
+            return this.created;
+        }
+
+        public void setCreated(final Date created) {
+            this.created = created;
+        }
+
+        public Long getLifetimeValue() {
+            return this.lifetimeValue;
+        }
+
+        public void setLifetimeValue(final Long lifetimeValue) {
+            this.lifetimeValue = lifetimeValue;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.table;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.azure.storage.Constants;
+import com.microsoft.azure.storage.OperationContext;
+
+/**
+ * Benchmarks writing a single entity with {@link TableEntitySerializer} and parsing a query response page with
+ * {@link TableDeserializer}, in each of the payload formats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TableSerializationBenchmark {
+
+    private static final int ENTITIES_PER_PAGE = 100;
+
+    private static final String TIMESTAMP = "2015-04-01T00:00:00.1234567Z";
+
+    @Param({ "AtomPub", "JsonFullMetadata", "JsonNoMetadata" })
+    private TablePayloadFormat format;
+
+    private DynamicTableEntity entity;
+
+    private TableRequestOptions options;
+
+    private OperationContext opContext;
+
+    private byte[] queryResponse;
+
+    @Setup
+    @SuppressWarnings("deprecation")
+    public void setup() throws Exception {
+        this.entity = createEntity(0);
+        this.options = new TableRequestOptions();
+        this.options.setTablePayloadFormat(this.format);
+        this.opContext = new OperationContext();
+
+        final StringBuilder builder = new StringBuilder();
+        if (this.format == TablePayloadFormat.AtomPub) {
+            writeAtomFeed(builder);
+        }
+        else {
+            writeJsonFeed(builder, this.format == TablePayloadFormat.JsonFullMetadata);
+        }
+
+        this.queryResponse = builder.toString().getBytes(Constants.UTF8_CHARSET);
+    }
+
+    @Benchmark
+    @SuppressWarnings("deprecation")
+    public byte[] writeSingleEntity() throws Exception {
+        final ByteArrayOutputStream outStream = new ByteArrayOutputStream(1024);
+        TableEntitySerializer.writeSingleEntityToStream(outStream, this.format, this.entity, false, this.opContext);
+        return outStream.toByteArray();
+    }
+
+    @Benchmark
+    public ODataPayload<?> parseQueryResponse() throws Exception {
+        return TableDeserializer.parseQueryResponse(new ByteArrayInputStream(this.queryResponse), this.options,
+                DynamicTableEntity.class, null, this.opContext);
+    }
+
+    private static DynamicTableEntity createEntity(final int index) {
+        final DynamicTableEntity entity = new DynamicTableEntity("partition", String.format("row%06d", index));
+        entity.getProperties().put("Name", new EntityProperty("Entity " + index));
+        entity.getProperties().put("Count", new EntityProperty(index));
+        entity.getProperties().put("Total", new EntityProperty(index * 1000000000L));
+        entity.getProperties().put("Ratio", new EntityProperty(index / 7.0));
+        entity.getProperties().put("Enabled", new EntityProperty(index % 2 == 0));
+        entity.getProperties().put("Created", new EntityProperty(new Date(1427846400000L + index)));
+        entity.getProperties().put("Id", new EntityProperty(new UUID(index, index)));
+        entity.getProperties().put("Payload", new EntityProperty(new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 }));
+        return entity;
+    }
+
+    private static void writeJsonFeed(final StringBuilder builder, final boolean fullMetadata) {
+        builder.append("{\"odata.metadata\":\"https://myaccount.table.core.windows.net/$metadata#mytable\",\"value\":[");
+        for (int i = 0; i < ENTITIES_PER_PAGE; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+
+            final String rowKey = String.format("row%06d", i);
+            builder.append('{');
+            if (fullMetadata) {
+                builder.append("\"odata.type\":\"myaccount.mytable\",");
+                builder.append("\"odata.id\":\"https://myaccount.table.core.windows.net/mytable(PartitionKey='partition',RowKey='")
+                        .append(rowKey).append("')\",");
+                builder.append("\"odata.etag\":\"W/\\\"datetime'2015-04-01T00%3A00%3A00.1234567Z'\\\"\",");
+                builder.append("\"odata.editLink\":\"mytable(PartitionKey='partition',RowKey='").append(rowKey)
+                        .append("')\",");
+            }
+
+            builder.append("\"PartitionKey\":\"partition\",\"RowKey\":\"").append(rowKey).append("\",");
+            appendJsonProperty(builder, fullMetadata, "Timestamp", "Edm.DateTime", '"' + TIMESTAMP + '"');
+            builder.append("\"Name\":\"Entity ").append(i).append("\",");
+            builder.append("\"Count\":").append(i).append(',');
+            appendJsonProperty(builder, fullMetadata, "Total", "Edm.Int64", "\"" + (i * 1000000000L) + "\"");
+            builder.append("\"Ratio\":").append(i / 7.0).append(',');
+            builder.append("\"Enabled\":").append(i % 2 == 0).append(',');
+            appendJsonProperty(builder, fullMetadata, "Created", "Edm.DateTime", '"' + TIMESTAMP + '"');
+            appendJsonProperty(builder, fullMetadata, "Id", "Edm.Guid", '"' + new UUID(i, i).toString() + '"');
+            if (fullMetadata) {
+                builder.append("\"Payload@odata.type\":\"Edm.Binary\",");
+            }
+
+            builder.append("\"Payload\":\"AQIDBAUGBwg=\"}");
+        }
+
+        builder.append("]}");
+    }
+
+    private static void appendJsonProperty(final StringBuilder builder, final boolean fullMetadata,
+            final String name, final String edmType, final String value) {
+        if (fullMetadata) {
+            builder.append('"').append(name).append("@odata.type\":\"").append(edmType).append("\",");
+        }
+
+        builder.append('"').append(name).append("\":").append(value).append(',');
+    }
+
+    private static void writeAtomFeed(final StringBuilder builder) {
+        builder.append("<?xml version=\"1.0\" encoding=\"utf-8\" standalone=\"yes\"?>");
+        builder.append("<feed xml:base=\"https://myaccount.table.core.windows.net/\"");
+        builder.append(" xmlns:d=\"http://schemas.microsoft.com/ado/2007/08/dataservices\"");
+        builder.append(" xmlns:m=\"http://schemas.microsoft.com/ado/2007/08/dataservices/metadata\"");
+        builder.append(" xmlns=\"http://www.w3.org/2005/Atom\">");
+        builder.append("<id>https://myaccount.table.core.windows.net/mytable</id><title type=\"text\">mytable</title>");
+        builder.append("<updated>").append(TIMESTAMP).append("</updated>");
+        builder.append("<link rel=\"self\" title=\"mytable\" href=\"mytable\" />");
+        for (int i = 0; i < ENTITIES_PER_PAGE; i++) {
+            final String rowKey = String.format("row%06d", i);
+            builder.append("<entry m:etag=\"W/&quot;datetime'2015-04-01T00%3A00%3A00.1234567Z'&quot;\">");
+            builder.append("<id>https://myaccount.table.core.windows.net/mytable(PartitionKey='partition',RowKey='")
+                    .append(rowKey).append("')</id>");
+            builder.append("<title type=\"text\"></title><updated>").append(TIMESTAMP).append("</updated>");
+            builder.append("<author><name /></author>");
+            builder.append("<category term=\"myaccount.mytable\"");
+            builder.append(" scheme=\"http://schemas.microsoft.com/ado/2007/08/dataservices/scheme\" />");
+            builder.append("<content type=\"application/xml\"><m:properties>");
+            builder.append("<d:PartitionKey>partition</d:PartitionKey>");
+            builder.append("<d:RowKey>").append(rowKey).append("</d:RowKey>");
+            builder.append("<d:Timestamp m:type=\"Edm.DateTime\">").append(TIMESTAMP).append("</d:Timestamp>");
+            builder.append("<d:Name>Entity ").append(i).append("</d:Name>");
+            builder.append("<d:Count m:type=\"Edm.Int32\">").append(i).append("</d:Count>");
+            builder.append("<d:Total m:type=\"Edm.Int64\">").append(i * 1000000000L).append("</d:Total>");
+            builder.append("<d:Ratio m:type=\"Edm.Double\">").append(i / 7.0).append("</d:Ratio>");
+            builder.append("<d:Enabled m:type=\"Edm.Boolean\">").append(i % 2 == 0).append("</d:Enabled>");
+            builder.append("<d:Created m:type=\"Edm.DateTime\">").append(TIMESTAMP).append("</d:Created>");
+            builder.append("<d:Id m:type=\"Edm.Guid\">").append(new UUID(i, i)).append("</d:Id>");
+            builder.append("<d:Payload m:type=\"Edm.Binary\">AQIDBAUGBwg=</d:Payload>");
+            builder.append("</m:properties></content></entry>");
+        }
+
+        builder.append("</feed>");
+    }
+}
@@ -19,13 +19,29 @@ import static org.junit.Assert.*;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.MalformedURLException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
 import java.net.URISyntaxException;
+import java.net.URL;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -40,6 +56,7 @@ import com.microsoft.azure.storage.blob.BlobTestHelper;
 import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
 import com.microsoft.azure.storage.blob.CloudBlockBlob;
+import com.microsoft.azure.storage.blob.DeleteSnapshotsOption;
 import com.microsoft.azure.storage.core.BaseRequest;
 import com.microsoft.azure.storage.core.SR;
 import com.microsoft.azure.storage.core.Utility;
@@ -539,6 +556,685 @@ public class GenericTests {
         assertEquals(fullDateString, outDateString);
     }
 
+    @Test
+    public void testTransferSchedulerLimits() throws InterruptedException, ExecutionException {
+        final TransferScheduler scheduler = new TransferScheduler(3);
+        final AtomicInteger globalActive = new AtomicInteger();
+        final AtomicInteger globalPeak = new AtomicInteger();
+
+        final int sessionCount = 4;
+        final ArrayList<Future<Void>> futures = new ArrayList<Future<Void>>();
+        final AtomicInteger[] sessionPeaks = new AtomicInteger[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            final TransferScheduler.Session session = scheduler.createSession(2);
+            final AtomicInteger sessionActive = new AtomicInteger();
+            final AtomicInteger sessionPeak = new AtomicInteger();
+            sessionPeaks[i] = sessionPeak;
+
+            for (int j = 0; j < 5; j++) {
+                FutureTask<Void> task = new FutureTask<Void>(new Callable<Void>() {
+                    @Override
+                    public Void call() throws InterruptedException {
+                        updatePeak(globalPeak, globalActive.incrementAndGet());
+                        updatePeak(sessionPeak, sessionActive.incrementAndGet());
+                        Thread.sleep(20);
+                        sessionActive.decrementAndGet();
+                        globalActive.decrementAndGet();
+                        return null;
+                    }
+                });
+
+                session.execute(task);
+                futures.add(task);
+            }
+        }
+
+        for (Future<Void> future : futures) {
+            future.get();
+        }
+
+        assertTrue(globalPeak.get() <= 3);
+        for (AtomicInteger sessionPeak : sessionPeaks) {
+            assertTrue(sessionPeak.get() <= 2);
+        }
+    }
+
+    @Test
+    public void testTransferSchedulerCancel() throws InterruptedException, ExecutionException {
+        final TransferScheduler scheduler = new TransferScheduler(1);
+        final TransferScheduler.Session session = scheduler.createSession(1);
+        final CountDownLatch started = new CountDownLatch(1);
+        final AtomicBoolean returned = new AtomicBoolean();
+        final AtomicInteger queuedRuns = new AtomicInteger();
+
+        session.execute(new Runnable() {
+            @Override
+            public void run() {
+                started.countDown();
+                try {
+                    Thread.sleep(100);
+                }
+                catch (InterruptedException e) {
+                    // return early
+                }
+
+                returned.set(true);
+            }
+        });
+        final FutureTask<Void> queued = new FutureTask<Void>(new Runnable() {
+            @Override
+            public void run() {
+                queuedRuns.incrementAndGet();
+            }
+        }, null);
+        session.execute(queued);
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        session.cancelPendingTransfers();
+
+        // discarded transfers are cancelled, so waiting on them does not block
+        assertTrue(queued.isCancelled());
+        try {
+            queued.get();
+            fail();
+        }
+        catch (CancellationException e) {
+            // expected
+        }
+
+        session.awaitRunningTransfers();
+        assertTrue(returned.get());
+        assertEquals(0, queuedRuns.get());
+    }
+
+    @Test
+    public void testBufferPoolReuse() throws InterruptedException {
+        final BufferPool pool = new BufferPool(3 * 1024);
+
+        byte[] first = pool.acquire(1024);
+        assertEquals(1024, first.length);
+        pool.release(first);
+        assertEquals(1024, pool.getPooledBytes());
+        assertSame(first, pool.acquire(1024));
+        assertEquals(0, pool.getPooledBytes());
+
+        // buffers beyond the ceiling are not retained
+        pool.release(pool.acquire(4 * 1024));
+        assertEquals(0, pool.getPooledBytes());
+
+        // buffers of another length are evicted to make room
+        final byte[] second = pool.acquire(1024);
+        final byte[] third = pool.acquire(1024);
+        final byte[] larger = pool.acquire(2048);
+        pool.release(first);
+        pool.release(second);
+        pool.release(third);
+        assertEquals(3 * 1024, pool.getPooledBytes());
+        pool.release(larger);
+        assertEquals(2048, pool.getPooledBytes());
+        assertNotNull(pool.acquire(2048));
+        assertEquals(0, pool.getPooledBytes());
+    }
+
+    @Test
+    public void testBufferPoolBytesInUse() throws InterruptedException {
+        final BufferPool pool = new BufferPool(0, 2 * 1024);
+        assertEquals(2 * 1024, pool.getMaximumBytesInUse());
+
+        // a buffer larger than the limit is lent while no other buffer is in use
+        final byte[] oversized = pool.acquire(4 * 1024);
+        assertEquals(4 * 1024, pool.getBytesInUse());
+        assertNull(pool.tryAcquire(1024));
+        pool.release(oversized);
+        assertEquals(0, pool.getBytesInUse());
+
+        final byte[] first = pool.acquire(1024);
+        final byte[] second = pool.tryAcquire(1024);
+        assertNotNull(second);
+        assertNull(pool.tryAcquire(1024));
+
+        // acquire waits until a buffer is released
+        final AtomicReference<byte[]> acquired = new AtomicReference<byte[]>();
+        final Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    acquired.set(pool.acquire(1024));
+                }
+                catch (final InterruptedException e) {
+                    // The assertions below fail.
+                }
+            }
+        });
+        waiter.start();
+        waiter.join(200);
+        assertTrue(waiter.isAlive());
+        assertNull(acquired.get());
+
+        pool.release(first);
+        waiter.join(10000);
+        assertNotNull(acquired.get());
+        assertEquals(2 * 1024, pool.getBytesInUse());
+
+        pool.release(second);
+        pool.release(acquired.get());
+        assertEquals(0, pool.getBytesInUse());
+    }
+
+    @Test
+    public void testOperationContextRequestContext() {
+        final OperationContext opContext = new OperationContext();
+        opContext.setLoggingEnabled(true);
+        opContext.setUserHeaders(new HashMap<String, String>());
+        opContext.appendRequestResult(new RequestResult());
+
+        final OperationContext requestContext = opContext.createRequestContext();
+        assertEquals(opContext.getClientRequestID(), requestContext.getClientRequestID());
+        assertTrue(requestContext.isLoggingEnabled());
+        assertSame(opContext.getUserHeaders(), requestContext.getUserHeaders());
+        assertSame(opContext.getLogger(), requestContext.getLogger());
+
+        // listeners added to the operation later still see the requests
+        final AtomicInteger events = new AtomicInteger();
+        opContext.getRetryingEventHandler().addListener(new StorageEvent<RetryingEvent>() {
+            @Override
+            public void eventOccurred(RetryingEvent eventArg) {
+                events.incrementAndGet();
+            }
+        });
+        requestContext.getRetryingEventHandler().fireEvent(new RetryingEvent(requestContext, null, null, null));
+        assertEquals(1, events.get());
+
+        // results are recorded separately
+        assertEquals(0, requestContext.getRequestResults().size());
+        requestContext.appendRequestResult(new RequestResult());
+        assertEquals(1, opContext.getRequestResults().size());
+    }
+
+    @Test
+    public void testStorageFutureCompletion() throws InterruptedException, ExecutionException, TimeoutException {
+        final ArrayList<Object> outcomes = new ArrayList<Object>();
+        final StorageCallback<String> callback = new StorageCallback<String>() {
+            @Override
+            public void onSuccess(String result) {
+                outcomes.add(result);
+            }
+
+            @Override
+            public void onFailure(StorageException exception) {
+                outcomes.add(exception);
+            }
+        };
+
+        final AtomicInteger hooks = new AtomicInteger();
+        final Runnable hook = new Runnable() {
+            @Override
+            public void run() {
+                hooks.incrementAndGet();
+            }
+        };
+
+        StorageFuture<String> future = new StorageFuture<String>();
+        future.addCallback(callback);
+        future.addCompletionHook(hook);
+        assertFalse(future.isDone());
+        try {
+            future.get(10, TimeUnit.MILLISECONDS);
+            fail();
+        }
+        catch (TimeoutException e) {
+            // expected
+        }
+
+        assertTrue(future.setResult("done"));
+        assertFalse(future.setResult("again"));
+        assertFalse(future.cancel(false));
+        assertEquals("done", future.get());
+        future.addCallback(callback);
+        assertEquals(Arrays.asList("done", "done"), outcomes);
+        assertEquals(1, hooks.get());
+        future.addCompletionHook(hook);
+        assertEquals(2, hooks.get());
+
+        outcomes.clear();
+        final StorageException error = new StorageException("code", "message",
+                Constants.HeaderConstants.HTTP_UNUSED_306, null, null);
+        future = new StorageFuture<String>();
+        future.addCallback(callback);
+        future.addCompletionHook(hook);
+        assertTrue(future.setException(error));
+        try {
+            future.get();
+            fail();
+        }
+        catch (ExecutionException e) {
+            assertSame(error, e.getCause());
+        }
+        assertEquals(Arrays.<Object> asList(error), outcomes);
+        assertEquals(3, hooks.get());
+
+        outcomes.clear();
+        future = new StorageFuture<String>();
+        future.addCallback(callback);
+        future.addCompletionHook(hook);
+        assertTrue(future.cancel(false));
+        assertTrue(future.isCancelled());
+        assertFalse(future.setResult("late"));
+        try {
+            future.get();
+            fail();
+        }
+        catch (CancellationException e) {
+            // expected
+        }
+        assertTrue(outcomes.isEmpty());
+
+        // completion hooks run on cancellation even though callbacks do not
+        assertEquals(4, hooks.get());
+
+        // a callback which throws neither stops the other callbacks nor the completion hooks
+        outcomes.clear();
+        final IllegalStateException callbackError = new IllegalStateException();
+        future = new StorageFuture<String>();
+        future.addCallback(new StorageCallback<String>() {
+            @Override
+            public void onSuccess(String result) {
+                throw callbackError;
+            }
+
+            @Override
+            public void onFailure(StorageException exception) {
+                throw callbackError;
+            }
+        });
+        future.addCallback(callback);
+        future.addCompletionHook(hook);
+
+        // the exception is reported to the completing thread's uncaught exception handler
+        final ArrayList<Throwable> reported = new ArrayList<Throwable>();
+        final Thread.UncaughtExceptionHandler handler = Thread.currentThread().getUncaughtExceptionHandler();
+        Thread.currentThread().setUncaughtExceptionHandler(new Thread.UncaughtExceptionHandler() {
+            @Override
+            public void uncaughtException(Thread thread, Throwable exception) {
+                reported.add(exception);
+            }
+        });
+        try {
+            assertTrue(future.setResult("thrown"));
+        }
+        finally {
+            Thread.currentThread().setUncaughtExceptionHandler(handler);
+        }
+
+        assertEquals(Arrays.<Throwable> asList(callbackError), reported);
+        assertEquals("thrown", future.get());
+        assertEquals(Arrays.asList("thrown"), outcomes);
+        assertEquals(5, hooks.get());
+    }
+
+    @Test
+    public void testAsyncBlobOperations() throws URISyntaxException, StorageException, IOException,
+            InterruptedException, ExecutionException {
+        CloudBlobContainer container = BlobTestHelper.getRandomContainerReference();
+        try {
+            container.create();
+            final byte[] buffer = BlobTestHelper.getRandomBuffer(1024);
+            CloudBlockBlob blob = container.getBlockBlobReference("testblob" + UUID.randomUUID().toString());
+            blob.uploadFromByteArray(buffer, 0, buffer.length);
+
+            CloudBlockBlob blobRef = container.getBlockBlobReference(blob.getName());
+            blobRef.downloadAttributesAsync(null, null, null).get();
+            assertEquals(buffer.length, blobRef.getProperties().getLength());
+
+            final byte[] downloaded = new byte[buffer.length];
+            assertEquals(buffer.length, (int) blobRef.downloadRangeToByteArrayAsync(0, null, downloaded, 0, null,
+                    null, null).get());
+            assertArrayEquals(buffer, downloaded);
+
+            blobRef.deleteAsync(DeleteSnapshotsOption.NONE, null, null, null).get();
+            try {
+                blobRef.downloadAttributesAsync(null, null, null).get();
+                fail();
+            }
+            catch (ExecutionException e) {
+                assertEquals(HttpURLConnection.HTTP_NOT_FOUND, ((StorageException) e.getCause()).getHttpStatusCode());
+            }
+        }
+        finally {
+            container.deleteIfExists();
+        }
+    }
+
+    @Test
+    public void testLatencyHistogramPrecision() {
+        for (long value : new long[] { 0, 1, 63, 64, 65, 1000, 123456, 987654321L, 1L << 40 }) {
+            int index = LatencyHistogram.getBucketIndex(value);
+            long highest = LatencyHistogram.getHighestValueInBucket(index);
+            assertTrue(highest >= value);
+            assertTrue(highest - value <= value / LatencyHistogram.SUB_BUCKET_COUNT);
+            if (index > 0) {
+                assertTrue(LatencyHistogram.getHighestValueInBucket(index - 1) < value);
+            }
+        }
+
+        assertEquals(LatencyHistogram.BUCKET_COUNT - 1, LatencyHistogram.getBucketIndex(Long.MAX_VALUE));
+
+        long[] counts = new long[LatencyHistogram.BUCKET_COUNT];
+        for (int i = 1; i <= 100; i++) {
+            counts[LatencyHistogram.getBucketIndex(i * 1000)]++;
+        }
+
+        long median = LatencyHistogram.getValueAtPercentile(counts, 50);
+        assertTrue(median >= 50000 && median <= 51600);
+        long p99 = LatencyHistogram.getValueAtPercentile(counts, 99);
+        assertTrue(p99 >= 99000 && p99 <= 102200);
+        assertEquals(0, LatencyHistogram.getValueAtPercentile(new long[LatencyHistogram.BUCKET_COUNT], 50));
+    }
+
+    @Test
+    public void testRequestMetrics() throws URISyntaxException, StorageException, IOException {
+        CloudBlobContainer container = BlobTestHelper.getRandomContainerReference();
+        RequestMetrics metrics = new RequestMetrics();
+        container.getServiceClient().setRequestMetrics(metrics);
+        try {
+            container.create();
+            final byte[] buffer = BlobTestHelper.getRandomBuffer(1024);
+            CloudBlockBlob blob = container.getBlockBlobReference("testblob" + UUID.randomUUID().toString());
+            blob.uploadFromByteArray(buffer, 0, buffer.length);
+            for (int i = 0; i < 3; i++) {
+                blob.downloadToByteArray(new byte[buffer.length], 0);
+            }
+
+            try {
+                container.getBlockBlobReference("missing").downloadAttributes();
+                fail();
+            }
+            catch (StorageException e) {
+                assertEquals(HttpURLConnection.HTTP_NOT_FOUND, e.getHttpStatusCode());
+            }
+
+            HashMap<String, RequestMetricsSnapshot> snapshots = new HashMap<String, RequestMetricsSnapshot>();
+            for (RequestMetricsSnapshot snapshot : metrics.getSnapshots()) {
+                assertEquals("blob", snapshot.getService());
+                snapshots.put(snapshot.getOperation() + " " + snapshot.getStatusCode(), snapshot);
+            }
+
+            RequestMetricsSnapshot upload = snapshots.get("PUT " + HttpURLConnection.HTTP_CREATED);
+            assertEquals(buffer.length, upload.getBytesSent());
+
+            RequestMetricsSnapshot download = snapshots.get("GET " + HttpURLConnection.HTTP_OK);
+            assertEquals(3, download.getRequestCount());
+            assertEquals(3 * buffer.length, download.getBytesReceived());
+            assertTrue(download.getLatencyAtPercentileInMicroseconds(50) > 0);
+            assertTrue(download.getLatencyAtPercentileInMicroseconds(100) <= download
+                    .getMaximumLatencyInMicroseconds());
+
+            RequestMetricsSnapshot missing = snapshots.get("HEAD " + HttpURLConnection.HTTP_NOT_FOUND);
+            assertEquals(1, missing.getRequestCount());
+            assertEquals(0, missing.getBytesReceived());
+
+            assertEquals(0, metrics.getRequestsInFlight());
+            metrics.reset();
+            assertTrue(metrics.getSnapshots().isEmpty());
+        }
+        finally {
+            container.getServiceClient().setRequestMetrics(null);
+            container.deleteIfExists();
+        }
+    }
+
+    @Test
+    public void testAdaptiveRequestLimiter() throws URISyntaxException, InterruptedException, MalformedURLException {
+        final AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(8, 4);
+        final CloudBlobClient client = new CloudBlobClient(new URI("http://account.blob.core.windows.net"),
+                StorageCredentialsAnonymous.ANONYMOUS);
+        final URI blobUri = new URI("http://account.blob.core.windows.net/container/blob");
+        final URL blobUrl = blobUri.toURL();
+
+        // the partition limit gates requests to the container
+        ArrayList<AdaptiveRequestLimiter.Permit> permits = new ArrayList<AdaptiveRequestLimiter.Permit>();
+        for (int i = 0; i < 4; i++) {
+            permits.add(limiter.acquire(client, blobUrl));
+        }
+
+        final AtomicInteger acquired = new AtomicInteger();
+        Thread waiter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    limiter.release(limiter.acquire(client, blobUrl), HttpURLConnection.HTTP_OK);
+                    acquired.incrementAndGet();
+                }
+                catch (InterruptedException e) {
+                    // the test fails below
+                }
+            }
+        };
+        waiter.start();
+        waiter.join(100);
+        assertEquals(0, acquired.get());
+
+        // requests to another container only count against the account limit
+        limiter.release(limiter.acquire(client, new URL("http://account.blob.core.windows.net/other/blob")),
+                HttpURLConnection.HTTP_OK);
+
+        // throttling halves the limits once for the requests in flight
+        limiter.release(permits.remove(0), HttpURLConnection.HTTP_UNAVAILABLE);
+        assertEquals(2, limiter.getCurrentLimit(client, blobUri, true));
+        assertEquals(4, limiter.getCurrentLimit(client, blobUri, false));
+        limiter.release(permits.remove(0), HttpURLConnection.HTTP_INTERNAL_ERROR);
+        assertEquals(2, limiter.getCurrentLimit(client, blobUri, true));
+        assertEquals(0, acquired.get());
+
+        // the waiting request is sent once the requests in flight fall below the lowered limit
+        limiter.release(permits.remove(0), HttpURLConnection.HTTP_OK);
+        limiter.release(permits.remove(0), HttpURLConnection.HTTP_OK);
+        waiter.join(1000);
+        assertEquals(1, acquired.get());
+
+        // a request sent after the limit was lowered lowers it again, and responses raise it back
+        limiter.release(limiter.acquire(client, blobUrl), HttpURLConnection.HTTP_UNAVAILABLE);
+        assertEquals(1, limiter.getCurrentLimit(client, blobUri, true));
+        for (int i = 0; i < 2; i++) {
+            limiter.release(limiter.acquire(client, blobUrl), HttpURLConnection.HTTP_OK);
+        }
+        assertEquals(2, limiter.getCurrentLimit(client, blobUri, true));
+
+        // responses without a status code leave the limits unchanged
+        limiter.release(limiter.acquire(client, blobUrl), -1);
+        assertEquals(2, limiter.getCurrentLimit(client, blobUri, true));
+    }
+
+    @Test
+    public void testAdaptiveRequestLimiterDiscardedScope() throws URISyntaxException, InterruptedException,
+            MalformedURLException {
+        final AdaptiveRequestLimiter limiter = new AdaptiveRequestLimiter(8, 1);
+        final CloudBlobClient client = new CloudBlobClient(new URI("http://account.blob.core.windows.net"),
+                StorageCredentialsAnonymous.ANONYMOUS);
+        final URL blobUrl = new URL("http://account.blob.core.windows.net/container/blob");
+        final AdaptiveRequestLimiter.Permit permit = limiter.acquire(client, blobUrl);
+
+        final AtomicInteger acquired = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final Runnable request = new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    final AdaptiveRequestLimiter.Permit requestPermit = limiter.acquire(client, blobUrl);
+                    acquired.incrementAndGet();
+                    release.await();
+                    limiter.release(requestPermit, HttpURLConnection.HTTP_OK);
+                }
+                catch (InterruptedException e) {
+                    // the test fails below
+                }
+            }
+        };
+
+        final Thread waiter = new Thread(request);
+        waiter.start();
+        waiter.join(100);
+        assertEquals(0, acquired.get());
+
+        // releasing the only request discards the idle scope, so the woken waiter counts against its replacement
+        limiter.release(permit, HttpURLConnection.HTTP_OK);
+        Thread.sleep(100);
+        assertEquals(1, acquired.get());
+
+        final Thread later = new Thread(request);
+        later.start();
+        later.join(100);
+        assertEquals(1, acquired.get());
+
+        release.countDown();
+        waiter.join(1000);
+        later.join(1000);
+        assertEquals(2, acquired.get());
+    }
+
+    @Test
+    public void testRetryDecorrelatedJitterRetry() {
+        OperationContext opContext = new OperationContext();
+        RetryPolicy policy = new RetryDecorrelatedJitterRetry(100, 1000, 10).createInstance(opContext);
+
+        for (int i = 0; i < 10; i++) {
+            RetryInfo retryInfo = policy.evaluate(createRetryContext(i, HttpURLConnection.HTTP_UNAVAILABLE), opContext);
+            assertNotNull(retryInfo);
+
+            // the time since the failed attempt is subtracted from the interval
+            assertTrue(retryInfo.getRetryInterval() > 50);
+            assertTrue(retryInfo.getRetryInterval() <= 1000);
+        }
+
+        assertNull(policy.evaluate(createRetryContext(10, HttpURLConnection.HTTP_UNAVAILABLE), opContext));
+        policy = new RetryDecorrelatedJitterRetry(100, 1000, 10).createInstance(opContext);
+        assertNull(policy.evaluate(createRetryContext(0, HttpURLConnection.HTTP_NOT_FOUND), opContext));
+    }
+
+    @Test
+    public void testRetryBudget() {
+        OperationContext opContext = new OperationContext();
+        RetryBudget budget = new RetryBudget(10, 0, 2);
+        RetryBudgetedRetry budgetedRetry = new RetryBudgetedRetry(new RetryLinearRetry(0, 10), budget);
+
+        // the budget starts full and allows retries until it is exhausted
+        RetryPolicy policy = budgetedRetry.createInstance(opContext);
+        assertNotNull(policy.evaluate(createRetryContext(0, HttpURLConnection.HTTP_UNAVAILABLE), opContext));
+        assertNotNull(policy.evaluate(createRetryContext(1, HttpURLConnection.HTTP_UNAVAILABLE), opContext));
+        assertNull(policy.evaluate(createRetryContext(2, HttpURLConnection.HTTP_UNAVAILABLE), opContext));
+        assertEquals(1, budget.getDeniedRetryCount());
+
+        // operations which are not retried do not take from the budget
+        assertNull(policy.evaluate(createRetryContext(2, HttpURLConnection.HTTP_CONFLICT), opContext));
+        assertEquals(1, budget.getDeniedRetryCount());
+
+        // each operation adds a tenth of a retry
+        for (int i = 0; i < 15; i++) {
+            budgetedRetry.createInstance(opContext);
+        }
+
+        policy = budgetedRetry.createInstance(opContext);
+        assertEquals(1.6, budget.getBalance(), 0.001);
+        assertNotNull(policy.evaluate(createRetryContext(0, HttpURLConnection.HTTP_UNAVAILABLE), opContext));
+        assertNull(policy.evaluate(createRetryContext(1, HttpURLConnection.HTTP_UNAVAILABLE), opContext));
+        assertEquals(2, budget.getDeniedRetryCount());
+    }
+
+    @Test
+    public void testHedgingPolicyDelay() {
+        HedgingPolicy policy = new HedgingPolicy(90, 5, 100);
+        assertEquals(100, policy.getHedgingDelayInMs());
+
+        // the delay follows the percentile once enough latencies are recorded
+        for (int i = 1; i <= 20; i++) {
+            policy.recordLatency(i * 10);
+        }
+
+        assertEquals(150, policy.getHedgingDelayInMs());
+
+        // older latencies age out, and the delay is at least the minimum
+        for (int i = 0; i < 256; i++) {
+            policy.recordLatency(1);
+        }
+
+        assertEquals(5, policy.getHedgingDelayInMs());
+    }
+
+    @Test
+    public void testConnectionManagerLimits() throws IOException, InterruptedException {
+        // the keep-alive cache of the JDK is left as it was configured at startup
+        final String maxConnections = System.getProperty("http.maxConnections");
+        final ConnectionManager manager = new ConnectionManager(2);
+        assertEquals(2, manager.getMaximumConnectionsPerHost());
+        assertEquals(maxConnections, System.getProperty("http.maxConnections"));
+        assertTrue(ConnectionManager.getMaximumIdleConnectionsPerHost() >= 1);
+
+        final URL url = new URL("http://account.blob.core.windows.net/container/blob");
+        final URL otherUrl = new URL("http://other.blob.core.windows.net/container/blob");
+        manager.acquire((HttpURLConnection) url.openConnection(), null);
+        manager.acquire((HttpURLConnection) url.openConnection(), null);
+
+        // each host is limited separately
+        manager.acquire((HttpURLConnection) otherUrl.openConnection(), null);
+        manager.release(otherUrl);
+        assertEquals(2, manager.getConnectionsInUse());
+
+        // the wait for a connection is bounded by the timeout of the request
+        final BlobRequestOptions options = new BlobRequestOptions();
+        options.setTimeoutIntervalInMs(100);
+        try {
+            manager.acquire((HttpURLConnection) url.openConnection(), options);
+            fail();
+        }
+        catch (SocketTimeoutException e) {
+            assertEquals(SR.CONNECTION_WAIT_TIMEOUT, e.getMessage());
+        }
+        assertEquals(2, manager.getConnectionsInUse());
+
+        // a third request to the same host waits for a connection to be released
+        final AtomicInteger acquired = new AtomicInteger();
+        final Thread waiter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    manager.acquire((HttpURLConnection) url.openConnection(), null);
+                    acquired.incrementAndGet();
+                }
+                catch (Exception e) {
+                    // the assertions below fail
+                }
+            }
+        });
+        waiter.start();
+        waiter.join(200);
+        assertEquals(0, acquired.get());
+
+        manager.release(url);
+        waiter.join(5000);
+        assertEquals(1, acquired.get());
+        assertEquals(2, manager.getConnectionsInUse());
+        assertEquals(4, manager.getRequestCount());
+
+        manager.release(url);
+        manager.release(url);
+        assertEquals(0, manager.getConnectionsInUse());
+    }
+
+    private static RetryContext createRetryContext(int currentRetryCount, int statusCode) {
+        RequestResult result = new RequestResult();
+        result.setStatusCode(statusCode);
+        result.setTargetLocation(StorageLocation.PRIMARY);
+        result.setStopDate(new Date());
+        return new RetryContext(currentRetryCount, result, StorageLocation.PRIMARY, LocationMode.PRIMARY_ONLY);
+    }
+
+    private static void updatePeak(AtomicInteger peak, int value) {
+        int current = peak.get();
+        while (value > current && !peak.compareAndSet(current, value)) {
+            current = peak.get();
+        }
+    }
+
     private static String generateRandomContainerName() {
         String containerName = "container" + UUID.randomUUID().toString();
         return containerName.replace("-", "");
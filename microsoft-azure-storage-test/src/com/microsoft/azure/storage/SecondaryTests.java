@@ -16,9 +16,16 @@ package com.microsoft.azure.storage;
 
 import static org.junit.Assert.*;
 
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 
 import org.junit.Test;
@@ -30,6 +37,8 @@ import com.microsoft.azure.storage.TestRunners.DevStoreTests;
 import com.microsoft.azure.storage.TestRunners.SlowTests;
 import com.microsoft.azure.storage.blob.BlobRequestOptions;
 import com.microsoft.azure.storage.blob.BlobTestHelper;
+import com.microsoft.azure.storage.blob.BlobType;
+import com.microsoft.azure.storage.blob.CloudBlob;
 import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.blob.CloudBlobContainer;
 import com.microsoft.azure.storage.blob.CloudBlockBlob;
@@ -37,6 +46,7 @@ import com.microsoft.azure.storage.blob.CloudPageBlob;
 import com.microsoft.azure.storage.blob.DeleteSnapshotsOption;
 import com.microsoft.azure.storage.queue.CloudQueue;
 import com.microsoft.azure.storage.queue.CloudQueueClient;
+import com.microsoft.azure.storage.queue.CloudQueueMessage;
 import com.microsoft.azure.storage.queue.QueueRequestOptions;
 import com.microsoft.azure.storage.queue.QueueTestHelper;
 import com.microsoft.azure.storage.table.CloudTable;
@@ -313,6 +323,81 @@ public class SecondaryTests {
         }
     }
 
+    @Test
+    public void testHedgedReads() throws URISyntaxException, StorageException, IOException {
+        // A hedging delay of zero sends every read to both locations. A new resource may not have reached the
+        // secondary yet, in which case the read to the primary is the one which succeeds.
+        HedgingPolicy hedgingPolicy = new HedgingPolicy(95, 0, 0);
+
+        CloudBlobContainer container = BlobTestHelper.getRandomContainerReference();
+        CloudQueue queue = QueueTestHelper.getRandomQueueReference();
+        try {
+            container.create();
+            CloudBlob blob = BlobTestHelper.uploadNewBlob(container, BlobType.BLOCK_BLOB, "hedged", 1024, null);
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            blob.download(expected);
+
+            BlobRequestOptions blobOptions = new BlobRequestOptions();
+            blobOptions.setHedgingPolicy(hedgingPolicy);
+
+            CloudBlockBlob hedgedBlob = container.getBlockBlobReference(blob.getName());
+            hedgedBlob.downloadAttributes(null, blobOptions, null);
+            BlobTestHelper.assertAreEqual(blob.getProperties(), hedgedBlob.getProperties());
+
+            byte[] buffer = new byte[1024 + 8];
+            assertEquals(512, hedgedBlob.downloadRangeToByteArray(256, 512L, buffer, 8, null, blobOptions, null));
+            assertArrayEquals(Arrays.copyOfRange(expected.toByteArray(), 256, 768), Arrays.copyOfRange(buffer, 8, 520));
+
+            queue.create();
+            queue.addMessage(new CloudQueueMessage("hedged"));
+
+            QueueRequestOptions queueOptions = new QueueRequestOptions();
+            queueOptions.setHedgingPolicy(hedgingPolicy);
+
+            Iterator<CloudQueueMessage> messages = queue.peekMessages(1, queueOptions, null).iterator();
+            assertEquals("hedged", messages.next().getMessageContentAsString());
+            assertFalse(messages.hasNext());
+        }
+        finally {
+            container.deleteIfExists();
+            queue.deleteIfExists();
+        }
+    }
+
+    @Test
+    public void testHedgedParallelDownload() throws URISyntaxException, StorageException, IOException {
+        // Every range of the download is a transfer on the client's scheduler, and at least as many ranges are in
+        // flight as the scheduler has threads, so the hedged requests of the ranges must not need a scheduler thread.
+        CloudBlobContainer container = BlobTestHelper.getRandomContainerReference();
+        File destinationFile = File.createTempFile("hedgedFile", ".tmp");
+        try {
+            container.create();
+            int rangeCount = TransferScheduler.DEFAULT_MAXIMUM_CONCURRENT_TRANSFERS * 2;
+            byte[] buffer = BlobTestHelper.getRandomBuffer(rangeCount * 16 * Constants.KB);
+            CloudBlockBlob blob = container.getBlockBlobReference("hedged");
+            blob.uploadFromByteArray(buffer, 0, buffer.length);
+
+            BlobRequestOptions blobOptions = new BlobRequestOptions();
+            blobOptions.setHedgingPolicy(new HedgingPolicy(95, 0, 0));
+            blobOptions.setConcurrentRequestCount(TransferScheduler.DEFAULT_MAXIMUM_CONCURRENT_TRANSFERS);
+
+            CloudBlockBlob hedgedBlob = container.getBlockBlobReference(blob.getName());
+            hedgedBlob.setStreamMinimumReadSizeInBytes(16 * Constants.KB);
+            hedgedBlob.downloadToFile(destinationFile.getAbsolutePath(), null, blobOptions, null);
+
+            assertEquals(buffer.length, destinationFile.length());
+            byte[] readBuffer = new byte[buffer.length];
+            DataInputStream fis = new DataInputStream(new FileInputStream(destinationFile));
+            fis.readFully(readBuffer);
+            fis.close();
+            assertArrayEquals(buffer, readBuffer);
+        }
+        finally {
+            container.deleteIfExists();
+            destinationFile.delete();
+        }
+    }
+
     @Category(SlowTests.class)
     @Test
     public void testMultiLocationRetriesBlob() throws URISyntaxException, StorageException {
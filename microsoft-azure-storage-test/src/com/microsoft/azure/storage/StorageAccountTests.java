@@ -21,6 +21,7 @@ import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 import java.util.Locale;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
@@ -610,4 +611,46 @@ public class StorageAccountTests {
         byte[] expectedKeyBytes = Base64.decode(accountKeyString);
         assertArrayEquals(expectedKeyBytes, keyBytes);
     }
+
+    @Test
+    public void testStorageKeyConcurrentSigning() throws InvalidKeyException, InterruptedException {
+        final StorageKey storageKey = new StorageKey(Base64.decode(ACCOUNT_KEY));
+        final String expected256 = StorageKey.computeMacSha256(storageKey, "string to sign");
+        final String expected512 = StorageKey.computeMacSha512(storageKey, "string to sign");
+        assertFalse(expected256.equals(StorageKey.computeMacSha256(storageKey, "another string")));
+
+        final AtomicInteger mismatches = new AtomicInteger();
+        final Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int j = 0; j < 500; j++) {
+                            if (!expected256.equals(StorageKey.computeMacSha256(storageKey, "string to sign"))
+                                    || !expected512.equals(StorageKey.computeMacSha512(storageKey, "string to sign"))) {
+                                mismatches.incrementAndGet();
+                            }
+                        }
+                    }
+                    catch (InvalidKeyException e) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, mismatches.get());
+
+        // rotating the key discards the Macs initialized with the old key
+        storageKey.setKey(Base64.encode(new byte[] { 0, 1, 2 }));
+        assertEquals(StorageKey.computeMacSha256(new StorageKey(new byte[] { 0, 1, 2 }), "string to sign"),
+                StorageKey.computeMacSha256(storageKey, "string to sign"));
+        assertFalse(expected256.equals(StorageKey.computeMacSha256(storageKey, "string to sign")));
+    }
 }
@@ -19,13 +19,18 @@ import static org.junit.Assert.*;
 import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
 
@@ -465,6 +470,122 @@ public class CloudBlobContainerTests {
         assertTrue(blobNames.size() == 0);
     }
     
+    /**
+     * List more blobs than fit in a single segment, with and without prefetching the next segment, and check that the
+     * results and their order are the same.
+     * 
+     * @throws URISyntaxException
+     * @throws StorageException
+     * @throws IOException
+     */
+    @Test
+    @Category({ SlowTests.class, DevFabricTests.class, DevStoreTests.class })
+    public void testCloudBlobContainerListBlobsPrefetch() throws StorageException, IOException, URISyntaxException {
+        this.container.create();
+        int numBlobs = 5100;
+        BlobTestHelper.uploadNewBlobs(this.container, BlobType.BLOCK_BLOB, numBlobs, 1, null);
+
+        BlobRequestOptions options = new BlobRequestOptions();
+        ArrayList<String> listed = new ArrayList<String>();
+        for (ListBlobItem blob : this.container.listBlobs(null, true, EnumSet.noneOf(BlobListingDetails.class),
+                options, null)) {
+            listed.add(((CloudBlob) blob).getName());
+        }
+        assertEquals(numBlobs, listed.size());
+
+        options.setPrefetchNextSegment(true);
+        ArrayList<String> prefetched = new ArrayList<String>();
+        for (ListBlobItem blob : this.container.listBlobs(null, true, EnumSet.noneOf(BlobListingDetails.class),
+                options, null)) {
+            prefetched.add(((CloudBlob) blob).getName());
+        }
+        assertEquals(listed, prefetched);
+    }
+
+    /**
+     * List the blobs in a container in parallel, walking the directory hierarchy and listing flat shards.
+     * 
+     * @throws URISyntaxException
+     * @throws StorageException
+     * @throws IOException
+     */
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testCloudBlobContainerListBlobsParallel() throws StorageException, IOException, URISyntaxException {
+        this.container.create();
+        final Set<String> blobNames = new HashSet<String>();
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 4; k++) {
+                    blobNames.add("dir" + i + "/sub" + j + "/blob" + k);
+                }
+            }
+            blobNames.add("dir" + i + "/blob");
+        }
+        blobNames.add("blob");
+
+        for (String blobName : blobNames) {
+            this.container.getBlockBlobReference(blobName).uploadText(blobName);
+        }
+
+        final List<CloudBlockBlob> listedBlobs = Collections.synchronizedList(new ArrayList<CloudBlockBlob>());
+        final Set<String> listedPrefixes = Collections.synchronizedSet(new HashSet<String>());
+        BlobRequestOptions options = new BlobRequestOptions();
+        options.setConcurrentRequestCount(4);
+        options.setTimeoutIntervalInMs(30000);
+        this.container.listBlobsParallel(Collections.singletonList((String) null), false, null,
+                new BlobListingHandler() {
+                    @Override
+                    public void handleSegment(String prefix, ResultSegment<ListBlobItem> segment)
+                            throws StorageException {
+                        listedPrefixes.add(String.valueOf(prefix));
+                        for (ListBlobItem item : segment.getResults()) {
+                            if (item instanceof CloudBlockBlob) {
+                                listedBlobs.add((CloudBlockBlob) item);
+                            }
+                        }
+                    }
+                }, options, null);
+        assertListedBlobNames(blobNames, listedBlobs);
+
+        // The root, three directories and nine subdirectories are each listed.
+        assertEquals(13, listedPrefixes.size());
+
+        listedBlobs.clear();
+        this.container.listBlobsParallel(Arrays.asList("dir0", "dir1", "dir2", "blob"), true, null,
+                new BlobListingHandler() {
+                    @Override
+                    public void handleSegment(String prefix, ResultSegment<ListBlobItem> segment) {
+                        for (ListBlobItem item : segment.getResults()) {
+                            listedBlobs.add((CloudBlockBlob) item);
+                        }
+                    }
+                }, options, null);
+        assertListedBlobNames(blobNames, listedBlobs);
+
+        try {
+            this.container.listBlobsParallel("dir1/", new BlobListingHandler() {
+                @Override
+                public void handleSegment(String prefix, ResultSegment<ListBlobItem> segment) {
+                    throw new IllegalStateException(prefix);
+                }
+            });
+            fail("The handler's exception should be thrown.");
+        }
+        catch (IllegalStateException e) {
+            assertEquals("dir1/", e.getMessage());
+        }
+    }
+
+    private static void assertListedBlobNames(Set<String> expectedNames, List<CloudBlockBlob> listedBlobs)
+            throws URISyntaxException {
+        Set<String> listedNames = new HashSet<String>();
+        for (CloudBlockBlob blob : listedBlobs) {
+            assertTrue(listedNames.add(blob.getName()));
+        }
+        assertEquals(expectedNames, listedNames);
+    }
+
     /**
      * List the blobs in a container with next(). This tests for the item in the changelog: "Fixed a bug for all 
      * listing API's where next() would sometimes throw an exception if hasNext() had not been called even if 
@@ -21,7 +21,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -734,6 +736,51 @@ public class CloudBlockBlobTests {
         assertTrue(callList.size() > 1);
     }
 
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testBlockBlobUploadNonMarkableStreamContentMD5() throws URISyntaxException, StorageException,
+            IOException {
+        final String blockBlobName = BlobTestHelper.generateRandomBlobNameWithPrefix("testBlockBlob");
+        CloudBlockBlob blockBlobRef = this.container.getBlockBlobReference(blockBlobName);
+
+        BlobRequestOptions options = new BlobRequestOptions();
+        options.setStoreBlobContentMD5(true);
+        options.setSingleBlobPutThresholdInBytes(1024 * 1024);
+
+        for (int length : new int[] { 16 * 1024, 3 * 1024 * 1024 + 17 }) {
+            byte[] buffer = BlobTestHelper.getRandomBuffer(length);
+            final int[] bytesRead = new int[1];
+
+            // A stream which does not support mark, so the upload must read it only once.
+            InputStream srcStream = new FilterInputStream(new ByteArrayInputStream(buffer)) {
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    int read = super.read(b, off, len);
+                    if (read > 0) {
+                        bytesRead[0] += read;
+                    }
+                    return read;
+                }
+
+                @Override
+                public boolean markSupported() {
+                    return false;
+                }
+            };
+
+            blockBlobRef.upload(srcStream, -1, null, options, null);
+            assertEquals(length, bytesRead[0]);
+
+            CloudBlockBlob downloadedBlob = this.container.getBlockBlobReference(blockBlobName);
+            ByteArrayOutputStream dstStream = new ByteArrayOutputStream();
+            downloadedBlob.download(dstStream);
+            BlobTestHelper.assertStreamsAreEqual(new ByteArrayInputStream(buffer),
+                    new ByteArrayInputStream(dstStream.toByteArray()));
+            assertEquals(blockBlobRef.getProperties().getContentMD5(), downloadedBlob.getProperties().getContentMD5());
+            assertNotNull(downloadedBlob.getProperties().getContentMD5());
+        }
+    }
+
     @Test
     @Category({ DevFabricTests.class, DevStoreTests.class })
     public void testBlobEmptyHeaderSigningTest() throws URISyntaxException, StorageException, IOException {
@@ -955,6 +1002,45 @@ public class CloudBlockBlobTests {
         blobRef.delete();
     }
 
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testBlobInputStreamReadAhead() throws URISyntaxException, StorageException, IOException {
+        final int blobLength = 5 * 1024 * 1024 + 17;
+        String blobName = BlobTestHelper.generateRandomBlobNameWithPrefix("testblob");
+        final CloudBlockBlob blobRef = this.container.getBlockBlobReference(blobName);
+        blobRef.setStreamMinimumReadSizeInBytes(512 * 1024);
+
+        final byte[] buff = BlobTestHelper.getRandomBuffer(blobLength);
+        final BlobRequestOptions options = new BlobRequestOptions();
+        options.setStoreBlobContentMD5(true);
+        blobRef.upload(new ByteArrayInputStream(buff), blobLength, null, options, null);
+
+        options.setReadAheadRangeCount(3);
+        BlobInputStream blobStream = blobRef.openInputStream(null, options, null);
+        final byte[] readBuffer = new byte[blobLength];
+        int totalRead = 0;
+        int count = 0;
+        while ((count = blobStream.read(readBuffer, totalRead, Math.min(7777, blobLength - totalRead))) > 0) {
+            totalRead += count;
+        }
+
+        assertEquals(blobLength, totalRead);
+        assertArrayEquals(buff, readBuffer);
+        assertEquals(-1, blobStream.read());
+        blobStream.close();
+
+        // Skipping backwards and forwards discards the prefetched ranges which are no longer needed.
+        blobStream = blobRef.openInputStream(null, options, null);
+        blobStream.mark(blobLength);
+        assertEquals(3 * 1024 * 1024, blobStream.skip(3 * 1024 * 1024));
+        assertEquals(buff[3 * 1024 * 1024], (byte) blobStream.read());
+        blobStream.reset();
+        assertEquals(buff[0], (byte) blobStream.read());
+        blobStream.close();
+
+        blobRef.delete();
+    }
+
     @Test
     public void testBlobOutputStream() throws URISyntaxException, StorageException, IOException {
         int blobLengthToUse = 8 * 512;
@@ -1036,7 +1122,75 @@ public class CloudBlockBlobTests {
         //this.doUploadDownloadFileTest(blob, 11 * 1024 * 1024);
     }
 
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testDownloadToFileParallel() throws IOException, StorageException, URISyntaxException {
+        String blobName = BlobTestHelper.generateRandomBlobNameWithPrefix("testblob");
+        final CloudBlockBlob blob = this.container.getBlockBlobReference(blobName);
+        blob.setStreamMinimumReadSizeInBytes(512 * 1024);
+
+        BlobRequestOptions options = new BlobRequestOptions();
+        options.setConcurrentRequestCount(4);
+
+        this.doUploadDownloadFileTest(blob, 0, options);
+        this.doUploadDownloadFileTest(blob, 4097, options);
+        this.doUploadDownloadFileTest(blob, 5 * 1024 * 1024 + 17, options);
+
+        options.setUseTransactionalContentMD5(true);
+        this.doUploadDownloadFileTest(blob, 3 * 1024 * 1024, options);
+    }
+
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testUploadFromFileParallel() throws IOException, StorageException, URISyntaxException {
+        String blobName = BlobTestHelper.generateRandomBlobNameWithPrefix("testblob");
+        final CloudBlockBlob blob = this.container.getBlockBlobReference(blobName);
+        blob.setStreamWriteSizeInBytes(1024 * 1024);
+
+        BlobRequestOptions options = new BlobRequestOptions();
+        options.setConcurrentRequestCount(4);
+        options.setSingleBlobPutThresholdInBytes(1024 * 1024);
+        options.setStoreBlobContentMD5(true);
+        options.setUseTransactionalContentMD5(true);
+
+        int fileSize = 5 * 1024 * 1024 + 17;
+        File sourceFile = File.createTempFile("sourceFile", ".tmp");
+        try {
+            byte[] buffer = BlobTestHelper.getRandomBuffer(fileSize);
+            FileOutputStream fos = new FileOutputStream(sourceFile);
+            fos.write(buffer);
+            fos.close();
+            blob.uploadFromFile(sourceFile.getAbsolutePath(), null, options, null);
+
+            // The file is committed as one block per stream write size, in file order.
+            ArrayList<BlockEntry> blocks = blob.downloadBlockList();
+            assertEquals(6, blocks.size());
+            for (int i = 0; i < blocks.size() - 1; i++) {
+                assertEquals(1024 * 1024, blocks.get(i).getSize());
+            }
+            assertEquals(17, blocks.get(5).getSize());
+
+            CloudBlockBlob downloadedBlob = this.container.getBlockBlobReference(blobName);
+            ByteArrayOutputStream dstStream = new ByteArrayOutputStream();
+            downloadedBlob.download(dstStream);
+            BlobTestHelper.assertStreamsAreEqual(new ByteArrayInputStream(buffer),
+                    new ByteArrayInputStream(dstStream.toByteArray()));
+            assertEquals(blob.getProperties().getContentMD5(), downloadedBlob.getProperties().getContentMD5());
+            assertNotNull(downloadedBlob.getProperties().getContentMD5());
+        }
+        finally {
+            if (sourceFile.exists()) {
+                sourceFile.delete();
+            }
+        }
+    }
+
     private void doUploadDownloadFileTest(CloudBlockBlob blob, int fileSize) throws IOException, StorageException {
+        this.doUploadDownloadFileTest(blob, fileSize, null);
+    }
+
+    private void doUploadDownloadFileTest(CloudBlockBlob blob, int fileSize, BlobRequestOptions downloadOptions)
+            throws IOException, StorageException {
         File sourceFile = File.createTempFile("sourceFile", ".tmp");
         File destinationFile = new File(sourceFile.getParentFile(), "destinationFile.tmp");
 
@@ -1048,7 +1202,7 @@ public class CloudBlockBlobTests {
             fos.close();
             blob.uploadFromFile(sourceFile.getAbsolutePath());
 
-            blob.downloadToFile(destinationFile.getAbsolutePath());
+            blob.downloadToFile(destinationFile.getAbsolutePath(), null, downloadOptions, null);
             assertTrue("Destination file does not exist.", destinationFile.exists());
             assertEquals("Destination file does not match input file.", fileSize, destinationFile.length());
             FileInputStream fis = new FileInputStream(destinationFile);
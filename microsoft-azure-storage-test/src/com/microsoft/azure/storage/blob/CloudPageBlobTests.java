@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.EnumSet;
@@ -867,6 +868,140 @@ public class CloudPageBlobTests {
         }
     }
 
+    @Test
+    public void testUploadSkipEmptyPages() throws StorageException, URISyntaxException, IOException {
+        // pages 0-1, 3 and 6-7 hold data, the other pages of the 16 hold only zeros
+        final byte[] buffer = new byte[16 * 512];
+        final byte[] data = BlobTestHelper.getRandomBuffer(5 * 512);
+        System.arraycopy(data, 0, buffer, 0, 2 * 512);
+        System.arraycopy(data, 2 * 512, buffer, 3 * 512, 512);
+        System.arraycopy(data, 3 * 512, buffer, 6 * 512, 2 * 512);
+
+        final String blobName = BlobTestHelper.generateRandomBlobNameWithPrefix("testblob");
+        final CloudPageBlob blobRef = this.container.getPageBlobReference(blobName);
+        blobRef.setStreamWriteSizeInBytes(4 * 512);
+
+        final BlobRequestOptions options = new BlobRequestOptions();
+        options.setSkipEmptyPages(true);
+        final OperationContext context = new OperationContext();
+        blobRef.upload(new ByteArrayInputStream(buffer), buffer.length, null, options, context);
+
+        // the blob is created, the three runs of data are written and the properties are set
+        assertEquals(5, context.getRequestResults().size());
+
+        final ArrayList<PageRange> actualPageRanges = blobRef.downloadPageRanges();
+        assertEquals(3, actualPageRanges.size());
+        assertEquals(0, actualPageRanges.get(0).getStartOffset());
+        assertEquals(2 * 512 - 1, actualPageRanges.get(0).getEndOffset());
+        assertEquals(3 * 512, actualPageRanges.get(1).getStartOffset());
+        assertEquals(4 * 512 - 1, actualPageRanges.get(1).getEndOffset());
+        assertEquals(6 * 512, actualPageRanges.get(2).getStartOffset());
+        assertEquals(8 * 512 - 1, actualPageRanges.get(2).getEndOffset());
+
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        blobRef.download(outputStream);
+        assertArrayEquals(buffer, outputStream.toByteArray());
+    }
+
+    @Test
+    public void testDownloadToFileSkipEmptyPages() throws StorageException, URISyntaxException, IOException {
+        byte[] buffer = BlobTestHelper.getRandomBuffer(8 * 512);
+
+        String blobName = BlobTestHelper.generateRandomBlobNameWithPrefix("testblob");
+        final CloudPageBlob blobRef = this.container.getPageBlobReference(blobName);
+        blobRef.create(8 * 512);
+
+        // Upload pages 0 and 2-4, the other pages of the blob read as zeros
+        blobRef.uploadPages(new ByteArrayInputStream(buffer, 0, 512), 0, 512);
+        blobRef.uploadPages(new ByteArrayInputStream(buffer, 2 * 512, 3 * 512), 2 * 512, 3 * 512);
+
+        final byte[] expected = new byte[8 * 512];
+        System.arraycopy(buffer, 0, expected, 0, 512);
+        System.arraycopy(buffer, 2 * 512, expected, 2 * 512, 3 * 512);
+
+        // Existing content of the file must not show through the pages which are skipped
+        final File file = File.createTempFile("sparseBlob", ".tmp");
+        FileOutputStream fileStream = new FileOutputStream(file);
+        fileStream.write(BlobTestHelper.getRandomBuffer(10 * 512));
+        fileStream.close();
+
+        try {
+            BlobRequestOptions options = new BlobRequestOptions();
+            options.setSkipEmptyPages(true);
+            OperationContext context = new OperationContext();
+            blobRef.downloadToFile(file.getAbsolutePath(), null, options, context);
+
+            // The attributes and the page ranges are retrieved, then the two page ranges are downloaded
+            assertEquals(4, context.getRequestResults().size());
+
+            final byte[] actual = new byte[(int) file.length()];
+            FileInputStream inputStream = new FileInputStream(file);
+            int read = 0;
+            while (read < actual.length) {
+                read += inputStream.read(actual, read, actual.length - read);
+            }
+            inputStream.close();
+            assertArrayEquals(expected, actual);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testDownloadDiffToFile() throws StorageException, URISyntaxException, IOException {
+        byte[] buffer = BlobTestHelper.getRandomBuffer(8 * 512);
+
+        String blobName = BlobTestHelper.generateRandomBlobNameWithPrefix("testblob");
+        final CloudPageBlob blobRef = this.container.getPageBlobReference(blobName);
+        blobRef.upload(new ByteArrayInputStream(buffer), buffer.length);
+
+        final CloudPageBlob previousSnapshot = (CloudPageBlob) blobRef.createSnapshot();
+        final File file = File.createTempFile("diffBlob", ".tmp");
+        try {
+            previousSnapshot.downloadToFile(file.getAbsolutePath());
+
+            // Write pages 1-2 and clear page 5
+            final byte[] newPages = BlobTestHelper.getRandomBuffer(2 * 512);
+            blobRef.uploadPages(new ByteArrayInputStream(newPages), 512, 2 * 512);
+            blobRef.clearPages(5 * 512, 512);
+            final CloudPageBlob snapshot = (CloudPageBlob) blobRef.createSnapshot();
+
+            final ArrayList<PageRangeDiff> diff = snapshot.downloadPageRangesDiff(previousSnapshot.getSnapshotID());
+            assertEquals(2, diff.size());
+            for (PageRangeDiff range : diff) {
+                if (range.isCleared()) {
+                    assertEquals(5 * 512, range.getStartOffset());
+                    assertEquals(6 * 512 - 1, range.getEndOffset());
+                }
+                else {
+                    assertEquals(512, range.getStartOffset());
+                    assertEquals(3 * 512 - 1, range.getEndOffset());
+                }
+            }
+
+            OperationContext context = new OperationContext();
+            snapshot.downloadDiffToFile(previousSnapshot.getSnapshotID(), file.getAbsolutePath(), null, null, context);
+
+            // The attributes and the changed ranges are retrieved, then the written range is downloaded
+            assertEquals(3, context.getRequestResults().size());
+
+            System.arraycopy(newPages, 0, buffer, 512, 2 * 512);
+            Arrays.fill(buffer, 5 * 512, 6 * 512, (byte) 0);
+            final byte[] actual = new byte[(int) file.length()];
+            FileInputStream inputStream = new FileInputStream(file);
+            int read = 0;
+            while (read < actual.length) {
+                read += inputStream.read(actual, read, actual.length - read);
+            }
+            inputStream.close();
+            assertArrayEquals(buffer, actual);
+        }
+        finally {
+            file.delete();
+        }
+    }
+
     @Test
     public void testUploadDownloadBlobProperties() throws URISyntaxException, StorageException, IOException {
         final int length = 512;
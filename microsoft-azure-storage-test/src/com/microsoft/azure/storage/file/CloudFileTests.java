@@ -20,6 +20,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.security.MessageDigest;
@@ -962,6 +963,99 @@ public class CloudFileTests {
         }
     }
 
+    /**
+     * Test downloading only the ranges of a file which hold data.
+     * 
+     * @throws URISyntaxException
+     * @throws StorageException
+     * @throws IOException
+     */
+    @Test
+    public void testCloudFileDownloadToFileSkipEmptyRanges() throws StorageException, URISyntaxException, IOException {
+        byte[] buffer = FileTestHelper.getRandomBuffer(8 * 512);
+
+        String fileName = FileTestHelper.generateRandomFileName();
+        final CloudFile fileRef = this.share.getRootDirectoryReference().getFileReference(fileName);
+        fileRef.create(8 * 512);
+
+        // Upload pages 0 and 2-4, the other pages of the file read as zeros
+        fileRef.uploadRange(new ByteArrayInputStream(buffer, 0, 512), 0, 512);
+        fileRef.uploadRange(new ByteArrayInputStream(buffer, 2 * 512, 3 * 512), 2 * 512, 3 * 512);
+
+        final byte[] expected = new byte[8 * 512];
+        System.arraycopy(buffer, 0, expected, 0, 512);
+        System.arraycopy(buffer, 2 * 512, expected, 2 * 512, 3 * 512);
+
+        // Existing content of the local file must not show through the ranges which are skipped
+        final File localFile = File.createTempFile("sparseFile", ".tmp");
+        RandomAccessFile local = new RandomAccessFile(localFile, "rw");
+        local.write(FileTestHelper.getRandomBuffer(10 * 512));
+        local.close();
+
+        try {
+            FileRequestOptions options = new FileRequestOptions();
+            options.setSkipEmptyRanges(true);
+            options.setConcurrentRequestCount(2);
+            OperationContext context = new OperationContext();
+            fileRef.downloadToFile(localFile.getAbsolutePath(), null, options, context);
+
+            // The attributes and the ranges are retrieved, then the two ranges are downloaded
+            assertEquals(4, context.getRequestResults().size());
+
+            local = new RandomAccessFile(localFile, "r");
+            final byte[] actual = new byte[(int) local.length()];
+            local.readFully(actual);
+            local.close();
+            assertArrayEquals(expected, actual);
+        }
+        finally {
+            localFile.delete();
+        }
+    }
+
+    /**
+     * Test uploading a file from a local file in parallel ranges.
+     *
+     * @throws URISyntaxException
+     * @throws StorageException
+     * @throws IOException
+     */
+    @Test
+    public void testCloudFileUploadFromFileParallel() throws StorageException, URISyntaxException, IOException {
+        String fileName = FileTestHelper.generateRandomFileName();
+        final CloudFile fileRef = this.share.getRootDirectoryReference().getFileReference(fileName);
+        fileRef.setStreamWriteSizeInBytes(1024 * 1024);
+
+        final int fileSize = 5 * 1024 * 1024 + 17;
+        final byte[] buffer = FileTestHelper.getRandomBuffer(fileSize);
+        final File sourceFile = File.createTempFile("sourceFile", ".tmp");
+        java.io.FileOutputStream fos = new java.io.FileOutputStream(sourceFile);
+        fos.write(buffer);
+        fos.close();
+
+        try {
+            FileRequestOptions options = new FileRequestOptions();
+            options.setConcurrentRequestCount(4);
+            options.setStoreFileContentMD5(true);
+            options.setUseTransactionalContentMD5(true);
+            OperationContext context = new OperationContext();
+            fileRef.uploadFromFile(sourceFile.getAbsolutePath(), null, options, context);
+
+            // The file is created, its six ranges are uploaded, then the MD5 is set
+            assertEquals(8, context.getRequestResults().size());
+
+            final CloudFile downloadedFile = this.share.getRootDirectoryReference().getFileReference(fileName);
+            final byte[] actual = new byte[fileSize];
+            downloadedFile.downloadToByteArray(actual, 0);
+            assertArrayEquals(buffer, actual);
+            assertEquals(fileRef.getProperties().getContentMD5(), downloadedFile.getProperties().getContentMD5());
+            assertNotNull(downloadedFile.getProperties().getContentMD5());
+        }
+        finally {
+            sourceFile.delete();
+        }
+    }
+
     /**
      * Test downloadAttributes.
      * 
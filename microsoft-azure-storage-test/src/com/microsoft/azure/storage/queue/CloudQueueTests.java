@@ -22,13 +22,19 @@ import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.GregorianCalendar;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Random;
+import java.util.Set;
 import java.util.TimeZone;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import org.junit.After;
 import org.junit.Before;
@@ -43,14 +49,17 @@ import com.microsoft.azure.storage.RetryNoRetry;
 import com.microsoft.azure.storage.SendingRequestEvent;
 import com.microsoft.azure.storage.StorageCredentialsSharedAccessSignature;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
+import com.microsoft.azure.storage.StorageCallback;
 import com.microsoft.azure.storage.StorageEvent;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.StorageFuture;
 import com.microsoft.azure.storage.TestHelper;
 import com.microsoft.azure.storage.TestRunners.CloudTests;
 import com.microsoft.azure.storage.TestRunners.DevFabricTests;
 import com.microsoft.azure.storage.TestRunners.DevStoreTests;
 import com.microsoft.azure.storage.TestRunners.SlowTests;
 import com.microsoft.azure.storage.core.PathUtility;
+import com.microsoft.azure.storage.core.SR;
 
 /**
  * Queue Tests
@@ -72,6 +81,190 @@ public class CloudQueueTests {
         this.queue.deleteIfExists();
     }
 
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testQueueAsyncMessageOperations() throws StorageException, InterruptedException, ExecutionException {
+        this.queue.addMessageAsync(new CloudQueueMessage("async message"), 0, 0, null, null).get();
+
+        ArrayList<CloudQueueMessage> messages = this.queue.retrieveMessagesAsync(1, 30, null, null).get();
+        assertEquals(1, messages.size());
+        assertEquals("async message", messages.get(0).getMessageContentAsString());
+
+        this.queue.deleteMessageAsync(messages.get(0), null, null).get();
+        assertTrue(this.queue.retrieveMessagesAsync(1, 30, null, null).get().isEmpty());
+    }
+
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class, SlowTests.class })
+    public void testQueueConsumer() throws StorageException, InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            this.queue.addMessage(new CloudQueueMessage("message" + i));
+        }
+
+        this.queue.addMessage(new CloudQueueMessage("slow"));
+        this.queue.addMessage(new CloudQueueMessage("fail"));
+
+        final Set<String> processed = Collections.synchronizedSet(new HashSet<String>());
+        final CountDownLatch latch = new CountDownLatch(102);
+        QueueConsumer consumer = this.queue.createConsumer(new QueueMessageProcessor() {
+            @Override
+            public void processMessage(CloudQueueMessage message) throws Exception {
+                String content = message.getMessageContentAsString();
+                latch.countDown();
+                if (content.equals("fail")) {
+                    throw new IllegalStateException(content);
+                }
+                else if (content.equals("slow")) {
+                    // outlive the visibility timeout so that the message must be renewed
+                    Thread.sleep(5000);
+                }
+
+                processed.add(content);
+            }
+        }, 8, 2, null, null);
+
+        consumer.start();
+        assertTrue(latch.await(60, TimeUnit.SECONDS));
+        consumer.stop();
+
+        assertEquals(101, processed.size());
+        assertEquals(101, consumer.getProcessedMessageCount());
+        assertEquals(1, consumer.getFailedMessageCount());
+        assertNull(consumer.getLastException());
+
+        try {
+            consumer.start();
+            fail(SR.QUEUE_CONSUMER_ALREADY_STARTED);
+        }
+        catch (IllegalStateException e) {
+            assertEquals(SR.QUEUE_CONSUMER_ALREADY_STARTED, e.getMessage());
+        }
+
+        // the failed message becomes visible again once its visibility timeout expires
+        Thread.sleep(3000);
+        CloudQueueMessage message = this.queue.retrieveMessage();
+        assertEquals("fail", message.getMessageContentAsString());
+        assertEquals(2, message.getDequeueCount());
+        assertNull(this.queue.retrieveMessage());
+    }
+
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testQueueProducer() throws StorageException, InterruptedException, ExecutionException {
+        QueueRequestOptions options = new QueueRequestOptions();
+        options.setConcurrentRequestCount(8);
+        QueueProducer producer = this.queue.createProducer(20, options, null);
+
+        ArrayList<StorageFuture<Void>> futures = new ArrayList<StorageFuture<Void>>();
+        for (int i = 0; i < 100; i++) {
+            futures.add(producer.add(new CloudQueueMessage("message" + i)));
+            assertTrue(producer.getPendingMessageCount() <= 20);
+        }
+
+        producer.close();
+        assertEquals(0, producer.getPendingMessageCount());
+        assertEquals(0, producer.getFailedMessageCount());
+        for (StorageFuture<Void> future : futures) {
+            assertTrue(future.isDone());
+            future.get();
+        }
+
+        this.queue.downloadAttributes();
+        assertEquals(100, this.queue.getApproximateMessageCount());
+
+        try {
+            producer.add(new CloudQueueMessage("closed"));
+            fail(SR.QUEUE_PRODUCER_CLOSED);
+        }
+        catch (IllegalStateException e) {
+            assertEquals(SR.QUEUE_PRODUCER_CLOSED, e.getMessage());
+        }
+    }
+
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testQueueProducerCancel() throws StorageException, InterruptedException {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        OperationContext opContext = new OperationContext();
+        opContext.getSendingRequestEventHandler().addListener(new StorageEvent<SendingRequestEvent>() {
+            @Override
+            public void eventOccurred(SendingRequestEvent eventArg) {
+                sending.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    // let the request proceed
+                }
+            }
+        });
+
+        QueueProducer producer = this.queue.createProducer(1, null, opContext);
+        StorageFuture<Void> future = producer.add(new CloudQueueMessage("cancelled"));
+        assertTrue(sending.await(30, TimeUnit.SECONDS));
+
+        // cancelling the message releases its pending slot while its request is still held
+        assertTrue(future.cancel(false));
+        assertEquals(0, producer.getPendingMessageCount());
+        producer.flush();
+        assertEquals(0, producer.getFailedMessageCount());
+
+        release.countDown();
+        producer.close();
+        assertEquals(0, producer.getPendingMessageCount());
+        assertTrue(future.isCancelled());
+    }
+
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testQueueProducerThrowingCallback() throws StorageException, InterruptedException,
+            ExecutionException {
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        OperationContext opContext = new OperationContext();
+        opContext.getSendingRequestEventHandler().addListener(new StorageEvent<SendingRequestEvent>() {
+            @Override
+            public void eventOccurred(SendingRequestEvent eventArg) {
+                sending.countDown();
+                try {
+                    release.await(30, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException e) {
+                    // let the request proceed
+                }
+            }
+        });
+
+        QueueProducer producer = this.queue.createProducer(1, null, opContext);
+        StorageFuture<Void> future = producer.add(new CloudQueueMessage("callback"));
+        assertTrue(sending.await(30, TimeUnit.SECONDS));
+
+        // the request is held, so the callback is invoked on the thread which completes it
+        future.addCallback(new StorageCallback<Void>() {
+            @Override
+            public void onSuccess(Void result) {
+                throw new IllegalStateException();
+            }
+
+            @Override
+            public void onFailure(StorageException exception) {
+                throw new IllegalStateException();
+            }
+        });
+        release.countDown();
+
+        // a callback which throws does not keep the message pending
+        producer.flush();
+        assertEquals(0, producer.getPendingMessageCount());
+        future.get();
+
+        producer.add(new CloudQueueMessage("after"));
+        producer.close();
+        assertEquals(0, producer.getPendingMessageCount());
+        assertEquals(0, producer.getFailedMessageCount());
+    }
+
     /**
      * Tests queue name validation.
      */
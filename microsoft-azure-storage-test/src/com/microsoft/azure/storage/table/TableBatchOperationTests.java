@@ -25,6 +25,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
 import org.junit.After;
 import org.junit.Before;
@@ -36,6 +37,7 @@ import com.microsoft.azure.storage.RetryNoRetry;
 import com.microsoft.azure.storage.SecondaryTests;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.StorageFuture;
 import com.microsoft.azure.storage.TestRunners.CloudTests;
 import com.microsoft.azure.storage.TestRunners.DevFabricTests;
 import com.microsoft.azure.storage.TestRunners.DevStoreTests;
@@ -736,6 +738,59 @@ public class TableBatchOperationTests {
         }
     }
 
+    @Test
+    public void testBulkWriter() throws StorageException, InterruptedException, ExecutionException {
+        // insert an entity so that inserting it again in the writer fails
+        Class1 existing = TableTestHelper.generateRandomEntity("jxscl_odata");
+        this.table.execute(TableOperation.insert(existing));
+
+        TableBulkWriter writer = this.table.createBulkWriter();
+        ArrayList<StorageFuture<TableResult>> futures = new ArrayList<StorageFuture<TableResult>>();
+        ArrayList<Class1> entities = new ArrayList<Class1>();
+        for (int i = 0; i < 250; i++) {
+            Class1 entity = TableTestHelper.generateRandomEntity(i % 2 == 0 ? "jxscl_odata" : "jxscl_odata_2");
+            entities.add(entity);
+            futures.add(writer.add(TableOperation.insert(entity)));
+        }
+
+        StorageFuture<TableResult> failedFuture = writer.add(TableOperation.insert(existing));
+
+        // operations on the same entity are applied in order
+        Class1 replaced = entities.get(0);
+        replaced.setA("replaced");
+        futures.add(writer.add(TableOperation.insertOrReplace(replaced)));
+        writer.close();
+
+        assertEquals(0, writer.getPendingOperationCount());
+        assertEquals(1, writer.getFailedOperationCount());
+        for (StorageFuture<TableResult> future : futures) {
+            assertEquals(HttpURLConnection.HTTP_NO_CONTENT, future.get().getHttpStatusCode());
+        }
+
+        try {
+            failedFuture.get();
+            fail();
+        }
+        catch (ExecutionException e) {
+            TableServiceException ex = (TableServiceException) e.getCause();
+            assertEquals(HttpURLConnection.HTTP_CONFLICT, ex.getHttpStatusCode());
+            assertEquals(StorageErrorCodeStrings.ENTITY_ALREADY_EXISTS, ex.getErrorCode());
+        }
+
+        Class1 retrieved = this.table.execute(
+                TableOperation.retrieve(replaced.getPartitionKey(), replaced.getRowKey(), Class1.class))
+                .getResultAsType();
+        assertEquals("replaced", retrieved.getA());
+
+        try {
+            writer.add(TableOperation.insert(TableTestHelper.generateRandomEntity("jxscl_odata")));
+            fail(SR.BULK_WRITER_CLOSED);
+        }
+        catch (IllegalStateException e) {
+            assertEquals(SR.BULK_WRITER_CLOSED, e.getMessage());
+        }
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     public void testBatchEmptyQuery() throws StorageException {
@@ -22,6 +22,7 @@ import java.util.Arrays;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
 
 import org.junit.After;
 import org.junit.Before;
@@ -77,6 +78,34 @@ public class TableOperationTests {
         }
     }
 
+    @Test
+    @Category({ DevFabricTests.class, DevStoreTests.class })
+    public void testTableAsyncOperations() throws StorageException, InterruptedException, ExecutionException {
+        Class1 ref = new Class1();
+        ref.setA("foo_A");
+        ref.setB("foo_B");
+        ref.setC("foo_C");
+        ref.setD(new byte[] { 0, 1, 2 });
+        ref.setPartitionKey("jxscl_odata");
+        ref.setRowKey(UUID.randomUUID().toString());
+
+        this.table.executeAsync(TableOperation.insert(ref), null, null).get();
+
+        TableResult result = this.table.executeAsync(
+                TableOperation.retrieve(ref.getPartitionKey(), ref.getRowKey(), Class1.class), null, null).get();
+        Class1 retrieved = result.getResultAsType();
+        assertEquals(ref.getA(), retrieved.getA());
+
+        this.table.executeAsync(TableOperation.delete(retrieved), null, null).get();
+        try {
+            this.table.executeAsync(TableOperation.delete(retrieved), null, null).get();
+            fail();
+        }
+        catch (ExecutionException e) {
+            assertEquals(HttpURLConnection.HTTP_NOT_FOUND, ((StorageException) e.getCause()).getHttpStatusCode());
+        }
+    }
+
     @Test
     public void testRetrieveWithNullResolver() {
         try {
@@ -20,9 +20,14 @@ import java.net.HttpURLConnection;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
@@ -368,6 +373,164 @@ public class TableQueryTests {
         }
     }
 
+    @Test
+    public void testTableQueryStreaming() {
+        TableRequestOptions options = new TableRequestOptions();
+        options.setStreamQueryResults(true);
+
+        for (boolean prefetch : new boolean[] { false, true }) {
+            options.setPrefetchNextSegment(prefetch);
+
+            options.setTablePayloadFormat(TablePayloadFormat.JsonFullMetadata);
+            testTableQueryStreaming(options, false);
+
+            options.setTablePayloadFormat(TablePayloadFormat.Json);
+            testTableQueryStreaming(options, false);
+
+            options.setTablePayloadFormat(TablePayloadFormat.JsonNoMetadata);
+            testTableQueryStreaming(options, false);
+
+            options.setTablePayloadFormat(TablePayloadFormat.JsonNoMetadata);
+            testTableQueryStreaming(options, true);
+        }
+    }
+
+    private void testTableQueryStreaming(TableRequestOptions options, boolean usePropertyResolver) {
+        // Create entity to check against
+        final Class1 randEnt = TableTestHelper.generateRandomEntity(null);
+
+        if (usePropertyResolver) {
+            options.setPropertyResolver(randEnt);
+        }
+
+        // Take 50 so that the 500 entities span several segments
+        final Iterable<Class1> result = table.execute(TableQuery.from(Class1.class).take(50), options, null);
+
+        // Iterate twice to check that each iteration starts from the first segment
+        for (int iteration = 0; iteration < 2; iteration++) {
+            int count = 0;
+            for (Class1 ent : result) {
+                assertEquals(ent.getA(), randEnt.getA());
+                assertEquals(ent.getB(), randEnt.getB());
+                assertEquals(ent.getC(), randEnt.getC());
+                assertTrue(Arrays.equals(ent.getD(), randEnt.getD()));
+                count++;
+            }
+
+            assertEquals(500, count);
+        }
+
+        final Iterable<String> resolved = table.execute(TableQuery.from(Class1.class).take(50),
+                new EntityResolver<String>() {
+                    @Override
+                    public String resolve(String partitionKey, String rowKey, Date timeStamp,
+                            HashMap<String, EntityProperty> properties, String etag) {
+                        assertEquals(properties.get("A").getValueAsString(), randEnt.getA());
+                        return partitionKey + rowKey;
+                    }
+                }, options, null);
+
+        int count = 0;
+        String previous = "";
+        for (String key : resolved) {
+            assertTrue(key.compareTo(previous) > 0);
+            previous = key;
+            count++;
+        }
+
+        assertEquals(500, count);
+        options.setPropertyResolver(null);
+    }
+
+    @Test
+    public void testTableParallelScan() throws StorageException {
+        final List<PartitionKeyRange> ranges = PartitionKeyRange.fromBoundaries(Arrays.asList("javatables_batch_1",
+                "javatables_batch_3"));
+        assertEquals(3, ranges.size());
+        assertEquals("PartitionKey lt 'javatables_batch_1'", ranges.get(0).generateFilterCondition());
+        assertEquals("(PartitionKey ge 'javatables_batch_1') and (PartitionKey lt 'javatables_batch_3')", ranges.get(1)
+                .generateFilterCondition());
+        assertEquals("PartitionKey ge 'javatables_batch_3'", ranges.get(2).generateFilterCondition());
+
+        final Set<String> keys = Collections.synchronizedSet(new HashSet<String>());
+        final TableScanHandler<Class1> handler = new TableScanHandler<Class1>() {
+            @Override
+            public void handleSegment(PartitionKeyRange range, ResultSegment<Class1> segment) {
+                for (Class1 ent : segment.getResults()) {
+                    assertTrue(range.generateFilterCondition(), range.getLowerBound() == null
+                            || ent.getPartitionKey().compareTo(range.getLowerBound()) >= 0);
+                    assertTrue(range.generateFilterCondition(), range.getUpperBound() == null
+                            || ent.getPartitionKey().compareTo(range.getUpperBound()) < 0);
+                    assertTrue(keys.add(ent.getPartitionKey() + ent.getRowKey()));
+                }
+            }
+        };
+
+        // Take 30 so that each range spans several segments
+        TableRequestOptions options = new TableRequestOptions();
+        options.setConcurrentRequestCount(2);
+        table.executeParallel(TableQuery.from(Class1.class).take(30), ranges, handler, options, null);
+        assertEquals(500, keys.size());
+        for (PartitionKeyRange range : ranges) {
+            assertTrue(range.isComplete());
+            assertNull(range.getContinuationToken());
+        }
+
+        // Completed ranges are skipped
+        table.executeParallel(TableQuery.from(Class1.class), ranges, handler);
+        assertEquals(500, keys.size());
+
+        // Sampled ranges cover the table
+        final List<PartitionKeyRange> sampledRanges = table.samplePartitionKeyRanges(4);
+        assertEquals(4, sampledRanges.size());
+        keys.clear();
+        table.executeParallel(TableQuery.from(Class1.class).take(30), sampledRanges, handler);
+        assertEquals(500, keys.size());
+
+        // The filter of the query is combined with the ranges
+        final AtomicInteger resolvedCount = new AtomicInteger();
+        table.executeParallel(TableQuery.from(Class1.class).where("RowKey lt '000010'"), new EntityResolver<String>() {
+            @Override
+            public String resolve(String partitionKey, String rowKey, Date timeStamp,
+                    HashMap<String, EntityProperty> properties, String etag) {
+                return rowKey;
+            }
+        }, PartitionKeyRange.fromBoundaries(Arrays.asList("javatables_batch_2")), new TableScanHandler<String>() {
+            @Override
+            public void handleSegment(PartitionKeyRange range, ResultSegment<String> segment) {
+                resolvedCount.addAndGet(segment.getResults().size());
+            }
+        });
+        assertEquals(50, resolvedCount.get());
+    }
+
+    @Test
+    public void testTableParallelScanEmptyTable() throws StorageException, URISyntaxException {
+        final CloudTable emptyTable = TableTestHelper.getRandomTableReference();
+        emptyTable.createIfNotExists();
+
+        try {
+            // An empty table is covered by a single unbounded range
+            final List<PartitionKeyRange> ranges = emptyTable.samplePartitionKeyRanges(4);
+            assertEquals(1, ranges.size());
+            assertNull(ranges.get(0).getLowerBound());
+            assertNull(ranges.get(0).getUpperBound());
+
+            final AtomicInteger entityCount = new AtomicInteger();
+            emptyTable.executeParallel(TableQuery.from(Class1.class), ranges, new TableScanHandler<Class1>() {
+                @Override
+                public void handleSegment(PartitionKeyRange range, ResultSegment<Class1> segment) {
+                    entityCount.addAndGet(segment.getResults().size());
+                }
+            });
+            assertEquals(0, entityCount.get());
+            assertTrue(ranges.get(0).isComplete());
+        }
+        finally {
+            emptyTable.deleteIfExists();
+        }
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     public void testTableQueryWithDynamicEntity() {
@@ -710,6 +873,14 @@ public class TableQueryTests {
 
         options.setTablePayloadFormat(TablePayloadFormat.JsonNoMetadata);
         testTableQueryWithContinuation(options, true);
+
+        // Request each segment while the previous one is iterated
+        options.setPrefetchNextSegment(true);
+        options.setTablePayloadFormat(TablePayloadFormat.AtomPub);
+        testTableQueryWithContinuation(options, false);
+
+        options.setTablePayloadFormat(TablePayloadFormat.Json);
+        testTableQueryWithContinuation(options, false);
     }
 
     private void testTableQueryWithContinuation(TableRequestOptions options, boolean usePropertyResolver) {
@@ -19,6 +19,7 @@ import static org.junit.Assert.*;
 import java.io.ByteArrayInputStream;
 import java.io.StringReader;
 import java.net.URISyntaxException;
+import java.util.HashMap;
 import java.util.UUID;
 
 import javax.xml.stream.XMLStreamException;
@@ -215,6 +216,35 @@ public class TableSerializerTests {
         ref.assertEquality(retrievedComplexRef);
     }
 
+    @Test
+    public void testReflectionRoundTrip() throws Exception {
+        ComplexEntity ref = new ComplexEntity();
+        ref.setPartitionKey("jxscl_odata");
+        ref.setRowKey(UUID.randomUUID().toString());
+        ref.populateEntity();
+
+        boolean cacheDisabled = TableServiceEntity.isReflectedEntityCacheDisabled();
+        try {
+            // The cached accessors are reused across entities, so round trip several through the same class.
+            for (boolean disable : new boolean[] { false, true }) {
+                TableServiceEntity.setReflectedEntityCacheDisabled(disable);
+                for (int i = 0; i < 3; i++) {
+                    HashMap<String, EntityProperty> properties = TableServiceEntity.writeEntityWithReflection(ref);
+                    assertEquals(13, properties.size());
+
+                    ComplexEntity retrieved = new ComplexEntity();
+                    retrieved.setPartitionKey(ref.getPartitionKey());
+                    retrieved.setRowKey(ref.getRowKey());
+                    TableServiceEntity.readEntityWithReflection(retrieved, properties, null);
+                    ref.assertEquality(retrieved);
+                }
+            }
+        }
+        finally {
+            TableServiceEntity.setReflectedEntityCacheDisabled(cacheDisabled);
+        }
+    }
+
     @SuppressWarnings("deprecation")
     @Test
     public void testDoubles() throws StorageException {
@@ -0,0 +1,386 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a client-side limit on the number of requests in flight to a storage account and to each partition of
+ * the account, which adapts to throttling by the service. Attach a limiter with
+ * {@link ServiceClient#setRequestLimiter(AdaptiveRequestLimiter)}; a single limiter may be shared by several service
+ * clients, and should be shared by all the clients of an account for the account limit to be meaningful.
+ * <p>
+ * Each request is counted against the limit of its account, identified by the host of the request, or by the host
+ * and account name for path-style addresses, and against the limit of its partition: the blob container, queue, file
+ * share, table, or table partition when the PartitionKey is part of the request address. Requests which address no
+ * partition, such as table batches and service-level operations, are counted against the account limit only. A
+ * request waits to be sent until both of its limits allow it.
+ * <p>
+ * The limits are adjusted in the manner of additive-increase, multiplicative-decrease congestion control. When a
+ * request completes with status code 503 (Server Busy) or 500 (Operation Timeout), the limits it was counted against
+ * are halved, at most once for the requests in flight when the throttling began. Each other response raises the
+ * limits by about one request for every limit's worth of responses, up to their maximum. Under throttling, the
+ * requests of all the threads using the limiter are thus slowed together, rather than only the request which was
+ * throttled backing off while the others continue at full rate.
+ * <p>
+ * A request waits on the thread executing it, which for asynchronous operations is a thread of the service client's
+ * {@link TransferScheduler}.
+ */
+public final class AdaptiveRequestLimiter {
+
+    /**
+     * Represents the default maximum number of requests in flight to an account.
+     */
+    public static final int DEFAULT_MAXIMUM_ACCOUNT_REQUESTS = 256;
+
+    /**
+     * Represents the default maximum number of requests in flight to a partition.
+     */
+    public static final int DEFAULT_MAXIMUM_PARTITION_REQUESTS = 64;
+
+    /**
+     * Holds the limits of the accounts and partitions, keyed by scope.
+     */
+    private final ConcurrentHashMap<String, Scope> scopes = new ConcurrentHashMap<String, Scope>();
+
+    /**
+     * Holds the maximum number of requests in flight to an account.
+     */
+    private final int maximumAccountRequests;
+
+    /**
+     * Holds the maximum number of requests in flight to a partition.
+     */
+    private final int maximumPartitionRequests;
+
+    /**
+     * Creates an instance of the <code>AdaptiveRequestLimiter</code> class using the default maximum limits.
+     */
+    public AdaptiveRequestLimiter() {
+        this(DEFAULT_MAXIMUM_ACCOUNT_REQUESTS, DEFAULT_MAXIMUM_PARTITION_REQUESTS);
+    }
+
+    /**
+     * Creates an instance of the <code>AdaptiveRequestLimiter</code> class using the specified maximum limits. The
+     * limits start at their maximum and are only lowered in response to throttling.
+     * 
+     * @param maximumAccountRequests
+     *            An <code>int</code> which represents the maximum number of requests in flight to an account. Must
+     *            be at least 1.
+     * @param maximumPartitionRequests
+     *            An <code>int</code> which represents the maximum number of requests in flight to a partition. Must
+     *            be at least 1.
+     */
+    public AdaptiveRequestLimiter(final int maximumAccountRequests, final int maximumPartitionRequests) {
+        Utility.assertGreaterThanOrEqual("maximumAccountRequests", maximumAccountRequests, 1);
+        Utility.assertGreaterThanOrEqual("maximumPartitionRequests", maximumPartitionRequests, 1);
+        this.maximumAccountRequests = maximumAccountRequests;
+        this.maximumPartitionRequests = maximumPartitionRequests;
+    }
+
+    /**
+     * Gets the maximum number of requests in flight to an account.
+     * 
+     * @return An <code>int</code> which represents the maximum account limit.
+     */
+    public int getMaximumAccountRequests() {
+        return this.maximumAccountRequests;
+    }
+
+    /**
+     * Gets the maximum number of requests in flight to a partition.
+     * 
+     * @return An <code>int</code> which represents the maximum partition limit.
+     */
+    public int getMaximumPartitionRequests() {
+        return this.maximumPartitionRequests;
+    }
+
+    /**
+     * Gets the current limit on the number of requests in flight to the account or partition addressed by the
+     * specified URI.
+     * 
+     * @param client
+     *            The {@link ServiceClient} which addresses the account.
+     * @param uri
+     *            A <code>java.net.URI</code> which addresses the account or partition, such as the URI of a blob.
+     * @param isPartition
+     *            <code>true</code> to get the limit of the partition; <code>false</code> to get the limit of the
+     *            account.
+     * @return An <code>int</code> which represents the current limit, or the maximum limit if the account or
+     *         partition has no requests in flight and has not been throttled.
+     */
+    public int getCurrentLimit(final ServiceClient client, final URI uri, final boolean isPartition) {
+        Utility.assertNotNull("client", client);
+        Utility.assertNotNull("uri", uri);
+        final String accountKey = getAccountKey(uri.getHost(), uri.getRawPath(), client.isUsePathStyleUris());
+        final String key = isPartition ? getPartitionKey(accountKey, uri.getRawPath(), client.isUsePathStyleUris())
+                : accountKey;
+        final Scope scope = key == null ? null : this.scopes.get(key);
+        if (scope != null) {
+            return scope.getLimit();
+        }
+
+        return isPartition ? this.maximumPartitionRequests : this.maximumAccountRequests;
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Waits until the limits of the account and partition of a request allow it to be
+     * sent, and counts it against them.
+     * 
+     * @param client
+     *            the service client making the request
+     * @param url
+     *            the URL of the request
+     * @return a permit which must be passed to {@link #release(Permit, int)} once the request completes
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    public Permit acquire(final ServiceClient client, final URL url) throws InterruptedException {
+        final String accountKey = getAccountKey(url.getHost(), url.getPath(), client.isUsePathStyleUris());
+        final String partitionKey = getPartitionKey(accountKey, url.getPath(), client.isUsePathStyleUris());
+        final Permit permit = new Permit();
+        if (partitionKey != null) {
+            this.acquireScope(partitionKey, this.maximumPartitionRequests, permit, true /* isPartition */);
+        }
+
+        try {
+            this.acquireScope(accountKey, this.maximumAccountRequests, permit, false /* isPartition */);
+        }
+        catch (final InterruptedException e) {
+            if (permit.partition != null) {
+                this.releaseScope(permit.partition, permit.partitionEpoch, -1);
+            }
+
+            throw e;
+        }
+
+        return permit;
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Counts a request as completed and adjusts the limits it was counted against.
+     * 
+     * @param permit
+     *            the permit returned by {@link #acquire(ServiceClient, URL)}
+     * @param statusCode
+     *            the HTTP status code of the response, or -1 if no response was received
+     */
+    public void release(final Permit permit, final int statusCode) {
+        this.releaseScope(permit.account, permit.accountEpoch, statusCode);
+        if (permit.partition != null) {
+            this.releaseScope(permit.partition, permit.partitionEpoch, statusCode);
+        }
+    }
+
+    /**
+     * Waits for a slot in the scope with the specified key, creating the scope if necessary, and records it in the
+     * permit.
+     */
+    private void acquireScope(final String key, final int maximumLimit, final Permit permit,
+            final boolean isPartition) throws InterruptedException {
+        while (true) {
+            Scope scope = this.scopes.get(key);
+            if (scope == null) {
+                final Scope newScope = new Scope(key, maximumLimit);
+                scope = this.scopes.putIfAbsent(key, newScope);
+                if (scope == null) {
+                    scope = newScope;
+                }
+            }
+
+            synchronized (scope) {
+                while (!scope.isDiscarded && scope.requestsInFlight >= (int) scope.limit) {
+                    scope.wait();
+                }
+
+                // The scope may have been discarded while this thread was looking it up or waiting, in which case
+                // the scope which replaces it is looked up again so that its limit applies.
+                if (!scope.isDiscarded) {
+                    scope.requestsInFlight++;
+                    if (isPartition) {
+                        permit.partition = scope;
+                        permit.partitionEpoch = scope.epoch;
+                    }
+                    else {
+                        permit.account = scope;
+                        permit.accountEpoch = scope.epoch;
+                    }
+
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Releases a slot in a scope and adjusts its limit, discarding the scope once it is idle at its maximum limit.
+     */
+    private void releaseScope(final Scope scope, final long acquiredEpoch, final int statusCode) {
+        synchronized (scope) {
+            scope.requestsInFlight--;
+            if (statusCode == HttpURLConnection.HTTP_UNAVAILABLE
+                    || statusCode == HttpURLConnection.HTTP_INTERNAL_ERROR) {
+                // Halve the limit once for the requests which were in flight when the throttling began.
+                if (acquiredEpoch == scope.epoch) {
+                    scope.limit = Math.max(1, scope.limit / 2);
+                    scope.epoch++;
+                }
+            }
+            else if (statusCode > 0) {
+                scope.limit = Math.min(scope.maximumLimit, scope.limit + 1 / scope.limit);
+            }
+
+            if (scope.requestsInFlight == 0 && scope.limit >= scope.maximumLimit) {
+                scope.isDiscarded = true;
+                this.scopes.remove(scope.key, scope);
+            }
+
+            scope.notifyAll();
+        }
+    }
+
+    /**
+     * Gets the key of the account addressed by a request.
+     */
+    private static String getAccountKey(final String host, final String path, final boolean usePathStyleUris) {
+        if (!usePathStyleUris || path == null || path.length() <= 1) {
+            return host;
+        }
+
+        final int end = path.indexOf('/', 1);
+        return host + (end < 0 ? path : path.substring(0, end));
+    }
+
+    /**
+     * Gets the key of the partition addressed by a request, or <code>null</code> if it addresses none.
+     */
+    private static String getPartitionKey(final String accountKey, String path, final boolean usePathStyleUris) {
+        if (path != null && usePathStyleUris) {
+            // Skip the account name.
+            final int accountEnd = path.indexOf('/', 1);
+            path = accountEnd < 0 ? null : path.substring(accountEnd);
+        }
+
+        if (path == null || path.length() <= 1) {
+            return null;
+        }
+
+        int end = path.indexOf('/', 1);
+        String segment = end < 0 ? path.substring(1) : path.substring(1, end);
+
+        // Table entities are addressed as table(PartitionKey='pk',RowKey='rk').
+        final int parenthesis = segment.indexOf('(');
+        if (parenthesis >= 0) {
+            final int partitionKey = segment.indexOf("PartitionKey=", parenthesis);
+            if (partitionKey >= 0) {
+                end = segment.indexOf(',', partitionKey);
+                segment = segment.substring(0, parenthesis) + "/"
+                        + segment.substring(partitionKey, end < 0 ? segment.length() : end);
+            }
+            else {
+                segment = segment.substring(0, parenthesis);
+            }
+        }
+
+        if (segment.length() == 0 || segment.startsWith("$batch")) {
+            return null;
+        }
+
+        return accountKey + "/" + segment;
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Represents the slots a request holds in the limits of its account and partition.
+     */
+    public static final class Permit {
+
+        /**
+         * Holds the scope of the account.
+         */
+        private Scope account;
+
+        /**
+         * Holds the epoch of the account scope when the slot was acquired.
+         */
+        private long accountEpoch;
+
+        /**
+         * Holds the scope of the partition, or <code>null</code>.
+         */
+        private Scope partition;
+
+        /**
+         * Holds the epoch of the partition scope when the slot was acquired.
+         */
+        private long partitionEpoch;
+
+        private Permit() {
+            // Created by acquire.
+        }
+    }
+
+    /**
+     * Holds the limit and the requests in flight of an account or partition. Guarded by its own monitor.
+     */
+    private static final class Scope {
+
+        /**
+         * Holds the key of the scope.
+         */
+        private final String key;
+
+        /**
+         * Holds the maximum limit.
+         */
+        private final int maximumLimit;
+
+        /**
+         * Holds the current limit. Fractional so that it can rise by a fraction of a request per response.
+         */
+        private double limit;
+
+        /**
+         * Holds the number of requests in flight.
+         */
+        private int requestsInFlight;
+
+        /**
+         * Holds the number of times the limit has been halved. A request only halves the limit if it was acquired
+         * since the last time the limit was halved.
+         */
+        private long epoch;
+
+        /**
+         * Indicates whether the scope has been removed from the map and must be looked up again.
+         */
+        private boolean isDiscarded;
+
+        private Scope(final String key, final int maximumLimit) {
+            this.key = key;
+            this.maximumLimit = maximumLimit;
+            this.limit = maximumLimit;
+        }
+
+        private synchronized int getLimit() {
+            return (int) this.limit;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.Map.Entry;
+
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a pool of fixed-size byte buffers shared by the output streams of a service client. A stream borrows a
+ * buffer to accumulate a block, page range or file range, hands it to the upload task without copying it, and the
+ * buffer is returned to the pool once the upload completes.
+ * <p>
+ * The pool retains at most {@link #getMaximumPooledBytes()} bytes of idle buffers, and buffers returned while the pool
+ * is full are left to the garbage collector. Buffers in use are counted separately. By default their number is not
+ * limited, so each stream keeps roughly twice its concurrent request count of buffers in use and the memory held by a
+ * client's transfers grows with the number of streams open at once. A pool created with a maximum number of bytes in
+ * use instead makes {@link #acquire(int)} wait until enough buffers are released, bounding the memory held by the
+ * buffers of all the transfers sharing the pool. A buffer larger than that maximum is lent only while no other buffer
+ * is in use.
+ */
+public final class BufferPool {
+
+    /**
+     * Represents the default maximum number of bytes of idle buffers a pool retains.
+     */
+    public static final long DEFAULT_MAXIMUM_POOLED_BYTES = 64L * Constants.MB;
+
+    /**
+     * Holds the maximum number of bytes of idle buffers this pool retains.
+     */
+    private final long maximumPooledBytes;
+
+    /**
+     * Holds the maximum number of bytes of buffers this pool lends at once, or 0 if it is not limited.
+     */
+    private final long maximumBytesInUse;
+
+    /**
+     * Holds the idle buffers, keyed by buffer length.
+     */
+    private final HashMap<Integer, LinkedList<byte[]>> pooledBuffers = new HashMap<Integer, LinkedList<byte[]>>();
+
+    /**
+     * Holds the number of bytes of idle buffers currently retained.
+     */
+    private long pooledBytes;
+
+    /**
+     * Holds the number of bytes of buffers currently lent.
+     */
+    private long bytesInUse;
+
+    /**
+     * Creates an instance of the <code>BufferPool</code> class using the default maximum number of pooled bytes.
+     */
+    public BufferPool() {
+        this(DEFAULT_MAXIMUM_POOLED_BYTES);
+    }
+
+    /**
+     * Creates an instance of the <code>BufferPool</code> class using the specified maximum number of pooled bytes.
+     *
+     * @param maximumPooledBytes
+     *            A <code>long</code> which represents the maximum number of bytes of idle buffers to retain. Specifying
+     *            0 disables pooling.
+     */
+    public BufferPool(final long maximumPooledBytes) {
+        this(maximumPooledBytes, 0);
+    }
+
+    /**
+     * Creates an instance of the <code>BufferPool</code> class using the specified maximum numbers of pooled bytes and
+     * bytes in use.
+     *
+     * @param maximumPooledBytes
+     *            A <code>long</code> which represents the maximum number of bytes of idle buffers to retain. Specifying
+     *            0 disables pooling.
+     * @param maximumBytesInUse
+     *            A <code>long</code> which represents the maximum number of bytes of buffers to lend at once.
+     *            Specifying 0 does not limit the buffers in use.
+     */
+    public BufferPool(final long maximumPooledBytes, final long maximumBytesInUse) {
+        Utility.assertGreaterThanOrEqual("maximumPooledBytes", maximumPooledBytes, 0);
+        Utility.assertGreaterThanOrEqual("maximumBytesInUse", maximumBytesInUse, 0);
+        this.maximumPooledBytes = maximumPooledBytes;
+        this.maximumBytesInUse = maximumBytesInUse;
+    }
+
+    /**
+     * Gets the maximum number of bytes of idle buffers this pool retains.
+     *
+     * @return A <code>long</code> which represents the maximum number of pooled bytes.
+     */
+    public long getMaximumPooledBytes() {
+        return this.maximumPooledBytes;
+    }
+
+    /**
+     * Gets the number of bytes of idle buffers currently retained by this pool.
+     *
+     * @return A <code>long</code> which represents the number of pooled bytes.
+     */
+    public synchronized long getPooledBytes() {
+        return this.pooledBytes;
+    }
+
+    /**
+     * Gets the maximum number of bytes of buffers this pool lends at once.
+     *
+     * @return A <code>long</code> which represents the maximum number of bytes in use, or 0 if it is not limited.
+     */
+    public long getMaximumBytesInUse() {
+        return this.maximumBytesInUse;
+    }
+
+    /**
+     * Gets the number of bytes of buffers currently lent by this pool.
+     *
+     * @return A <code>long</code> which represents the number of bytes in use.
+     */
+    public synchronized long getBytesInUse() {
+        return this.bytesInUse;
+    }
+
+    /**
+     * Borrows a buffer of the specified length from the pool, allocating a new one if no idle buffer of that length is
+     * available. If the pool limits its bytes in use, waits until lending the buffer would not exceed that limit. The
+     * contents of the returned buffer are undefined.
+     *
+     * @param length
+     *            An <code>int</code> which represents the length of the buffer.
+     * @return A <code>byte</code> array of the specified length.
+     * @throws InterruptedException
+     *             If the thread is interrupted while waiting for buffers to be released.
+     */
+    public byte[] acquire(final int length) throws InterruptedException {
+        Utility.assertGreaterThanOrEqual("length", length, 0);
+        final byte[] buffer;
+        synchronized (this) {
+            while (!this.canLend(length)) {
+                this.wait();
+            }
+
+            buffer = this.lend(length);
+        }
+
+        return buffer != null ? buffer : new byte[length];
+    }
+
+    /**
+     * Borrows a buffer of the specified length from the pool without waiting. A thread which holds buffers it only
+     * releases once it has acquired another should use this method, as waiting for its own buffers would never end.
+     *
+     * @param length
+     *            An <code>int</code> which represents the length of the buffer.
+     * @return A <code>byte</code> array of the specified length, or <code>null</code> if lending it would exceed the
+     *         maximum number of bytes in use.
+     */
+    public byte[] tryAcquire(final int length) {
+        Utility.assertGreaterThanOrEqual("length", length, 0);
+        final byte[] buffer;
+        synchronized (this) {
+            if (!this.canLend(length)) {
+                return null;
+            }
+
+            buffer = this.lend(length);
+        }
+
+        return buffer != null ? buffer : new byte[length];
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use the buffer afterwards. Every buffer borrowed must be
+     * returned, even when its transfer fails, or it remains counted against the maximum number of bytes in use.
+     *
+     * @param buffer
+     *            A <code>byte</code> array previously obtained from {@link #acquire(int)} or {@link #tryAcquire(int)}.
+     */
+    public synchronized void release(final byte[] buffer) {
+        Utility.assertNotNull("buffer", buffer);
+        this.bytesInUse -= buffer.length;
+        if (this.maximumBytesInUse > 0) {
+            this.notifyAll();
+        }
+
+        LinkedList<byte[]> buffers = this.pooledBuffers.get(buffer.length);
+        final long sameLengthBytes = buffers == null ? 0 : (long) buffer.length * buffers.size();
+        if (sameLengthBytes + buffer.length > this.maximumPooledBytes) {
+            return;
+        }
+
+        // Make room by dropping idle buffers of other lengths, which are less likely to be reused.
+        final Iterator<Entry<Integer, LinkedList<byte[]>>> entries = this.pooledBuffers.entrySet().iterator();
+        while (this.pooledBytes + buffer.length > this.maximumPooledBytes) {
+            final Entry<Integer, LinkedList<byte[]>> entry = entries.next();
+            if (entry.getKey() != buffer.length) {
+                this.pooledBytes -= (long) entry.getKey() * entry.getValue().size();
+                entries.remove();
+            }
+        }
+
+        if (buffers == null) {
+            buffers = new LinkedList<byte[]>();
+            this.pooledBuffers.put(buffer.length, buffers);
+        }
+
+        buffers.addFirst(buffer);
+        this.pooledBytes += buffer.length;
+    }
+
+    /**
+     * Indicates whether a buffer of the specified length may be lent. Must be called while holding the pool's lock.
+     */
+    private boolean canLend(final int length) {
+        return this.maximumBytesInUse == 0 || this.bytesInUse == 0
+                || this.bytesInUse + length <= this.maximumBytesInUse;
+    }
+
+    /**
+     * Counts a buffer of the specified length as lent and takes an idle one, or returns <code>null</code> if the caller
+     * must allocate it. Must be called while holding the pool's lock.
+     */
+    private byte[] lend(final int length) {
+        this.bytesInUse += length;
+        final LinkedList<byte[]> buffers = this.pooledBuffers.get(length);
+        if (buffers != null && !buffers.isEmpty()) {
+            this.pooledBytes -= length;
+            return buffers.removeFirst();
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,419 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.URL;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLSocketFactory;
+
+import com.microsoft.azure.storage.core.BaseRequest;
+import com.microsoft.azure.storage.core.SR;
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents the connection settings of the service clients which use it. Attach a connection manager with
+ * {@link ServiceClient#setConnectionManager(ConnectionManager)}; a single manager may be shared by several service
+ * clients.
+ * <p>
+ * The service clients send requests with <code>HttpURLConnection</code>, whose connections are kept alive and reused
+ * by the JDK. A connection manager controls that reuse:
+ * <ul>
+ * <li>At most the maximum number of connections per host are in use at once; further requests to the host wait for a
+ * connection to be released, for no longer than the timeout interval of the request or the time left before its
+ * maximum execution time. Connections which are not in use are returned to the JDK's keep-alive cache.</li>
+ * <li>The JDK keeps at most <code>http.maxConnections</code> idle connections to each host, 5 by default, and closes
+ * any others once their request completes. The JDK reads that system property once, when the first connection of the
+ * JVM is made, so a manager does not change it. Set it when starting the JVM, for example with
+ * <code>-Dhttp.maxConnections=64</code>, so that connections are not closed and reopened under load;
+ * {@link #getMaximumIdleConnectionsPerHost()} reports the value. Idle connections are closed by the JDK after the
+ * keep-alive time sent by the service, or 5 seconds.</li>
+ * <li>{@link #warmUp(ServiceClient, int)} opens connections to the service ahead of the first requests, so that they do
+ * not wait for TLS handshakes.</li>
+ * <li>The number of requests and of new HTTPS connections are counted; the difference is the number of requests which
+ * reused a connection. For this, HTTPS requests use a socket factory of the manager which wraps the default socket
+ * factory at the time the manager is created.</li>
+ * </ul>
+ */
+public final class ConnectionManager {
+
+    /**
+     * Represents the default maximum number of connections in use to a host.
+     */
+    public static final int DEFAULT_MAXIMUM_CONNECTIONS_PER_HOST = 64;
+
+    /**
+     * The system property which sets the number of idle connections the JDK keeps alive to each host.
+     */
+    private static final String MAX_CONNECTIONS_PROPERTY = "http.maxConnections";
+
+    /**
+     * The number of idle connections the JDK keeps alive to each host when the system property is not set.
+     */
+    private static final int DEFAULT_MAX_CONNECTIONS = 5;
+
+    /**
+     * Holds the maximum number of connections in use to a host.
+     */
+    private final int maximumConnectionsPerHost;
+
+    /**
+     * Holds the connections available to each host, keyed by host and port.
+     */
+    private final ConcurrentHashMap<String, Semaphore> hosts = new ConcurrentHashMap<String, Semaphore>();
+
+    /**
+     * Holds the socket factory of the HTTPS connections, which counts the connections it opens.
+     */
+    private final CountingSocketFactory socketFactory;
+
+    /**
+     * Holds the number of requests sent.
+     */
+    private final AtomicLong requestCount = new AtomicLong();
+
+    /**
+     * Holds the number of connections in use.
+     */
+    private final AtomicInteger connectionsInUse = new AtomicInteger();
+
+    /**
+     * Creates an instance of the <code>ConnectionManager</code> class using the default maximum number of connections
+     * per host.
+     */
+    public ConnectionManager() {
+        this(DEFAULT_MAXIMUM_CONNECTIONS_PER_HOST);
+    }
+
+    /**
+     * Creates an instance of the <code>ConnectionManager</code> class using the specified maximum number of
+     * connections per host.
+     * 
+     * @param maximumConnectionsPerHost
+     *            The maximum number of connections in use to a host. The host of an account endpoint is specific to
+     *            the account and service, so this limits the connections to each endpoint.
+     */
+    public ConnectionManager(final int maximumConnectionsPerHost) {
+        Utility.assertGreaterThanOrEqual("maximumConnectionsPerHost", maximumConnectionsPerHost, 1);
+        this.maximumConnectionsPerHost = maximumConnectionsPerHost;
+        this.socketFactory = new CountingSocketFactory(HttpsURLConnection.getDefaultSSLSocketFactory());
+    }
+
+    /**
+     * Gets the number of idle connections the JDK keeps alive to each host, as set by the
+     * <code>http.maxConnections</code> system property. The JDK reads the property when the first connection of the
+     * JVM is made, so a value set after that has no effect; set it when starting the JVM. When the value is lower than
+     * the maximum number of connections per host, connections beyond it are closed once their request completes.
+     * 
+     * @return An <code>int</code> which represents the number of idle connections kept alive to each host.
+     */
+    public static int getMaximumIdleConnectionsPerHost() {
+        final int maxConnections = Integer.getInteger(MAX_CONNECTIONS_PROPERTY, DEFAULT_MAX_CONNECTIONS);
+        return maxConnections > 0 ? maxConnections : DEFAULT_MAX_CONNECTIONS;
+    }
+
+    /**
+     * Gets the maximum number of connections in use to a host.
+     * 
+     * @return An <code>int</code> which represents the maximum number of connections per host.
+     */
+    public int getMaximumConnectionsPerHost() {
+        return this.maximumConnectionsPerHost;
+    }
+
+    /**
+     * Gets the number of requests sent through this manager.
+     * 
+     * @return A <code>long</code> which represents the number of requests.
+     */
+    public long getRequestCount() {
+        return this.requestCount.get();
+    }
+
+    /**
+     * Gets the number of HTTPS connections opened by this manager. Each is a TLS handshake; requests which are not
+     * counted here reused a connection which was kept alive.
+     * 
+     * @return A <code>long</code> which represents the number of new connections.
+     */
+    public long getNewConnectionCount() {
+        return this.socketFactory.socketCount.get();
+    }
+
+    /**
+     * Gets the number of connections in use.
+     * 
+     * @return An <code>int</code> which represents the number of connections in use.
+     */
+    public int getConnectionsInUse() {
+        return this.connectionsInUse.get();
+    }
+
+    /**
+     * Opens connections to the primary endpoint of a service client, so that its first requests do not wait for
+     * connections to be established. Each connection sends an anonymous <code>HEAD</code> request, which the service
+     * rejects without a response body, and is then kept alive by the JDK. This method returns once the connections are
+     * open or have failed; failures are ignored.
+     * 
+     * @param client
+     *            The {@link ServiceClient} whose endpoint to connect to. The client should use this manager.
+     * @param connectionCount
+     *            The number of connections to open, which is bounded by the maximum number of connections per host
+     *            and by <code>http.maxConnections</code>.
+     */
+    public void warmUp(final ServiceClient client, final int connectionCount) {
+        Utility.assertNotNull("client", client);
+        Utility.assertGreaterThanOrEqual("connectionCount", connectionCount, 1);
+
+        final URI endpoint = client.getEndpoint();
+        final int count = Math.min(connectionCount, this.maximumConnectionsPerHost);
+        final CountDownLatch connected = new CountDownLatch(count);
+        final Thread[] threads = new Thread[count];
+
+        // Every connection is opened before any request completes, so that none of them is reused for another.
+        for (int i = 0; i < count; i++) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    ConnectionManager.this.openConnection(client, endpoint, connected);
+                }
+            }, "azure-storage-connection-warm-up");
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+
+        try {
+            for (final Thread thread : threads) {
+                thread.join();
+            }
+        }
+        catch (final InterruptedException e) {
+            // Restore the interrupted status
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Waits for a connection to the host of a request to be available, and prepares the
+     * request to be sent through this manager. The wait is bounded by the timeout interval of the request and by the
+     * time left before its maximum execution time. The connection must be released with {@link #release(URL)} once the
+     * response has been read.
+     * 
+     * @param request
+     *            The <code>HttpURLConnection</code> of the request, which must not yet be connected.
+     * @param options
+     *            A {@link RequestOptions} object which specifies the timeouts of the request, or <code>null</code> to
+     *            wait without a limit.
+     * @throws InterruptedException
+     *             If the thread is interrupted while waiting.
+     * @throws SocketTimeoutException
+     *             If no connection to the host was released in time. The request may be retried as one whose
+     *             connection attempt timed out.
+     */
+    public void acquire(final HttpURLConnection request, final RequestOptions options) throws InterruptedException,
+            SocketTimeoutException {
+        final Semaphore host = this.getHost(request.getURL());
+        final long timeoutInMs = getWaitTimeoutInMs(options);
+        if (timeoutInMs < 0) {
+            host.acquire();
+        }
+        else if (!host.tryAcquire(timeoutInMs, TimeUnit.MILLISECONDS)) {
+            throw new SocketTimeoutException(SR.CONNECTION_WAIT_TIMEOUT);
+        }
+
+        this.connectionsInUse.incrementAndGet();
+        this.requestCount.incrementAndGet();
+
+        if (request instanceof HttpsURLConnection) {
+            ((HttpsURLConnection) request).setSSLSocketFactory(this.socketFactory);
+        }
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Releases the connection of a request acquired with
+     * {@link #acquire(HttpURLConnection)}.
+     * 
+     * @param url
+     *            The <code>URL</code> of the request.
+     */
+    public void release(final URL url) {
+        this.connectionsInUse.decrementAndGet();
+        this.getHost(url).release();
+    }
+
+    /**
+     * Gets the number of milliseconds a request may wait for a connection, or -1 if it may wait without a limit.
+     */
+    private static long getWaitTimeoutInMs(final RequestOptions options) {
+        long timeoutInMs = -1;
+        if (options != null) {
+            final Integer timeoutIntervalInMs = options.getTimeoutIntervalInMs();
+            if (timeoutIntervalInMs != null && timeoutIntervalInMs > 0) {
+                timeoutInMs = timeoutIntervalInMs;
+            }
+
+            final Long operationExpiryTimeInMs = options.getOperationExpiryTimeInMs();
+            if (operationExpiryTimeInMs != null) {
+                final long remainingTimeInMs = Math.max(0, operationExpiryTimeInMs - new Date().getTime());
+                timeoutInMs = timeoutInMs < 0 ? remainingTimeInMs : Math.min(timeoutInMs, remainingTimeInMs);
+            }
+        }
+
+        return timeoutInMs;
+    }
+
+    /**
+     * Gets the connections available to the host of a URL, creating them if necessary.
+     */
+    private Semaphore getHost(final URL url) {
+        final String key = url.getProtocol() + "://" + url.getHost() + ":" + url.getPort();
+        Semaphore host = this.hosts.get(key);
+        if (host == null) {
+            final Semaphore newHost = new Semaphore(this.maximumConnectionsPerHost);
+            host = this.hosts.putIfAbsent(key, newHost);
+            if (host == null) {
+                host = newHost;
+            }
+        }
+
+        return host;
+    }
+
+    /**
+     * Opens a connection for {@link #warmUp(ServiceClient, int)}.
+     */
+    private void openConnection(final ServiceClient client, final URI endpoint, final CountDownLatch connected) {
+        HttpURLConnection request = null;
+        boolean isAcquired = false;
+        try {
+            request = BaseRequest.createURLConnection(endpoint, client.getDefaultRequestOptions(), null,
+                    new OperationContext());
+            request.setRequestMethod("HEAD");
+            this.acquire(request, client.getDefaultRequestOptions());
+            isAcquired = true;
+            request.connect();
+        }
+        catch (final Exception e) {
+            // The connection is not warmed up; requests will open it when they need it.
+        }
+        finally {
+            connected.countDown();
+        }
+
+        try {
+            connected.await();
+            if (isAcquired) {
+                request.getResponseCode();
+                final InputStream errorStream = request.getErrorStream();
+                if (errorStream != null) {
+                    errorStream.close();
+                }
+            }
+        }
+        catch (final InterruptedException e) {
+            // The thread is only interrupted if the caller was.
+        }
+        catch (final IOException e) {
+            // The connection is not warmed up; requests will open it when they need it.
+        }
+        finally {
+            if (isAcquired) {
+                this.release(request.getURL());
+            }
+        }
+    }
+
+    /**
+     * Represents an SSL socket factory which counts the sockets it creates.
+     */
+    private static final class CountingSocketFactory extends SSLSocketFactory {
+        /**
+         * Holds the socket factory which creates the sockets.
+         */
+        private final SSLSocketFactory factory;
+
+        /**
+         * Holds the number of sockets created.
+         */
+        private final AtomicLong socketCount = new AtomicLong();
+
+        private CountingSocketFactory(final SSLSocketFactory factory) {
+            this.factory = factory;
+        }
+
+        @Override
+        public String[] getDefaultCipherSuites() {
+            return this.factory.getDefaultCipherSuites();
+        }
+
+        @Override
+        public String[] getSupportedCipherSuites() {
+            return this.factory.getSupportedCipherSuites();
+        }
+
+        @Override
+        public Socket createSocket() throws IOException {
+            return this.count(this.factory.createSocket());
+        }
+
+        @Override
+        public Socket createSocket(final Socket socket, final String host, final int port, final boolean autoClose)
+                throws IOException {
+            return this.count(this.factory.createSocket(socket, host, port, autoClose));
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port) throws IOException, UnknownHostException {
+            return this.count(this.factory.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(final String host, final int port, final InetAddress localHost, final int localPort)
+                throws IOException, UnknownHostException {
+            return this.count(this.factory.createSocket(host, port, localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress host, final int port) throws IOException {
+            return this.count(this.factory.createSocket(host, port));
+        }
+
+        @Override
+        public Socket createSocket(final InetAddress address, final int port, final InetAddress localAddress,
+                final int localPort) throws IOException {
+            return this.count(this.factory.createSocket(address, port, localAddress, localPort));
+        }
+
+        private Socket count(final Socket socket) {
+            this.socketCount.incrementAndGet();
+            return socket;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.util.Arrays;
+
+import com.microsoft.azure.storage.core.SR;
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a policy for hedged reads against the secondary location of a read-access geo-redundant storage account.
+ * Set a hedging policy with {@link RequestOptions#setHedgingPolicy(HedgingPolicy)}.
+ * <p>
+ * A hedged read is sent to the primary location first. If the primary has not responded within the hedging delay, the
+ * same read is also sent to the secondary location, and whichever completes first is used; the other is abandoned. The
+ * hedging delay follows the latency of the primary location: it is the given percentile of the most recent reads made
+ * with this policy, but no less than the minimum delay. Until enough reads have been made, the initial delay is used.
+ * <p>
+ * Hedging at the 95th percentile sends about one read in twenty to the secondary as well, and bounds the latency of
+ * the slowest reads by that of the secondary. The secondary location may lag behind the primary, so a hedged read may
+ * return data which is not the most recent. Share one policy between the requests of a workload so they learn its
+ * latency together.
+ */
+public final class HedgingPolicy {
+
+    /**
+     * Represents the default latency percentile, of the primary location, after which a read is hedged.
+     */
+    public static final double DEFAULT_LATENCY_PERCENTILE = 95;
+
+    /**
+     * Represents the default minimum hedging delay, in milliseconds.
+     */
+    public static final int DEFAULT_MINIMUM_DELAY_IN_MS = 10;
+
+    /**
+     * Represents the default hedging delay, in milliseconds, used until enough reads have been made.
+     */
+    public static final int DEFAULT_INITIAL_DELAY_IN_MS = 250;
+
+    /**
+     * The number of latencies kept for computing the hedging delay.
+     */
+    private static final int SAMPLE_COUNT = 256;
+
+    /**
+     * The number of latencies recorded between updates of the hedging delay. The first update is made once this many
+     * latencies have been recorded.
+     */
+    private static final int UPDATE_INTERVAL = 16;
+
+    /**
+     * Holds the latency percentile after which a read is hedged.
+     */
+    private final double latencyPercentile;
+
+    /**
+     * Holds the minimum hedging delay, in milliseconds.
+     */
+    private final int minimumDelayInMs;
+
+    /**
+     * Holds the hedging delay, in milliseconds, used until enough reads have been made.
+     */
+    private final int initialDelayInMs;
+
+    /**
+     * Holds the most recent latencies, in milliseconds, as a ring.
+     */
+    private final long[] samples = new long[SAMPLE_COUNT];
+
+    /**
+     * Holds the total number of latencies recorded.
+     */
+    private long recordedCount;
+
+    /**
+     * Holds the current hedging delay, in milliseconds.
+     */
+    private long hedgingDelayInMs;
+
+    /**
+     * Creates an instance of the <code>HedgingPolicy</code> class using the default latency percentile, minimum delay
+     * and initial delay.
+     */
+    public HedgingPolicy() {
+        this(DEFAULT_LATENCY_PERCENTILE, DEFAULT_MINIMUM_DELAY_IN_MS, DEFAULT_INITIAL_DELAY_IN_MS);
+    }
+
+    /**
+     * Creates an instance of the <code>HedgingPolicy</code> class using the specified latency percentile, minimum delay
+     * and initial delay.
+     * 
+     * @param latencyPercentile
+     *            The percentile of the latency of the primary location after which a read is hedged, greater than 0
+     *            and at most 100.
+     * @param minimumDelayInMs
+     *            The minimum hedging delay, in milliseconds.
+     * @param initialDelayInMs
+     *            The hedging delay, in milliseconds, used until enough reads have been made.
+     */
+    public HedgingPolicy(final double latencyPercentile, final int minimumDelayInMs, final int initialDelayInMs) {
+        if (latencyPercentile <= 0 || latencyPercentile > 100) {
+            throw new IllegalArgumentException(String.format(SR.PARAMETER_NOT_IN_RANGE, "latencyPercentile", 0, 100));
+        }
+
+        Utility.assertGreaterThanOrEqual("minimumDelayInMs", minimumDelayInMs, 0);
+        Utility.assertGreaterThanOrEqual("initialDelayInMs", initialDelayInMs, minimumDelayInMs);
+
+        this.latencyPercentile = latencyPercentile;
+        this.minimumDelayInMs = minimumDelayInMs;
+        this.initialDelayInMs = initialDelayInMs;
+        this.hedgingDelayInMs = initialDelayInMs;
+    }
+
+    /**
+     * Gets the percentile of the latency of the primary location after which a read is hedged.
+     * 
+     * @return A <code>double</code> which represents the latency percentile.
+     */
+    public double getLatencyPercentile() {
+        return this.latencyPercentile;
+    }
+
+    /**
+     * Gets the minimum hedging delay.
+     * 
+     * @return An <code>int</code> which represents the minimum hedging delay, in milliseconds.
+     */
+    public int getMinimumDelayInMs() {
+        return this.minimumDelayInMs;
+    }
+
+    /**
+     * Gets the hedging delay used until enough reads have been made.
+     * 
+     * @return An <code>int</code> which represents the initial hedging delay, in milliseconds.
+     */
+    public int getInitialDelayInMs() {
+        return this.initialDelayInMs;
+    }
+
+    /**
+     * Gets the time to wait for the primary location before a read is also sent to the secondary location.
+     * 
+     * @return A <code>long</code> which represents the current hedging delay, in milliseconds.
+     */
+    public synchronized long getHedgingDelayInMs() {
+        return this.hedgingDelayInMs;
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Records the latency of a hedged read. A read which was answered by the secondary
+     * location is recorded with the time it took, which is less than the latency of the primary location would have
+     * been.
+     * 
+     * @param latencyInMs
+     *            The latency of the read, in milliseconds.
+     */
+    public synchronized void recordLatency(final long latencyInMs) {
+        this.samples[(int) (this.recordedCount % SAMPLE_COUNT)] = latencyInMs;
+        this.recordedCount++;
+
+        if (this.recordedCount % UPDATE_INTERVAL == 0) {
+            final int count = (int) Math.min(this.recordedCount, SAMPLE_COUNT);
+            final long[] sortedSamples = Arrays.copyOf(this.samples, count);
+            Arrays.sort(sortedSamples);
+
+            final int index = Math.max((int) Math.ceil(this.latencyPercentile / 100 * count) - 1, 0);
+            this.hedgingDelayInMs = Math.max(sortedSamples[index], this.minimumDelayInMs);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RESERVED FOR INTERNAL USE. Records latencies in a fixed set of log-linear buckets, in the manner of an HDR
+ * histogram. Values below {@link #LINEAR_BUCKET_COUNT} have a bucket each; above that, each power of two is split
+ * into {@link #SUB_BUCKET_COUNT} buckets, so a recorded value is known to within about 3%. Recording is a single
+ * atomic increment and never allocates.
+ */
+final class LatencyHistogram {
+
+    /**
+     * Represents the number of buckets each power of two is split into.
+     */
+    static final int SUB_BUCKET_COUNT = 32;
+
+    /**
+     * Represents the number of values below which each value has a bucket of its own.
+     */
+    static final int LINEAR_BUCKET_COUNT = 2 * SUB_BUCKET_COUNT;
+
+    /**
+     * Represents the highest power of two tracked. Larger values are counted in the last bucket.
+     */
+    private static final int MAXIMUM_EXPONENT = 40;
+
+    /**
+     * Represents the exponent of {@link #LINEAR_BUCKET_COUNT}.
+     */
+    private static final int LINEAR_EXPONENT = 6;
+
+    /**
+     * Represents the total number of buckets.
+     */
+    static final int BUCKET_COUNT = LINEAR_BUCKET_COUNT + (MAXIMUM_EXPONENT - LINEAR_EXPONENT + 1) * SUB_BUCKET_COUNT;
+
+    /**
+     * Holds the count of values recorded in each bucket.
+     */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Records a value.
+     * 
+     * @param value
+     *            the value to record. Negative values are recorded as zero.
+     */
+    void record(final long value) {
+        this.counts.incrementAndGet(getBucketIndex(value));
+    }
+
+    /**
+     * Copies the counts of the buckets. Values recorded while the copy is made may or may not be included.
+     * 
+     * @return an array holding the count of each bucket
+     */
+    long[] copyCounts() {
+        final long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = this.counts.get(i);
+        }
+
+        return copy;
+    }
+
+    /**
+     * Gets the index of the bucket which counts the specified value.
+     */
+    static int getBucketIndex(final long value) {
+        if (value < LINEAR_BUCKET_COUNT) {
+            return value < 0 ? 0 : (int) value;
+        }
+
+        final int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAXIMUM_EXPONENT) {
+            return BUCKET_COUNT - 1;
+        }
+
+        final int subBucket = (int) (value >>> (exponent - LINEAR_EXPONENT + 1)) & (SUB_BUCKET_COUNT - 1);
+        return LINEAR_BUCKET_COUNT + (exponent - LINEAR_EXPONENT) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    /**
+     * Gets the highest value counted by the specified bucket.
+     */
+    static long getHighestValueInBucket(final int index) {
+        if (index < LINEAR_BUCKET_COUNT) {
+            return index;
+        }
+
+        final int exponent = (index - LINEAR_BUCKET_COUNT) / SUB_BUCKET_COUNT + LINEAR_EXPONENT;
+        final long subBucket = (index - LINEAR_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        final int shift = exponent - LINEAR_EXPONENT + 1;
+        return ((SUB_BUCKET_COUNT + subBucket + 1) << shift) - 1;
+    }
+
+    /**
+     * Gets the value below which the specified percentage of the counted values fall, as the highest value of the
+     * bucket holding that value.
+     * 
+     * @param counts
+     *            the counts of the buckets, as returned by {@link #copyCounts()}
+     * @param percentile
+     *            the percentile, between 0 and 100
+     * @return the value at the percentile, or 0 if no values are counted
+     */
+    static long getValueAtPercentile(final long[] counts, final double percentile) {
+        long totalCount = 0;
+        for (int i = 0; i < counts.length; i++) {
+            totalCount += counts[i];
+        }
+
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final long targetCount = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= targetCount) {
+                return getHighestValueInBucket(i);
+            }
+        }
+
+        return getHighestValueInBucket(counts.length - 1);
+    }
+}
@@ -243,6 +243,27 @@ public final class OperationContext {
         this.requestResults.add(requestResult);
     }
 
+    /**
+     * Reserved for internal use. Creates an <code>OperationContext</code> for one request of a long-running operation,
+     * such as a queue consumer or a bulk table writer. The new context shares the client request ID, logger, logging
+     * setting, user headers and event handlers of this context, but records its own request results, so that the
+     * operation does not retain a result for every request it makes over its lifetime.
+     * 
+     * @return An <code>OperationContext</code> object for the request.
+     */
+    public OperationContext createRequestContext() {
+        final OperationContext requestContext = new OperationContext();
+        requestContext.clientRequestID = this.clientRequestID;
+        requestContext.enableLogging = this.enableLogging;
+        requestContext.logger = this.logger;
+        requestContext.userHeaders = this.userHeaders;
+        requestContext.sendingRequestEventHandler = this.sendingRequestEventHandler;
+        requestContext.responseReceivedEventHandler = this.responseReceivedEventHandler;
+        requestContext.requestCompletedEventHandler = this.requestCompletedEventHandler;
+        requestContext.retryingEventHandler = this.retryingEventHandler;
+        return requestContext;
+    }
+
     /**
      * Gets a global event multi-caster that is triggered before sending a request. It allows event listeners to be
      * dynamically added and removed.
@@ -0,0 +1,420 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.azure.storage.core.LogConstants;
+import com.microsoft.azure.storage.core.Logger;
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a registry of metrics about the requests made by one or more service clients. Attach a registry with
+ * {@link ServiceClient#setRequestMetrics(RequestMetrics)}; a single registry may be shared by several clients.
+ * <p>
+ * Every request attempt made by a client with a registry attached is recorded as it completes, including attempts
+ * which are retried, under its service, operation and HTTP status code. For each combination, the registry keeps the
+ * number of requests and retries, the request and response body bytes, and a histogram of latencies from which
+ * percentiles can be read. The registry also counts the requests in flight, the retries, and the requests the service
+ * throttled. Recording takes a few atomic updates and does not synchronize, so it adds little to the cost of a request.
+ * <p>
+ * Read the metrics with {@link #getSnapshots()}, or have them pushed to a {@link RequestMetricsExporter} on a timer
+ * with {@link #startExporting(RequestMetricsExporter, int)}.
+ */
+public final class RequestMetrics {
+
+    /**
+     * Holds the timer on which metrics are exported.
+     */
+    private static ScheduledExecutorService exportTimer;
+
+    /**
+     * Holds the recorders of the requests, keyed by service, operation and status code.
+     */
+    private final ConcurrentHashMap<MetricKey, Recorder> recorders = new ConcurrentHashMap<MetricKey, Recorder>();
+
+    /**
+     * Holds the number of requests in flight.
+     */
+    private final AtomicInteger requestsInFlight = new AtomicInteger();
+
+    /**
+     * Holds the number of requests which were retries of a failed request.
+     */
+    private final AtomicLong retries = new AtomicLong();
+
+    /**
+     * Holds the number of requests which completed with a status code indicating throttling.
+     */
+    private final AtomicLong throttledRequests = new AtomicLong();
+
+    /**
+     * Holds the scheduled exports.
+     */
+    private final ArrayList<ScheduledFuture<?>> exports = new ArrayList<ScheduledFuture<?>>();
+
+    /**
+     * Gets the number of requests which have been sent and have not yet completed.
+     * 
+     * @return An <code>int</code> which represents the number of requests in flight.
+     */
+    public int getRequestsInFlight() {
+        return this.requestsInFlight.get();
+    }
+
+    /**
+     * Gets the number of requests which were retries of a failed request.
+     * 
+     * @return A <code>long</code> which represents the number of retries.
+     */
+    public long getRetryCount() {
+        return this.retries.get();
+    }
+
+    /**
+     * Gets the number of requests which completed with status code 503 (Server Busy) or 500 (Operation Timeout), the
+     * status codes the service returns when it throttles requests.
+     * 
+     * @return A <code>long</code> which represents the number of throttled requests.
+     */
+    public long getThrottledRequestCount() {
+        return this.throttledRequests.get();
+    }
+
+    /**
+     * Takes a snapshot of the metrics recorded for each combination of service, operation and status code, ordered by
+     * service, operation and status code.
+     * 
+     * @return A <code>List</code> of {@link RequestMetricsSnapshot} objects.
+     */
+    public List<RequestMetricsSnapshot> getSnapshots() {
+        final ArrayList<RequestMetricsSnapshot> snapshots = new ArrayList<RequestMetricsSnapshot>();
+        for (final Entry<MetricKey, Recorder> entry : this.recorders.entrySet()) {
+            snapshots.add(entry.getValue().snapshot(entry.getKey()));
+        }
+
+        Collections.sort(snapshots, new Comparator<RequestMetricsSnapshot>() {
+            @Override
+            public int compare(final RequestMetricsSnapshot left, final RequestMetricsSnapshot right) {
+                int result = left.getService().compareTo(right.getService());
+                if (result == 0) {
+                    result = left.getOperation().compareTo(right.getOperation());
+                }
+
+                if (result == 0) {
+                    result = left.getStatusCode() < right.getStatusCode() ? -1
+                            : (left.getStatusCode() == right.getStatusCode() ? 0 : 1);
+                }
+
+                return result;
+            }
+        });
+
+        return snapshots;
+    }
+
+    /**
+     * Discards the metrics recorded so far. The count of requests in flight is kept. Requests completing while the
+     * registry is reset may be recorded either before or after the reset.
+     */
+    public void reset() {
+        this.recorders.clear();
+        this.retries.set(0);
+        this.throttledRequests.set(0);
+    }
+
+    /**
+     * Starts exporting the metrics of this registry to the specified exporter at a fixed period. Several exporters may
+     * be started on the same registry.
+     * 
+     * @param exporter
+     *            A {@link RequestMetricsExporter} which receives the metrics.
+     * @param periodInSeconds
+     *            An <code>int</code> which represents the number of seconds between exports. Must be at least 1.
+     */
+    public synchronized void startExporting(final RequestMetricsExporter exporter, final int periodInSeconds) {
+        Utility.assertNotNull("exporter", exporter);
+        Utility.assertGreaterThanOrEqual("periodInSeconds", periodInSeconds, 1);
+        this.exports.add(getExportTimer().scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    exporter.export(RequestMetrics.this.getSnapshots(), RequestMetrics.this.getRequestsInFlight());
+                }
+                catch (final RuntimeException e) {
+                    // An exception would cancel the export, so log it and carry on.
+                    Logger.warn(null /* opContext */, LogConstants.METRICS_EXPORT_FAILED, e.getClass().getName(),
+                            e.getMessage());
+                }
+            }
+        }, periodInSeconds, periodInSeconds, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Stops every export started on this registry.
+     */
+    public synchronized void stopExporting() {
+        for (final ScheduledFuture<?> export : this.exports) {
+            export.cancel(false);
+        }
+
+        this.exports.clear();
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Records that a request has been sent.
+     */
+    public void requestStarted() {
+        this.requestsInFlight.incrementAndGet();
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Records that a request has completed.
+     * 
+     * @param clientClass
+     *            the class of the service client which made the request
+     * @param httpMethod
+     *            the HTTP method of the request
+     * @param query
+     *            the query string of the request, or <code>null</code>
+     * @param statusCode
+     *            the HTTP status code of the response, or -1 if no response was received
+     * @param isRetry
+     *            <code>true</code> if the request was a retry of a failed request
+     * @param latencyInNanoseconds
+     *            the time the request took, in nanoseconds
+     * @param bytesSent
+     *            the number of request body bytes sent
+     * @param bytesReceived
+     *            the number of response body bytes received
+     */
+    public void requestCompleted(final Class<?> clientClass, final String httpMethod, final String query,
+            final int statusCode, final boolean isRetry, final long latencyInNanoseconds, final long bytesSent,
+            final long bytesReceived) {
+        this.requestsInFlight.decrementAndGet();
+
+        final MetricKey key = new MetricKey(clientClass, httpMethod, getComponent(query), statusCode);
+        Recorder recorder = this.recorders.get(key);
+        if (recorder == null) {
+            final Recorder newRecorder = new Recorder();
+            recorder = this.recorders.putIfAbsent(key, newRecorder);
+            if (recorder == null) {
+                recorder = newRecorder;
+            }
+        }
+
+        recorder.record(isRetry, latencyInNanoseconds / 1000, bytesSent, bytesReceived);
+        if (isRetry) {
+            this.retries.incrementAndGet();
+        }
+
+        if (statusCode == HttpURLConnection.HTTP_UNAVAILABLE || statusCode == HttpURLConnection.HTTP_INTERNAL_ERROR) {
+            this.throttledRequests.incrementAndGet();
+        }
+    }
+
+    /**
+     * Gets the value of the <code>comp</code> parameter of a query string, or <code>null</code> if it has none.
+     */
+    private static String getComponent(final String query) {
+        if (query == null) {
+            return null;
+        }
+
+        int start = query.startsWith(Constants.QueryConstants.COMPONENT + "=") ? 0 : query.indexOf("&"
+                + Constants.QueryConstants.COMPONENT + "=");
+        if (start < 0) {
+            return null;
+        }
+
+        start = query.indexOf('=', start) + 1;
+        final int end = query.indexOf('&', start);
+        return end < 0 ? query.substring(start) : query.substring(start, end);
+    }
+
+    /**
+     * Gets the name of the service of a service client class, such as <code>blob</code> for
+     * <code>CloudBlobClient</code>.
+     */
+    private static String getServiceName(final Class<?> clientClass) {
+        String name = clientClass.getSimpleName();
+        if (name.startsWith("Cloud")) {
+            name = name.substring("Cloud".length());
+        }
+
+        if (name.endsWith("Client")) {
+            name = name.substring(0, name.length() - "Client".length());
+        }
+
+        return name.toLowerCase(Locale.US);
+    }
+
+    /**
+     * Gets the timer on which metrics are exported, creating it if necessary.
+     */
+    private static synchronized ScheduledExecutorService getExportTimer() {
+        if (exportTimer == null) {
+            exportTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "azure-storage-metrics-export");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return exportTimer;
+    }
+
+    /**
+     * Identifies the requests of one operation against one service which completed with one status code.
+     */
+    private static final class MetricKey {
+
+        /**
+         * Holds the class of the service client.
+         */
+        private final Class<?> clientClass;
+
+        /**
+         * Holds the HTTP method.
+         */
+        private final String httpMethod;
+
+        /**
+         * Holds the value of the comp query parameter, or <code>null</code>.
+         */
+        private final String component;
+
+        /**
+         * Holds the HTTP status code.
+         */
+        private final int statusCode;
+
+        private MetricKey(final Class<?> clientClass, final String httpMethod, final String component,
+                final int statusCode) {
+            this.clientClass = clientClass;
+            this.httpMethod = httpMethod;
+            this.component = component;
+            this.statusCode = statusCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            if (!(obj instanceof MetricKey)) {
+                return false;
+            }
+
+            final MetricKey other = (MetricKey) obj;
+            return this.clientClass == other.clientClass && this.statusCode == other.statusCode
+                    && this.httpMethod.equals(other.httpMethod)
+                    && (this.component == null ? other.component == null : this.component.equals(other.component));
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = this.clientClass.hashCode();
+            hash = 31 * hash + this.httpMethod.hashCode();
+            hash = 31 * hash + (this.component == null ? 0 : this.component.hashCode());
+            return 31 * hash + this.statusCode;
+        }
+    }
+
+    /**
+     * Accumulates the metrics of the requests identified by one key.
+     */
+    private static final class Recorder {
+
+        /**
+         * Holds the number of requests.
+         */
+        private final AtomicLong requestCount = new AtomicLong();
+
+        /**
+         * Holds the number of requests which were retries.
+         */
+        private final AtomicLong retryCount = new AtomicLong();
+
+        /**
+         * Holds the number of request body bytes sent.
+         */
+        private final AtomicLong bytesSent = new AtomicLong();
+
+        /**
+         * Holds the number of response body bytes received.
+         */
+        private final AtomicLong bytesReceived = new AtomicLong();
+
+        /**
+         * Holds the sum of the latencies, in microseconds.
+         */
+        private final AtomicLong totalLatency = new AtomicLong();
+
+        /**
+         * Holds the maximum latency, in microseconds.
+         */
+        private final AtomicLong maximumLatency = new AtomicLong();
+
+        /**
+         * Holds the histogram of the latencies, in microseconds.
+         */
+        private final LatencyHistogram latencies = new LatencyHistogram();
+
+        private void record(final boolean isRetry, final long latency, final long sent, final long received) {
+            this.requestCount.incrementAndGet();
+            if (isRetry) {
+                this.retryCount.incrementAndGet();
+            }
+
+            if (sent > 0) {
+                this.bytesSent.addAndGet(sent);
+            }
+
+            if (received > 0) {
+                this.bytesReceived.addAndGet(received);
+            }
+
+            this.totalLatency.addAndGet(latency);
+            long maximum = this.maximumLatency.get();
+            while (latency > maximum && !this.maximumLatency.compareAndSet(maximum, latency)) {
+                maximum = this.maximumLatency.get();
+            }
+
+            this.latencies.record(latency);
+        }
+
+        private RequestMetricsSnapshot snapshot(final MetricKey key) {
+            final String operation = key.component == null ? key.httpMethod : key.httpMethod + " " + key.component;
+            return new RequestMetricsSnapshot(getServiceName(key.clientClass), operation, key.statusCode,
+                    this.requestCount.get(), this.retryCount.get(), this.bytesSent.get(), this.bytesReceived.get(),
+                    this.totalLatency.get(), this.maximumLatency.get(), this.latencies.copyCounts());
+        }
+    }
+}
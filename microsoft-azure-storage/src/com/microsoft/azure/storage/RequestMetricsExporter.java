@@ -0,0 +1,38 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.util.List;
+
+/**
+ * Represents a destination to which a {@link RequestMetrics} registry periodically exports its metrics, such as a
+ * monitoring system or a log. Start exporting with {@link RequestMetrics#startExporting(RequestMetricsExporter, int)}.
+ */
+public interface RequestMetricsExporter {
+    /**
+     * Called with the current metrics of the registry. The snapshots are cumulative, so an exporter which reports
+     * rates should subtract the values it was given in its previous call.
+     * <p>
+     * This method is called on a timer thread shared by all registries, so it should return promptly. An exception
+     * thrown by this method is logged and does not stop later exports.
+     * 
+     * @param snapshots
+     *            A <code>List</code> of {@link RequestMetricsSnapshot} objects, one for each combination of service,
+     *            operation and status code for which requests have completed.
+     * @param requestsInFlight
+     *            An <code>int</code> which represents the number of requests in flight when the snapshots were taken.
+     */
+    void export(List<RequestMetricsSnapshot> snapshots, int requestsInFlight);
+}
@@ -0,0 +1,194 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import com.microsoft.azure.storage.core.SR;
+
+/**
+ * Represents the metrics recorded by a {@link RequestMetrics} registry for the requests of one operation against one
+ * service which completed with one status code, as of the time the snapshot was taken. The values are cumulative
+ * since the registry was created or last reset.
+ */
+public final class RequestMetricsSnapshot {
+
+    /**
+     * Holds the name of the service.
+     */
+    private final String service;
+
+    /**
+     * Holds the name of the operation.
+     */
+    private final String operation;
+
+    /**
+     * Holds the HTTP status code.
+     */
+    private final int statusCode;
+
+    /**
+     * Holds the number of requests.
+     */
+    private final long requestCount;
+
+    /**
+     * Holds the number of requests which were retries of a failed request.
+     */
+    private final long retryCount;
+
+    /**
+     * Holds the number of request body bytes sent.
+     */
+    private final long bytesSent;
+
+    /**
+     * Holds the number of response body bytes received.
+     */
+    private final long bytesReceived;
+
+    /**
+     * Holds the sum of the latencies, in microseconds.
+     */
+    private final long totalLatencyInMicroseconds;
+
+    /**
+     * Holds the maximum latency, in microseconds.
+     */
+    private final long maximumLatencyInMicroseconds;
+
+    /**
+     * Holds the counts of the latency histogram buckets.
+     */
+    private final long[] latencyCounts;
+
+    /**
+     * Reserved for internal use. Creates an instance of the <code>RequestMetricsSnapshot</code> class.
+     */
+    RequestMetricsSnapshot(final String service, final String operation, final int statusCode,
+            final long requestCount, final long retryCount, final long bytesSent, final long bytesReceived,
+            final long totalLatencyInMicroseconds, final long maximumLatencyInMicroseconds, final long[] latencyCounts) {
+        this.service = service;
+        this.operation = operation;
+        this.statusCode = statusCode;
+        this.requestCount = requestCount;
+        this.retryCount = retryCount;
+        this.bytesSent = bytesSent;
+        this.bytesReceived = bytesReceived;
+        this.totalLatencyInMicroseconds = totalLatencyInMicroseconds;
+        this.maximumLatencyInMicroseconds = maximumLatencyInMicroseconds;
+        this.latencyCounts = latencyCounts;
+    }
+
+    /**
+     * Gets the name of the service the requests were made to, such as <code>blob</code>, <code>queue</code>,
+     * <code>table</code> or <code>file</code>.
+     * 
+     * @return A <code>String</code> which represents the service.
+     */
+    public String getService() {
+        return this.service;
+    }
+
+    /**
+     * Gets the name of the operation, made up of the HTTP method of the requests followed by the value of their
+     * <code>comp</code> query parameter if they have one, such as <code>PUT block</code> or <code>GET list</code>.
+     * 
+     * @return A <code>String</code> which represents the operation.
+     */
+    public String getOperation() {
+        return this.operation;
+    }
+
+    /**
+     * Gets the HTTP status code the requests completed with, or -1 if no response was received.
+     * 
+     * @return An <code>int</code> which represents the status code.
+     */
+    public int getStatusCode() {
+        return this.statusCode;
+    }
+
+    /**
+     * Gets the number of requests.
+     * 
+     * @return A <code>long</code> which represents the number of requests.
+     */
+    public long getRequestCount() {
+        return this.requestCount;
+    }
+
+    /**
+     * Gets the number of requests which were retries of a failed request.
+     * 
+     * @return A <code>long</code> which represents the number of retries.
+     */
+    public long getRetryCount() {
+        return this.retryCount;
+    }
+
+    /**
+     * Gets the number of request body bytes sent.
+     * 
+     * @return A <code>long</code> which represents the number of bytes sent.
+     */
+    public long getBytesSent() {
+        return this.bytesSent;
+    }
+
+    /**
+     * Gets the number of response body bytes received, as given by the Content-Length of the responses.
+     * 
+     * @return A <code>long</code> which represents the number of bytes received.
+     */
+    public long getBytesReceived() {
+        return this.bytesReceived;
+    }
+
+    /**
+     * Gets the mean latency of the requests, from the time the request was built until its response was processed.
+     * 
+     * @return A <code>long</code> which represents the mean latency, in microseconds.
+     */
+    public long getMeanLatencyInMicroseconds() {
+        return this.requestCount == 0 ? 0 : this.totalLatencyInMicroseconds / this.requestCount;
+    }
+
+    /**
+     * Gets the maximum latency of the requests.
+     * 
+     * @return A <code>long</code> which represents the maximum latency, in microseconds.
+     */
+    public long getMaximumLatencyInMicroseconds() {
+        return this.maximumLatencyInMicroseconds;
+    }
+
+    /**
+     * Gets the latency below which the specified percentage of the requests completed. Latencies are recorded to
+     * within about 3%, and the highest latency of the range holding the percentile is returned.
+     * 
+     * @param percentile
+     *            A <code>double</code> between 0 and 100 which represents the percentile, such as 50 for the median
+     *            or 99.9.
+     * @return A <code>long</code> which represents the latency at the percentile, in microseconds.
+     */
+    public long getLatencyAtPercentileInMicroseconds(final double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException(String.format(SR.PARAMETER_NOT_IN_RANGE, "percentile", 0, 100));
+        }
+
+        return Math.min(LatencyHistogram.getValueAtPercentile(this.latencyCounts, percentile),
+                this.maximumLatencyInMicroseconds);
+    }
+}
@@ -51,6 +51,16 @@ public abstract class RequestOptions {
      */
     private Long operationExpiryTime;
 
+    /**
+     * Indicates whether the next segment of a paged result is requested in the background.
+     */
+    private Boolean prefetchNextSegment;
+
+    /**
+     * The policy for hedged reads against the secondary location, or <code>null</code> if reads are not hedged.
+     */
+    private HedgingPolicy hedgingPolicy;
+
     /**
      * Creates an instance of the <code>RequestOptions</code> class.
      */
@@ -72,6 +82,8 @@ public abstract class RequestOptions {
             this.setLocationMode(other.getLocationMode());
             this.setMaximumExecutionTimeInMs(other.getMaximumExecutionTimeInMs());
             this.setOperationExpiryTimeInMs(other.getOperationExpiryTimeInMs());
+            this.setPrefetchNextSegment(other.getPrefetchNextSegment());
+            this.setHedgingPolicy(other.getHedgingPolicy());
         }
     }
 
@@ -91,6 +103,10 @@ public abstract class RequestOptions {
             modifiedOptions.setLocationMode(LocationMode.PRIMARY_ONLY);
         }
 
+        if (modifiedOptions.getPrefetchNextSegment() == null) {
+            modifiedOptions.setPrefetchNextSegment(false);
+        }
+
         return modifiedOptions;
     }
 
@@ -115,6 +131,14 @@ public abstract class RequestOptions {
             modifiedOptions.setMaximumExecutionTimeInMs(clientOptions.getMaximumExecutionTimeInMs());
         }
 
+        if (modifiedOptions.getPrefetchNextSegment() == null) {
+            modifiedOptions.setPrefetchNextSegment(clientOptions.getPrefetchNextSegment());
+        }
+
+        if (modifiedOptions.getHedgingPolicy() == null) {
+            modifiedOptions.setHedgingPolicy(clientOptions.getHedgingPolicy());
+        }
+
         if (modifiedOptions.getMaximumExecutionTimeInMs() != null
                 && modifiedOptions.getOperationExpiryTimeInMs() == null && setStartTime) {
             modifiedOptions.setOperationExpiryTimeInMs(new Date().getTime()
@@ -159,6 +183,16 @@ public abstract class RequestOptions {
         return this.locationMode;
     }
 
+    /**
+     * Gets the policy for hedged reads against the secondary location. For more information about hedged reads, see
+     * {@link #setHedgingPolicy(HedgingPolicy)}.
+     * 
+     * @return The {@link HedgingPolicy} for this request, or <code>null</code> if reads are not hedged.
+     */
+    public HedgingPolicy getHedgingPolicy() {
+        return this.hedgingPolicy;
+    }
+
     /**
      * Gets the maximum execution time for this request. For more information about maximum execution time defaults, see
      * {@link #setMaximumExecutionTimeInMs(Integer)}.
@@ -169,6 +203,16 @@ public abstract class RequestOptions {
         return this.maximumExecutionTimeInMs;
     }
 
+    /**
+     * Gets whether the next segment of a paged result is requested in the background while the current segment is
+     * consumed. For more information about prefetching defaults, see {@link #setPrefetchNextSegment(Boolean)}.
+     * 
+     * @return <code>true</code> if the next segment is prefetched; otherwise <code>false</code>.
+     */
+    public Boolean getPrefetchNextSegment() {
+        return this.prefetchNextSegment;
+    }
+
     /**
      * RESERVED FOR INTERNAL USE.
      * 
@@ -221,6 +265,28 @@ public abstract class RequestOptions {
         this.timeoutIntervalInMs = timeoutIntervalInMs;
     }
 
+    /**
+     * Sets the policy for hedged reads against the secondary location.
+     * <p>
+     * When a hedging policy is set, the storage account has a secondary location and the location mode is
+     * {@link LocationMode#PRIMARY_ONLY} or {@link LocationMode#PRIMARY_THEN_SECONDARY}, reads which are safe to repeat
+     * are sent to the primary location and, if it has not responded within the policy's hedging delay, to the secondary
+     * location as well. Whichever completes first is used. This applies to <code>downloadAttributes</code> and
+     * downloading ranges of a blob to a byte array, to retrieving a single table entity, and to peeking queue messages.
+     * Asynchronous methods are not hedged.
+     * <p>
+     * The default is set in the client and is by default <code>null</code>, so reads are not hedged. You can change
+     * the value on this request by setting this property. You can also change the value on the
+     * {@link ServiceClient#getDefaultRequestOptions()} object so that all subsequent requests made via the service
+     * client will use that value.
+     * 
+     * @param hedgingPolicy
+     *            the {@link HedgingPolicy} to use, or <code>null</code> to not hedge reads
+     */
+    public void setHedgingPolicy(final HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+    }
+
     /**
      * Sets the {@link LocationMode} for this request.
      * <p>
@@ -269,4 +335,26 @@ public abstract class RequestOptions {
     private void setOperationExpiryTimeInMs(final Long operationExpiryTime) {
         this.operationExpiryTime = operationExpiryTime;
     }
+
+    /**
+     * Sets whether the next segment of a paged result is requested in the background while the current segment is
+     * consumed.
+     * <p>
+     * When enabled, as soon as a segment arrives with a continuation token, the request for the following segment is
+     * issued on the service client's {@link TransferScheduler}, so that network latency overlaps with processing of the
+     * current segment. At most one extra segment is held in memory. This applies to the iterables returned by the
+     * listing methods, such as <code>listBlobs</code>, <code>listContainers</code>, <code>listQueues</code> and
+     * <code>listShares</code>, and to iterated table queries. Segmented methods, which return a single segment, are
+     * not affected.
+     * <p>
+     * The default is set in the client and is by default <code>false</code>. You can change the value on this request
+     * by setting this property. You can also change the value on the {@link ServiceClient#getDefaultRequestOptions()}
+     * object so that all subsequent requests made via the service client will use that value.
+     * 
+     * @param prefetchNextSegment
+     *            <code>true</code> to prefetch the next segment; otherwise <code>false</code>.
+     */
+    public void setPrefetchNextSegment(final Boolean prefetchNextSegment) {
+        this.prefetchNextSegment = prefetchNextSegment;
+    }
 }
@@ -0,0 +1,190 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a retry budget which limits the retries of the operations sharing it to a percentage of their requests.
+ * Wrap a retry policy with a budget by using {@link RetryBudgetedRetry}; every operation whose retry policy uses the
+ * same budget draws from it, so setting the budgeted policy on a service client's default request options caps the
+ * retries of the whole client.
+ * <p>
+ * The budget is a token bucket. Each operation adds the retry percentage of a token to the balance and each retry
+ * takes a whole token from it. So that an idle client can still retry, the balance is also refilled by the minimum
+ * number of retries per second. The balance never exceeds the maximum balance, and starts full.
+ * <p>
+ * When an outage makes most requests fail, the retries of a budgeted client are limited to the budget rather than
+ * multiplying its traffic by the number of retry attempts.
+ */
+public final class RetryBudget {
+
+    /**
+     * Represents the default percentage of requests which may be retried.
+     */
+    public static final int DEFAULT_RETRY_PERCENTAGE = 10;
+
+    /**
+     * Represents the default number of retries allowed per second regardless of the number of requests.
+     */
+    public static final int DEFAULT_MINIMUM_RETRIES_PER_SECOND = 10;
+
+    /**
+     * Represents the default maximum number of retries the budget can hold.
+     */
+    public static final int DEFAULT_MAXIMUM_BALANCE = 100;
+
+    /**
+     * Holds the percentage of requests which may be retried.
+     */
+    private final int retryPercentage;
+
+    /**
+     * Holds the number of retries allowed per second regardless of the number of requests.
+     */
+    private final int minimumRetriesPerSecond;
+
+    /**
+     * Holds the maximum number of retries the budget can hold.
+     */
+    private final int maximumBalance;
+
+    /**
+     * Holds the number of retries currently allowed.
+     */
+    private double balance;
+
+    /**
+     * Holds the time, in nanoseconds, the balance was last refilled.
+     */
+    private long lastRefillTime;
+
+    /**
+     * Holds the number of retries which were denied by the budget.
+     */
+    private long deniedRetryCount;
+
+    /**
+     * Creates an instance of the <code>RetryBudget</code> class using the default retry percentage, minimum retries per
+     * second and maximum balance.
+     */
+    public RetryBudget() {
+        this(DEFAULT_RETRY_PERCENTAGE, DEFAULT_MINIMUM_RETRIES_PER_SECOND, DEFAULT_MAXIMUM_BALANCE);
+    }
+
+    /**
+     * Creates an instance of the <code>RetryBudget</code> class using the specified retry percentage, minimum retries
+     * per second and maximum balance.
+     * 
+     * @param retryPercentage
+     *            The percentage of requests which may be retried.
+     * @param minimumRetriesPerSecond
+     *            The number of retries allowed per second regardless of the number of requests.
+     * @param maximumBalance
+     *            The maximum number of retries the budget can hold. This bounds the retries allowed in a burst of
+     *            failures.
+     */
+    public RetryBudget(final int retryPercentage, final int minimumRetriesPerSecond, final int maximumBalance) {
+        Utility.assertInBounds("retryPercentage", retryPercentage, 0, 100);
+        Utility.assertGreaterThanOrEqual("minimumRetriesPerSecond", minimumRetriesPerSecond, 0);
+        Utility.assertGreaterThanOrEqual("maximumBalance", maximumBalance, 1);
+
+        this.retryPercentage = retryPercentage;
+        this.minimumRetriesPerSecond = minimumRetriesPerSecond;
+        this.maximumBalance = maximumBalance;
+        this.balance = maximumBalance;
+        this.lastRefillTime = System.nanoTime();
+    }
+
+    /**
+     * Gets the percentage of requests which may be retried.
+     * 
+     * @return An <code>int</code> which represents the retry percentage.
+     */
+    public int getRetryPercentage() {
+        return this.retryPercentage;
+    }
+
+    /**
+     * Gets the number of retries allowed per second regardless of the number of requests.
+     * 
+     * @return An <code>int</code> which represents the minimum retries per second.
+     */
+    public int getMinimumRetriesPerSecond() {
+        return this.minimumRetriesPerSecond;
+    }
+
+    /**
+     * Gets the maximum number of retries the budget can hold.
+     * 
+     * @return An <code>int</code> which represents the maximum balance.
+     */
+    public int getMaximumBalance() {
+        return this.maximumBalance;
+    }
+
+    /**
+     * Gets the number of retries currently allowed.
+     * 
+     * @return A <code>double</code> which represents the balance of the budget.
+     */
+    public synchronized double getBalance() {
+        this.refill();
+        return this.balance;
+    }
+
+    /**
+     * Gets the number of retries which were denied because the budget was exhausted.
+     * 
+     * @return A <code>long</code> which represents the number of denied retries.
+     */
+    public synchronized long getDeniedRetryCount() {
+        return this.deniedRetryCount;
+    }
+
+    /**
+     * Adds the retry percentage of a token to the balance for an operation which is starting.
+     */
+    synchronized void recordOperation() {
+        this.refill();
+        this.balance = Math.min(this.balance + this.retryPercentage / 100d, this.maximumBalance);
+    }
+
+    /**
+     * Takes a token from the balance for a retry, if one is available.
+     * 
+     * @return <code>true</code> if the retry is allowed; otherwise, <code>false</code>.
+     */
+    synchronized boolean tryRetry() {
+        this.refill();
+        if (this.balance >= 1) {
+            this.balance -= 1;
+            return true;
+        }
+
+        this.deniedRetryCount++;
+        return false;
+    }
+
+    /**
+     * Adds the minimum retries for the time elapsed since the last refill to the balance.
+     */
+    private void refill() {
+        final long now = System.nanoTime();
+        final double elapsedSeconds = (now - this.lastRefillTime) / 1e9;
+        this.lastRefillTime = now;
+        this.balance = Math.min(this.balance + elapsedSeconds * this.minimumRetriesPerSecond, this.maximumBalance);
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import com.microsoft.azure.storage.core.LogConstants;
+import com.microsoft.azure.storage.core.Logger;
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a retry policy that limits the retries of another retry policy to a {@link RetryBudget}. The wrapped
+ * policy decides whether and when to retry; a retry it allows is only made if the budget has a token for it.
+ * <p>
+ * For example, to cap the retries of every operation on a client to the default budget:
+ * 
+ * <pre>
+ * client.getDefaultRequestOptions().setRetryPolicyFactory(
+ *         new RetryBudgetedRetry(new RetryDecorrelatedJitterRetry(), new RetryBudget()));
+ * </pre>
+ * 
+ * This class extends the {@link RetryPolicy} class and implements the {@link RetryPolicyFactory} interface.
+ */
+public final class RetryBudgetedRetry extends RetryPolicy implements RetryPolicyFactory {
+
+    /**
+     * Holds the factory of the wrapped retry policy.
+     */
+    private final RetryPolicyFactory policyFactory;
+
+    /**
+     * Holds the budget the retries are taken from.
+     */
+    private final RetryBudget budget;
+
+    /**
+     * Holds the wrapped retry policy for the current operation.
+     */
+    private RetryPolicy policy;
+
+    /**
+     * Creates an instance of the <code>RetryBudgetedRetry</code> class using the specified retry policy factory and
+     * budget.
+     * 
+     * @param policyFactory
+     *            The {@link RetryPolicyFactory} of the retry policy to limit.
+     * @param budget
+     *            The {@link RetryBudget} the retries are taken from. Share one budget between policies to limit their
+     *            retries together.
+     */
+    public RetryBudgetedRetry(final RetryPolicyFactory policyFactory, final RetryBudget budget) {
+        Utility.assertNotNull("policyFactory", policyFactory);
+        Utility.assertNotNull("budget", budget);
+        this.policyFactory = policyFactory;
+        this.budget = budget;
+    }
+
+    /**
+     * Gets the budget the retries are taken from.
+     * 
+     * @return The {@link RetryBudget} of the policy.
+     */
+    public RetryBudget getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * Generates a new retry policy for the current request attempt, and adds the operation to the budget.
+     * 
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     * 
+     * @return A {@link RetryPolicy} object that represents the retry policy for the current request attempt.
+     */
+    @Override
+    public RetryPolicy createInstance(final OperationContext opContext) {
+        this.budget.recordOperation();
+        final RetryBudgetedRetry instance = new RetryBudgetedRetry(this.policyFactory, this.budget);
+        instance.policy = this.policyFactory.createInstance(opContext);
+        return instance;
+    }
+
+    /**
+     * Determines whether the operation should be retried and specifies the interval until the next retry.
+     * 
+     * @param retryContext
+     *            A {@link RetryContext} object that indicates the number of retries, last request's results, whether
+     *            the next retry should happen in the primary or secondary location, and specifies the location mode.
+     * @param operationContext
+     *            An {@link OperationContext} object for tracking the current operation.
+     * @return
+     *         A {@link RetryInfo} object that indicates whether the next retry will happen in the primary or secondary
+     *         location, and specifies the location mode. If <code>null</code>, the operation will not be retried.
+     */
+    @Override
+    public RetryInfo evaluate(RetryContext retryContext, OperationContext operationContext) {
+        if (this.policy == null) {
+            this.policy = this.policyFactory.createInstance(operationContext);
+            if (this.policy == null) {
+                return null;
+            }
+        }
+
+        final RetryInfo retryInfo = this.policy.evaluate(retryContext, operationContext);
+        if (retryInfo != null && !this.budget.tryRetry()) {
+            Logger.info(operationContext, LogConstants.RETRY_BUDGET_EXHAUSTED);
+            return null;
+        }
+
+        return retryInfo;
+    }
+}
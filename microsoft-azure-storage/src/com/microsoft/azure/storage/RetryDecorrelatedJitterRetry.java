@@ -0,0 +1,138 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.net.HttpURLConnection;
+import java.util.Random;
+
+/**
+ * Represents a retry policy that performs a specified number of retries, using a decorrelated jitter backoff scheme to
+ * determine the interval between retries.
+ * 
+ * Each interval is chosen at random between the delta backoff and three times the previous interval, and is capped at
+ * the maximum backoff. Unlike {@link RetryExponentialRetry}, whose intervals stay within 20% of a fixed schedule, the
+ * intervals of clients which failed at the same time quickly drift apart, so their retries do not reach the service in
+ * synchronized waves.
+ * 
+ * This class extends the {@link com.microsoft.azure.storage.RetryPolicy} class and implements the
+ * {@link com.microsoft.azure.storage.RetryPolicyFactory} interface.
+ */
+public final class RetryDecorrelatedJitterRetry extends RetryPolicy implements RetryPolicyFactory {
+
+    /**
+     * Holds the random number generator used to calculate randomized backoff intervals.
+     */
+    private final Random randRef = new Random();
+
+    /**
+     * Holds the actual maximum backoff interval to enforce.
+     */
+    private final int resolvedMaxBackoff;
+
+    /**
+     * Holds the backoff interval chosen for the previous retry, or the delta backoff before the first retry.
+     */
+    private long previousBackoff;
+
+    /**
+     * Creates an instance of the <code>RetryDecorrelatedJitterRetry</code> class.
+     */
+    public RetryDecorrelatedJitterRetry() {
+        this(RetryPolicy.DEFAULT_MIN_BACKOFF, RetryPolicy.DEFAULT_MAX_BACKOFF, RetryPolicy.DEFAULT_CLIENT_RETRY_COUNT);
+    }
+
+    /**
+     * Creates an instance of the <code>RetryDecorrelatedJitterRetry</code> class using the specified delta backoff and
+     * maximum retry attempts.
+     * 
+     * @param deltaBackoff
+     *            The smallest backoff interval, in milliseconds, between retries.
+     * @param maxAttempts
+     *            The maximum number of retry attempts.
+     */
+    public RetryDecorrelatedJitterRetry(final int deltaBackoff, final int maxAttempts) {
+        this(deltaBackoff, RetryPolicy.DEFAULT_MAX_BACKOFF, maxAttempts);
+    }
+
+    /**
+     * Creates an instance of the <code>RetryDecorrelatedJitterRetry</code> class using the specified delta and maximum
+     * backoff amounts, and maximum number of retry attempts.
+     * 
+     * @param deltaBackoff
+     *            The smallest backoff interval, in milliseconds, between retries.
+     * @param maxBackoff
+     *            The maximum backoff interval, in milliseconds, between retries.
+     * @param maxAttempts
+     *            The maximum number of retry attempts.
+     */
+    public RetryDecorrelatedJitterRetry(final int deltaBackoff, final int maxBackoff, final int maxAttempts) {
+        super(deltaBackoff, maxAttempts);
+        this.resolvedMaxBackoff = maxBackoff;
+        this.previousBackoff = deltaBackoff;
+    }
+
+    /**
+     * Generates a new retry policy for the current request attempt.
+     * 
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     * 
+     * @return A {@link RetryPolicy} object that represents the retry policy for the current request attempt.
+     */
+    @Override
+    public RetryPolicy createInstance(final OperationContext opContext) {
+        return new RetryDecorrelatedJitterRetry(this.deltaBackoffIntervalInMs, this.resolvedMaxBackoff,
+                this.maximumAttempts);
+    }
+
+    /**
+     * Determines whether the operation should be retried and specifies the interval until the next retry.
+     * 
+     * @param retryContext
+     *            A {@link RetryContext} object that indicates the number of retries, last request's results, whether
+     *            the next retry should happen in the primary or secondary location, and specifies the location mode.
+     * @param operationContext
+     *            An {@link OperationContext} object for tracking the current operation.
+     * @return
+     *         A {@link RetryInfo} object that indicates whether the next retry will happen in the primary or secondary
+     *         location, and specifies the location mode. If <code>null</code>, the operation will not be retried.
+     */
+    @Override
+    public RetryInfo evaluate(RetryContext retryContext, OperationContext operationContext) {
+
+        boolean secondaryNotFound = this.evaluateLastAttemptAndSecondaryNotFound(retryContext);
+
+        if (retryContext.getCurrentRetryCount() < this.maximumAttempts) {
+            if ((!secondaryNotFound && retryContext.getLastRequestResult().getStatusCode() >= 400 && retryContext
+                    .getLastRequestResult().getStatusCode() < 500)
+                    || retryContext.getLastRequestResult().getStatusCode() == HttpURLConnection.HTTP_NOT_IMPLEMENTED
+                    || retryContext.getLastRequestResult().getStatusCode() == HttpURLConnection.HTTP_VERSION) {
+                return null;
+            }
+
+            // Choose the interval uniformly between the delta backoff and three times the previous interval
+            final long upperBound = Math.max(this.previousBackoff * 3, this.deltaBackoffIntervalInMs + 1);
+            final long randomBackoff = this.deltaBackoffIntervalInMs
+                    + (long) (this.randRef.nextDouble() * (upperBound - this.deltaBackoffIntervalInMs));
+            this.previousBackoff = Math.min(randomBackoff, this.resolvedMaxBackoff);
+
+            return this.evaluateRetryInfo(retryContext, secondaryNotFound, this.previousBackoff);
+        }
+
+        return null;
+    }
+}
@@ -54,6 +54,31 @@ public abstract class ServiceClient {
     @SuppressWarnings("deprecation")
     protected AuthenticationScheme authenticationScheme = AuthenticationScheme.SHAREDKEYFULL;
 
+    /**
+     * Holds the scheduler used for the parallel transfers of operations made via this Service Client.
+     */
+    private TransferScheduler transferScheduler;
+
+    /**
+     * Holds the pool of buffers used by the output streams of this Service Client.
+     */
+    private BufferPool bufferPool;
+
+    /**
+     * Holds the registry which records the requests made via this Service Client, or <code>null</code>.
+     */
+    private volatile RequestMetrics requestMetrics;
+
+    /**
+     * Holds the limiter which gates the requests made via this Service Client, or <code>null</code>.
+     */
+    private volatile AdaptiveRequestLimiter requestLimiter;
+
+    /**
+     * Holds the manager of the connections used by this service client, or <code>null</code>.
+     */
+    private volatile ConnectionManager connectionManager;
+
     /**
      * Creates an instance of the <code>ServiceClient</code> class using the specified service endpoint and account
      * credentials.
@@ -446,6 +471,130 @@ public abstract class ServiceClient {
         this.getDefaultRequestOptions().setMaximumExecutionTimeInMs(maximumExecutionTimeInMs);
     }
 
+    /**
+     * Gets the {@link TransferScheduler} which runs the parallel transfers of operations made via this service client,
+     * such as the block and page uploads of a blob output stream, and the attempts of asynchronous operations. If no
+     * scheduler has been set, one using {@link TransferScheduler#DEFAULT_MAXIMUM_CONCURRENT_TRANSFERS} is created on
+     * first use.
+     * 
+     * @return A {@link TransferScheduler} object which represents the scheduler for this service client.
+     */
+    public synchronized TransferScheduler getTransferScheduler() {
+        if (this.transferScheduler == null) {
+            this.transferScheduler = new TransferScheduler();
+        }
+
+        return this.transferScheduler;
+    }
+
+    /**
+     * Sets the {@link TransferScheduler} which runs the parallel transfers of operations made via this service client.
+     * A single scheduler may be shared by several service clients in order to bound the total number of transfers in
+     * flight across all of them.
+     * 
+     * @param transferScheduler
+     *            A {@link TransferScheduler} object which represents the scheduler to use.
+     */
+    public synchronized void setTransferScheduler(final TransferScheduler transferScheduler) {
+        Utility.assertNotNull("transferScheduler", transferScheduler);
+        this.transferScheduler = transferScheduler;
+    }
+
+    /**
+     * Gets the {@link BufferPool} from which the output streams of this service client borrow their block and range
+     * buffers. If no pool has been set, one retaining up to {@link BufferPool#DEFAULT_MAXIMUM_POOLED_BYTES}, which does
+     * not limit the buffers in use, is created on first use.
+     * 
+     * @return A {@link BufferPool} object which represents the buffer pool for this service client.
+     */
+    public synchronized BufferPool getBufferPool() {
+        if (this.bufferPool == null) {
+            this.bufferPool = new BufferPool();
+        }
+
+        return this.bufferPool;
+    }
+
+    /**
+     * Sets the {@link BufferPool} from which the output streams of this service client borrow their block and range
+     * buffers. A single pool may be shared by several service clients.
+     * 
+     * @param bufferPool
+     *            A {@link BufferPool} object which represents the buffer pool to use.
+     */
+    public synchronized void setBufferPool(final BufferPool bufferPool) {
+        Utility.assertNotNull("bufferPool", bufferPool);
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Gets the {@link RequestMetrics} registry which records the requests made via this service client.
+     * 
+     * @return A {@link RequestMetrics} object which represents the registry, or <code>null</code> if requests are not
+     *         recorded.
+     */
+    public RequestMetrics getRequestMetrics() {
+        return this.requestMetrics;
+    }
+
+    /**
+     * Sets the {@link RequestMetrics} registry which records the requests made via this service client. A single
+     * registry may be shared by several service clients. By default no registry is set and requests are not recorded.
+     * 
+     * @param requestMetrics
+     *            A {@link RequestMetrics} object which represents the registry to use, or <code>null</code> to stop
+     *            recording requests.
+     */
+    public void setRequestMetrics(final RequestMetrics requestMetrics) {
+        this.requestMetrics = requestMetrics;
+    }
+
+    /**
+     * Gets the {@link AdaptiveRequestLimiter} which limits the requests in flight from this service client.
+     * 
+     * @return An {@link AdaptiveRequestLimiter} object which represents the limiter, or <code>null</code> if requests
+     *         are not limited.
+     */
+    public AdaptiveRequestLimiter getRequestLimiter() {
+        return this.requestLimiter;
+    }
+
+    /**
+     * Sets the {@link AdaptiveRequestLimiter} which limits the requests in flight from this service client. A single
+     * limiter may be shared by several service clients. By default no limiter is set and requests are only limited by
+     * the retry policy's backoff.
+     * 
+     * @param requestLimiter
+     *            An {@link AdaptiveRequestLimiter} object which represents the limiter to use, or <code>null</code> to
+     *            stop limiting requests.
+     */
+    public void setRequestLimiter(final AdaptiveRequestLimiter requestLimiter) {
+        this.requestLimiter = requestLimiter;
+    }
+
+    /**
+     * Gets the {@link ConnectionManager} which manages the connections used by this service client.
+     * 
+     * @return A {@link ConnectionManager} object which represents the manager, or <code>null</code> if connections are
+     *         only managed by the JDK.
+     */
+    public ConnectionManager getConnectionManager() {
+        return this.connectionManager;
+    }
+
+    /**
+     * Sets the {@link ConnectionManager} which manages the connections used by this service client. A single manager
+     * may be shared by several service clients. By default no manager is set, and connections are kept alive and
+     * reused by the JDK alone.
+     * 
+     * @param connectionManager
+     *            A {@link ConnectionManager} object which represents the manager to use, or <code>null</code> to stop
+     *            managing connections.
+     */
+    public void setConnectionManager(final ConnectionManager connectionManager) {
+        this.connectionManager = connectionManager;
+    }
+
     /**
      * Gets the {@link RequestOptions} that is used for requests associated with this <code>ServiceClient</code>
      * 
@@ -0,0 +1,39 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+/**
+ * Represents a callback which is notified when an asynchronous operation completes.
+ *
+ * @param <T>
+ *            The type of the result of the operation.
+ */
+public interface StorageCallback<T> {
+    /**
+     * Called when the operation completes successfully.
+     *
+     * @param result
+     *            The result of the operation.
+     */
+    void onSuccess(T result);
+
+    /**
+     * Called when the operation fails.
+     *
+     * @param exception
+     *            A {@link StorageException} object that represents the error which occurred.
+     */
+    void onFailure(StorageException exception);
+}
@@ -0,0 +1,303 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents the pending result of an asynchronous storage operation.
+ * <p>
+ * If the operation fails, {@link #get()} throws an <code>ExecutionException</code> whose cause is the
+ * {@link StorageException} which would have been thrown by the synchronous method. Callbacks added with
+ * {@link #addCallback(StorageCallback)} are invoked on the thread which completes the operation, or immediately on the
+ * calling thread if the operation has already completed; they should not block. An exception thrown by a callback
+ * invoked on completion is passed to the uncaught exception handler of the completing thread, and does not prevent
+ * the other callbacks from being invoked.
+ * <p>
+ * Cancelling the future stops any further retries of the operation. An attempt which is already in progress is not
+ * interrupted, and callbacks are not invoked.
+ *
+ * @param <T>
+ *            The type of the result of the operation.
+ */
+public final class StorageFuture<T> implements Future<T> {
+
+    private static final int PENDING = 0;
+
+    private static final int SUCCEEDED = 1;
+
+    private static final int FAILED = 2;
+
+    private static final int CANCELLED = 3;
+
+    /**
+     * Holds the state of the operation.
+     */
+    private int state = PENDING;
+
+    /**
+     * Holds the result of the operation once it has succeeded.
+     */
+    private T result;
+
+    /**
+     * Holds the exception which caused the operation to fail.
+     */
+    private StorageException exception;
+
+    /**
+     * Holds the callbacks to invoke once the operation completes.
+     */
+    private ArrayList<StorageCallback<? super T>> callbacks = new ArrayList<StorageCallback<? super T>>();
+
+    /**
+     * Holds the hooks to run once the operation completes, is failed or is cancelled.
+     */
+    private ArrayList<Runnable> completionHooks = new ArrayList<Runnable>();
+
+    /**
+     * RESERVED FOR INTERNAL USE. Creates an instance of the <code>StorageFuture</code> class.
+     */
+    public StorageFuture() {
+        // Empty Default Ctor
+    }
+
+    /**
+     * Adds a callback which is invoked when the operation completes. If the operation has already completed, the
+     * callback is invoked immediately.
+     *
+     * @param callback
+     *            A {@link StorageCallback} object to notify.
+     */
+    public void addCallback(final StorageCallback<? super T> callback) {
+        Utility.assertNotNull("callback", callback);
+        synchronized (this) {
+            if (this.state == PENDING) {
+                this.callbacks.add(callback);
+                return;
+            }
+        }
+
+        this.invoke(callback);
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Adds a hook which is run once the operation reaches any final state, including
+     * cancellation. Hooks run after the callbacks, even if a callback throws, on the thread which completes or cancels
+     * the operation, or immediately on the calling thread if the operation is already done.
+     *
+     * @param hook
+     *            A <code>Runnable</code> object to run.
+     */
+    public void addCompletionHook(final Runnable hook) {
+        Utility.assertNotNull("hook", hook);
+        synchronized (this) {
+            if (this.state == PENDING) {
+                this.completionHooks.add(hook);
+                return;
+            }
+        }
+
+        hook.run();
+    }
+
+    /**
+     * Cancels the operation if it has not yet completed. Further retries are not attempted, but an attempt in progress
+     * is allowed to finish.
+     *
+     * @param mayInterruptIfRunning
+     *            Ignored; attempts in progress are never interrupted.
+     * @return <code>true</code> if the operation was cancelled; otherwise <code>false</code>.
+     */
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        ArrayList<Runnable> completionHooks;
+        synchronized (this) {
+            if (this.state != PENDING) {
+                return false;
+            }
+
+            this.state = CANCELLED;
+            this.callbacks = null;
+            completionHooks = this.completionHooks;
+            this.completionHooks = null;
+            this.notifyAll();
+        }
+
+        runHooks(completionHooks);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean isCancelled() {
+        return this.state == CANCELLED;
+    }
+
+    @Override
+    public synchronized boolean isDone() {
+        return this.state != PENDING;
+    }
+
+    @Override
+    public synchronized T get() throws InterruptedException, ExecutionException {
+        while (this.state == PENDING) {
+            this.wait();
+        }
+
+        return this.report();
+    }
+
+    @Override
+    public synchronized T get(final long timeout, final TimeUnit unit) throws InterruptedException,
+            ExecutionException, TimeoutException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (this.state == PENDING) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new TimeoutException();
+            }
+
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+
+        return this.report();
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Completes the operation successfully.
+     *
+     * @param result
+     *            The result of the operation.
+     * @return <code>true</code> if the operation was completed by this call; otherwise <code>false</code>.
+     */
+    public boolean setResult(final T result) {
+        ArrayList<StorageCallback<? super T>> callbacks;
+        ArrayList<Runnable> completionHooks;
+        synchronized (this) {
+            if (this.state != PENDING) {
+                return false;
+            }
+
+            this.result = result;
+            this.state = SUCCEEDED;
+            callbacks = this.callbacks;
+            this.callbacks = null;
+            completionHooks = this.completionHooks;
+            this.completionHooks = null;
+            this.notifyAll();
+        }
+
+        this.complete(callbacks, completionHooks);
+        return true;
+    }
+
+    /**
+     * RESERVED FOR INTERNAL USE. Completes the operation with an error.
+     *
+     * @param exception
+     *            A {@link StorageException} object that represents the error which occurred.
+     * @return <code>true</code> if the operation was completed by this call; otherwise <code>false</code>.
+     */
+    public boolean setException(final StorageException exception) {
+        ArrayList<StorageCallback<? super T>> callbacks;
+        ArrayList<Runnable> completionHooks;
+        synchronized (this) {
+            if (this.state != PENDING) {
+                return false;
+            }
+
+            this.exception = exception;
+            this.state = FAILED;
+            callbacks = this.callbacks;
+            this.callbacks = null;
+            completionHooks = this.completionHooks;
+            this.completionHooks = null;
+            this.notifyAll();
+        }
+
+        this.complete(callbacks, completionHooks);
+        return true;
+    }
+
+    /**
+     * Invokes a callback for an operation which has completed.
+     */
+    private void invoke(final StorageCallback<? super T> callback) {
+        final int state;
+        synchronized (this) {
+            state = this.state;
+        }
+
+        if (state == SUCCEEDED) {
+            callback.onSuccess(this.result);
+        }
+        else if (state == FAILED) {
+            callback.onFailure(this.exception);
+        }
+    }
+
+    /**
+     * Invokes the callbacks and then runs the completion hooks of an operation which has completed. An exception thrown
+     * by a callback is reported without stopping the other callbacks, and the hooks run even if an error is thrown.
+     */
+    private void complete(final ArrayList<StorageCallback<? super T>> callbacks,
+            final ArrayList<Runnable> completionHooks) {
+        try {
+            for (final StorageCallback<? super T> callback : callbacks) {
+                try {
+                    this.invoke(callback);
+                }
+                catch (final RuntimeException e) {
+                    // The completing thread is usually a scheduler thread which cannot handle the exception.
+                    final Thread thread = Thread.currentThread();
+                    thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                }
+            }
+        }
+        finally {
+            runHooks(completionHooks);
+        }
+    }
+
+    /**
+     * Runs the completion hooks of an operation which has reached a final state.
+     */
+    private static void runHooks(final ArrayList<Runnable> completionHooks) {
+        for (final Runnable hook : completionHooks) {
+            hook.run();
+        }
+    }
+
+    /**
+     * Returns the result of a completed operation or throws the exception describing why it did not succeed.
+     */
+    private T report() throws ExecutionException {
+        if (this.state == CANCELLED) {
+            throw new CancellationException();
+        }
+        else if (this.state == FAILED) {
+            throw new ExecutionException(this.exception);
+        }
+
+        return this.result;
+    }
+}
@@ -26,6 +26,9 @@ import com.microsoft.azure.storage.core.Base64;
 
 /**
  * Represents a container for a storage key.
+ * <p>
+ * Signatures may be computed concurrently. Each thread signs with its own <code>Mac</code> instance, which is created
+ * on the thread's first use of the key and reused afterwards.
  */
 public final class StorageKey {
     /**
@@ -43,10 +46,12 @@ public final class StorageKey {
      * @throws InvalidKeyException
      *             If the key is not a valid storage key.
      */
-    public static synchronized String computeMacSha256(final StorageKey storageKey, final String stringToSign)
+    public static String computeMacSha256(final StorageKey storageKey, final String stringToSign)
             throws InvalidKeyException {
-        if (storageKey.hmacSha256 == null) {
-            storageKey.initHmacSha256();
+        MacCache hmacSha256 = storageKey.hmacSha256;
+        if (hmacSha256 == null) {
+            hmacSha256 = new MacCache(storageKey.key, "HmacSHA256");
+            storageKey.hmacSha256 = hmacSha256;
         }
 
         byte[] utf8Bytes = null;
@@ -57,7 +62,7 @@ public final class StorageKey {
             throw new IllegalArgumentException(e);
         }
 
-        return Base64.encode(storageKey.hmacSha256.doFinal(utf8Bytes));
+        return Base64.encode(hmacSha256.getMac().doFinal(utf8Bytes));
     }
 
     /**
@@ -75,10 +80,12 @@ public final class StorageKey {
      * @throws InvalidKeyException
      *             If the key is not a valid storage key.
      */
-    public static synchronized String computeMacSha512(final StorageKey storageKey, final String stringToSign)
+    public static String computeMacSha512(final StorageKey storageKey, final String stringToSign)
             throws InvalidKeyException {
-        if (storageKey.hmacSha512 == null) {
-            storageKey.initHmacSha512();
+        MacCache hmacSha512 = storageKey.hmacSha512;
+        if (hmacSha512 == null) {
+            hmacSha512 = new MacCache(storageKey.key, "HmacSHA512");
+            storageKey.hmacSha512 = hmacSha512;
         }
 
         byte[] utf8Bytes = null;
@@ -89,28 +96,18 @@ public final class StorageKey {
             throw new IllegalArgumentException(e);
         }
 
-        return Base64.encode(storageKey.hmacSha512.doFinal(utf8Bytes));
+        return Base64.encode(hmacSha512.getMac().doFinal(utf8Bytes));
     }
 
     /**
-     * Stores a reference to the hmacsha256 Mac.
+     * Stores a reference to the per-thread hmacsha256 Macs for the current key.
      */
-    private Mac hmacSha256;
+    private volatile MacCache hmacSha256;
 
     /**
-     * Stores a reference to the hmacsha512 Mac.
+     * Stores a reference to the per-thread hmacsha512 Macs for the current key.
      */
-    private Mac hmacSha512;
-
-    /**
-     * Stores a reference to the hmacsha256 SecretKey.
-     */
-    private SecretKey key256;
-
-    /**
-     * Stores a reference to the hmacsha512 SecretKey.
-     */
-    private SecretKey key512;
+    private volatile MacCache hmacSha512;
 
     /**
      * Stores the key.
@@ -146,40 +143,6 @@ public final class StorageKey {
         return copy;
     }
 
-    /**
-     * Initializes the HMAC-SHA256 Mac and SecretKey.
-     * 
-     * @throws InvalidKeyException
-     *             If the key is not a valid SecretKey according to specification.
-     */
-    private void initHmacSha256() throws InvalidKeyException {
-        this.key256 = new SecretKeySpec(this.key, "HmacSHA256");
-        try {
-            this.hmacSha256 = Mac.getInstance("HmacSHA256");
-        }
-        catch (final NoSuchAlgorithmException e) {
-            throw new IllegalArgumentException();
-        }
-        this.hmacSha256.init(this.key256);
-    }
-
-    /**
-     * Initializes the HMAC-SHA256 Mac and SecretKey.
-     * 
-     * @throws InvalidKeyException
-     *             If the key is not a valid SecretKey according to specification.
-     */
-    private void initHmacSha512() throws InvalidKeyException {
-        this.key512 = new SecretKeySpec(this.key, "HmacSHA512");
-        try {
-            this.hmacSha512 = Mac.getInstance("HmacSHA512");
-        }
-        catch (final NoSuchAlgorithmException e) {
-            throw new IllegalArgumentException();
-        }
-        this.hmacSha512.init(this.key512);
-    }
-
     /**
      * Sets the key to be used, using the specified byte array as the key.
      * <p/>
@@ -192,8 +155,6 @@ public final class StorageKey {
         this.key = key;
         this.hmacSha256 = null;
         this.hmacSha512 = null;
-        this.key256 = null;
-        this.key512 = null;
     }
 
     /**
@@ -205,6 +166,48 @@ public final class StorageKey {
      *            A <code>String</code> that represents the key being assigned.
      */
     public void setKey(final String key) {
-        this.key = Base64.decode(key);
+        this.setKey(Base64.decode(key));
+    }
+
+    /**
+     * Holds the Macs of each thread for one key and algorithm. A new cache is created whenever the key changes, so a
+     * Mac is never used with a key other than the one it was initialized with.
+     */
+    private static final class MacCache {
+        /**
+         * Stores the SecretKey the Macs are initialized with.
+         */
+        private final SecretKey secretKey;
+
+        /**
+         * Stores the Mac of each thread.
+         */
+        private final ThreadLocal<Mac> macs = new ThreadLocal<Mac>();
+
+        private MacCache(final byte[] key, final String algorithm) {
+            this.secretKey = new SecretKeySpec(key, algorithm);
+        }
+
+        /**
+         * Gets the Mac of the current thread, initializing it if necessary.
+         * 
+         * @throws InvalidKeyException
+         *             If the key is not a valid SecretKey according to specification.
+         */
+        private Mac getMac() throws InvalidKeyException {
+            Mac mac = this.macs.get();
+            if (mac == null) {
+                try {
+                    mac = Mac.getInstance(this.secretKey.getAlgorithm());
+                }
+                catch (final NoSuchAlgorithmException e) {
+                    throw new IllegalArgumentException();
+                }
+                mac.init(this.secretKey);
+                this.macs.set(mac);
+            }
+
+            return mac;
+        }
     }
 }
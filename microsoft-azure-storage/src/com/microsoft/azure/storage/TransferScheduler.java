@@ -0,0 +1,317 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a scheduler shared by the parallel transfers of a service client, such as the block and page uploads of a
+ * <code>BlobOutputStream</code> or the range uploads of a <code>FileOutputStream</code>. The attempts of asynchronous
+ * operations such as <code>CloudBlob.downloadAttributesAsync</code> also run on the scheduler, each in its own session.
+ * <p>
+ * The scheduler bounds the total number of transfers in flight across all streams using it. Each stream obtains its own
+ * {@link Session}, which limits the number of transfers the stream may have in flight and queues the rest. When a
+ * transfer slot frees up, sessions with queued work are served in round-robin order so that one stream cannot starve
+ * the others.
+ * <p>
+ * Worker threads are daemon threads which are created on demand and which exit after being idle for
+ * {@link #IDLE_THREAD_TIMEOUT_IN_SECONDS} seconds.
+ */
+public final class TransferScheduler {
+
+    /**
+     * Represents the default maximum number of transfers a scheduler will run at once.
+     */
+    public static final int DEFAULT_MAXIMUM_CONCURRENT_TRANSFERS = 64;
+
+    /**
+     * Represents the number of seconds an idle worker thread is kept alive.
+     */
+    public static final int IDLE_THREAD_TIMEOUT_IN_SECONDS = 60;
+
+    /**
+     * Holds the sequence used to number the scheduler threads.
+     */
+    private static final AtomicInteger threadSequence = new AtomicInteger();
+
+    /**
+     * Holds the maximum number of transfers which may be in flight at once.
+     */
+    private final int maximumConcurrentTransfers;
+
+    /**
+     * Holds the executor which runs the transfers.
+     */
+    private final ThreadPoolExecutor threadExecutor;
+
+    /**
+     * Holds the lock guarding the scheduling state.
+     */
+    private final Object schedulingLock = new Object();
+
+    /**
+     * Holds the sessions which have queued work and are below their concurrency limit, in round-robin order.
+     */
+    private final LinkedList<Session> readySessions = new LinkedList<Session>();
+
+    /**
+     * Holds the number of transfers currently in flight.
+     */
+    private int transfersInFlight;
+
+    /**
+     * Creates an instance of the <code>TransferScheduler</code> class using the default maximum number of concurrent
+     * transfers.
+     */
+    public TransferScheduler() {
+        this(DEFAULT_MAXIMUM_CONCURRENT_TRANSFERS);
+    }
+
+    /**
+     * Creates an instance of the <code>TransferScheduler</code> class using the specified maximum number of concurrent
+     * transfers.
+     *
+     * @param maximumConcurrentTransfers
+     *            An <code>int</code> which represents the maximum number of transfers, across all sessions, which may be
+     *            in flight at once.
+     */
+    public TransferScheduler(final int maximumConcurrentTransfers) {
+        Utility.assertGreaterThanOrEqual("maximumConcurrentTransfers", maximumConcurrentTransfers, 1);
+        this.maximumConcurrentTransfers = maximumConcurrentTransfers;
+        this.threadExecutor = new ThreadPoolExecutor(maximumConcurrentTransfers, maximumConcurrentTransfers,
+                IDLE_THREAD_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(final Runnable runnable) {
+                        final Thread thread = new Thread(runnable, "azure-storage-transfer-"
+                                + threadSequence.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        this.threadExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gets the maximum number of transfers, across all sessions, which may be in flight at once.
+     *
+     * @return An <code>int</code> which represents the maximum number of concurrent transfers.
+     */
+    public int getMaximumConcurrentTransfers() {
+        return this.maximumConcurrentTransfers;
+    }
+
+    /**
+     * Gets the number of transfers currently in flight.
+     *
+     * @return An <code>int</code> which represents the number of transfers in flight.
+     */
+    public int getTransfersInFlight() {
+        synchronized (this.schedulingLock) {
+            return this.transfersInFlight;
+        }
+    }
+
+    /**
+     * Creates a new session on this scheduler.
+     *
+     * @param maximumConcurrentTransfers
+     *            An <code>int</code> which represents the maximum number of transfers from this session which may be in
+     *            flight at once.
+     * @return A {@link Session} object which may be used to submit transfers.
+     */
+    public Session createSession(final int maximumConcurrentTransfers) {
+        Utility.assertGreaterThanOrEqual("maximumConcurrentTransfers", maximumConcurrentTransfers, 1);
+        return new Session(maximumConcurrentTransfers);
+    }
+
+    /**
+     * Starts queued transfers while there are free transfer slots and sessions with queued work.
+     */
+    private void dispatch() {
+        synchronized (this.schedulingLock) {
+            while (this.transfersInFlight < this.maximumConcurrentTransfers && !this.readySessions.isEmpty()) {
+                final Session session = this.readySessions.removeFirst();
+                final Runnable transfer = session.pendingTransfers.removeFirst();
+                session.transfersInFlight++;
+                this.transfersInFlight++;
+
+                // Send the session to the back of the line if it can run more work.
+                session.isReady = false;
+                session.updateReadiness();
+
+                this.threadExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            transfer.run();
+                        }
+                        finally {
+                            TransferScheduler.this.complete(session);
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Releases the transfer slot held by a completed transfer of the given session and dispatches more work.
+     *
+     * @param session
+     *            The {@link Session} whose transfer completed.
+     */
+    private void complete(final Session session) {
+        synchronized (this.schedulingLock) {
+            session.transfersInFlight--;
+            this.transfersInFlight--;
+            session.updateReadiness();
+
+            // Wake any thread waiting for the session's running transfers to return.
+            this.schedulingLock.notifyAll();
+        }
+
+        this.dispatch();
+    }
+
+    /**
+     * Represents the work submitted to a {@link TransferScheduler} by a single stream. A session is an
+     * <code>Executor</code> so it may back an <code>ExecutorCompletionService</code>.
+     */
+    public final class Session implements Executor {
+
+        /**
+         * Holds the maximum number of transfers from this session which may be in flight at once.
+         */
+        private final int maximumConcurrentTransfers;
+
+        /**
+         * Holds the transfers which have been submitted but not started.
+         */
+        private final LinkedList<Runnable> pendingTransfers = new LinkedList<Runnable>();
+
+        /**
+         * Holds the number of transfers from this session currently in flight.
+         */
+        private int transfersInFlight;
+
+        /**
+         * Indicates whether this session is in the scheduler's ready list.
+         */
+        private boolean isReady;
+
+        /**
+         * Creates an instance of the <code>Session</code> class.
+         *
+         * @param maximumConcurrentTransfers
+         *            An <code>int</code> which represents the maximum number of transfers from this session which may
+         *            be in flight at once.
+         */
+        private Session(final int maximumConcurrentTransfers) {
+            this.maximumConcurrentTransfers = maximumConcurrentTransfers;
+        }
+
+        /**
+         * Queues a transfer to be run by the scheduler.
+         *
+         * @param transfer
+         *            A <code>Runnable</code> which represents the transfer.
+         */
+        @Override
+        public void execute(final Runnable transfer) {
+            Utility.assertNotNull("transfer", transfer);
+            synchronized (TransferScheduler.this.schedulingLock) {
+                this.pendingTransfers.addLast(transfer);
+                this.updateReadiness();
+            }
+
+            TransferScheduler.this.dispatch();
+        }
+
+        /**
+         * Discards all transfers of this session which have not yet started. Transfers already in flight are allowed
+         * to complete. Each discarded transfer which is a <code>Future</code> is cancelled, so that threads waiting on
+         * it are released. A transfer submitted through an <code>ExecutorCompletionService</code> is wrapped by the
+         * service, so the future returned by its <code>submit</code> method is not cancelled and must not be waited
+         * on once its transfer has been discarded.
+         */
+        public void cancelPendingTransfers() {
+            final ArrayList<Runnable> discardedTransfers;
+            synchronized (TransferScheduler.this.schedulingLock) {
+                discardedTransfers = new ArrayList<Runnable>(this.pendingTransfers);
+                this.pendingTransfers.clear();
+                if (this.isReady) {
+                    TransferScheduler.this.readySessions.remove(this);
+                    this.isReady = false;
+                }
+
+                // Wake any thread waiting for the discarded transfers.
+                TransferScheduler.this.schedulingLock.notifyAll();
+            }
+
+            // Cancel outside the lock, as cancelling may run completion hooks and callbacks.
+            for (final Runnable transfer : discardedTransfers) {
+                if (transfer instanceof Future) {
+                    ((Future<?>) transfer).cancel(false);
+                }
+            }
+        }
+
+        /**
+         * Waits for the transfers of this session which have started to return. Transfers which have not started are
+         * waited for as well, so this is normally called after {@link #cancelPendingTransfers()}. Interrupts do not
+         * end the wait, but the thread's interrupt status is restored before this method returns.
+         */
+        public void awaitRunningTransfers() {
+            boolean interrupted = false;
+            synchronized (TransferScheduler.this.schedulingLock) {
+                while (this.transfersInFlight > 0 || !this.pendingTransfers.isEmpty()) {
+                    try {
+                        TransferScheduler.this.schedulingLock.wait();
+                    }
+                    catch (final InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Adds this session to the scheduler's ready list if it has queued work and is below its concurrency limit.
+         * Must be called while holding the scheduling lock.
+         */
+        private void updateReadiness() {
+            if (!this.isReady && !this.pendingTransfers.isEmpty()
+                    && this.transfersInFlight < this.maximumConcurrentTransfers) {
+                TransferScheduler.this.readySessions.addLast(this);
+                this.isReady = true;
+            }
+        }
+    }
+}
@@ -79,6 +79,11 @@ final class BlobConstants {
      */
     public static final String BLOCK_LIST_ELEMENT = "BlockList";
 
+    /**
+     * XML element for a cleared page range.
+     */
+    public static final String CLEAR_RANGE_ELEMENT = "ClearRange";
+
     /**
      * XML element for committed blocks.
      */
@@ -186,6 +191,12 @@ final class BlobConstants {
      */
     public static final String PAGE_RANGE_ELEMENT = "PageRange";
 
+    /**
+     * The storage service version of the requests which list the page ranges changed since a previous snapshot, which
+     * is the first version to support them.
+     */
+    public static final String PAGE_RANGES_DIFF_VERSION = "2015-07-08";
+
     /**
      * The header that specifies page write mode.
      */
@@ -20,6 +20,10 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
 
 import com.microsoft.azure.storage.AccessCondition;
 import com.microsoft.azure.storage.Constants;
@@ -28,12 +32,17 @@ import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.StorageErrorCode;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.Base64;
 import com.microsoft.azure.storage.core.SR;
 import com.microsoft.azure.storage.core.Utility;
 
 /**
  * Provides an input stream to read a given blob resource.
+ * <p>
+ * If the read-ahead range count of the {@link BlobRequestOptions} is greater than 0, the stream downloads up to that
+ * many ranges of {@link CloudBlob#getStreamMinimumReadSizeInBytes()} bytes ahead of the read position. Read-ahead is
+ * off by default.
  */
 public final class BlobInputStream extends InputStream {
     /**
@@ -122,7 +131,29 @@ public final class BlobInputStream extends InputStream {
     private AccessCondition accessCondition = null;
 
     /**
-     * Initializes a new instance of the BlobInputStream class.
+     * Holds the session used to prefetch ranges ahead of the read position, or <code>null</code> if read-ahead is
+     * disabled.
+     */
+    private final TransferScheduler.Session transferSession;
+
+    /**
+     * Holds the maximum number of ranges to prefetch ahead of the read position.
+     */
+    private final int readAheadRangeCount;
+
+    /**
+     * Holds the prefetched ranges in ascending order of offset. The ranges are contiguous.
+     */
+    private final LinkedList<PrefetchedRange> prefetchedRanges = new LinkedList<PrefetchedRange>();
+
+    /**
+     * Holds the absolute byte position at which the next prefetched range starts.
+     */
+    private long nextPrefetchOffset;
+
+    /**
+     * Initializes a new instance of the BlobInputStream class. If the read-ahead range count of the options is greater
+     * than 0, the stream keeps that many ranges downloading ahead of the read position.
      * 
      * @param parentBlob
      *            A {@link CloudBlob} object which represents the blob that this stream is associated with.
@@ -181,6 +212,11 @@ public final class BlobInputStream extends InputStream {
 
         this.streamLength = parentBlob.getProperties().getLength();
 
+        this.readAheadRangeCount = this.options.getReadAheadRangeCount() == null ? 0 : this.options
+                .getReadAheadRangeCount();
+        this.transferSession = this.readAheadRangeCount > 0 ? parentBlob.getServiceClient().getTransferScheduler()
+                .createSession(this.readAheadRangeCount) : null;
+
         if (this.validateBlobMd5) {
             try {
                 this.md5Digest = MessageDigest.getInstance("MD5");
@@ -233,6 +269,11 @@ public final class BlobInputStream extends InputStream {
     @Override
     public synchronized void close() throws IOException {
         this.currentBuffer = null;
+        this.discardPrefetchedRanges();
+        if (this.transferSession != null) {
+            this.transferSession.cancelPendingTransfers();
+        }
+
         this.streamFaulted = true;
         this.lastError = new IOException(SR.STREAM_CLOSED);
     }
@@ -249,6 +290,11 @@ public final class BlobInputStream extends InputStream {
      */
     @DoesServiceRequest
     private synchronized void dispatchRead(final int readLength) throws IOException {
+        if (this.transferSession != null) {
+            this.dispatchPrefetchedRead();
+            return;
+        }
+
         try {
             final byte[] byteBuffer = new byte[readLength];
 
@@ -266,6 +312,98 @@ public final class BlobInputStream extends InputStream {
         }
     }
 
+    /**
+     * Makes the prefetched range containing the current read position the current buffer, and tops up the ranges
+     * prefetched ahead of it.
+     * 
+     * @throws IOException
+     *             If an I/O error occurs.
+     */
+    @DoesServiceRequest
+    private synchronized void dispatchPrefetchedRead() throws IOException {
+        this.trimPrefetchedRanges();
+        this.fillPrefetchWindow();
+
+        final PrefetchedRange range = this.prefetchedRanges.removeFirst();
+        this.fillPrefetchWindow();
+
+        try {
+            final byte[] byteBuffer = range.task.get();
+            this.currentBuffer = new ByteArrayInputStream(byteBuffer);
+            this.currentBuffer.skip(this.currentAbsoluteReadPosition - range.offset);
+            this.bufferSize = byteBuffer.length;
+            this.bufferStartOffset = range.offset;
+        }
+        catch (final InterruptedException e) {
+            this.streamFaulted = true;
+            this.lastError = Utility.initIOException(e);
+            throw this.lastError;
+        }
+        catch (final ExecutionException e) {
+            this.streamFaulted = true;
+            this.lastError = e.getCause() instanceof Exception ? Utility.initIOException((Exception) e.getCause())
+                    : Utility.initIOException(e);
+            throw this.lastError;
+        }
+    }
+
+    /**
+     * Discards prefetched ranges which end before the current read position. If the read position is no longer covered
+     * by the prefetched ranges, all of them are discarded and prefetching restarts at the read position.
+     */
+    private synchronized void trimPrefetchedRanges() {
+        while (!this.prefetchedRanges.isEmpty()
+                && this.prefetchedRanges.getFirst().offset + this.prefetchedRanges.getFirst().length <= this.currentAbsoluteReadPosition) {
+            this.prefetchedRanges.removeFirst().task.cancel(false);
+        }
+
+        if (!this.prefetchedRanges.isEmpty()
+                && this.prefetchedRanges.getFirst().offset > this.currentAbsoluteReadPosition) {
+            this.discardPrefetchedRanges();
+        }
+
+        if (this.prefetchedRanges.isEmpty()) {
+            this.nextPrefetchOffset = this.currentAbsoluteReadPosition;
+        }
+    }
+
+    /**
+     * Submits range downloads until the configured number of ranges are prefetched or the end of the blob is reached.
+     */
+    @DoesServiceRequest
+    private synchronized void fillPrefetchWindow() {
+        while (this.prefetchedRanges.size() < this.readAheadRangeCount && this.nextPrefetchOffset < this.streamLength) {
+            final long rangeOffset = this.nextPrefetchOffset;
+            final int rangeLength = (int) Math.min(this.readSize, this.streamLength - rangeOffset);
+            this.nextPrefetchOffset += rangeLength;
+
+            final FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>() {
+                @Override
+                public byte[] call() throws StorageException {
+                    final byte[] byteBuffer = new byte[rangeLength];
+                    BlobInputStream.this.parentBlobRef.downloadRangeInternal(rangeOffset, (long) rangeLength,
+                            byteBuffer, 0, BlobInputStream.this.accessCondition, BlobInputStream.this.options,
+                            BlobInputStream.this.opContext);
+                    return byteBuffer;
+                }
+            });
+
+            this.prefetchedRanges.addLast(new PrefetchedRange(rangeOffset, rangeLength, task));
+            this.transferSession.execute(task);
+        }
+    }
+
+    /**
+     * Cancels and discards all prefetched ranges.
+     */
+    private synchronized void discardPrefetchedRanges() {
+        for (final PrefetchedRange range : this.prefetchedRanges) {
+            range.task.cancel(false);
+        }
+
+        this.prefetchedRanges.clear();
+    }
+
     /**
      * Marks the current position in this input stream. A subsequent call to the reset method repositions this stream at
      * the last marked position so that subsequent reads re-read the same bytes.
@@ -495,6 +633,9 @@ public final class BlobInputStream extends InputStream {
     private synchronized void reposition(final long absolutePosition) {
         this.currentAbsoluteReadPosition = absolutePosition;
         this.currentBuffer = new ByteArrayInputStream(new byte[0]);
+        if (this.transferSession != null) {
+            this.trimPrefetchedRanges();
+        }
     }
 
     /**
@@ -541,4 +682,30 @@ public final class BlobInputStream extends InputStream {
         this.reposition(this.currentAbsoluteReadPosition + n);
         return n;
     }
+
+    /**
+     * Represents a range of the blob which is being downloaded ahead of the read position.
+     */
+    private static final class PrefetchedRange {
+        /**
+         * Holds the absolute byte position of the start of the range.
+         */
+        private final long offset;
+
+        /**
+         * Holds the length of the range in bytes.
+         */
+        private final int length;
+
+        /**
+         * Holds the task downloading the range.
+         */
+        private final FutureTask<byte[]> task;
+
+        private PrefetchedRange(final long offset, final int length, final FutureTask<byte[]> task) {
+            this.offset = offset;
+            this.length = length;
+            this.task = task;
+        }
+    }
 }
@@ -0,0 +1,40 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.blob;
+
+import com.microsoft.azure.storage.ResultSegment;
+import com.microsoft.azure.storage.StorageException;
+
+/**
+ * Represents a handler which receives the results of a parallel blob listing one segment at a time.
+ * <p>
+ * The segments of a single prefix are delivered in order, one at a time, but segments of different prefixes are
+ * delivered concurrently from different threads, so implementations must be thread-safe.
+ */
+public interface BlobListingHandler {
+    /**
+     * Called with each segment of results listed for a prefix. In a hierarchical listing, each
+     * {@link CloudBlobDirectory} in the segment has already been queued to be listed when this method is called.
+     *
+     * @param prefix
+     *            A <code>String</code> which represents the prefix the segment was listed for.
+     * @param segment
+     *            A {@link ResultSegment} containing the {@link ListBlobItem} objects. Its continuation token is
+     *            <code>null</code> for the last segment of the prefix.
+     * @throws StorageException
+     *             to abort the listing. The listing also aborts if this method throws a <code>RuntimeException</code>.
+     */
+    void handleSegment(String prefix, ResultSegment<ListBlobItem> segment) throws StorageException;
+}
@@ -15,7 +15,6 @@
 package com.microsoft.azure.storage.blob;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -26,15 +25,16 @@ import java.util.Random;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.BufferPool;
 import com.microsoft.azure.storage.Constants;
 import com.microsoft.azure.storage.DoesServiceRequest;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.Base64;
 import com.microsoft.azure.storage.core.SR;
 import com.microsoft.azure.storage.core.Utility;
@@ -104,9 +104,27 @@ public final class BlobOutputStream extends OutputStream {
     private long currentPageOffset;
 
     /**
-     * A private buffer to store data prior to committing to the cloud.
+     * Indicates whether pages which hold only zeros are skipped rather than written. This is only the case for a page
+     * blob which the stream created, as its pages already read as zeros.
      */
-    private ByteArrayOutputStream outBuffer;
+    private boolean skipEmptyPages;
+
+    /**
+     * Holds the pool from which this stream borrows its buffers.
+     */
+    private final BufferPool bufferPool;
+
+    /**
+     * Holds the buffers handed to upload tasks which have not yet returned them to the pool. Guarded by its own
+     * monitor.
+     */
+    private final ArrayList<byte[]> dispatchedBuffers = new ArrayList<byte[]>();
+
+    /**
+     * A private buffer to store data prior to committing to the cloud. It is borrowed from the buffer pool on the
+     * first write after a dispatch and handed to the upload task, which returns it to the pool.
+     */
+    private byte[] outBuffer;
 
     /**
      * Holds the number of currently buffered bytes.
@@ -125,9 +143,9 @@ public final class BlobOutputStream extends OutputStream {
     private volatile int outstandingRequests;
 
     /**
-     * The ExecutorService used to schedule tasks for this stream.
+     * The session on the service client's {@link TransferScheduler} used to schedule tasks for this stream.
      */
-    private final ExecutorService threadExecutor;
+    private final TransferScheduler.Session transferSession;
 
     /**
      * The CompletionService used to await task completion for this stream.
@@ -160,7 +178,7 @@ public final class BlobOutputStream extends OutputStream {
         this.parentBlobRef = parentBlob;
         this.parentBlobRef.assertCorrectBlobType();
         this.options = new BlobRequestOptions(options);
-        this.outBuffer = new ByteArrayOutputStream();
+        this.bufferPool = parentBlob.getServiceClient().getBufferPool();
         this.opContext = opContext;
         this.streamFaulted = false;
 
@@ -178,9 +196,9 @@ public final class BlobOutputStream extends OutputStream {
             }
         }
 
-        // V2 cachedThreadPool for perf.
-        this.threadExecutor = Executors.newFixedThreadPool(this.options.getConcurrentRequestCount());
-        this.completionService = new ExecutorCompletionService<Void>(this.threadExecutor);
+        this.transferSession = parentBlob.getServiceClient().getTransferScheduler()
+                .createSession(this.options.getConcurrentRequestCount());
+        this.completionService = new ExecutorCompletionService<Void>(this.transferSession);
     }
 
     /**
@@ -217,6 +235,9 @@ public final class BlobOutputStream extends OutputStream {
      * @param length
      *            A <code>long</code> which represents the length of the page blob in bytes, which must be a multiple of
      *            512.
+     * @param isNewBlob
+     *            <code>true</code> if the page blob was just created, in which case the pages which hold only zeros
+     *            are skipped when the options ask for it.
      * @param accessCondition
      *            An {@link AccessCondition} object which represents the access conditions for the blob.
      * @param options
@@ -228,11 +249,12 @@ public final class BlobOutputStream extends OutputStream {
      *             An exception representing any error which occurred during the operation.
      */
     @DoesServiceRequest
-    protected BlobOutputStream(final CloudPageBlob parentBlob, final long length,
+    protected BlobOutputStream(final CloudPageBlob parentBlob, final long length, final boolean isNewBlob,
             final AccessCondition accessCondition, final BlobRequestOptions options, final OperationContext opContext)
             throws StorageException {
         this(parentBlob, accessCondition, options, opContext);
         this.streamType = BlobType.PAGE_BLOB;
+        this.skipEmptyPages = isNewBlob && this.options.getSkipEmptyPages();
         this.internalWriteThreshold = (int) Math.min(this.parentBlobRef.getStreamWriteSizeInBytes(), length);
     }
 
@@ -269,9 +291,6 @@ public final class BlobOutputStream extends OutputStream {
             // flush any remaining data
             this.flush();
 
-            // shut down the ExecutorService.
-            this.threadExecutor.shutdown();
-
             // try to commit the blob
             try {
                 this.commit();
@@ -287,10 +306,22 @@ public final class BlobOutputStream extends OutputStream {
                 this.lastError = new IOException(SR.STREAM_CLOSED);
             }
 
-            // if an exception was thrown and the executor was not yet closed, call shutDownNow() to cancel all tasks 
-            // and shutdown the ExecutorService
-            if (!this.threadExecutor.isShutdown()) {
-                this.threadExecutor.shutdownNow();
+            // if an exception was thrown, discard any tasks which have not started yet and wait for the others
+            this.transferSession.cancelPendingTransfers();
+            this.transferSession.awaitRunningTransfers();
+
+            // return the buffers of discarded tasks and a buffer which was never dispatched
+            synchronized (this.dispatchedBuffers) {
+                for (final byte[] buffer : this.dispatchedBuffers) {
+                    this.bufferPool.release(buffer);
+                }
+
+                this.dispatchedBuffers.clear();
+            }
+
+            if (this.outBuffer != null) {
+                this.bufferPool.release(this.outBuffer);
+                this.outBuffer = null;
             }
         }
     }
@@ -340,10 +371,11 @@ public final class BlobOutputStream extends OutputStream {
             this.waitForTaskToComplete();
         }
 
-        final ByteArrayInputStream bufferRef = new ByteArrayInputStream(this.outBuffer.toByteArray());
+        final byte[] buffer = this.outBuffer;
 
         if (this.streamType == BlobType.BLOCK_BLOB) {
             final CloudBlockBlob blobRef = (CloudBlockBlob) this.parentBlobRef;
+            final ByteArrayInputStream bufferRef = new ByteArrayInputStream(buffer, 0, writeLength);
             final String blockID = Base64.encode(Utility.getBytesFromLong(this.blockIdSequenceNumber++));
             this.blockList.add(new BlockEntry(blockID, BlockSearchMode.LATEST));
 
@@ -351,13 +383,24 @@ public final class BlobOutputStream extends OutputStream {
                 @Override
                 public Void call() {
                     try {
-                        blobRef.uploadBlock(blockID, bufferRef, writeLength, BlobOutputStream.this.accessCondition,
-                                BlobOutputStream.this.options, BlobOutputStream.this.opContext);
+                        // The block is already in memory, so its MD5 is calculated here rather than by reading it
+                        // again through uploadBlock.
+                        String md5 = null;
+                        if (BlobOutputStream.this.options.getUseTransactionalContentMD5()) {
+                            final MessageDigest digest = MessageDigest.getInstance("MD5");
+                            digest.update(buffer, 0, writeLength);
+                            md5 = Base64.encode(digest.digest());
+                        }
+
+                        blobRef.uploadBlockInternal(blockID, md5, bufferRef, writeLength,
+                                BlobOutputStream.this.accessCondition, BlobOutputStream.this.options,
+                                BlobOutputStream.this.opContext);
                     }
-                    catch (final IOException e) {
+                    catch (final NoSuchAlgorithmException e) {
+                        // This wont happen, throw fatal.
                         synchronized (BlobOutputStream.this.lastErrorLock) {
                             BlobOutputStream.this.streamFaulted = true;
-                            BlobOutputStream.this.lastError = e;
+                            BlobOutputStream.this.lastError = Utility.initIOException(e);
                         }
                     }
                     catch (final StorageException e) {
@@ -366,48 +409,134 @@ public final class BlobOutputStream extends OutputStream {
                             BlobOutputStream.this.lastError = Utility.initIOException(e);
                         }
                     }
+                    finally {
+                        BlobOutputStream.this.releaseDispatchedBuffer(buffer);
+                    }
                     return null;
                 }
             };
+
+            synchronized (this.dispatchedBuffers) {
+                this.dispatchedBuffers.add(buffer);
+            }
+
+            this.completionService.submit(worker);
+            this.outstandingRequests++;
         }
         else if (this.streamType == BlobType.PAGE_BLOB) {
             final CloudPageBlob blobRef = (CloudPageBlob) this.parentBlobRef;
-            long tempOffset = this.currentPageOffset;
-            long tempLength = writeLength;
-
-            final long opWriteLength = tempLength;
-            final long opOffset = tempOffset;
+            final long bufferOffset = this.currentPageOffset;
             this.currentPageOffset += writeLength;
 
-            worker = new Callable<Void>() {
-                @Override
-                public Void call() {
-                    try {
-                        blobRef.uploadPages(bufferRef, opOffset, opWriteLength, BlobOutputStream.this.accessCondition,
-                                BlobOutputStream.this.options, BlobOutputStream.this.opContext);
-                    }
-                    catch (final IOException e) {
-                        synchronized (BlobOutputStream.this.lastErrorLock) {
-                            BlobOutputStream.this.streamFaulted = true;
-                            BlobOutputStream.this.lastError = e;
+            // Each run of pages which hold data is sent as its own request. Unless empty pages are skipped, the whole
+            // buffer is a single run.
+            final ArrayList<PageRange> runs = new ArrayList<PageRange>();
+            if (this.skipEmptyPages) {
+                getDataRuns(buffer, writeLength, runs);
+            }
+            else {
+                runs.add(new PageRange(0, writeLength - 1));
+            }
+
+            if (runs.isEmpty()) {
+                this.bufferPool.release(buffer);
+            }
+            else {
+                synchronized (this.dispatchedBuffers) {
+                    this.dispatchedBuffers.add(buffer);
+                }
+            }
+
+            // The buffer is returned to the pool once the last run using it has been sent.
+            final AtomicInteger pendingRuns = new AtomicInteger(runs.size());
+            for (final PageRange run : runs) {
+                final int runStart = (int) run.getStartOffset();
+                final long runLength = run.getEndOffset() - run.getStartOffset() + 1;
+                final ByteArrayInputStream bufferRef = new ByteArrayInputStream(buffer, runStart, (int) runLength);
+                final long opOffset = bufferOffset + runStart;
+
+                worker = new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        try {
+                            blobRef.uploadPages(bufferRef, opOffset, runLength, BlobOutputStream.this.accessCondition,
+                                    BlobOutputStream.this.options, BlobOutputStream.this.opContext);
                         }
-                    }
-                    catch (final StorageException e) {
-                        synchronized (BlobOutputStream.this.lastErrorLock) {
-                            BlobOutputStream.this.streamFaulted = true;
-                            BlobOutputStream.this.lastError = Utility.initIOException(e);
+                        catch (final IOException e) {
+                            synchronized (BlobOutputStream.this.lastErrorLock) {
+                                BlobOutputStream.this.streamFaulted = true;
+                                BlobOutputStream.this.lastError = e;
+                            }
+                        }
+                        catch (final StorageException e) {
+                            synchronized (BlobOutputStream.this.lastErrorLock) {
+                                BlobOutputStream.this.streamFaulted = true;
+                                BlobOutputStream.this.lastError = Utility.initIOException(e);
+                            }
+                        }
+                        finally {
+                            if (pendingRuns.decrementAndGet() == 0) {
+                                BlobOutputStream.this.releaseDispatchedBuffer(buffer);
+                            }
                         }
+                        return null;
                     }
-                    return null;
-                }
-            };
+                };
+
+                this.completionService.submit(worker);
+                this.outstandingRequests++;
+            }
         }
 
-        // Do work and reset buffer.
-        this.completionService.submit(worker);
-        this.outstandingRequests++;
+        // Reset buffer.
         this.currentBufferedBytes = 0;
-        this.outBuffer = new ByteArrayOutputStream();
+        this.outBuffer = null;
+    }
+
+    /**
+     * Finds the runs of pages in a buffer which hold at least one byte other than zero. Adjacent pages which hold data
+     * are coalesced into a single run, and pages which hold only zeros are left out.
+     * 
+     * @param buffer
+     *            A <code>byte</code> array which holds the pages.
+     * @param length
+     *            An <code>int</code> which represents the number of bytes of the buffer to scan, which must be a
+     *            multiple of 512.
+     * @param runs
+     *            An <code>ArrayList</code> to which a {@link PageRange} is added for each run, with offsets relative to
+     *            the start of the buffer.
+     */
+    static void getDataRuns(final byte[] buffer, final int length, final ArrayList<PageRange> runs) {
+        int runStart = -1;
+        for (int pageStart = 0; pageStart < length; pageStart += Constants.PAGE_SIZE) {
+            if (isEmptyPage(buffer, pageStart)) {
+                if (runStart != -1) {
+                    runs.add(new PageRange(runStart, pageStart - 1));
+                    runStart = -1;
+                }
+            }
+            else if (runStart == -1) {
+                runStart = pageStart;
+            }
+        }
+
+        if (runStart != -1) {
+            runs.add(new PageRange(runStart, length - 1));
+        }
+    }
+
+    /**
+     * Determines whether the page starting at an offset of a buffer holds only zeros.
+     */
+    private static boolean isEmptyPage(final byte[] buffer, final int pageStart) {
+        final int pageEnd = pageStart + Constants.PAGE_SIZE;
+        for (int i = pageStart; i < pageEnd; i++) {
+            if (buffer[i] != 0) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     /**
@@ -468,6 +597,20 @@ public final class BlobOutputStream extends OutputStream {
         this.outstandingRequests--;
     }
 
+    /**
+     * Returns a buffer handed to an upload task to the pool.
+     * 
+     * @param buffer
+     *            A <code>byte</code> array which represents the buffer.
+     */
+    private void releaseDispatchedBuffer(final byte[] buffer) {
+        synchronized (this.dispatchedBuffers) {
+            this.dispatchedBuffers.remove(buffer);
+        }
+
+        this.bufferPool.release(buffer);
+    }
+
     /**
      * Writes <code>b.length</code> bytes from the specified byte array to this output stream.
      * 
@@ -566,12 +709,22 @@ public final class BlobOutputStream extends OutputStream {
             final int availableBufferBytes = this.internalWriteThreshold - this.currentBufferedBytes;
             final int nextWrite = Math.min(availableBufferBytes, length);
 
+            if (this.outBuffer == null) {
+                try {
+                    this.outBuffer = this.bufferPool.acquire(this.internalWriteThreshold);
+                }
+                catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw Utility.initIOException(e);
+                }
+            }
+
             // If we need to set MD5 then update the digest accordingly
             if (this.options.getStoreBlobContentMD5()) {
                 this.md5Digest.update(data, offset, nextWrite);
             }
 
-            this.outBuffer.write(data, offset, nextWrite);
+            System.arraycopy(data, offset, this.outBuffer, this.currentBufferedBytes, nextWrite);
             this.currentBufferedBytes += nextWrite;
             offset += nextWrite;
             length -= nextWrite;
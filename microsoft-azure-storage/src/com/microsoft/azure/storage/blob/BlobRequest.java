@@ -50,6 +50,8 @@ final class BlobRequest {
 
     private static final String PAGE_LIST_QUERY_ELEMENT_NAME = "pagelist";
 
+    private static final String PREVIOUS_SNAPSHOT_QUERY_ELEMENT_NAME = "prevsnapshot";
+
     private static final String SNAPSHOTS_QUERY_ELEMENT_NAME = "snapshots";
 
     private static final String UNCOMMITTED_BLOBS_QUERY_ELEMENT_NAME = "uncommittedblobs";
@@ -625,6 +627,57 @@ final class BlobRequest {
         return request;
     }
 
+    /**
+     * Constructs a web request to return the page ranges which changed between a previous snapshot of a page blob and
+     * the blob or a later snapshot. The request is sent at {@link BlobConstants#PAGE_RANGES_DIFF_VERSION}, the first
+     * version of the service which supports it. Sign with no length specified.
+     * 
+     * @param uri
+     *            A <code>java.net.URI</code> object that specifies the absolute URI.
+     * @param blobOptions
+     *            A {@link BlobRequestOptions} object that specifies execution options such as retry policy and timeout
+     *            settings for the operation. Specify <code>null</code> to use the request options specified on the
+     *            {@link CloudBlobClient}.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the blob.
+     * @param snapshotVersion
+     *            The snapshot version, if the blob is a snapshot.
+     * @param previousSnapshotVersion
+     *            The snapshot version of the previous snapshot to compare against.
+     * @return a HttpURLConnection to use to perform the operation.
+     * @throws IOException
+     *             if there is an error opening the connection
+     * @throws URISyntaxException
+     *             if the resource URI is invalid
+     * @throws StorageException
+     *             an exception representing any error which occurred during the operation.
+     * @throws IllegalArgumentException
+     */
+    public static HttpURLConnection getPageRangesDiff(final URI uri, final BlobRequestOptions blobOptions,
+            final OperationContext opContext, final AccessCondition accessCondition, final String snapshotVersion,
+            final String previousSnapshotVersion) throws StorageException, IOException, URISyntaxException {
+
+        final UriQueryBuilder builder = new UriQueryBuilder();
+        builder.add(Constants.QueryConstants.COMPONENT, PAGE_LIST_QUERY_ELEMENT_NAME);
+        BlobRequest.addSnapshot(builder, snapshotVersion);
+        builder.add(PREVIOUS_SNAPSHOT_QUERY_ELEMENT_NAME, previousSnapshotVersion);
+
+        final HttpURLConnection request = createURLConnection(uri, builder, blobOptions, opContext);
+        request.setRequestMethod(Constants.HTTP_GET);
+        request.setRequestProperty(Constants.HeaderConstants.STORAGE_VERSION_HEADER,
+                BlobConstants.PAGE_RANGES_DIFF_VERSION);
+
+        if (accessCondition != null) {
+            accessCondition.applyConditionToRequest(request);
+        }
+
+        return request;
+    }
+
     /**
      * Constructs a web request to return the user-defined metadata for this container. Sign with no length specified.
      * 
@@ -55,6 +55,19 @@ public final class BlobRequestOptions extends RequestOptions {
      */
     private Integer singleBlobPutThresholdInBytes = null;
 
+    /**
+     * Specifies whether uploads which create a new page blob should skip the pages whose content is all zeros, and
+     * whether page blob downloads to a file should fetch only the page ranges which hold data. The default value is
+     * <code>false</code>.
+     */
+    private Boolean skipEmptyPages = null;
+
+    /**
+     * Represents the number of ranges a {@link BlobInputStream} downloads ahead of its read position. The default
+     * value is 0, which disables read-ahead.
+     */
+    private Integer readAheadRangeCount = null;
+
     /**
      * Creates an instance of the <code>BlobRequestOptions</code> class.
      */
@@ -77,6 +90,8 @@ public final class BlobRequestOptions extends RequestOptions {
             this.setStoreBlobContentMD5(other.getStoreBlobContentMD5());
             this.setDisableContentMD5Validation(other.getDisableContentMD5Validation());
             this.setSingleBlobPutThresholdInBytes(other.getSingleBlobPutThresholdInBytes());
+            this.setSkipEmptyPages(other.getSkipEmptyPages());
+            this.setReadAheadRangeCount(other.getReadAheadRangeCount());
         }
     }
 
@@ -146,6 +161,14 @@ public final class BlobRequestOptions extends RequestOptions {
             modifiedOptions.setDisableContentMD5Validation(false);
         }
 
+        if (modifiedOptions.getSkipEmptyPages() == null) {
+            modifiedOptions.setSkipEmptyPages(false);
+        }
+
+        if (modifiedOptions.getReadAheadRangeCount() == null) {
+            modifiedOptions.setReadAheadRangeCount(0);
+        }
+
         return modifiedOptions;
     }
 
@@ -175,6 +198,14 @@ public final class BlobRequestOptions extends RequestOptions {
             modifiedOptions.setDisableContentMD5Validation(clientOptions.getDisableContentMD5Validation());
         }
 
+        if (modifiedOptions.getSkipEmptyPages() == null) {
+            modifiedOptions.setSkipEmptyPages(clientOptions.getSkipEmptyPages());
+        }
+
+        if (modifiedOptions.getReadAheadRangeCount() == null) {
+            modifiedOptions.setReadAheadRangeCount(clientOptions.getReadAheadRangeCount());
+        }
+
         return modifiedOptions;
     }
 
@@ -232,6 +263,27 @@ public final class BlobRequestOptions extends RequestOptions {
         return this.singleBlobPutThresholdInBytes;
     }
 
+    /**
+     * Gets whether uploads which create a new page blob skip the pages whose content is all zeros, and whether page
+     * blob downloads to a file fetch only the page ranges which hold data. For more information about skipping empty
+     * pages defaults, see {@link #setSkipEmptyPages(Boolean)}.
+     * 
+     * @return the skipEmptyPages
+     */
+    public Boolean getSkipEmptyPages() {
+        return this.skipEmptyPages;
+    }
+
+    /**
+     * Gets the number of ranges a {@link BlobInputStream} downloads ahead of its read position. For more information
+     * about read-ahead defaults, see {@link #setReadAheadRangeCount(Integer)}.
+     * 
+     * @return the readAheadRangeCount
+     */
+    public Integer getReadAheadRangeCount() {
+        return this.readAheadRangeCount;
+    }
+
     /**
      * Sets the concurrent number of simultaneous requests per operation.
      * <p>
@@ -318,4 +370,59 @@ public final class BlobRequestOptions extends RequestOptions {
 
         this.singleBlobPutThresholdInBytes = singleBlobPutThresholdInBytes;
     }
+
+    /**
+     * Sets whether uploads which create a new page blob skip the pages whose content is all zeros, and whether page
+     * blob downloads to a file fetch only the page ranges which hold data.
+     * <p>
+     * A new page blob reads as zeros, so the 512-byte pages of the source which hold only zeros do not need to be sent.
+     * When this value is <code>true</code>, {@link CloudPageBlob#upload}, {@link CloudPageBlob#openWriteNew} and the
+     * methods built on them send only the runs of pages which hold data, which reduces the time and the number of
+     * transactions needed to upload sparse content such as disk images. The pages which were skipped are not reported
+     * by {@link CloudPageBlob#downloadPageRanges}. Streams opened on an existing blob with
+     * {@link CloudPageBlob#openWriteExisting} always write every page.
+     * <p>
+     * Likewise, when this value is <code>true</code>, {@link CloudBlob#downloadToFile} on a page blob fetches only the
+     * page ranges reported by {@link CloudPageBlob#downloadPageRanges} and leaves the rest of the file as a hole.
+     * <p>
+     * The default skipEmptyPages value is set in the client and is by default <code>false</code>. You can change the
+     * skipEmptyPages value on this request by setting this property. You can also change the value on the
+     * {@link BlobServiceClient#getDefaultRequestOptions()} object so that all subsequent requests made via the service
+     * client will use that skipEmptyPages value.
+     * 
+     * @param skipEmptyPages
+     *            the skipEmptyPages to set
+     */
+    public void setSkipEmptyPages(final Boolean skipEmptyPages) {
+        this.skipEmptyPages = skipEmptyPages;
+    }
+
+    /**
+     * Sets the number of ranges a {@link BlobInputStream} downloads ahead of its read position.
+     * <p>
+     * When this value is greater than 0, the stream keeps up to that many ranges of
+     * {@link CloudBlob#getStreamMinimumReadSizeInBytes()} bytes downloading on the service client's
+     * {@link com.microsoft.azure.storage.TransferScheduler} while the caller reads, so sequential reads rarely wait on
+     * the network. Each range holds a buffer of that size, so read-ahead increases both the memory use of the stream
+     * and the number of requests made when the caller does not read to the end.
+     * <p>
+     * The default readAheadRangeCount value is set in the client and is by default 0, which disables read-ahead. You
+     * can change the readAheadRangeCount value on this request by setting this property. You can also change the value
+     * on the {@link BlobServiceClient#getDefaultRequestOptions()} object so that all subsequent requests made via the
+     * service client will use that readAheadRangeCount value.
+     * 
+     * @param readAheadRangeCount
+     *            the readAheadRangeCount to set
+     * 
+     * @throws IllegalArgumentException
+     *             If <code>readAheadRangeCount</code> is less than 0.
+     */
+    public void setReadAheadRangeCount(final Integer readAheadRangeCount) {
+        if (readAheadRangeCount != null && readAheadRangeCount < 0) {
+            throw new IllegalArgumentException(String.format(Utility.LOCALE_US, SR.ARGUMENT_OUT_OF_RANGE_ERROR,
+                    "readAheadRangeCount", readAheadRangeCount.toString()));
+        }
+
+        this.readAheadRangeCount = readAheadRangeCount;
+    }
 }
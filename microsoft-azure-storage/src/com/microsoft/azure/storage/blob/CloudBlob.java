@@ -17,36 +17,50 @@ package com.microsoft.azure.storage.blob;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.InvalidKeyException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.text.ParseException;
+import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeoutException;
 
 import com.microsoft.azure.storage.AccessCondition;
 import com.microsoft.azure.storage.Constants;
 import com.microsoft.azure.storage.DoesServiceRequest;
+import com.microsoft.azure.storage.LocationMode;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.SharedAccessPolicy;
 import com.microsoft.azure.storage.StorageCredentialsSharedAccessSignature;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.StorageFuture;
 import com.microsoft.azure.storage.StorageLocation;
 import com.microsoft.azure.storage.StorageUri;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.Base64;
 import com.microsoft.azure.storage.core.ExecutionEngine;
+import com.microsoft.azure.storage.core.HedgedResult;
 import com.microsoft.azure.storage.core.Logger;
 import com.microsoft.azure.storage.core.NetworkInputStream;
 import com.microsoft.azure.storage.core.PathUtility;
@@ -998,6 +1012,45 @@ public abstract class CloudBlob implements ListBlobItem {
                 opContext);
     }
 
+    /**
+     * Begins deleting the blob using the specified snapshot and request options, and operation context. The attempts
+     * run on the service client's {@link TransferScheduler} and the calling thread is not blocked.
+     * <p>
+     * See {@link #delete(DeleteSnapshotsOption, AccessCondition, BlobRequestOptions, OperationContext)}.
+     *
+     * @param deleteSnapshotsOption
+     *            A {@link DeleteSnapshotsOption} object that indicates whether to delete only snapshots, or the blob
+     *            and its snapshots.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the blob.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudBlobClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     *
+     * @return A {@link StorageFuture} object which completes when the blob has been deleted.
+     */
+    @DoesServiceRequest
+    public final StorageFuture<Void> deleteAsync(final DeleteSnapshotsOption deleteSnapshotsOption,
+            final AccessCondition accessCondition, BlobRequestOptions options, OperationContext opContext) {
+        Utility.assertNotNull("deleteSnapshotsOption", deleteSnapshotsOption);
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = BlobRequestOptions.applyDefaults(options, this.properties.getBlobType(), this.blobServiceClient);
+
+        return ExecutionEngine.executeWithRetryAsync(this.blobServiceClient, this,
+                this.deleteImpl(deleteSnapshotsOption, accessCondition, options), options.getRetryPolicyFactory(),
+                opContext, this.blobServiceClient.getTransferScheduler().createSession(1));
+    }
+
     /**
      * Deletes the blob if it exists.
      * <p>
@@ -1262,10 +1315,91 @@ public abstract class CloudBlob implements ListBlobItem {
 
         options = BlobRequestOptions.applyDefaults(options, this.properties.getBlobType(), this.blobServiceClient);
 
+        if (ExecutionEngine.isHedged(options, this.getStorageUri())) {
+            final BlobRequestOptions primaryOptions = getLocationOptions(options, LocationMode.PRIMARY_ONLY);
+            final BlobRequestOptions secondaryOptions = getLocationOptions(options, LocationMode.SECONDARY_ONLY);
+            final HedgedResult<CloudBlob, Void> hedgedResult = ExecutionEngine.executeWithHedging(
+                    this.blobServiceClient, this.createHedgingCopy(),
+                    this.downloadAttributesImpl(accessCondition, primaryOptions), this.createHedgingCopy(),
+                    this.downloadAttributesImpl(accessCondition, secondaryOptions), options.getRetryPolicyFactory(),
+                    opContext, options.getHedgingPolicy());
+            this.applyHedgedAttributes(hedgedResult.getParentObject());
+            return;
+        }
+
         ExecutionEngine.executeWithRetry(this.blobServiceClient, this,
                 this.downloadAttributesImpl(accessCondition, options), options.getRetryPolicyFactory(), opContext);
     }
 
+    /**
+     * Creates a copy of this blob for one of the requests of a hedged read, so that the two requests do not update the
+     * properties and metadata of this blob concurrently.
+     *
+     * @return A <code>CloudBlob</code> object of the same type as this blob.
+     */
+    private CloudBlob createHedgingCopy() {
+        if (this instanceof CloudBlockBlob) {
+            return new CloudBlockBlob((CloudBlockBlob) this);
+        }
+
+        return new CloudPageBlob((CloudPageBlob) this);
+    }
+
+    /**
+     * Applies the properties and metadata retrieved by the winning request of a hedged read to this blob.
+     *
+     * @param blob
+     *            The copy of this blob the winning request was executed against.
+     */
+    private void applyHedgedAttributes(final CloudBlob blob) {
+        this.properties = blob.properties;
+        this.metadata = blob.metadata;
+    }
+
+    /**
+     * Creates a copy of the request options which targets a single location, for one of the requests of a hedged read.
+     */
+    private static BlobRequestOptions getLocationOptions(final BlobRequestOptions options,
+            final LocationMode locationMode) {
+        final BlobRequestOptions locationOptions = new BlobRequestOptions(options);
+        locationOptions.setLocationMode(locationMode);
+        return locationOptions;
+    }
+
+    /**
+     * Begins populating a blob's properties and metadata using the specified request options and operation context.
+     * The attempts run on the service client's {@link TransferScheduler} and the calling thread is not blocked.
+     * <p>
+     * See {@link #downloadAttributes(AccessCondition, BlobRequestOptions, OperationContext)}.
+     *
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the blob.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudBlobClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     *
+     * @return A {@link StorageFuture} object which completes when the properties and metadata have been populated.
+     */
+    @DoesServiceRequest
+    public final StorageFuture<Void> downloadAttributesAsync(final AccessCondition accessCondition,
+            BlobRequestOptions options, OperationContext opContext) {
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = BlobRequestOptions.applyDefaults(options, this.properties.getBlobType(), this.blobServiceClient);
+
+        return ExecutionEngine.executeWithRetryAsync(this.blobServiceClient, this,
+                this.downloadAttributesImpl(accessCondition, options), options.getRetryPolicyFactory(), opContext,
+                this.blobServiceClient.getTransferScheduler().createSession(1));
+    }
+
     private StorageRequest<CloudBlobClient, CloudBlob, Void> downloadAttributesImpl(
             final AccessCondition accessCondition, final BlobRequestOptions options) {
         final StorageRequest<CloudBlobClient, CloudBlob, Void> getRequest = new StorageRequest<CloudBlobClient, CloudBlob, Void>(
@@ -1462,6 +1596,28 @@ public abstract class CloudBlob implements ListBlobItem {
             throw new IllegalArgumentException(SR.INVALID_RANGE_CONTENT_MD5_HEADER);
         }
 
+        if (ExecutionEngine.isHedged(options, this.getStorageUri())) {
+            // Each request downloads to its own buffer, since the request which loses may still be writing.
+            final int hedgedLength = length == null ? buffer.length - bufferOffset : (int) Math.min(length,
+                    buffer.length - bufferOffset);
+            final byte[] primaryBuffer = new byte[hedgedLength];
+            final byte[] secondaryBuffer = new byte[hedgedLength];
+            final BlobRequestOptions primaryOptions = getLocationOptions(options, LocationMode.PRIMARY_ONLY);
+            final BlobRequestOptions secondaryOptions = getLocationOptions(options, LocationMode.SECONDARY_ONLY);
+            final CloudBlob primaryBlob = this.createHedgingCopy();
+            final HedgedResult<CloudBlob, Integer> hedgedResult = ExecutionEngine.executeWithHedging(
+                    this.blobServiceClient, primaryBlob, this.downloadToByteArrayImpl(blobOffset, length,
+                            primaryBuffer, 0, accessCondition, primaryOptions, opContext), this.createHedgingCopy(),
+                    this.downloadToByteArrayImpl(blobOffset, length, secondaryBuffer, 0, accessCondition,
+                            secondaryOptions, opContext), options.getRetryPolicyFactory(), opContext,
+                    options.getHedgingPolicy());
+
+            this.applyHedgedAttributes(hedgedResult.getParentObject());
+            System.arraycopy(hedgedResult.getParentObject() == primaryBlob ? primaryBuffer : secondaryBuffer, 0,
+                    buffer, bufferOffset, hedgedResult.getResult());
+            return hedgedResult.getResult();
+        }
+
         return ExecutionEngine.executeWithRetry(this.blobServiceClient, this, this.downloadToByteArrayImpl(blobOffset,
                 length, buffer, bufferOffset, accessCondition, options, opContext), options.getRetryPolicyFactory(),
                 opContext);
@@ -1536,6 +1692,67 @@ public abstract class CloudBlob implements ListBlobItem {
         return this.downloadRangeInternal(offset, length, buffer, bufferOffset, accessCondition, options, opContext);
     }
 
+    /**
+     * Begins downloading a range of bytes from the blob to the given byte buffer, using the specified request options
+     * and operation context. The attempts run on the service client's {@link TransferScheduler} and the calling thread
+     * is not blocked. The buffer must not be used until the operation completes.
+     * <p>
+     * See {@link #downloadRangeToByteArray(long, Long, byte[], int, AccessCondition, BlobRequestOptions,
+     * OperationContext)}.
+     *
+     * @param offset
+     *            A <code>long</code> which represents the byte offset to use as the starting point for the source.
+     * @param length
+     *            A <code>Long</code> which represents the number of bytes to read or <code>null</code>.
+     * @param buffer
+     *            A <code>byte</code> array which represents the buffer to which the blob bytes are downloaded.
+     * @param bufferOffset
+     *            An <code>int</code> which represents the byte offset to use as the starting point for the target.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the blob.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudBlobClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     *
+     * @return A {@link StorageFuture} object which completes with the number of bytes downloaded.
+     */
+    @DoesServiceRequest
+    public final StorageFuture<Integer> downloadRangeToByteArrayAsync(final long offset, final Long length,
+            final byte[] buffer, final int bufferOffset, final AccessCondition accessCondition,
+            BlobRequestOptions options, OperationContext opContext) {
+        Utility.assertNotNull("buffer", buffer);
+
+        if (bufferOffset < 0 || offset < 0 || (length != null && length <= 0)) {
+            throw new IndexOutOfBoundsException();
+        }
+
+        if (length != null) {
+            if (length + bufferOffset > buffer.length) {
+                throw new IndexOutOfBoundsException();
+            }
+        }
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = BlobRequestOptions.applyDefaults(options, this.properties.getBlobType(), this.blobServiceClient);
+
+        if (options.getUseTransactionalContentMD5() && (length != null && length > 4 * Constants.MB)) {
+            throw new IllegalArgumentException(SR.INVALID_RANGE_CONTENT_MD5_HEADER);
+        }
+
+        return ExecutionEngine.executeWithRetryAsync(this.blobServiceClient, this, this.downloadToByteArrayImpl(offset,
+                length, buffer, bufferOffset, accessCondition, options, opContext), options.getRetryPolicyFactory(),
+                opContext, this.blobServiceClient.getTransferScheduler().createSession(1));
+    }
+
     /**
      * Downloads a range of bytes from the blob to the given byte buffer.
      *
@@ -1811,6 +2028,10 @@ public abstract class CloudBlob implements ListBlobItem {
 
     /**
      * Uploads a blob from a file.
+     * <p>
+     * If the blob is a block blob, the concurrent request count of the request options is greater than 1 and the file
+     * is longer than the single blob put threshold, the file is split into blocks of
+     * {@link #getStreamWriteSizeInBytes()} bytes which are read from the file independently and uploaded in parallel.
      *
      * @param path
      *            A <code>String</code> which represents the path to the file to be uploaded.
@@ -1831,8 +2052,16 @@ public abstract class CloudBlob implements ListBlobItem {
      */
     public void uploadFromFile(final String path, final AccessCondition accessCondition, BlobRequestOptions options,
             OperationContext opContext) throws StorageException, IOException {
+        options = BlobRequestOptions.applyDefaults(options, this.properties.getBlobType(), this.blobServiceClient);
+
         File file = new File(path);
         long fileLength = file.length();
+        if (this instanceof CloudBlockBlob && options.getConcurrentRequestCount() > 1
+                && fileLength > options.getSingleBlobPutThresholdInBytes()) {
+            ((CloudBlockBlob) this).uploadFromFileParallel(file, fileLength, accessCondition, options, opContext);
+            return;
+        }
+
         InputStream inputStream = new BufferedInputStream(new FileInputStream(file));
         this.upload(inputStream, fileLength, accessCondition, options, opContext);
         inputStream.close();
@@ -1855,6 +2084,14 @@ public abstract class CloudBlob implements ListBlobItem {
 
     /**
      * Downloads a blob, storing the contents in a file.
+     * <p>
+     * If the concurrent request count of the request options is greater than 1, the blob is downloaded in ranges of
+     * {@link #getStreamMinimumReadSizeInBytes()} bytes which are fetched in parallel and written at their offsets in the
+     * file.
+     * <p>
+     * For a page blob, if {@link BlobRequestOptions#getSkipEmptyPages()} is <code>true</code>, only the page ranges
+     * which hold data are downloaded. The rest of the file is left as a hole, which reads as zeros and takes no space
+     * on file systems which support sparse files.
      *
      * @param path
      *            A <code>String</code> which represents the path to the file that will be created with the contents of
@@ -1876,6 +2113,13 @@ public abstract class CloudBlob implements ListBlobItem {
      */
     public void downloadToFile(final String path, final AccessCondition accessCondition, BlobRequestOptions options,
             OperationContext opContext) throws StorageException, IOException {
+        options = BlobRequestOptions.applyDefaults(options, this.properties.getBlobType(), this.blobServiceClient);
+
+        if (this.isRangeDownloadToFile(options)) {
+            this.downloadToFileParallel(path, accessCondition, options, opContext);
+            return;
+        }
+
         OutputStream outputStream = new BufferedOutputStream(new FileOutputStream(path));
         try {
             this.download(outputStream, accessCondition, options, opContext);
@@ -1891,6 +2135,275 @@ public abstract class CloudBlob implements ListBlobItem {
         }
     }
 
+    /**
+     * Indicates whether {@link #downloadToFile(String, AccessCondition, BlobRequestOptions, OperationContext)} fetches
+     * the blob in ranges rather than as a single stream.
+     * 
+     * @param options
+     *            A {@link BlobRequestOptions} object to which the client defaults have already been applied.
+     * @return <code>true</code> if the blob is downloaded in ranges, which it is when the concurrent request count is
+     *         greater than 1.
+     */
+    protected boolean isRangeDownloadToFile(final BlobRequestOptions options) {
+        return options.getConcurrentRequestCount() > 1;
+    }
+
+    /**
+     * Gets the ranges of the blob which a ranged download to a file fetches. The rest of the file is left as zeros.
+     * 
+     * @param blobLength
+     *            A <code>long</code> which represents the length of the blob.
+     * @param etagLockCondition
+     *            An {@link AccessCondition} object which locks any request to the blob's ETag.
+     * @param options
+     *            A {@link BlobRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * @return An <code>ArrayList</code> of the {@link PageRange} objects to download, in order. This is the whole blob
+     *         unless a subclass knows which ranges hold data.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     */
+    protected ArrayList<PageRange> getDataRangesToDownload(final long blobLength,
+            final AccessCondition etagLockCondition, final BlobRequestOptions options, final OperationContext opContext)
+            throws StorageException {
+        final ArrayList<PageRange> dataRanges = new ArrayList<PageRange>();
+        if (blobLength > 0) {
+            dataRanges.add(new PageRange(0, blobLength - 1));
+        }
+
+        return dataRanges;
+    }
+
+    /**
+     * Downloads a blob to a file by splitting it into ranges of {@link #getStreamMinimumReadSizeInBytes()} bytes and
+     * fetching up to {@link BlobRequestOptions#getConcurrentRequestCount()} ranges at a time on the client's
+     * {@link TransferScheduler}. Each range is retried independently and written at its offset in the file. All ranges
+     * are locked to the ETag returned by the initial attributes request, and the blob's Content-MD5 is validated over
+     * the ranges in order. Only the ranges returned by
+     * {@link #getDataRangesToDownload(long, AccessCondition, BlobRequestOptions, OperationContext)} are fetched.
+     * 
+     * @param path
+     *            A <code>String</code> which represents the path to the file that will be created with the contents of
+     *            the blob.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the blob.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     */
+    @DoesServiceRequest
+    private void downloadToFileParallel(final String path, final AccessCondition accessCondition,
+            final BlobRequestOptions options, OperationContext opContext) throws StorageException, IOException {
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        this.downloadAttributes(accessCondition, options, opContext);
+
+        final long blobLength = this.properties.getLength();
+        final String expectedMD5 = this.properties.getContentMD5();
+        final boolean validateMD5 = !options.getDisableContentMD5Validation() && !Utility.isNullOrEmpty(expectedMD5);
+
+        // Lock all range requests to the version of the blob whose attributes were just retrieved.
+        final AccessCondition etagLockCondition = AccessCondition.generateIfMatchCondition(this.properties.getEtag());
+        if (accessCondition != null) {
+            etagLockCondition.setLeaseID(accessCondition.getLeaseID());
+        }
+
+        MessageDigest digest = null;
+        if (validateMD5) {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            }
+            catch (final NoSuchAlgorithmException e) {
+                // This wont happen, throw fatal.
+                throw Utility.generateNewUnexpectedStorageException(e);
+            }
+        }
+
+        final ArrayList<PageRange> dataRanges = this.getDataRangesToDownload(blobLength, etagLockCondition, options,
+                opContext);
+
+        final RandomAccessFile file = new RandomAccessFile(path, "rw");
+        final TransferScheduler.Session transferSession = this.blobServiceClient.getTransferScheduler().createSession(
+                options.getConcurrentRequestCount());
+        try {
+            try {
+                // Truncate the file first so that no previous content is left between the data ranges.
+                file.setLength(0);
+                file.setLength(blobLength);
+                this.downloadRangesToFile(file, blobLength, dataRanges, etagLockCondition, digest, options, opContext,
+                        transferSession);
+            }
+            finally {
+                // Wait for the ranges already running so none writes to the file once this method returns.
+                transferSession.cancelPendingTransfers();
+                transferSession.awaitRunningTransfers();
+            }
+
+            if (validateMD5) {
+                final String calculatedMD5 = Base64.encode(digest.digest());
+                if (!expectedMD5.equals(calculatedMD5)) {
+                    throw new StorageException(StorageErrorCodeStrings.INVALID_MD5, String.format(
+                            SR.BLOB_HASH_MISMATCH, expectedMD5, calculatedMD5),
+                            Constants.HeaderConstants.HTTP_UNUSED_306, null, null);
+                }
+            }
+
+            file.close();
+        }
+        catch (StorageException e) {
+            deleteEmptyFileOnException(file, path);
+            throw e;
+        }
+        catch (IOException e) {
+            deleteEmptyFileOnException(file, path);
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads the data ranges of the blob range by range into the given file, keeping at most twice the concurrent
+     * request count of ranges outstanding. Ranges are consumed in order so that the blob MD5 can be computed
+     * incrementally, with the bytes between the data ranges counted as zeros. The content of the file outside the data
+     * ranges is left as it is.
+     * 
+     * @param file
+     *            A <code>RandomAccessFile</code> which represents the target file, whose length has been set to the
+     *            length of the blob.
+     * @param blobLength
+     *            A <code>long</code> which represents the length of the blob.
+     * @param dataRanges
+     *            An <code>ArrayList</code> of the {@link PageRange} objects which represent the ranges of the blob to
+     *            download, in order.
+     * @param etagLockCondition
+     *            An {@link AccessCondition} object which locks each range request to the blob's ETag.
+     * @param digest
+     *            The <code>MessageDigest</code> to update with the downloaded data, or <code>null</code>.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * @param transferSession
+     *            The {@link TransferScheduler.Session} used to schedule the range downloads.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     */
+    @DoesServiceRequest
+    void downloadRangesToFile(final RandomAccessFile file, final long blobLength,
+            final ArrayList<PageRange> dataRanges, final AccessCondition etagLockCondition, final MessageDigest digest,
+            final BlobRequestOptions options, final OperationContext opContext,
+            final TransferScheduler.Session transferSession) throws StorageException, IOException {
+        final FileChannel channel = file.getChannel();
+        final int rangeSize = this.getStreamMinimumReadSizeInBytes();
+        final int maxOutstandingRanges = options.getConcurrentRequestCount() * 2;
+        final LinkedList<Future<byte[]>> outstandingRanges = new LinkedList<Future<byte[]>>();
+        final LinkedList<Long> outstandingOffsets = new LinkedList<Long>();
+
+        int dataRangeIndex = 0;
+        long nextOffset = dataRanges.isEmpty() ? 0 : dataRanges.get(0).getStartOffset();
+        long digestOffset = 0;
+        while (dataRangeIndex < dataRanges.size() || !outstandingRanges.isEmpty()) {
+            while (dataRangeIndex < dataRanges.size() && outstandingRanges.size() < maxOutstandingRanges) {
+                final long dataRangeEnd = dataRanges.get(dataRangeIndex).getEndOffset() + 1;
+                final long rangeOffset = nextOffset;
+                final int rangeLength = (int) Math.min(rangeSize, dataRangeEnd - rangeOffset);
+                nextOffset += rangeLength;
+                if (nextOffset == dataRangeEnd && ++dataRangeIndex < dataRanges.size()) {
+                    nextOffset = dataRanges.get(dataRangeIndex).getStartOffset();
+                }
+
+                final FutureTask<byte[]> rangeTask = new FutureTask<byte[]>(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws StorageException, IOException {
+                        final byte[] buffer = new byte[rangeLength];
+                        CloudBlob.this.downloadRangeInternal(rangeOffset, (long) rangeLength, buffer, 0,
+                                etagLockCondition, options, opContext);
+
+                        final ByteBuffer source = ByteBuffer.wrap(buffer);
+                        long position = rangeOffset;
+                        while (source.hasRemaining()) {
+                            position += channel.write(source, position);
+                        }
+
+                        return buffer;
+                    }
+                });
+
+                transferSession.execute(rangeTask);
+                outstandingRanges.add(rangeTask);
+                outstandingOffsets.add(rangeOffset);
+            }
+
+            final long rangeOffset = outstandingOffsets.removeFirst();
+            final byte[] range = getRangeResult(outstandingRanges.removeFirst());
+            if (digest != null) {
+                updateDigestWithZeros(digest, rangeOffset - digestOffset);
+                digest.update(range);
+                digestOffset = rangeOffset + range.length;
+            }
+        }
+
+        if (digest != null) {
+            updateDigestWithZeros(digest, blobLength - digestOffset);
+        }
+    }
+
+    /**
+     * Updates a digest with a number of zero bytes, which stand for the pages of the blob which were not downloaded.
+     * 
+     * @param digest
+     *            The <code>MessageDigest</code> to update.
+     * @param count
+     *            A <code>long</code> which represents the number of zero bytes.
+     */
+    private static void updateDigestWithZeros(final MessageDigest digest, long count) {
+        final byte[] zeros = new byte[(int) Math.min(count, Constants.BUFFER_COPY_LENGTH)];
+        while (count > 0) {
+            final int length = (int) Math.min(count, zeros.length);
+            digest.update(zeros, 0, length);
+            count -= length;
+        }
+    }
+
+    /**
+     * Waits for a range transfer to complete and surfaces any exception it threw.
+     * 
+     * @param future
+     *            The <code>Future</code> representing the range transfer.
+     * @return The bytes of the range.
+     * @throws StorageException
+     * @throws IOException
+     */
+    static byte[] getRangeResult(final Future<byte[]> future) throws StorageException, IOException {
+        try {
+            return future.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Utility.initIOException(e);
+        }
+        catch (final ExecutionException e) {
+            if (e.getCause() instanceof StorageException) {
+                throw (StorageException) e.getCause();
+            }
+            else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw Utility.generateNewUnexpectedStorageException(e);
+        }
+    }
+
     /**
      * Helper to delete an empty file in the case of an exception
      * 
@@ -1898,7 +2411,7 @@ public abstract class CloudBlob implements ListBlobItem {
      * @param path
      * @throws IOException
      */
-    private void deleteEmptyFileOnException(OutputStream outputStream, String path) {
+    private void deleteEmptyFileOnException(Closeable outputStream, String path) {
         try {
             outputStream.close();
             File fileToDelete = new File(path);
@@ -2666,7 +3179,8 @@ public abstract class CloudBlob implements ListBlobItem {
     public abstract void setStreamWriteSizeInBytes(int streamWriteSizeInBytes);
 
     /**
-     * Sets the minimum read size when using a {@link BlobInputStream}.
+     * Sets the minimum read size when using a {@link BlobInputStream}. This is also the size of each range fetched by a
+     * parallel {@link #downloadToFile(String, AccessCondition, BlobRequestOptions, OperationContext)}.
      *
      * @param minimumReadSize
      *            An <code>int</code> that represents the minimum block size, in bytes, for reading from a blob while
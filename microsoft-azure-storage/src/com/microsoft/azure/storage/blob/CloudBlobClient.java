@@ -342,7 +342,8 @@ public final class CloudBlobClient extends ServiceClient {
 
         return new LazySegmentedIterable<CloudBlobClient, Void, CloudBlobContainer>(
                 this.listContainersWithPrefixSegmentedImpl(prefix, detailsIncluded, null, options, segmentedRequest),
-                this, null, options.getRetryPolicyFactory(), opContext);
+                this, null, options.getRetryPolicyFactory(), opContext,
+                options.getPrefetchNextSegment() ? this.getTransferScheduler() : null);
     }
 
     /**
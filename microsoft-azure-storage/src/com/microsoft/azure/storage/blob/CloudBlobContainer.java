@@ -22,9 +22,15 @@ import java.net.URI;
 import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -41,6 +47,7 @@ import com.microsoft.azure.storage.StorageCredentialsSharedAccessSignature;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageUri;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.ExecutionEngine;
 import com.microsoft.azure.storage.core.LazySegmentedIterable;
 import com.microsoft.azure.storage.core.PathUtility;
@@ -1105,7 +1112,8 @@ public final class CloudBlobContainer {
 
         return new LazySegmentedIterable<CloudBlobClient, CloudBlobContainer, ListBlobItem>(
                 this.listBlobsSegmentedImpl(prefix, useFlatBlobListing, listingDetails, null, options, segmentedRequest),
-                this.blobServiceClient, this, options.getRetryPolicyFactory(), opContext);
+                this.blobServiceClient, this, options.getRetryPolicyFactory(), opContext,
+                options.getPrefetchNextSegment() ? this.blobServiceClient.getTransferScheduler() : null);
     }
 
     /**
@@ -1274,6 +1282,126 @@ public final class CloudBlobContainer {
         return getRequest;
     }
 
+    /**
+     * Lists the blob items whose names begin with the specified prefix in parallel, walking the virtual directory
+     * hierarchy and delivering the results to the handler one segment at a time.
+     * 
+     * @param prefix
+     *            A <code>String</code> that represents the blob name prefix to start the walk from, or
+     *            <code>null</code> to walk the whole container.
+     * @param handler
+     *            A {@link BlobListingHandler} which receives the results.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     */
+    @DoesServiceRequest
+    public void listBlobsParallel(final String prefix, final BlobListingHandler handler) throws StorageException {
+        this.listBlobsParallel(Collections.singletonList(prefix), false, EnumSet.noneOf(BlobListingDetails.class),
+                handler, null /* options */, null /* opContext */);
+    }
+
+    /**
+     * Lists the blob items whose names begin with any of the specified prefixes in parallel, using the specified flat
+     * or hierarchical option, listing details options, request options, and operation context, and delivering the
+     * results to the handler one segment at a time.
+     * <p>
+     * Each prefix is listed independently, following its own continuation tokens, with up to
+     * {@link BlobRequestOptions#getConcurrentRequestCount()} listings in flight at once on the service client's
+     * {@link com.microsoft.azure.storage.TransferScheduler}. For a hierarchical listing, each
+     * {@link CloudBlobDirectory} found is listed in turn as soon as its segment arrives, so the walk fans out across
+     * the directory tree rather than listing one directory at a time. For a flat listing, the prefixes act as shards
+     * of the container's namespace and should not overlap, since a blob matching several prefixes is listed once for
+     * each. Because the default concurrent request count is 1, set it higher to list in parallel.
+     * <p>
+     * If a listing fails, or the handler throws an exception, no further segments are requested, and the exception is
+     * thrown once the segments in flight have completed. If the calling thread is interrupted, the queued listings are
+     * discarded and the exception is thrown once the listings already running have stopped.
+     * 
+     * @param prefixes
+     *            An <code>Iterable</code> of <code>String</code> objects which represent the blob name prefixes to
+     *            list. A <code>null</code> prefix lists the whole container.
+     * @param useFlatBlobListing
+     *            <code>true</code> to list the blobs under each prefix in a flat list; <code>false</code> to walk the
+     *            directory hierarchy below each prefix.
+     * @param listingDetails
+     *            A <code>java.util.EnumSet</code> object that contains {@link BlobListingDetails} values that indicate
+     *            whether snapshots, metadata, and/or uncommitted blocks are returned. Committed blocks are always
+     *            returned.
+     * @param handler
+     *            A {@link BlobListingHandler} which receives the results.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudBlobClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. Each segment
+     *            is requested with an operation context of its own, which carries the client request ID, logger and
+     *            event handlers of this object.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     */
+    @DoesServiceRequest
+    public void listBlobsParallel(final Iterable<String> prefixes, final boolean useFlatBlobListing,
+            final EnumSet<BlobListingDetails> listingDetails, final BlobListingHandler handler,
+            BlobRequestOptions options, OperationContext opContext) throws StorageException {
+        Utility.assertNotNull("prefixes", prefixes);
+        Utility.assertNotNull("handler", handler);
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = BlobRequestOptions.applyDefaults(options, BlobType.UNSPECIFIED, this.blobServiceClient);
+
+        if (!useFlatBlobListing && listingDetails != null && listingDetails.contains(BlobListingDetails.SNAPSHOTS)) {
+            throw new IllegalArgumentException(SR.SNAPSHOT_LISTING_ERROR);
+        }
+
+        final ParallelListing listing = new ParallelListing(useFlatBlobListing, listingDetails, handler, options,
+                opContext);
+        for (final String prefix : prefixes) {
+            listing.queue(prefix);
+        }
+
+        // Wait for every listing to finish, even after a failure, so that the handler is not called once this method
+        // returns.
+        Throwable failure = null;
+        while (listing.listingsInFlight.get() > 0) {
+            try {
+                listing.completionService.take().get();
+            }
+            catch (final InterruptedException e) {
+                listing.aborted.set(true);
+                listing.transferSession.cancelPendingTransfers();
+                listing.awaitRunningListings();
+                throw Utility.generateNewUnexpectedStorageException(e);
+            }
+            catch (final ExecutionException e) {
+                listing.aborted.set(true);
+                if (failure == null) {
+                    failure = e.getCause();
+                }
+            }
+
+            listing.listingsInFlight.decrementAndGet();
+        }
+
+        if (failure instanceof StorageException) {
+            throw (StorageException) failure;
+        }
+        else if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        else if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        else if (failure != null) {
+            throw Utility.generateNewUnexpectedStorageException((Exception) failure);
+        }
+    }
+
     /**
      * Returns an enumerable collection of containers for the service client associated with this container.
      * 
@@ -2183,4 +2311,154 @@ public final class CloudBlobContainer {
 
         return putRequest;
     }
+
+    /**
+     * Holds the state of a parallel listing and queues the listing of each prefix.
+     */
+    private final class ParallelListing {
+
+        /**
+         * Holds a value indicating whether the prefixes are listed flat.
+         */
+        private final boolean useFlatBlobListing;
+
+        /**
+         * Holds the listing details to request.
+         */
+        private final EnumSet<BlobListingDetails> listingDetails;
+
+        /**
+         * Holds the handler which receives the results.
+         */
+        private final BlobListingHandler handler;
+
+        /**
+         * Holds the request options, with the client defaults applied.
+         */
+        private final BlobRequestOptions options;
+
+        /**
+         * Holds the operation context from which the context of each segment request is created.
+         */
+        private final OperationContext opContext;
+
+        /**
+         * Holds the session the listings are scheduled on.
+         */
+        private final TransferScheduler.Session transferSession;
+
+        /**
+         * Holds the completion service the listings are run on.
+         */
+        private final ExecutorCompletionService<Void> completionService;
+
+        /**
+         * Holds the number of listings which have been queued but not yet taken from the completion service. A
+         * directory's listing is counted before its parent's listing completes, so the count only reaches zero once
+         * the whole walk is done.
+         */
+        private final AtomicInteger listingsInFlight = new AtomicInteger();
+
+        /**
+         * Indicates whether a listing has failed, so no further segments should be requested.
+         */
+        private final AtomicBoolean aborted = new AtomicBoolean();
+
+        /**
+         * Holds the number of listings which have started running and not yet returned. Guarded by this object's
+         * monitor.
+         */
+        private int listingsRunning;
+
+        ParallelListing(final boolean useFlatBlobListing, final EnumSet<BlobListingDetails> listingDetails,
+                final BlobListingHandler handler, final BlobRequestOptions options, final OperationContext opContext) {
+            this.useFlatBlobListing = useFlatBlobListing;
+            this.listingDetails = listingDetails;
+            this.handler = handler;
+            this.options = options;
+            this.opContext = opContext;
+            this.transferSession = CloudBlobContainer.this.blobServiceClient.getTransferScheduler().createSession(
+                    options.getConcurrentRequestCount());
+            this.completionService = new ExecutorCompletionService<Void>(this.transferSession);
+        }
+
+        /**
+         * Queues the listing of a prefix.
+         */
+        void queue(final String prefix) {
+            this.listingsInFlight.incrementAndGet();
+            this.completionService.submit(new Callable<Void>() {
+                @Override
+                public Void call() throws StorageException {
+                    synchronized (ParallelListing.this) {
+                        ParallelListing.this.listingsRunning++;
+                    }
+
+                    try {
+                        // A listing which starts once the walk has been aborted is skipped, so that no listing is
+                        // left running after awaitRunningListings returns.
+                        if (!ParallelListing.this.aborted.get()) {
+                            ParallelListing.this.list(prefix);
+                        }
+
+                        return null;
+                    }
+                    finally {
+                        synchronized (ParallelListing.this) {
+                            ParallelListing.this.listingsRunning--;
+                            ParallelListing.this.notifyAll();
+                        }
+                    }
+                }
+            });
+        }
+
+        /**
+         * Waits for the listings which have already started to return. Must be called after the walk has been
+         * aborted and the pending listings cancelled, since those never complete. Interrupts are ignored while
+         * waiting, as each running listing stops after its current segment request.
+         */
+        synchronized void awaitRunningListings() {
+            while (this.listingsRunning > 0) {
+                try {
+                    this.wait();
+                }
+                catch (final InterruptedException e) {
+                    // Keep waiting so the handler is not called once listBlobsParallel returns.
+                }
+            }
+        }
+
+        /**
+         * Lists the segments of a single prefix in order, queueing the listing of each directory found and handing
+         * each segment to the handler, until the prefix is exhausted or the listing is aborted.
+         */
+        @DoesServiceRequest
+        private void list(final String prefix) throws StorageException {
+            final SegmentedStorageRequest segmentedRequest = new SegmentedStorageRequest();
+            final StorageRequest<CloudBlobClient, CloudBlobContainer, ResultSegment<ListBlobItem>> listRequest = CloudBlobContainer.this
+                    .listBlobsSegmentedImpl(prefix, this.useFlatBlobListing, this.listingDetails, null, this.options,
+                            segmentedRequest);
+            do {
+                final ResultSegment<ListBlobItem> segment = ExecutionEngine.executeWithRetry(
+                        CloudBlobContainer.this.blobServiceClient, CloudBlobContainer.this, listRequest,
+                        this.options.getRetryPolicyFactory(), this.opContext.createRequestContext());
+
+                // Drop the segment if another listing failed while it was being requested.
+                if (this.aborted.get()) {
+                    return;
+                }
+
+                if (!this.useFlatBlobListing) {
+                    for (final ListBlobItem item : segment.getResults()) {
+                        if (item instanceof CloudBlobDirectory) {
+                            this.queue(((CloudBlobDirectory) item).getPrefix());
+                        }
+                    }
+                }
+
+                this.handler.handleSegment(prefix, segment);
+            } while (segmentedRequest.getToken() != null && !this.aborted.get());
+        }
+    }
 }
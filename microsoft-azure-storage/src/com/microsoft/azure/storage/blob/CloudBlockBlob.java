@@ -16,21 +16,34 @@ package com.microsoft.azure.storage.blob;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import javax.xml.stream.XMLStreamException;
 
 import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.BufferPool;
 import com.microsoft.azure.storage.Constants;
 import com.microsoft.azure.storage.DoesServiceRequest;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageUri;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.Base64;
 import com.microsoft.azure.storage.core.ExecutionEngine;
 import com.microsoft.azure.storage.core.RequestLocationMode;
@@ -537,49 +550,261 @@ public final class CloudBlockBlob extends CloudBlob {
         opContext.initialize();
         options = BlobRequestOptions.applyDefaults(options, BlobType.BLOCK_BLOB, this.blobServiceClient);
 
-        StreamMd5AndLength descriptor = new StreamMd5AndLength();
-        descriptor.setLength(length);
-
-        if (sourceStream.markSupported()) {
-            // Mark sourceStream for current position.
+        final long singleBlobPutThreshold = options.getSingleBlobPutThresholdInBytes();
+        if (length > singleBlobPutThreshold) {
+            // The blob is uploaded in blocks, and the output stream calculates the MD5 as the data is written.
+            this.uploadBlocks(null /* prefix */, sourceStream, length, accessCondition, options, opContext);
+        }
+        else if (sourceStream instanceof ByteArrayInputStream) {
+            // The content is already in memory, so it can be read again to find its length and MD5 at no I/O cost.
+            StreamMd5AndLength descriptor = new StreamMd5AndLength();
+            descriptor.setLength(length);
             sourceStream.mark(Constants.MAX_MARK_LENGTH);
+
+            if (length < 0 || options.getStoreBlobContentMD5()) {
+                // Note this read will abort at options.getSingleBlobPutThresholdInBytes() bytes and return -1 as
+                // length in which case we will revert to using a stream as it is over the single put threshold.
+                descriptor = Utility.analyzeStream(sourceStream, length, singleBlobPutThreshold + 1,
+                        true /* rewindSourceStream */, options.getStoreBlobContentMD5());
+
+                if (descriptor.getMd5() != null && options.getStoreBlobContentMD5()) {
+                    this.properties.setContentMD5(descriptor.getMd5());
+                }
+            }
+
+            if (descriptor.getLength() != -1) {
+                this.uploadFullBlob(sourceStream, descriptor.getLength(), accessCondition, options, opContext);
+            }
+            else {
+                this.uploadBlocks(null /* prefix */, sourceStream, length, accessCondition, options, opContext);
+            }
         }
+        else {
+            // Read the stream once, up to one byte past the single put threshold, calculating the MD5 as it is read.
+            // The source is then never rewound, so it need not support mark and reset.
+            final ByteArrayOutputStream byteStream = new ByteArrayOutputStream(length < 0 ? Constants.BUFFER_COPY_LENGTH
+                    : (int) length);
+            final StreamMd5AndLength descriptor = Utility.writeToOutputStream(sourceStream, byteStream,
+                    length < 0 ? singleBlobPutThreshold + 1 : length, false /* rewindSourceStream */,
+                    options.getStoreBlobContentMD5(), opContext, options);
+            if (length >= 0 && descriptor.getLength() != length) {
+                throw new StorageException(StorageErrorCodeStrings.INVALID_INPUT, SR.INCORRECT_STREAM_LENGTH,
+                        HttpURLConnection.HTTP_FORBIDDEN, null, null);
+            }
+
+            final byte[] bufferedData = byteStream.toByteArray();
 
-        // If the stream is rewindable and the length is unknown or we need to
-        // set md5, then analyze the stream.
-        // Note this read will abort at
-        // options.getSingleBlobPutThresholdInBytes() bytes and return
-        // -1 as length in which case we will revert to using a stream as it is
-        // over the single put threshold.
-        if (sourceStream.markSupported()
-                && (length < 0 || (options.getStoreBlobContentMD5() && length <= options
-                        .getSingleBlobPutThresholdInBytes()))) {
-            // If the stream is of unknown length or we need to calculate
-            // the MD5, then we we need to read the stream contents first
-
-            descriptor = Utility.analyzeStream(sourceStream, length, options.getSingleBlobPutThresholdInBytes() + 1,
-                    true /* rewindSourceStream */, options.getStoreBlobContentMD5());
-
-            if (descriptor.getMd5() != null && options.getStoreBlobContentMD5()) {
-                this.properties.setContentMD5(descriptor.getMd5());
+            if (descriptor.getLength() <= singleBlobPutThreshold) {
+                if (options.getStoreBlobContentMD5()) {
+                    this.properties.setContentMD5(descriptor.getMd5());
+                }
+
+                this.uploadFullBlob(new ByteArrayInputStream(bufferedData), descriptor.getLength(), accessCondition,
+                        options, opContext);
+            }
+            else {
+                // The stream is longer than the threshold, so the data already read is sent as the first blocks.
+                this.uploadBlocks(bufferedData, sourceStream, -1, accessCondition, options, opContext);
             }
         }
+    }
 
-        // If the stream is rewindable, and the length is known and less than
-        // threshold the upload in a single put, otherwise use a stream.
-        if (sourceStream.markSupported() && descriptor.getLength() != -1
-                && descriptor.getLength() < options.getSingleBlobPutThresholdInBytes() + 1) {
-            this.uploadFullBlob(sourceStream, descriptor.getLength(), accessCondition, options, opContext);
+    /**
+     * Uploads a blob in blocks through a {@link BlobOutputStream}, which calculates the MD5 of the blob as the data is
+     * written and sets it when the block list is committed.
+     * 
+     * @param prefix
+     *            A <code>byte</code> array that holds data already read from the source stream, which is written
+     *            first, or <code>null</code>.
+     * @param sourceStream
+     *            An <code>InputStream</code> object that represents the rest of the data to upload.
+     * @param length
+     *            The length, in bytes, of the data to read from the source stream, or -1 to read it to its end.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the blob.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     */
+    @DoesServiceRequest
+    private void uploadBlocks(final byte[] prefix, final InputStream sourceStream, final long length,
+            final AccessCondition accessCondition, final BlobRequestOptions options, final OperationContext opContext)
+            throws StorageException, IOException {
+        final BlobOutputStream writeStream = this.openOutputStream(accessCondition, options, opContext);
+        try {
+            if (prefix != null) {
+                // Written as an array, since writing a stream flushes the partially filled block.
+                writeStream.write(prefix);
+            }
+
+            writeStream.write(sourceStream, length);
         }
-        else {
-            final BlobOutputStream writeStream = this.openOutputStream(accessCondition, options, opContext);
+        finally {
+            writeStream.close();
+        }
+    }
+
+    /**
+     * Uploads a blob from a file in blocks of {@link #getStreamWriteSizeInBytes()} bytes. Each block is read from the
+     * file with a positional read, so up to {@link BlobRequestOptions#getConcurrentRequestCount()} blocks are read and
+     * uploaded at a time on the client's {@link TransferScheduler}. Blocks complete in order so that the blob MD5 can be
+     * computed incrementally, and the block list is committed once every block has been uploaded.
+     * 
+     * @param file
+     *            A <code>File</code> object which represents the file to upload.
+     * @param length
+     *            A <code>long</code> which represents the length, in bytes, of the file.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the blob.
+     * @param options
+     *            A {@link BlobRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     */
+    @DoesServiceRequest
+    void uploadFromFileParallel(final File file, final long length, final AccessCondition accessCondition,
+            final BlobRequestOptions options, OperationContext opContext) throws StorageException, IOException {
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        assertNoWriteOperationForSnapshot();
+
+        opContext.initialize();
+
+        MessageDigest digest = null;
+        if (options.getStoreBlobContentMD5()) {
             try {
-                writeStream.write(sourceStream, length);
+                digest = MessageDigest.getInstance("MD5");
+            }
+            catch (final NoSuchAlgorithmException e) {
+                // This wont happen, throw fatal.
+                throw Utility.generateNewUnexpectedStorageException(e);
+            }
+        }
+
+        // Block IDs are consecutive numbers from a random starting point, as in BlobOutputStream.
+        final Random random = new Random();
+        long blockIdSequenceNumber = (long) (random.nextInt(Integer.MAX_VALUE))
+                + random.nextInt(Integer.MAX_VALUE - 100000);
+
+        final OperationContext blockOpContext = opContext;
+        final BufferPool bufferPool = this.blobServiceClient.getBufferPool();
+        final int blockSize = this.getStreamWriteSizeInBytes();
+        final int maxOutstandingBlocks = options.getConcurrentRequestCount() * 2;
+        final LinkedList<Future<byte[]>> outstandingBlocks = new LinkedList<Future<byte[]>>();
+        final LinkedList<byte[]> outstandingBuffers = new LinkedList<byte[]>();
+        final ArrayList<BlockEntry> blockList = new ArrayList<BlockEntry>();
+
+        final RandomAccessFile sourceFile = new RandomAccessFile(file, "r");
+        final TransferScheduler.Session transferSession = this.blobServiceClient.getTransferScheduler().createSession(
+                options.getConcurrentRequestCount());
+        try {
+            final FileChannel channel = sourceFile.getChannel();
+            long nextOffset = 0;
+            while (nextOffset < length || !outstandingBlocks.isEmpty()) {
+                while (nextOffset < length && outstandingBlocks.size() < maxOutstandingBlocks) {
+                    final long blockOffset = nextOffset;
+                    final int blockLength = (int) Math.min(blockSize, length - blockOffset);
+
+                    // The buffers are acquired here, in order, and held until their blocks are consumed below. Once
+                    // some are held, waiting for more could wait on those, so the next block is consumed instead.
+                    final byte[] buffer;
+                    if (outstandingBlocks.isEmpty()) {
+                        try {
+                            buffer = bufferPool.acquire(blockLength);
+                        }
+                        catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw Utility.initIOException(e);
+                        }
+                    }
+                    else {
+                        buffer = bufferPool.tryAcquire(blockLength);
+                        if (buffer == null) {
+                            break;
+                        }
+                    }
+
+                    outstandingBuffers.add(buffer);
+                    nextOffset += blockLength;
+
+                    final String blockId = Base64.encode(Utility.getBytesFromLong(blockIdSequenceNumber++));
+                    blockList.add(new BlockEntry(blockId, BlockSearchMode.LATEST));
+
+                    final FutureTask<byte[]> blockTask = new FutureTask<byte[]>(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws StorageException, IOException {
+                            final ByteBuffer target = ByteBuffer.wrap(buffer);
+                            long position = blockOffset;
+                            while (target.hasRemaining()) {
+                                final int count = channel.read(target, position);
+                                if (count < 0) {
+                                    // The file was truncated after its length was read.
+                                    throw new StorageException(StorageErrorCodeStrings.INVALID_INPUT,
+                                            SR.INCORRECT_STREAM_LENGTH, HttpURLConnection.HTTP_FORBIDDEN, null, null);
+                                }
+
+                                position += count;
+                            }
+
+                            String md5 = null;
+                            if (options.getUseTransactionalContentMD5()) {
+                                try {
+                                    final MessageDigest blockDigest = MessageDigest.getInstance("MD5");
+                                    blockDigest.update(buffer);
+                                    md5 = Base64.encode(blockDigest.digest());
+                                }
+                                catch (final NoSuchAlgorithmException e) {
+                                    // This wont happen, throw fatal.
+                                    throw Utility.generateNewUnexpectedStorageException(e);
+                                }
+                            }
+
+                            CloudBlockBlob.this.uploadBlockInternal(blockId, md5, new ByteArrayInputStream(buffer),
+                                    blockLength, accessCondition, options, blockOpContext);
+                            return buffer;
+                        }
+                    });
+
+                    transferSession.execute(blockTask);
+                    outstandingBlocks.add(blockTask);
+                }
+
+                final byte[] block = getRangeResult(outstandingBlocks.removeFirst());
+                outstandingBuffers.removeFirst();
+                if (digest != null) {
+                    digest.update(block);
+                }
+
+                bufferPool.release(block);
             }
-            finally {
-                writeStream.close();
+        }
+        finally {
+            // Wait for the transfers already running so none reads the file or writes to the service once this
+            // method returns.
+            transferSession.cancelPendingTransfers();
+            transferSession.awaitRunningTransfers();
+            for (final byte[] buffer : outstandingBuffers) {
+                bufferPool.release(buffer);
             }
+
+            sourceFile.close();
         }
+
+        if (digest != null) {
+            this.properties.setContentMD5(Base64.encode(digest.digest()));
+        }
+
+        this.commitBlockList(blockList, accessCondition, options, opContext);
     }
 
     /**
@@ -807,7 +1032,7 @@ public final class CloudBlockBlob extends CloudBlob {
      *             If a storage service error occurred.
      */
     @DoesServiceRequest
-    private void uploadBlockInternal(final String blockId, final String md5, final InputStream sourceStream,
+    void uploadBlockInternal(final String blockId, final String md5, final InputStream sourceStream,
             final long length, final AccessCondition accessCondition, final BlobRequestOptions options,
             final OperationContext opContext) throws StorageException {
         ExecutionEngine.executeWithRetry(this.blobServiceClient, this,
@@ -17,8 +17,11 @@ package com.microsoft.azure.storage.blob;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
@@ -29,6 +32,7 @@ import com.microsoft.azure.storage.DoesServiceRequest;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageUri;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.Base64;
 import com.microsoft.azure.storage.core.ExecutionEngine;
 import com.microsoft.azure.storage.core.RequestLocationMode;
@@ -404,6 +408,48 @@ public final class CloudPageBlob extends CloudBlob {
                 this.downloadPageRangesImpl(accessCondition, options), options.getRetryPolicyFactory(), opContext);
     }
 
+    /**
+     * Indicates whether a download to a file fetches the blob in ranges. A page blob is also downloaded in ranges when
+     * {@link BlobRequestOptions#getSkipEmptyPages()} is <code>true</code>, so that only its data is fetched.
+     * 
+     * @param options
+     *            A {@link BlobRequestOptions} object to which the client defaults have already been applied.
+     * @return <code>true</code> if the blob is downloaded in ranges.
+     */
+    @Override
+    protected boolean isRangeDownloadToFile(final BlobRequestOptions options) {
+        return super.isRangeDownloadToFile(options) || options.getSkipEmptyPages();
+    }
+
+    /**
+     * Gets the ranges of the blob which a ranged download to a file fetches. If
+     * {@link BlobRequestOptions#getSkipEmptyPages()} is <code>true</code>, these are the page ranges which hold data.
+     * 
+     * @param blobLength
+     *            A <code>long</code> which represents the length of the blob.
+     * @param etagLockCondition
+     *            An {@link AccessCondition} object which locks any request to the blob's ETag.
+     * @param options
+     *            A {@link BlobRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * @return An <code>ArrayList</code> of the {@link PageRange} objects to download, in order.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     */
+    @Override
+    @DoesServiceRequest
+    protected ArrayList<PageRange> getDataRangesToDownload(final long blobLength,
+            final AccessCondition etagLockCondition, final BlobRequestOptions options, final OperationContext opContext)
+            throws StorageException {
+        if (options.getSkipEmptyPages()) {
+            return this.downloadPageRanges(etagLockCondition, options, opContext);
+        }
+
+        return super.getDataRangesToDownload(blobLength, etagLockCondition, options, opContext);
+    }
+
     private StorageRequest<CloudBlobClient, CloudBlob, ArrayList<PageRange>> downloadPageRangesImpl(
             final AccessCondition accessCondition, final BlobRequestOptions options) {
         final StorageRequest<CloudBlobClient, CloudBlob, ArrayList<PageRange>> getRequest = new StorageRequest<CloudBlobClient, CloudBlob, ArrayList<PageRange>>(
@@ -452,6 +498,259 @@ public final class CloudPageBlob extends CloudBlob {
         return getRequest;
     }
 
+    /**
+     * Returns the page ranges which changed between a previous snapshot of the blob and this blob or snapshot.
+     * <p>
+     * The start and end byte offsets for each page range are inclusive. This request is sent at storage service version
+     * {@link BlobConstants#PAGE_RANGES_DIFF_VERSION}, the first version which supports it.
+     * 
+     * @param previousSnapshotID
+     *            A <code>String</code> which represents the ID of the previous snapshot, as returned by
+     *            {@link #getSnapshotID()} on the blob returned by {@link #createSnapshot()}.
+     * 
+     * @return An <code>ArrayList</code> of {@link PageRangeDiff} objects which represent the page ranges which were
+     *         written or cleared since the previous snapshot.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     */
+    @DoesServiceRequest
+    public ArrayList<PageRangeDiff> downloadPageRangesDiff(final String previousSnapshotID) throws StorageException {
+        return this.downloadPageRangesDiff(previousSnapshotID, null /* accessCondition */, null /* options */,
+                null /* opContext */);
+    }
+
+    /**
+     * Returns the page ranges which changed between a previous snapshot of the blob and this blob or snapshot, using
+     * the specified request options and operation context.
+     * <p>
+     * The start and end byte offsets for each page range are inclusive. This request is sent at storage service version
+     * {@link BlobConstants#PAGE_RANGES_DIFF_VERSION}, the first version which supports it.
+     * 
+     * @param previousSnapshotID
+     *            A <code>String</code> which represents the ID of the previous snapshot, as returned by
+     *            {@link #getSnapshotID()} on the blob returned by {@link #createSnapshot()}.
+     * @param accessCondition
+     *            An {@link AccessCondition} object which represents the access conditions for the blob.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudBlobClient}).
+     * @param opContext
+     *            An {@link OperationContext} object which represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     * 
+     * @return An <code>ArrayList</code> of {@link PageRangeDiff} objects which represent the page ranges which were
+     *         written or cleared since the previous snapshot.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     */
+    @DoesServiceRequest
+    public ArrayList<PageRangeDiff> downloadPageRangesDiff(final String previousSnapshotID,
+            final AccessCondition accessCondition, BlobRequestOptions options, OperationContext opContext)
+            throws StorageException {
+        Utility.assertNotNullOrEmpty("previousSnapshotID", previousSnapshotID);
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        options = BlobRequestOptions.applyDefaults(options, BlobType.PAGE_BLOB, this.blobServiceClient);
+
+        return ExecutionEngine.executeWithRetry(this.blobServiceClient, this,
+                this.downloadPageRangesDiffImpl(previousSnapshotID, accessCondition, options),
+                options.getRetryPolicyFactory(), opContext);
+    }
+
+    private StorageRequest<CloudBlobClient, CloudBlob, ArrayList<PageRangeDiff>> downloadPageRangesDiffImpl(
+            final String previousSnapshotID, final AccessCondition accessCondition, final BlobRequestOptions options) {
+        final StorageRequest<CloudBlobClient, CloudBlob, ArrayList<PageRangeDiff>> getRequest = new StorageRequest<CloudBlobClient, CloudBlob, ArrayList<PageRangeDiff>>(
+                options, this.getStorageUri()) {
+
+            @Override
+            public void setRequestLocationMode() {
+                this.setRequestLocationMode(RequestLocationMode.PRIMARY_OR_SECONDARY);
+            }
+
+            @Override
+            public HttpURLConnection buildRequest(CloudBlobClient client, CloudBlob blob, OperationContext context)
+                    throws Exception {
+                return BlobRequest.getPageRangesDiff(
+                        blob.getTransformedAddress(context).getUri(this.getCurrentLocation()), options, context,
+                        accessCondition, blob.snapshotID, previousSnapshotID);
+            }
+
+            @Override
+            public void signRequest(HttpURLConnection connection, CloudBlobClient client, OperationContext context)
+                    throws Exception {
+                StorageRequest.signBlobQueueAndFileRequest(connection, client, -1L, null);
+            }
+
+            @Override
+            public ArrayList<PageRangeDiff> preProcessResponse(CloudBlob parentObject, CloudBlobClient client,
+                    OperationContext context) throws Exception {
+                if (this.getResult().getStatusCode() != HttpURLConnection.HTTP_OK) {
+                    this.setNonExceptionedRetryableFailure(true);
+                }
+
+                return null;
+            }
+
+            @Override
+            public ArrayList<PageRangeDiff> postProcessResponse(HttpURLConnection connection, CloudBlob blob,
+                    CloudBlobClient client, OperationContext context, ArrayList<PageRangeDiff> storageObject)
+                    throws Exception {
+                blob.updateEtagAndLastModifiedFromResponse(this.getConnection());
+                blob.updateLengthFromResponse(this.getConnection());
+
+                return PageRangeDiffHandler.getPageRangesDiff(this.getConnection().getInputStream());
+            }
+
+        };
+
+        return getRequest;
+    }
+
+    /**
+     * Brings a local copy of a previous snapshot of the blob up to date with this blob or snapshot, by downloading only
+     * the pages which changed since the previous snapshot.
+     * 
+     * @param previousSnapshotID
+     *            A <code>String</code> which represents the ID of the previous snapshot.
+     * @param path
+     *            A <code>String</code> which represents the path to the file which holds the contents of the previous
+     *            snapshot.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     *             If an I/O exception occurred.
+     */
+    @DoesServiceRequest
+    public void downloadDiffToFile(final String previousSnapshotID, final String path) throws StorageException,
+            IOException {
+        this.downloadDiffToFile(previousSnapshotID, path, null /* accessCondition */, null /* options */,
+                null /* opContext */);
+    }
+
+    /**
+     * Brings a local copy of a previous snapshot of the blob up to date with this blob or snapshot, by downloading only
+     * the pages which changed since the previous snapshot, using the specified request options and operation context.
+     * <p>
+     * The changed page ranges are retrieved with {@link #downloadPageRangesDiff}. The file is resized to the length of
+     * the blob, the ranges which were cleared are overwritten with zeros, and the ranges which were written are
+     * downloaded in pieces of {@link #getStreamMinimumReadSizeInBytes()} bytes, up to the concurrent request count at a
+     * time, and written at their offsets in the file. All requests are locked to the ETag of the blob when the
+     * operation started. If the operation fails, the file is left partially updated and should be downloaded again in
+     * full.
+     * <p>
+     * A backup which takes a snapshot with {@link #createSnapshot()} each cycle can keep a local copy of the latest
+     * snapshot by calling this method on the new snapshot with the ID of the previous one, so that the amount of data
+     * transferred is proportional to the pages which changed.
+     * 
+     * @param previousSnapshotID
+     *            A <code>String</code> which represents the ID of the previous snapshot.
+     * @param path
+     *            A <code>String</code> which represents the path to the file which holds the contents of the previous
+     *            snapshot.
+     * @param accessCondition
+     *            An {@link AccessCondition} object which represents the access conditions for the blob.
+     * @param options
+     *            A {@link BlobRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudBlobClient}).
+     * @param opContext
+     *            An {@link OperationContext} object which represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     *             If an I/O exception occurred.
+     */
+    @DoesServiceRequest
+    public void downloadDiffToFile(final String previousSnapshotID, final String path,
+            final AccessCondition accessCondition, BlobRequestOptions options, OperationContext opContext)
+            throws StorageException, IOException {
+        Utility.assertNotNullOrEmpty("previousSnapshotID", previousSnapshotID);
+        Utility.assertNotNullOrEmpty("path", path);
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        options = BlobRequestOptions.applyDefaults(options, BlobType.PAGE_BLOB, this.blobServiceClient);
+
+        this.downloadAttributes(accessCondition, options, opContext);
+        final long blobLength = this.getProperties().getLength();
+
+        // Lock all requests to the version of the blob whose attributes were just retrieved.
+        final AccessCondition etagLockCondition = AccessCondition.generateIfMatchCondition(this.getProperties()
+                .getEtag());
+        if (accessCondition != null) {
+            etagLockCondition.setLeaseID(accessCondition.getLeaseID());
+        }
+
+        final ArrayList<PageRange> writtenRanges = new ArrayList<PageRange>();
+        final ArrayList<PageRange> clearedRanges = new ArrayList<PageRange>();
+        for (final PageRangeDiff diff : this.downloadPageRangesDiff(previousSnapshotID, etagLockCondition, options,
+                opContext)) {
+            final PageRange range = new PageRange(diff.getStartOffset(), diff.getEndOffset());
+            if (diff.isCleared()) {
+                clearedRanges.add(range);
+            }
+            else {
+                writtenRanges.add(range);
+            }
+        }
+
+        final RandomAccessFile file = new RandomAccessFile(path, "rw");
+        final TransferScheduler.Session transferSession = this.blobServiceClient.getTransferScheduler().createSession(
+                options.getConcurrentRequestCount());
+        try {
+            file.setLength(blobLength);
+            for (final PageRange range : clearedRanges) {
+                clearFileRange(file.getChannel(), range);
+            }
+
+            this.downloadRangesToFile(file, blobLength, writtenRanges, etagLockCondition, null /* digest */, options,
+                    opContext, transferSession);
+        }
+        finally {
+            // Wait for the ranges already running so none writes to the file once this method returns.
+            transferSession.cancelPendingTransfers();
+            transferSession.awaitRunningTransfers();
+            file.close();
+        }
+    }
+
+    /**
+     * Overwrites a range of a file with zeros.
+     * 
+     * @param channel
+     *            The <code>FileChannel</code> of the file.
+     * @param range
+     *            A {@link PageRange} object which represents the range to clear.
+     * 
+     * @throws IOException
+     *             If an I/O exception occurred.
+     */
+    private static void clearFileRange(final FileChannel channel, final PageRange range) throws IOException {
+        final long rangeLength = range.getEndOffset() - range.getStartOffset() + 1;
+        final ByteBuffer zeros = ByteBuffer.allocate((int) Math.min(rangeLength, Constants.MB));
+        long position = range.getStartOffset();
+        while (position <= range.getEndOffset()) {
+            zeros.clear();
+            zeros.limit((int) Math.min(zeros.capacity(), range.getEndOffset() + 1 - position));
+            while (zeros.hasRemaining()) {
+                position += channel.write(zeros, position);
+            }
+        }
+    }
+
     /**
      * Opens an output stream object to write data to the page blob. The page blob must already exist.
      * 
@@ -580,7 +879,8 @@ public final class CloudPageBlob extends CloudBlob {
             throw new IllegalArgumentException(SR.BLOB_MD5_NOT_SUPPORTED_FOR_PAGE_BLOBS);
         }
 
-        if (length != null) {
+        final boolean isNewBlob = length != null;
+        if (isNewBlob) {
             if (length % Constants.PAGE_SIZE != 0) {
                 throw new IllegalArgumentException(SR.INVALID_PAGE_BLOB_LENGTH);
             }
@@ -596,7 +896,7 @@ public final class CloudPageBlob extends CloudBlob {
             accessCondition = AccessCondition.generateLeaseCondition(accessCondition.getLeaseID());
         }
 
-        return new BlobOutputStream(this, length, accessCondition, options, opContext);
+        return new BlobOutputStream(this, length, isNewBlob, accessCondition, options, opContext);
     }
 
     /**
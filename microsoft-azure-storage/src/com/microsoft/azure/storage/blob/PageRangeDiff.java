@@ -0,0 +1,90 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.blob;
+
+/**
+ * Represents a range of pages in a page blob which changed since a previous snapshot. The pages of the range either
+ * hold new data or were cleared.
+ */
+public final class PageRangeDiff {
+    /**
+     * Represents the ending offset of the page range.
+     */
+    private final long endOffset;
+
+    /**
+     * Represents the starting offset of the page range.
+     */
+    private final long startOffset;
+
+    /**
+     * Indicates whether the pages of the range were cleared.
+     */
+    private final boolean isCleared;
+
+    /**
+     * Creates an instance of the <code>{@link PageRangeDiff}</code> class.
+     * 
+     * @param start
+     *        A <code>long</code> which represents the starting offset.
+     * @param end
+     *        A <code>long</code> which represents the ending offset.
+     * @param isCleared
+     *        <code>true</code> if the pages of the range were cleared, or <code>false</code> if they hold new data.
+     */
+    public PageRangeDiff(final long start, final long end, final boolean isCleared) {
+        this.startOffset = start;
+        this.endOffset = end;
+        this.isCleared = isCleared;
+    }
+
+    /**
+     * Gets the ending offset.
+     * 
+     * @return A <code>long</code> which represents the ending offset.
+     */
+    public long getEndOffset() {
+        return this.endOffset;
+    }
+
+    /**
+     * Gets the starting offset.
+     * 
+     * @return A <code>long</code> which represents the starting offset.
+     */
+    public long getStartOffset() {
+        return this.startOffset;
+    }
+
+    /**
+     * Indicates whether the pages of the range were cleared.
+     * 
+     * @return <code>true</code> if the pages of the range were cleared, or <code>false</code> if they hold new data.
+     */
+    public boolean isCleared() {
+        return this.isCleared;
+    }
+
+    /**
+     * Returns the content of the page range as a string.
+     * 
+     * @return A <code>String</code> which represents the contents of the page range.
+     */
+    @Override
+    public String toString() {
+        return String.format("bytes=%d-%d%s", this.getStartOffset(), this.getEndOffset(), this.isCleared ? " cleared"
+                : "");
+    }
+}
@@ -20,18 +20,34 @@ import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.net.URL;
 import java.net.URISyntaxException;
 import java.security.InvalidKeyException;
 import java.util.Date;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.xml.stream.XMLStreamException;
 
+import com.microsoft.azure.storage.AdaptiveRequestLimiter;
+import com.microsoft.azure.storage.ConnectionManager;
 import com.microsoft.azure.storage.Constants;
+import com.microsoft.azure.storage.HedgingPolicy;
 import com.microsoft.azure.storage.LocationMode;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.RequestCompletedEvent;
+import com.microsoft.azure.storage.RequestMetrics;
+import com.microsoft.azure.storage.RequestOptions;
 import com.microsoft.azure.storage.RequestResult;
 import com.microsoft.azure.storage.ResponseReceivedEvent;
 import com.microsoft.azure.storage.RetryContext;
@@ -41,15 +57,29 @@ import com.microsoft.azure.storage.RetryPolicy;
 import com.microsoft.azure.storage.RetryPolicyFactory;
 import com.microsoft.azure.storage.RetryingEvent;
 import com.microsoft.azure.storage.SendingRequestEvent;
+import com.microsoft.azure.storage.ServiceClient;
+import com.microsoft.azure.storage.StorageCallback;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.StorageFuture;
 import com.microsoft.azure.storage.StorageLocation;
+import com.microsoft.azure.storage.StorageUri;
 import com.microsoft.azure.storage.table.TableServiceException;
 
 /**
  * RESERVED FOR INTERNAL USE. A class that handles execution of StorageOperations and enforces retry policies.
  */
 public final class ExecutionEngine {
+    /**
+     * Holds the timer used to schedule retries of asynchronous operations.
+     */
+    private static ScheduledExecutorService retryTimer;
+
+    /**
+     * Holds the executor which runs the hedged requests to the secondary location.
+     */
+    private static ExecutorService hedgeExecutor;
+
     /**
      * Executes an operation and enforces a retrypolicy to handle any potential errors
      * 
@@ -76,46 +106,716 @@ public final class ExecutionEngine {
     public static <CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> RESULT_TYPE executeWithRetry(final CLIENT_TYPE client,
             final PARENT_TYPE parentObject, final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> task,
             final RetryPolicyFactory policyFactory, final OperationContext opContext) throws StorageException {
+        final RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> execution = new RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE>(
+                client, parentObject, task, policyFactory, opContext);
+
+        while (!execution.executeAttempt()) {
+            try {
+                Thread.sleep(execution.retryInterval);
+            }
+            catch (final InterruptedException e) {
+                // Restore the interrupted status
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return execution.result;
+    }
+
+    /**
+     * Executes an operation asynchronously and enforces a retrypolicy to handle any potential errors. Each attempt runs
+     * on the given executor. No thread is held while waiting to retry; the next attempt is scheduled on a timer.
+     * 
+     * @param <CLIENT_TYPE>
+     *            The type of the service client
+     * @param <PARENT_TYPE>
+     *            The type of the parent object, i.e. CloudBlobContainer for downloadAttributes etc.
+     * @param <RESULT_TYPE>
+     *            The type of the expected result
+     * @param client
+     *            the service client associated with the request
+     * @param parentObject
+     *            the parent object
+     * @param task
+     *            the StorageRequest to execute
+     * @param policyFactory
+     *            the factory used to generate a new retry policy instance
+     * @param opContext
+     *            an object used to track the execution of the operation
+     * @param executor
+     *            the executor which runs each attempt
+     * @return a future which completes with the result of the operation, or with an exception representing any error
+     *         which occurred during the operation
+     */
+    public static <CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> StorageFuture<RESULT_TYPE> executeWithRetryAsync(
+            final CLIENT_TYPE client, final PARENT_TYPE parentObject,
+            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> task, final RetryPolicyFactory policyFactory,
+            final OperationContext opContext, final Executor executor) {
+        final RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> execution = new RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE>(
+                client, parentObject, task, policyFactory, opContext);
+        final StorageFuture<RESULT_TYPE> future = new StorageFuture<RESULT_TYPE>();
+        executeAttemptsAsync(execution, future, executor);
+        return future;
+    }
+
+    /**
+     * Determines whether a read is hedged against the secondary location.
+     * 
+     * @param options
+     *            the request options of the read, with the client defaults applied
+     * @param storageUri
+     *            the storage URI of the resource being read
+     * @return <code>true</code> if a hedging policy is set, the resource has a secondary location, and the location
+     *         mode targets the primary location first
+     */
+    public static boolean isHedged(final RequestOptions options, final StorageUri storageUri) {
+        final LocationMode locationMode = options.getLocationMode();
+        return options.getHedgingPolicy() != null && storageUri.getSecondaryUri() != null
+                && (locationMode == LocationMode.PRIMARY_ONLY || locationMode == LocationMode.PRIMARY_THEN_SECONDARY);
+    }
+
+    /**
+     * Executes a read against the primary location and, if it has not completed within the hedging delay, also against
+     * the secondary location. The result of whichever completes first is returned, and the other is abandoned: its
+     * connection is closed and it is not retried. If one fails, the other is still awaited; if both fail, the exception
+     * of the primary is thrown. A primary which fails before the hedging delay elapses is not hedged.
+     * <p>
+     * The request to the primary location, including its retries, runs on the calling thread. Only the request to the
+     * secondary location runs elsewhere, on a pool of hedge threads which is not shared with the transfer scheduler, so
+     * a caller which is itself a transfer, such as a range of a parallel download, cannot starve its own hedge.
+     * <p>
+     * The two requests run concurrently, so they must be built against separate request options, one with
+     * {@link LocationMode#PRIMARY_ONLY} and one with {@link LocationMode#SECONDARY_ONLY}, and must not share mutable
+     * state. Each may be given its own parent object for this purpose; the caller applies the state of the winning
+     * parent object once this method returns.
+     * 
+     * @param <CLIENT_TYPE>
+     *            The type of the service client
+     * @param <PARENT_TYPE>
+     *            The type of the parent object, i.e. CloudBlobContainer for downloadAttributes etc.
+     * @param <RESULT_TYPE>
+     *            The type of the expected result
+     * @param client
+     *            the service client associated with the request
+     * @param primaryParentObject
+     *            the parent object of the request to the primary location
+     * @param primaryTask
+     *            the StorageRequest to execute against the primary location
+     * @param secondaryParentObject
+     *            the parent object of the request to the secondary location
+     * @param secondaryTask
+     *            the StorageRequest to execute against the secondary location
+     * @param policyFactory
+     *            the factory used to generate a new retry policy instance for each request
+     * @param opContext
+     *            an object used to track the execution of the operation
+     * @param hedgingPolicy
+     *            the policy which determines the hedging delay and records the latency of the primary location
+     * @return the parent object and result of the request which completed first
+     * @throws StorageException
+     *             an exception representing any error which occurred during the operation.
+     */
+    public static <CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> HedgedResult<PARENT_TYPE, RESULT_TYPE> executeWithHedging(
+            final CLIENT_TYPE client, final PARENT_TYPE primaryParentObject,
+            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> primaryTask,
+            final PARENT_TYPE secondaryParentObject,
+            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> secondaryTask,
+            final RetryPolicyFactory policyFactory, final OperationContext opContext, final HedgingPolicy hedgingPolicy)
+            throws StorageException {
+        final long startTime = System.nanoTime();
+        final RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> primaryExecution = new RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE>(
+                client, primaryParentObject, primaryTask, policyFactory, opContext);
+        final RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> secondaryExecution = new RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE>(
+                client, secondaryParentObject, secondaryTask, policyFactory, opContext);
+        final StorageFuture<RESULT_TYPE> secondaryFuture = new StorageFuture<RESULT_TYPE>();
+
+        // A secondary which succeeds closes the connection of the primary, so the calling thread stops waiting on it.
+        secondaryFuture.addCallback(new StorageCallback<RESULT_TYPE>() {
+            @Override
+            public void onSuccess(final RESULT_TYPE result) {
+                primaryExecution.abort();
+            }
+
+            @Override
+            public void onFailure(final StorageException exception) {
+                // The primary is still awaited.
+            }
+        });
+
+        // Whichever of the hedge timer and the calling thread sets this first decides whether the hedge runs.
+        final AtomicBoolean isHedgeDecided = new AtomicBoolean();
+
+        // The timer thread only hands the hedge to the hedge executor once the hedging delay elapses.
+        final ScheduledFuture<?> hedge = getRetryTimer().schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (isHedgeDecided.compareAndSet(false, true)) {
+                    Logger.info(opContext, LogConstants.HEDGE);
+                    executeAttemptsAsync(secondaryExecution, secondaryFuture, getHedgeExecutor());
+                }
+            }
+        }, hedgingPolicy.getHedgingDelayInMs(), TimeUnit.MILLISECONDS);
+
+        try {
+            boolean isPrimaryCompleted = false;
+            StorageException primaryException = null;
+            try {
+                while (!isSucceeded(secondaryFuture)) {
+                    if (primaryExecution.executeAttempt()) {
+                        isPrimaryCompleted = true;
+                        break;
+                    }
+
+                    waitToRetry(secondaryFuture, primaryExecution.retryInterval);
+                }
+            }
+            catch (final StorageException e) {
+                primaryException = e;
+            }
+            catch (final RuntimeException e) {
+                primaryException = Utility.generateNewUnexpectedStorageException(e);
+            }
+
+            final boolean isHedgeStarted = !isHedgeDecided.compareAndSet(false, true);
+            hedge.cancel(false);
+
+            if (isPrimaryCompleted) {
+                secondaryExecution.abort();
+                secondaryFuture.cancel(false);
+                hedgingPolicy.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                return new HedgedResult<PARENT_TYPE, RESULT_TYPE>(primaryParentObject, primaryExecution.result);
+            }
+
+            if (!isHedgeStarted) {
+                // The primary failed before the hedging delay elapsed, so the secondary is never started.
+                hedgingPolicy.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+                throw primaryException;
+            }
+
+            final StorageException secondaryException = getException(secondaryFuture);
+            hedgingPolicy.recordLatency(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+            if (secondaryException == null) {
+                Logger.info(opContext, LogConstants.HEDGE_COMPLETED);
+                return new HedgedResult<PARENT_TYPE, RESULT_TYPE>(secondaryParentObject, secondaryFuture.get());
+            }
+
+            // The primary is only abandoned once the secondary succeeds, so it failed on its own.
+            throw primaryException;
+        }
+        catch (final InterruptedException e) {
+            isHedgeDecided.set(true);
+            hedge.cancel(false);
+            primaryExecution.abort();
+            secondaryExecution.abort();
+            secondaryFuture.cancel(false);
+            throw Utility.generateNewUnexpectedStorageException(e);
+        }
+        catch (final ExecutionException e) {
+            // Not reachable; only completed futures are read.
+            throw Utility.generateNewUnexpectedStorageException(e);
+        }
+    }
+
+    /**
+     * Waits out the retry interval of the primary request of a hedged read, returning early if the secondary request
+     * succeeds.
+     */
+    private static void waitToRetry(final StorageFuture<?> secondaryFuture, final long retryInterval)
+            throws InterruptedException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(retryInterval);
+        try {
+            secondaryFuture.get(retryInterval, TimeUnit.MILLISECONDS);
+        }
+        catch (final TimeoutException e) {
+            // The interval elapsed.
+        }
+        catch (final ExecutionException e) {
+            // The secondary failed, so the primary still waits out the rest of the interval.
+            final long remaining = deadline - System.nanoTime();
+            if (remaining > 0) {
+                TimeUnit.NANOSECONDS.sleep(remaining);
+            }
+        }
+    }
+
+    /**
+     * Gets a value indicating whether a future has completed successfully.
+     */
+    private static boolean isSucceeded(final StorageFuture<?> future) throws InterruptedException {
+        return future.isDone() && !future.isCancelled() && getException(future) == null;
+    }
+
+    /**
+     * Gets the exception a completed future failed with, or <code>null</code> if it succeeded.
+     */
+    private static StorageException getException(final StorageFuture<?> future) throws InterruptedException {
+        try {
+            future.get();
+            return null;
+        }
+        catch (final ExecutionException e) {
+            return (StorageException) e.getCause();
+        }
+    }
+
+    /**
+     * Runs the attempts of an execution on the given executor, completing the future with the outcome. Retries are
+     * scheduled on the retry timer, and are not attempted once the future has been cancelled.
+     */
+    private static <CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> void executeAttemptsAsync(
+            final RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> execution,
+            final StorageFuture<RESULT_TYPE> future, final Executor executor) {
+        executeAttemptAsync(new Runnable() {
+            @Override
+            public void run() {
+                if (future.isDone()) {
+                    // The operation was cancelled while waiting to retry.
+                    return;
+                }
+
+                try {
+                    if (execution.executeAttempt()) {
+                        future.setResult(execution.result);
+                    }
+                    else {
+                        final Runnable attempt = this;
+                        getRetryTimer().schedule(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    executeAttemptAsync(attempt, future, executor);
+                                }
+                                catch (final RuntimeException e) {
+                                    future.setException(Utility.generateNewUnexpectedStorageException(e));
+                                }
+                            }
+                        }, execution.retryInterval, TimeUnit.MILLISECONDS);
+                    }
+                }
+                catch (final StorageException e) {
+                    future.setException(e);
+                }
+                catch (final RuntimeException e) {
+                    future.setException(Utility.generateNewUnexpectedStorageException(e));
+                }
+            }
+        }, future, executor);
+    }
+
+    /**
+     * Queues an attempt of an asynchronous execution on the given executor. The attempt is queued as a
+     * <code>Future</code> which cancels the operation if it is cancelled before it runs, as a transfer session does
+     * with the transfers it discards, so the operation's completion hooks still run.
+     */
+    private static void executeAttemptAsync(final Runnable attempt, final StorageFuture<?> future,
+            final Executor executor) {
+        executor.execute(new FutureTask<Void>(attempt, null) {
+            @Override
+            protected void done() {
+                if (this.isCancelled()) {
+                    future.cancel(false);
+                }
+            }
+        });
+    }
+
+    /**
+     * Gets the executor which runs the hedged requests to the secondary location, creating it if necessary. It is kept
+     * apart from the transfer schedulers, whose threads may be blocked waiting on a hedge, and grows with the number of
+     * hedges in flight.
+     */
+    private static synchronized ExecutorService getHedgeExecutor() {
+        if (hedgeExecutor == null) {
+            hedgeExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "azure-storage-hedge");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return hedgeExecutor;
+    }
+
+    /**
+     * Gets the timer used to schedule retries of asynchronous operations and the start of hedged requests, creating it
+     * if necessary. The timer thread only hands each one to its executor, so a single daemon thread serves every
+     * operation.
+     */
+    private static synchronized ScheduledExecutorService getRetryTimer() {
+        if (retryTimer == null) {
+            retryTimer = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "azure-storage-retry-timer");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+
+        return retryTimer;
+    }
+
+    private static <CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> HttpURLConnection setupStorageRequest(
+            final CLIENT_TYPE client, final PARENT_TYPE parentObject,
+            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> task, int currentRetryCount,
+            final OperationContext opContext) throws StorageException {
+        try {
+
+            // reset result flags
+            task.initialize(opContext);
+
+            if (Utility.validateMaxExecutionTimeout(task.getRequestOptions().getOperationExpiryTimeInMs())) {
+                // maximum execution time would be exceeded by current time
+                TimeoutException timeoutException = new TimeoutException(SR.MAXIMUM_EXECUTION_TIMEOUT_EXCEPTION);
+                throw new StorageException(StorageErrorCodeStrings.OPERATION_TIMED_OUT,
+                        SR.MAXIMUM_EXECUTION_TIMEOUT_EXCEPTION, Constants.HeaderConstants.HTTP_UNUSED_306, null,
+                        timeoutException);
+            }
+
+            // Run the recovery action if this is a retry. Else, initialize the location mode for the task. 
+            // For retries, it will be initialized in retry logic.
+            if (currentRetryCount > 0) {
+                task.recoveryAction(opContext);
+                Logger.info(opContext, LogConstants.RETRY);
+            }
+            else {
+                task.applyLocationModeToRequest();
+                task.initializeLocation();
+                Logger.info(opContext, LogConstants.STARTING);
+            }
+
+            task.setRequestLocationMode();
+
+            // If the command only allows for a specific location, we should target
+            // that location no matter what the retry policy says.
+            task.validateLocation();
+
+            Logger.info(opContext, LogConstants.INIT_LOCATION, task.getCurrentLocation(), task.getLocationMode());
+
+            // 1. Build the request
+            HttpURLConnection request = task.buildRequest(client, parentObject, opContext);
+
+            // 2. Add headers
+            task.setHeaders(request, parentObject, opContext);
+
+            // Add any other custom headers that users have set on the opContext
+            if (opContext.getUserHeaders() != null) {
+                for (final Entry<String, String> entry : opContext.getUserHeaders().entrySet()) {
+                    request.setRequestProperty(entry.getKey(), entry.getValue());
+                }
+            }
+
+            return request;
+        }
+        catch (StorageException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new StorageException(null, e.getMessage(), Constants.HeaderConstants.HTTP_UNUSED_306, null, e);
+        }
+    }
+
+    /**
+     * Fires the sending request event for a request which has been built and signs it. This is done only once the
+     * request may be sent, so that the signature's date is current and the event is not raised while the request
+     * waits for a permit or a connection.
+     */
+    private static <CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> void signStorageRequest(final CLIENT_TYPE client,
+            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> task, final HttpURLConnection request,
+            final OperationContext opContext) throws StorageException {
+        try {
+            // 3. Fire sending request event
+            ExecutionEngine.fireSendingRequestEvent(opContext, request, task.getResult());
+            task.setIsSent(true);
+
+            // 4. Sign the request
+            task.signRequest(request, client, opContext);
+
+            // set the connection on the task
+            task.setConnection(request);
+        }
+        catch (StorageException e) {
+            throw e;
+        }
+        catch (Exception e) {
+            throw new StorageException(null, e.getMessage(), Constants.HeaderConstants.HTTP_UNUSED_306, null, e);
+        }
+    }
+
+    private static StorageLocation getNextLocation(StorageLocation lastLocation, LocationMode locationMode) {
+        switch (locationMode) {
+            case PRIMARY_ONLY:
+                return StorageLocation.PRIMARY;
+
+            case SECONDARY_ONLY:
+                return StorageLocation.SECONDARY;
+
+            case PRIMARY_THEN_SECONDARY:
+            case SECONDARY_THEN_PRIMARY:
+                return (lastLocation == StorageLocation.PRIMARY) ? StorageLocation.SECONDARY : StorageLocation.PRIMARY;
+
+            default:
+                return StorageLocation.PRIMARY;
+        }
+    }
+
+    /**
+     * Fires events representing that a request will be sent.
+     */
+    private static void fireSendingRequestEvent(OperationContext opContext, HttpURLConnection request,
+            RequestResult result) {
+        if (opContext.getSendingRequestEventHandler().hasListeners()
+                || OperationContext.getGlobalSendingRequestEventHandler().hasListeners()) {
+            SendingRequestEvent event = new SendingRequestEvent(opContext, request, result);
+            opContext.getSendingRequestEventHandler().fireEvent(event);
+            OperationContext.getGlobalSendingRequestEventHandler().fireEvent(event);
+        }
+    }
 
-        RetryPolicy policy = null;
+    /**
+     * Fires events representing that a response has been received.
+     */
+    private static void fireResponseReceivedEvent(OperationContext opContext, HttpURLConnection request,
+            RequestResult result) {
+        if (opContext.getResponseReceivedEventHandler().hasListeners()
+                || OperationContext.getGlobalResponseReceivedEventHandler().hasListeners()) {
+            ResponseReceivedEvent event = new ResponseReceivedEvent(opContext, request, result);
+            opContext.getResponseReceivedEventHandler().fireEvent(event);
+            OperationContext.getGlobalResponseReceivedEventHandler().fireEvent(event);
+        }
+    }
 
-        if (policyFactory == null) {
-            policy = new RetryNoRetry();
+    /**
+     * Fires events representing that a response received from the service is fully processed.
+     */
+    private static void fireRequestCompletedEvent(OperationContext opContext, HttpURLConnection request,
+            RequestResult result) {
+        if (opContext.getRequestCompletedEventHandler().hasListeners()
+                || OperationContext.getGlobalRequestCompletedEventHandler().hasListeners()) {
+            RequestCompletedEvent event = new RequestCompletedEvent(opContext, request, result);
+            opContext.getRequestCompletedEventHandler().fireEvent(event);
+            OperationContext.getGlobalRequestCompletedEventHandler().fireEvent(event);
+        }
+    }
+
+    /**
+     * Fires events representing that a request will be retried.
+     */
+    private static void fireRetryingEvent(OperationContext opContext, HttpURLConnection request, RequestResult result,
+            RetryContext retryContext) {
+        if (opContext.getRetryingEventHandler().hasListeners()
+                || OperationContext.getGlobalRetryingEventHandler().hasListeners()) {
+            RetryingEvent event = new RetryingEvent(opContext, request, result, retryContext);
+            opContext.getRetryingEventHandler().fireEvent(event);
+            OperationContext.getGlobalRetryingEventHandler().fireEvent(event);
+        }
+    }
+
+    /**
+     * Reads the rest of the error response of a request, if any, and closes it, so that the connection can be reused.
+     * The error has already been parsed at this point.
+     */
+    private static void drainErrorStream(final HttpURLConnection request) {
+        final InputStream errorStream = request.getErrorStream();
+        if (errorStream != null) {
+            try {
+                try {
+                    final byte[] buffer = new byte[Constants.KB];
+                    while (errorStream.read(buffer) != -1) {
+                        // Discard the response.
+                    }
+                }
+                finally {
+                    errorStream.close();
+                }
+            }
+            catch (final IOException e) {
+                // The connection will not be reused.
+            }
         }
-        else {
-            policy = policyFactory.createInstance(opContext);
+    }
+
+    /**
+     * Holds the state of an operation across its attempts.
+     */
+    private static final class RetryingExecution<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> {
+        /**
+         * Holds the service client associated with the request.
+         */
+        private final CLIENT_TYPE client;
+
+        /**
+         * Holds the parent object of the request.
+         */
+        private final PARENT_TYPE parentObject;
+
+        /**
+         * Holds the request to execute.
+         */
+        private final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> task;
+
+        /**
+         * Holds the object used to track the execution of the operation.
+         */
+        private final OperationContext opContext;
+
+        /**
+         * Holds the retry policy for the operation.
+         */
+        private final RetryPolicy policy;
+
+        /**
+         * Holds the registry the attempts are recorded in, or <code>null</code>.
+         */
+        private final RequestMetrics metrics;
+
+        /**
+         * Holds the limiter the attempts are gated by, or <code>null</code>.
+         */
+        private final AdaptiveRequestLimiter limiter;
+
+        /**
+         * Holds the manager the connections of the attempts are taken from, or <code>null</code>.
+         */
+        private final ConnectionManager connectionManager;
+
+        /**
+         * Holds the time at which the operation started.
+         */
+        private final long startTime = new Date().getTime();
+
+        /**
+         * Holds the number of attempts which have been retried.
+         */
+        private int currentRetryCount = 0;
+
+        /**
+         * Holds the exception from the most recent failed attempt.
+         */
+        private StorageException translatedException = null;
+
+        /**
+         * Holds the connection of the most recent attempt.
+         */
+        private volatile HttpURLConnection request = null;
+
+        /**
+         * Indicates whether the execution has been abandoned in favor of a hedged request.
+         */
+        private volatile boolean isAborted = false;
+
+        /**
+         * Holds the result of the operation once an attempt succeeds.
+         */
+        private RESULT_TYPE result;
+
+        /**
+         * Holds the number of milliseconds to wait before the next attempt once an attempt fails and may be retried.
+         */
+        private long retryInterval;
+
+        private RetryingExecution(final CLIENT_TYPE client, final PARENT_TYPE parentObject,
+                final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> task,
+                final RetryPolicyFactory policyFactory, final OperationContext opContext) {
+            this.client = client;
+            this.parentObject = parentObject;
+            this.task = task;
+            this.opContext = opContext;
+            this.metrics = client instanceof ServiceClient ? ((ServiceClient) client).getRequestMetrics() : null;
+            this.limiter = client instanceof ServiceClient ? ((ServiceClient) client).getRequestLimiter() : null;
+            this.connectionManager = client instanceof ServiceClient ? ((ServiceClient) client)
+                    .getConnectionManager() : null;
 
-            // if the returned policy is null, set to not retry
-            if (policy == null) {
+            RetryPolicy policy = null;
+
+            if (policyFactory == null) {
                 policy = new RetryNoRetry();
             }
+            else {
+                policy = policyFactory.createInstance(opContext);
+
+                // if the returned policy is null, set to not retry
+                if (policy == null) {
+                    policy = new RetryNoRetry();
+                }
+            }
+
+            this.policy = policy;
         }
 
-        int currentRetryCount = 0;
-        StorageException translatedException = null;
-        HttpURLConnection request = null;
-        final long startTime = new Date().getTime();
+        /**
+         * Makes one attempt at the operation and evaluates the retry policy if it fails.
+         * 
+         * @return <code>true</code> if the attempt succeeded and {@link #result} is set; <code>false</code> if the
+         *         operation should be retried after {@link #retryInterval} milliseconds
+         * @throws StorageException
+         *             if the attempt failed and may not be retried
+         */
+        private boolean executeAttempt() throws StorageException {
+            final CLIENT_TYPE client = this.client;
+            final PARENT_TYPE parentObject = this.parentObject;
+            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> task = this.task;
+            final OperationContext opContext = this.opContext;
+            AdaptiveRequestLimiter.Permit permit = null;
+            URL connectionUrl = null;
+            boolean isRecorded = false;
+            boolean isResponseReceived = false;
+            long attemptStartTime = 0;
+            long bytesSent = 0;
 
-        while (true) {
             try {
-                // 1-4: setup the request
-                request = setupStorageRequest(client, parentObject, task, currentRetryCount, opContext);
+                // 1-2: build the request
+                this.request = setupStorageRequest(client, parentObject, task, this.currentRetryCount, opContext);
 
-                Logger.info(opContext, LogConstants.START_REQUEST, request.getURL(),
-                        request.getRequestProperty(Constants.HeaderConstants.DATE));
+                // Wait for a permit and a connection before the request is signed, so time spent queued in the client
+                // neither ages the signature's date nor counts towards the request.
+                try {
+                    if (this.limiter != null) {
+                        permit = this.limiter.acquire((ServiceClient) client, this.request.getURL());
+                    }
+
+                    if (this.connectionManager != null) {
+                        this.connectionManager.acquire(this.request, task.getRequestOptions());
+                        connectionUrl = this.request.getURL();
+                    }
+                }
+                catch (final InterruptedException e) {
+                    throw Utility.generateNewUnexpectedStorageException(e);
+                }
+
+                if (this.isAborted) {
+                    throw new IOException(SR.REQUEST_ABANDONED);
+                }
+
+                // 3-4: fire the sending request event and sign the request
+                signStorageRequest(client, task, this.request, opContext);
+
+                if (this.metrics != null) {
+                    this.metrics.requestStarted();
+                    isRecorded = true;
+                    attemptStartTime = System.nanoTime();
+                }
+
+                Logger.info(opContext, LogConstants.START_REQUEST, this.request.getURL(),
+                        this.request.getRequestProperty(Constants.HeaderConstants.DATE));
 
                 // 5. Potentially upload data
                 if (task.getSendStream() != null) {
                     Logger.info(opContext, LogConstants.UPLOAD);
                     final StreamMd5AndLength descriptor = Utility.writeToOutputStream(task.getSendStream(),
-                            request.getOutputStream(), task.getLength(), false /* rewindStream */,
+                            this.request.getOutputStream(), task.getLength(), false /* rewindStream */,
                             false /* calculate MD5 */, opContext, task.getRequestOptions());
 
                     task.validateStreamWrite(descriptor);
+                    bytesSent = descriptor.getLength();
                     Logger.info(opContext, LogConstants.UPLOADDONE);
                 }
 
-                Utility.logHttpRequest(request, opContext);
+                Utility.logHttpRequest(this.request, opContext);
 
                 // 6. Process the request - Get response
                 RequestResult currResult = task.getResult();
@@ -123,23 +823,24 @@ public final class ExecutionEngine {
 
                 Logger.info(opContext, LogConstants.GET_RESPONSE);
 
-                currResult.setStatusCode(request.getResponseCode());
-                currResult.setStatusMessage(request.getResponseMessage());
+                currResult.setStatusCode(this.request.getResponseCode());
+                isResponseReceived = true;
+                currResult.setStatusMessage(this.request.getResponseMessage());
 
                 currResult.setStopDate(new Date());
-                currResult.setServiceRequestID(BaseResponse.getRequestId(request));
-                currResult.setEtag(BaseResponse.getEtag(request));
-                currResult.setRequestDate(BaseResponse.getDate(request));
-                currResult.setContentMD5(BaseResponse.getContentMD5(request));
+                currResult.setServiceRequestID(BaseResponse.getRequestId(this.request));
+                currResult.setEtag(BaseResponse.getEtag(this.request));
+                currResult.setRequestDate(BaseResponse.getDate(this.request));
+                currResult.setContentMD5(BaseResponse.getContentMD5(this.request));
 
                 // 7. Fire ResponseReceived Event
-                ExecutionEngine.fireResponseReceivedEvent(opContext, request, task.getResult());
+                ExecutionEngine.fireResponseReceivedEvent(opContext, this.request, task.getResult());
 
                 Logger.info(opContext, LogConstants.RESPONSE_RECEIVED, currResult.getStatusCode(),
                         currResult.getServiceRequestID(), currResult.getContentMD5(), currResult.getEtag(),
                         currResult.getRequestDate());
-               
-                Utility.logHttpResponse(request, opContext);   
+
+                Utility.logHttpResponse(this.request, opContext);
 
                 // 8. Pre-process response to check if there was an exception. Do Response parsing (headers etc).
                 Logger.info(opContext, LogConstants.PRE_PROCESS);
@@ -150,13 +851,13 @@ public final class ExecutionEngine {
 
                     // 9. Post-process response. Read stream from server.
                     Logger.info(opContext, LogConstants.POST_PROCESS);
-                    result = task.postProcessResponse(request, parentObject, client, opContext, result);
+                    result = task.postProcessResponse(this.request, parentObject, client, opContext, result);
                     Logger.info(opContext, LogConstants.POST_PROCESS_DONE);
 
                     // Success return result and drain the input stream.
                     if ((task.getResult().getStatusCode() >= 200) && (task.getResult().getStatusCode() < 300)) {
-                        if (request != null) {
-                            InputStream inStream = request.getInputStream();
+                        if (this.request != null) {
+                            InputStream inStream = this.request.getInputStream();
                             // At this point, we already have a result / exception to return to the user.
                             // This is just an optimization to improve socket reuse.
                             try {
@@ -174,83 +875,86 @@ public final class ExecutionEngine {
                     }
                     Logger.info(opContext, LogConstants.COMPLETE);
 
-                    return result;
+                    this.result = result;
+                    return true;
                 }
                 else {
                     Logger.warn(opContext, LogConstants.UNEXPECTED_RESULT_OR_EXCEPTION);
                     // The task may have already parsed an exception.
-                    translatedException = task.materializeException(opContext);
-                    task.getResult().setException(translatedException);
+                    this.translatedException = task.materializeException(opContext);
+                    task.getResult().setException(this.translatedException);
+                    drainErrorStream(this.request);
 
                     // throw on non retryable status codes: 501, 505, blob type mismatch
                     if (task.getResult().getStatusCode() == HttpURLConnection.HTTP_NOT_IMPLEMENTED
                             || task.getResult().getStatusCode() == HttpURLConnection.HTTP_VERSION
-                            || translatedException.getErrorCode().equals(StorageErrorCodeStrings.INVALID_BLOB_TYPE)) {
-                        throw translatedException;
+                            || this.translatedException.getErrorCode().equals(
+                                    StorageErrorCodeStrings.INVALID_BLOB_TYPE)) {
+                        throw this.translatedException;
                     }
                 }
             }
             catch (final TimeoutException e) {
                 // Retryable
                 Logger.warn(opContext, LogConstants.RETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
-                translatedException = StorageException.translateException(task, e, opContext);
-                task.getResult().setException(translatedException);
+                this.translatedException = StorageException.translateException(task, e, opContext);
+                task.getResult().setException(this.translatedException);
             }
             catch (final SocketTimeoutException e) {
                 // Retryable
                 Logger.warn(opContext, LogConstants.RETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
-                translatedException = new StorageException(StorageErrorCodeStrings.OPERATION_TIMED_OUT,
+                this.translatedException = new StorageException(StorageErrorCodeStrings.OPERATION_TIMED_OUT,
                         "The operation did not complete in the specified time.", -1, null, e);
-                task.getResult().setException(translatedException);
+                task.getResult().setException(this.translatedException);
             }
             catch (final IOException e) {
                 // Non Retryable if the inner exception is actually an TimeoutException, otherwise Retryable
                 if (e.getCause() instanceof TimeoutException) {
-                    translatedException = new StorageException(StorageErrorCodeStrings.OPERATION_TIMED_OUT,
+                    this.translatedException = new StorageException(StorageErrorCodeStrings.OPERATION_TIMED_OUT,
                             SR.MAXIMUM_EXECUTION_TIMEOUT_EXCEPTION, Constants.HeaderConstants.HTTP_UNUSED_306, null,
                             (Exception) e.getCause());
-                    task.getResult().setException(translatedException);
+                    task.getResult().setException(this.translatedException);
                     Logger.error(opContext, LogConstants.UNRETRYABLE_EXCEPTION, e.getCause().getClass().getName(), e
                             .getCause().getMessage());
-                    throw translatedException;
+                    throw this.translatedException;
                 }
                 else {
                     Logger.warn(opContext, LogConstants.RETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
-                    translatedException = StorageException.translateException(task, e, opContext);
-                    task.getResult().setException(translatedException);
+                    this.translatedException = StorageException.translateException(task, e, opContext);
+                    task.getResult().setException(this.translatedException);
                 }
             }
             catch (final XMLStreamException e) {
                 // Non Retryable except when the inner exception is actually an IOException
                 if (e.getCause() instanceof SocketException) {
-                    translatedException = StorageException.translateException(task,
+                    this.translatedException = StorageException.translateException(task,
                             (Exception) e.getCause(), opContext);
                 }
                 else {
-                    translatedException = StorageException.translateException(task, e, opContext);
+                    this.translatedException = StorageException.translateException(task, e, opContext);
                 }
 
-                task.getResult().setException(translatedException);
+                task.getResult().setException(this.translatedException);
 
                 if (!(e.getCause() instanceof IOException)) {
                     Logger.error(opContext, LogConstants.UNRETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
-                    throw translatedException;
+                    throw this.translatedException;
                 }
                 Logger.warn(opContext, LogConstants.RETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
             }
             catch (final InvalidKeyException e) {
                 // Non Retryable, just throw
-                translatedException = StorageException.translateException(task, e, opContext);
-                task.getResult().setException(translatedException);
+                this.translatedException = StorageException.translateException(task, e, opContext);
+                task.getResult().setException(this.translatedException);
                 Logger.error(opContext, LogConstants.UNRETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
-                throw translatedException;
+                throw this.translatedException;
             }
             catch (final URISyntaxException e) {
                 // Non Retryable, just throw
-                translatedException = StorageException.translateException(task, e, opContext);
-                task.getResult().setException(translatedException);
+                this.translatedException = StorageException.translateException(task, e, opContext);
+                task.getResult().setException(this.translatedException);
                 Logger.error(opContext, LogConstants.UNRETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
-                throw translatedException;
+                throw this.translatedException;
             }
             catch (final TableServiceException e) {
                 task.getResult().setStatusCode(e.getHttpStatusCode());
@@ -263,7 +967,7 @@ public final class ExecutionEngine {
                 }
                 else {
                     Logger.warn(opContext, LogConstants.RETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
-                    translatedException = e;
+                    this.translatedException = e;
                 }
             }
             catch (final StorageException e) {
@@ -275,53 +979,70 @@ public final class ExecutionEngine {
             }
             catch (final Exception e) {
                 // Non Retryable, just throw
-                translatedException = StorageException.translateException(task, e, opContext);
-                task.getResult().setException(translatedException);
+                this.translatedException = StorageException.translateException(task, e, opContext);
+                task.getResult().setException(this.translatedException);
                 Logger.error(opContext, LogConstants.UNRETRYABLE_EXCEPTION, e.getClass().getName(), e.getMessage());
-                throw translatedException;
+                throw this.translatedException;
             }
             finally {
-                opContext.setClientTimeInMs(new Date().getTime() - startTime);
+                if (permit != null) {
+                    this.limiter.release(permit, isResponseReceived ? task.getResult().getStatusCode() : -1);
+                }
+
+                if (connectionUrl != null) {
+                    this.connectionManager.release(connectionUrl);
+                }
+
+                if (isRecorded) {
+                    this.recordAttempt(attemptStartTime, bytesSent, isResponseReceived);
+                }
+
+                opContext.setClientTimeInMs(new Date().getTime() - this.startTime);
 
                 // 10. Fire RequestCompleted Event
                 if (task.isSent()) {
-                    ExecutionEngine.fireRequestCompletedEvent(opContext, request, task.getResult());
+                    ExecutionEngine.fireRequestCompletedEvent(opContext, this.request, task.getResult());
                 }
             }
 
+            if (this.isAborted) {
+                // A hedged request completed first, so the outcome of this one is not needed.
+                throw this.translatedException;
+            }
+
             // Evaluate Retry Policy
-            Logger.info(opContext, LogConstants.RETRY_CHECK, currentRetryCount, task.getResult().getStatusCode(),
-                    translatedException == null ? null : translatedException.getMessage());
+            Logger.info(opContext, LogConstants.RETRY_CHECK, this.currentRetryCount, task.getResult().getStatusCode(),
+                    this.translatedException == null ? null : this.translatedException.getMessage());
 
             task.setCurrentLocation(getNextLocation(task.getCurrentLocation(), task.getLocationMode()));
             Logger.info(opContext, LogConstants.NEXT_LOCATION, task.getCurrentLocation(), task.getLocationMode());
 
-            RetryContext retryContext = new RetryContext(currentRetryCount++, task.getResult(),
+            RetryContext retryContext = new RetryContext(this.currentRetryCount++, task.getResult(),
                     task.getCurrentLocation(), task.getLocationMode());
 
-            RetryInfo retryInfo = policy.evaluate(retryContext, opContext);
+            RetryInfo retryInfo = this.policy.evaluate(retryContext, opContext);
 
             if (retryInfo == null) {
                 // policy does not allow for retry
-                Logger.error(opContext, LogConstants.DO_NOT_RETRY_POLICY, translatedException == null ? null
-                        : translatedException.getMessage());
-                throw translatedException;
+                Logger.error(opContext, LogConstants.DO_NOT_RETRY_POLICY, this.translatedException == null ? null
+                        : this.translatedException.getMessage());
+                throw this.translatedException;
             }
             else if (Utility.validateMaxExecutionTimeout(task.getRequestOptions().getOperationExpiryTimeInMs(),
                     retryInfo.getRetryInterval())) {
                 // maximum execution time would be exceeded by current time plus retry interval delay
                 TimeoutException timeoutException = new TimeoutException(SR.MAXIMUM_EXECUTION_TIMEOUT_EXCEPTION);
-                translatedException = new StorageException(StorageErrorCodeStrings.OPERATION_TIMED_OUT,
+                this.translatedException = new StorageException(StorageErrorCodeStrings.OPERATION_TIMED_OUT,
                         SR.MAXIMUM_EXECUTION_TIMEOUT_EXCEPTION, Constants.HeaderConstants.HTTP_UNUSED_306, null,
                         timeoutException);
 
                 task.initialize(opContext);
-                task.getResult().setException(translatedException);
+                task.getResult().setException(this.translatedException);
 
-                Logger.error(opContext, LogConstants.DO_NOT_RETRY_TIMEOUT, translatedException == null ? null
-                        : translatedException.getMessage());
+                Logger.error(opContext, LogConstants.DO_NOT_RETRY_TIMEOUT, this.translatedException == null ? null
+                        : this.translatedException.getMessage());
 
-                throw translatedException;
+                throw this.translatedException;
             }
             else {
                 // attempt to retry
@@ -329,156 +1050,49 @@ public final class ExecutionEngine {
                 task.setLocationMode(retryInfo.getUpdatedLocationMode());
                 Logger.info(opContext, LogConstants.RETRY_INFO, task.getCurrentLocation(), task.getLocationMode());
 
-                try {
-                    ExecutionEngine.fireRetryingEvent(opContext, task.getConnection(), task.getResult(), retryContext);
+                ExecutionEngine.fireRetryingEvent(opContext, task.getConnection(), task.getResult(), retryContext);
 
-                    Logger.info(opContext, LogConstants.RETRY_DELAY, retryInfo.getRetryInterval());
-                    Thread.sleep(retryInfo.getRetryInterval());
-                }
-                catch (final InterruptedException e) {
-                    // Restore the interrupted status
-                    Thread.currentThread().interrupt();
-                }
+                Logger.info(opContext, LogConstants.RETRY_DELAY, retryInfo.getRetryInterval());
+                this.retryInterval = retryInfo.getRetryInterval();
+                return false;
             }
         }
-    }
 
-    private static <CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> HttpURLConnection setupStorageRequest(
-            final CLIENT_TYPE client, final PARENT_TYPE parentObject,
-            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, RESULT_TYPE> task, int currentRetryCount,
-            final OperationContext opContext) throws StorageException {
-        try {
-
-            // reset result flags
-            task.initialize(opContext);
-
-            if (Utility.validateMaxExecutionTimeout(task.getRequestOptions().getOperationExpiryTimeInMs())) {
-                // maximum execution time would be exceeded by current time
-                TimeoutException timeoutException = new TimeoutException(SR.MAXIMUM_EXECUTION_TIMEOUT_EXCEPTION);
-                throw new StorageException(StorageErrorCodeStrings.OPERATION_TIMED_OUT,
-                        SR.MAXIMUM_EXECUTION_TIMEOUT_EXCEPTION, Constants.HeaderConstants.HTTP_UNUSED_306, null,
-                        timeoutException);
-            }
-
-            // Run the recovery action if this is a retry. Else, initialize the location mode for the task. 
-            // For retries, it will be initialized in retry logic.
-            if (currentRetryCount > 0) {
-                task.recoveryAction(opContext);
-                Logger.info(opContext, LogConstants.RETRY);
-            }
-            else {
-                task.applyLocationModeToRequest();
-                task.initializeLocation();
-                Logger.info(opContext, LogConstants.STARTING);
+        /**
+         * Abandons the execution. The connection of an attempt in progress is closed, and the execution is not retried.
+         */
+        private void abort() {
+            this.isAborted = true;
+            final HttpURLConnection request = this.request;
+            if (request != null) {
+                request.disconnect();
             }
+        }
 
-            task.setRequestLocationMode();
-
-            // If the command only allows for a specific location, we should target
-            // that location no matter what the retry policy says.
-            task.validateLocation();
-
-            Logger.info(opContext, LogConstants.INIT_LOCATION, task.getCurrentLocation(), task.getLocationMode());
-
-            // 1. Build the request
-            HttpURLConnection request = task.buildRequest(client, parentObject, opContext);
-
-            // 2. Add headers
-            task.setHeaders(request, parentObject, opContext);
+        /**
+         * Records a completed attempt in the request metrics.
+         */
+        private void recordAttempt(final long attemptStartTime, final long bytesSent,
+                final boolean isResponseReceived) {
+            final long latency = System.nanoTime() - attemptStartTime;
+            final String method = this.request.getRequestMethod();
 
-            // Add any other custom headers that users have set on the opContext
-            if (opContext.getUserHeaders() != null) {
-                for (final Entry<String, String> entry : opContext.getUserHeaders().entrySet()) {
-                    request.setRequestProperty(entry.getKey(), entry.getValue());
+            long bytesReceived = 0;
+            if (isResponseReceived && !"HEAD".equals(method)) {
+                final String contentLength = this.request.getHeaderField(Constants.HeaderConstants.CONTENT_LENGTH);
+                if (contentLength != null) {
+                    try {
+                        bytesReceived = Long.parseLong(contentLength);
+                    }
+                    catch (final NumberFormatException e) {
+                        // Leave a malformed length uncounted.
+                    }
                 }
             }
 
-            // 3. Fire sending request event
-            ExecutionEngine.fireSendingRequestEvent(opContext, request, task.getResult());
-            task.setIsSent(true);
-
-            // 4. Sign the request
-            task.signRequest(request, client, opContext);
-
-            // set the connection on the task
-            task.setConnection(request);
-
-            return request;
-        }
-        catch (StorageException e) {
-            throw e;
-        }
-        catch (Exception e) {
-            throw new StorageException(null, e.getMessage(), Constants.HeaderConstants.HTTP_UNUSED_306, null, e);
-        }
-    }
-
-    private static StorageLocation getNextLocation(StorageLocation lastLocation, LocationMode locationMode) {
-        switch (locationMode) {
-            case PRIMARY_ONLY:
-                return StorageLocation.PRIMARY;
-
-            case SECONDARY_ONLY:
-                return StorageLocation.SECONDARY;
-
-            case PRIMARY_THEN_SECONDARY:
-            case SECONDARY_THEN_PRIMARY:
-                return (lastLocation == StorageLocation.PRIMARY) ? StorageLocation.SECONDARY : StorageLocation.PRIMARY;
-
-            default:
-                return StorageLocation.PRIMARY;
-        }
-    }
-
-    /**
-     * Fires events representing that a request will be sent.
-     */
-    private static void fireSendingRequestEvent(OperationContext opContext, HttpURLConnection request,
-            RequestResult result) {
-        if (opContext.getSendingRequestEventHandler().hasListeners()
-                || OperationContext.getGlobalSendingRequestEventHandler().hasListeners()) {
-            SendingRequestEvent event = new SendingRequestEvent(opContext, request, result);
-            opContext.getSendingRequestEventHandler().fireEvent(event);
-            OperationContext.getGlobalSendingRequestEventHandler().fireEvent(event);
-        }
-    }
-
-    /**
-     * Fires events representing that a response has been received.
-     */
-    private static void fireResponseReceivedEvent(OperationContext opContext, HttpURLConnection request,
-            RequestResult result) {
-        if (opContext.getResponseReceivedEventHandler().hasListeners()
-                || OperationContext.getGlobalResponseReceivedEventHandler().hasListeners()) {
-            ResponseReceivedEvent event = new ResponseReceivedEvent(opContext, request, result);
-            opContext.getResponseReceivedEventHandler().fireEvent(event);
-            OperationContext.getGlobalResponseReceivedEventHandler().fireEvent(event);
-        }
-    }
-
-    /**
-     * Fires events representing that a response received from the service is fully processed.
-     */
-    private static void fireRequestCompletedEvent(OperationContext opContext, HttpURLConnection request,
-            RequestResult result) {
-        if (opContext.getRequestCompletedEventHandler().hasListeners()
-                || OperationContext.getGlobalRequestCompletedEventHandler().hasListeners()) {
-            RequestCompletedEvent event = new RequestCompletedEvent(opContext, request, result);
-            opContext.getRequestCompletedEventHandler().fireEvent(event);
-            OperationContext.getGlobalRequestCompletedEventHandler().fireEvent(event);
-        }
-    }
-
-    /**
-     * Fires events representing that a request will be retried.
-     */
-    private static void fireRetryingEvent(OperationContext opContext, HttpURLConnection request, RequestResult result,
-            RetryContext retryContext) {
-        if (opContext.getRetryingEventHandler().hasListeners()
-                || OperationContext.getGlobalRetryingEventHandler().hasListeners()) {
-            RetryingEvent event = new RetryingEvent(opContext, request, result, retryContext);
-            opContext.getRetryingEventHandler().fireEvent(event);
-            OperationContext.getGlobalRetryingEventHandler().fireEvent(event);
+            this.metrics.requestCompleted(this.client.getClass(), method, this.request.getURL().getQuery(),
+                    isResponseReceived ? this.task.getResult().getStatusCode() : -1, this.currentRetryCount > 0,
+                    latency, bytesSent, bytesReceived);
         }
     }
 }
@@ -0,0 +1,63 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.core;
+
+/**
+ * RESERVED FOR INTERNAL USE. Represents the outcome of a hedged read: the result of the request which completed first,
+ * and the parent object it was executed against.
+ *
+ * @param <PARENT_TYPE>
+ *            The type of the parent object.
+ * @param <RESULT_TYPE>
+ *            The type of the result.
+ */
+public final class HedgedResult<PARENT_TYPE, RESULT_TYPE> {
+    /**
+     * Holds the parent object the winning request was executed against.
+     */
+    private final PARENT_TYPE parentObject;
+
+    /**
+     * Holds the result of the winning request.
+     */
+    private final RESULT_TYPE result;
+
+    /**
+     * Creates an instance of the <code>HedgedResult</code> class.
+     *
+     * @param parentObject
+     *            the parent object the winning request was executed against
+     * @param result
+     *            the result of the winning request
+     */
+    public HedgedResult(final PARENT_TYPE parentObject, final RESULT_TYPE result) {
+        this.parentObject = parentObject;
+        this.result = result;
+    }
+
+    /**
+     * @return the parent object the winning request was executed against
+     */
+    public PARENT_TYPE getParentObject() {
+        return this.parentObject;
+    }
+
+    /**
+     * @return the result of the winning request
+     */
+    public RESULT_TYPE getResult() {
+        return this.result;
+    }
+}
@@ -19,6 +19,7 @@ import java.util.Iterator;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.ResultSegment;
 import com.microsoft.azure.storage.RetryPolicyFactory;
+import com.microsoft.azure.storage.TransferScheduler;
 
 /**
  * RESERVED FOR INTERNAL USE. Provides a lazy iterator which will retrieve the next segment of a result as the iterator
@@ -57,20 +58,34 @@ public final class LazySegmentedIterable<CLIENT_TYPE, PARENT_TYPE, ENTITY_TYPE>
      */
     private final OperationContext opContext;
 
+    /**
+     * Holds the scheduler on which each iterator prefetches the next segment, or <code>null</code> if prefetching is
+     * disabled.
+     */
+    private final TransferScheduler prefetchScheduler;
+
     public LazySegmentedIterable(
             final StorageRequest<CLIENT_TYPE, PARENT_TYPE, ResultSegment<ENTITY_TYPE>> segmentGenerator,
             final CLIENT_TYPE client, final PARENT_TYPE parent, final RetryPolicyFactory policyFactory,
             final OperationContext opContext) {
+        this(segmentGenerator, client, parent, policyFactory, opContext, null /* prefetchScheduler */);
+    }
+
+    public LazySegmentedIterable(
+            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, ResultSegment<ENTITY_TYPE>> segmentGenerator,
+            final CLIENT_TYPE client, final PARENT_TYPE parent, final RetryPolicyFactory policyFactory,
+            final OperationContext opContext, final TransferScheduler prefetchScheduler) {
         this.segmentGenerator = segmentGenerator;
         this.parentObject = parent;
         this.opContext = opContext;
         this.policyFactory = policyFactory;
         this.client = client;
+        this.prefetchScheduler = prefetchScheduler;
     }
 
     @Override
     public Iterator<ENTITY_TYPE> iterator() {
         return new LazySegmentedIterator<CLIENT_TYPE, PARENT_TYPE, ENTITY_TYPE>(this.segmentGenerator, this.client,
-                this.parentObject, this.policyFactory, this.opContext);
+                this.parentObject, this.policyFactory, this.opContext, this.prefetchScheduler);
     }
 }
@@ -16,16 +16,22 @@ package com.microsoft.azure.storage.core;
 
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 import com.microsoft.azure.storage.DoesServiceRequest;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.ResultSegment;
 import com.microsoft.azure.storage.RetryPolicyFactory;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.TransferScheduler;
 
 /**
  * RESERVED FOR INTERNAL USE. Provides a lazy iterator which will retrieve the next segment of a result as the iterator
- * is consumed
+ * is consumed. If a prefetch scheduler is given, the request for the next segment is issued in the background as soon
+ * as the current segment arrives, so at most one segment beyond the current one is held.
  * 
  * @param <CLIENT_TYPE>
  *            The service client type
@@ -71,6 +77,16 @@ public final class LazySegmentedIterator<CLIENT_TYPE, PARENT_TYPE, ENTITY_TYPE>
      */
     private final OperationContext opContext;
 
+    /**
+     * Holds the executor on which the next segment is prefetched, or <code>null</code> if prefetching is disabled.
+     */
+    private final Executor prefetchExecutor;
+
+    /**
+     * Holds the pending request for the next segment, if one has been prefetched.
+     */
+    private FutureTask<ResultSegment<ENTITY_TYPE>> pendingSegment;
+
     /**
      * Initializes the LazySegmentedIterator.
      * 
@@ -89,11 +105,36 @@ public final class LazySegmentedIterator<CLIENT_TYPE, PARENT_TYPE, ENTITY_TYPE>
             final StorageRequest<CLIENT_TYPE, PARENT_TYPE, ResultSegment<ENTITY_TYPE>> segmentGenerator,
             final CLIENT_TYPE client, final PARENT_TYPE parent, final RetryPolicyFactory policyFactory,
             final OperationContext opContext) {
+        this(segmentGenerator, client, parent, policyFactory, opContext, null /* prefetchScheduler */);
+    }
+
+    /**
+     * Initializes the LazySegmentedIterator, prefetching the next segment on the specified scheduler.
+     * 
+     * @param segmentGenerator
+     *            a SegmentedStorageRequest to execute in order to retrieve the next segment of the result.
+     * @param client
+     *            the service client associated with the request
+     * @param parent
+     *            the parent object
+     * @param policyFactory
+     *            the factory used to generate a new retry policy instance
+     * @param opContext
+     *            an object used to track the execution of the operation
+     * @param prefetchScheduler
+     *            the scheduler on which the next segment is requested while the current one is consumed, or
+     *            <code>null</code> to request each segment only once the current one is exhausted
+     */
+    public LazySegmentedIterator(
+            final StorageRequest<CLIENT_TYPE, PARENT_TYPE, ResultSegment<ENTITY_TYPE>> segmentGenerator,
+            final CLIENT_TYPE client, final PARENT_TYPE parent, final RetryPolicyFactory policyFactory,
+            final OperationContext opContext, final TransferScheduler prefetchScheduler) {
         this.segmentGenerator = segmentGenerator;
         this.parentObject = parent;
         this.opContext = opContext;
         this.policyFactory = policyFactory;
         this.client = client;
+        this.prefetchExecutor = prefetchScheduler != null ? prefetchScheduler.createSession(1) : null;
     }
 
     /**
@@ -106,8 +147,7 @@ public final class LazySegmentedIterator<CLIENT_TYPE, PARENT_TYPE, ENTITY_TYPE>
                 || (!this.currentSegmentIterator.hasNext() && this.currentSegment != null && this.currentSegment
                         .getHasMoreResults())) {
             try {
-                this.currentSegment = ExecutionEngine.executeWithRetry(this.client, this.parentObject,
-                        this.segmentGenerator, this.policyFactory, this.opContext);
+                this.currentSegment = this.nextSegment();
             }
             catch (final StorageException e) {
                 final NoSuchElementException ex = new NoSuchElementException(SR.ENUMERATION_ERROR);
@@ -116,6 +156,10 @@ public final class LazySegmentedIterator<CLIENT_TYPE, PARENT_TYPE, ENTITY_TYPE>
             }
             this.currentSegmentIterator = this.currentSegment.getResults().iterator();
 
+            if (this.currentSegment.getHasMoreResults() && this.prefetchExecutor != null) {
+                this.prefetchSegment();
+            }
+
             if (!this.currentSegmentIterator.hasNext() && !this.currentSegment.getHasMoreResults()) {
                 return false;
             }
@@ -144,4 +188,63 @@ public final class LazySegmentedIterator<CLIENT_TYPE, PARENT_TYPE, ENTITY_TYPE>
         // read only, no-op
         throw new UnsupportedOperationException();
     }
+
+    /**
+     * Retrieves the next segment, waiting for the prefetched request if there is one.
+     */
+    @DoesServiceRequest
+    private ResultSegment<ENTITY_TYPE> nextSegment() throws StorageException {
+        final FutureTask<ResultSegment<ENTITY_TYPE>> pending = this.pendingSegment;
+        if (pending == null) {
+            return this.fetchSegment();
+        }
+
+        this.pendingSegment = null;
+        try {
+            return pending.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.cancel(false);
+            throw Utility.generateNewUnexpectedStorageException(e);
+        }
+        catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof StorageException) {
+                throw (StorageException) cause;
+            }
+            else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            else {
+                throw Utility.generateNewUnexpectedStorageException((Exception) cause);
+            }
+        }
+    }
+
+    /**
+     * Issues the request for the next segment in the background.
+     */
+    private void prefetchSegment() {
+        this.pendingSegment = new FutureTask<ResultSegment<ENTITY_TYPE>>(new Callable<ResultSegment<ENTITY_TYPE>>() {
+            @Override
+            public ResultSegment<ENTITY_TYPE> call() throws StorageException {
+                return LazySegmentedIterator.this.fetchSegment();
+            }
+        });
+
+        this.prefetchExecutor.execute(this.pendingSegment);
+    }
+
+    /**
+     * Executes the request for the next segment on the calling thread.
+     */
+    @DoesServiceRequest
+    private ResultSegment<ENTITY_TYPE> fetchSegment() throws StorageException {
+        return ExecutionEngine.executeWithRetry(this.client, this.parentObject, this.segmentGenerator,
+                this.policyFactory, this.opContext);
+    }
 }
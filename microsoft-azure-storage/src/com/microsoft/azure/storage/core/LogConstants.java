@@ -23,7 +23,11 @@ public class LogConstants {
     public static final String DO_NOT_RETRY_POLICY = "Retry policy did not allow for a retry. Failing. Error Message = '%s'.";
     public static final String DO_NOT_RETRY_TIMEOUT = "Operation cannot be retried because maximum execution timeout has been reached. Failing. Inner error Message = '%s'.";
     public static final String GET_RESPONSE = "Waiting for response.";
+    public static final String HEDGE = "The primary location has not responded within the hedging delay. Sending the request to the secondary location.";
+    public static final String HEDGE_COMPLETED = "The request to the secondary location completed first. Abandoning the request to the primary location.";
     public static final String INIT_LOCATION = "Starting operation with location '%s' per location mode '%s'.";
+    public static final String MESSAGE_PROCESSING_FAILED = "Processing of message '%s' failed. Class = '%s', Message = '%s'.";
+    public static final String METRICS_EXPORT_FAILED = "Exporting request metrics failed. Class = '%s', Message = '%s'.";
     public static final String NEXT_LOCATION = "The next location has been set to '%s', per location mode '%s'.";
     public static final String POST_PROCESS = "Processing response body.";
     public static final String POST_PROCESS_DONE = "Response body was parsed successfully.";
@@ -31,6 +35,7 @@ public class LogConstants {
     public static final String PRE_PROCESS_DONE = "Response headers were processed successfully.";
     public static final String RESPONSE_RECEIVED = "Response received. Status code = '%d', Request ID = '%s', Content-MD5 = '%s', ETag = '%s', Date = '%s'.";
     public static final String RETRY = "Retrying failed operation.";
+    public static final String RETRY_BUDGET_EXHAUSTED = "The retry budget is exhausted. The operation will not be retried.";
     public static final String RETRY_CHECK = "Checking if the operation should be retried. Retry count = '%d', HTTP status code = '%d', Error Message = '%s'.";
     public static final String RETRY_DELAY = "Operation will be retried after '%d'ms.";
     public static final String RETRY_INFO = "The retry policy set the next location to '%s' and updated the location mode to '%s'.";
@@ -23,15 +23,18 @@ public class SR {
     public static final String ARGUMENT_NULL_OR_EMPTY = "The argument must not be null or an empty string. Argument name: %s.";
     public static final String ARGUMENT_OUT_OF_RANGE_ERROR = "The argument is out of range. Argument name: %s, Value passed: %s.";
     public static final String ATTEMPTED_TO_SERIALIZE_INACCESSIBLE_PROPERTY = "An attempt was made to access an inaccessible member of the entity during serialization.";
+    public static final String BATCH_PAYLOAD_TOO_LARGE = "The batch payload of %d bytes exceeds the maximum of %d bytes.";
     public static final String BLOB = "blob";
     public static final String BLOB_DATA_CORRUPTED = "Blob data corrupted (integrity check failed), Expected value is %s, retrieved %s";
     public static final String BLOB_ENDPOINT_NOT_CONFIGURED = "No blob endpoint configured.";
     public static final String BLOB_HASH_MISMATCH = "Blob hash mismatch (integrity check failed), Expected value is %s, retrieved %s.";
     public static final String BLOB_MD5_NOT_SUPPORTED_FOR_PAGE_BLOBS = "Blob level MD5 is not supported for page blobs.";
     public static final String BLOB_TYPE_NOT_DEFINED = "The blob type is not defined.  Allowed types are BlobType.BLOCK_BLOB and BlobType.Page_BLOB.";
+    public static final String BULK_WRITER_CLOSED = "The bulk writer has been closed.";
     public static final String CANNOT_CREATE_SAS_FOR_GIVEN_CREDENTIALS = "Cannot create Shared Access Signature as the credentials does not have account name information. Please check that the credentials provided support creating Shared Access Signature.";
     public static final String CANNOT_CREATE_SAS_FOR_SNAPSHOTS = "Cannot create Shared Access Signature via references to blob snapshots. Please perform the given operation on the root blob instead.";
     public static final String CANNOT_CREATE_SAS_WITHOUT_ACCOUNT_KEY = "Cannot create Shared Access Signature unless the Account Key credentials are used by the ServiceClient.";
+    public static final String CONNECTION_WAIT_TIMEOUT = "No connection to the host was released within the timeout of the request.";
     public static final String CONTAINER = "container";
     public static final String CONTENT_LENGTH_MISMATCH = "An incorrect number of bytes was read from the connection. The connection may have been closed.";
     public static final String CREATING_NETWORK_STREAM = "Creating a NetworkInputStream and expecting to read %s bytes.";
@@ -115,6 +118,7 @@ public class SR {
     public static final String PARAMETER_NOT_IN_RANGE = "The value of the parameter '%s' should be between %s and %s.";
     public static final String PARAMETER_SHOULD_BE_GREATER = "The value of the parameter '%s' should be greater than %s.";
     public static final String PARAMETER_SHOULD_BE_GREATER_OR_EQUAL = "The value of the parameter '%s' should be greater than or equal to %s.";
+    public static final String PARTITIONKEY_RANGE_BOUNDS_OUT_OF_ORDER = "The lower bound '%s' of a partition key range must sort before its upper bound '%s'.";
     public static final String PARTITIONKEY_MISSING_FOR_DELETE = "Delete requires a partition key.";
     public static final String PARTITIONKEY_MISSING_FOR_MERGE = "Merge requires a partition key.";
     public static final String PARTITIONKEY_MISSING_FOR_UPDATE = "Replace requires a partition key.";
@@ -126,11 +130,15 @@ public class SR {
     public static final String QUERY_PARAMETER_NULL_OR_EMPTY = "Cannot encode a query parameter with a null or empty key.";
     public static final String QUERY_REQUIRES_VALID_CLASSTYPE_OR_RESOLVER = "Query requires a valid class type or resolver.";
     public static final String QUEUE = "queue";
+    public static final String QUEUE_CONSUMER_ALREADY_STARTED = "The queue consumer has already been started.";
     public static final String QUEUE_ENDPOINT_NOT_CONFIGURED = "No queue endpoint configured.";
+    public static final String QUEUE_PRODUCER_CLOSED = "The queue producer has been closed.";
     public static final String RELATIVE_ADDRESS_NOT_PERMITTED = "Address %s is a relative address. Only absolute addresses are permitted.";
+    public static final String REQUEST_ABANDONED = "The request was abandoned because a hedged request completed first.";
     public static final String RESOURCE_NAME_EMPTY = "Invalid %s name. The name may not be null, empty, or whitespace only.";
     public static final String RESPONSE_RECEIVED_IS_INVALID = "The response received is invalid or improperly formatted.";
     public static final String RETRIEVE_MUST_BE_ONLY_OPERATION_IN_BATCH = "A batch transaction with a retrieve operation cannot contain any other operations.";
+    public static final String RETRIEVE_NOT_ALLOWED_IN_BULK_WRITE = "A bulk writer cannot execute retrieve operations.";
     public static final String ROWKEY_MISSING_FOR_DELETE = "Delete requires a row key.";
     public static final String ROWKEY_MISSING_FOR_MERGE = "Merge requires a row key.";
     public static final String ROWKEY_MISSING_FOR_UPDATE = "Replace requires a row key.";
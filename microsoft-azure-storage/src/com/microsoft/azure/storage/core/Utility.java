@@ -477,11 +477,10 @@ public final class Utility {
      * @return A {@link StorageException} object that represents the unexpected storage exception being thrown.
      */
     public static StorageException generateNewUnexpectedStorageException(final Exception cause) {
-        final StorageException exceptionRef = new StorageException(StorageErrorCode.NONE.toString(),
-                "Unexpected internal storage client error.", 306, // unused
-                null, null);
-        exceptionRef.initCause(cause);
-        return exceptionRef;
+        // The cause is passed to the constructor, as initCause may not be called once a null cause has been set.
+        return new StorageException(StorageErrorCode.NONE.toString(), "Unexpected internal storage client error.",
+                306, // unused
+                null, cause);
     }
 
     /**
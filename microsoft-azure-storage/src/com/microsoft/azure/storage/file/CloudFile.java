@@ -18,22 +18,32 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.io.RandomAccessFile;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeoutException;
 
 import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.BufferPool;
 import com.microsoft.azure.storage.Constants;
 import com.microsoft.azure.storage.DoesServiceRequest;
 import com.microsoft.azure.storage.OperationContext;
@@ -42,6 +52,7 @@ import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageLocation;
 import com.microsoft.azure.storage.StorageUri;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.Base64;
 import com.microsoft.azure.storage.core.ExecutionEngine;
 import com.microsoft.azure.storage.core.Logger;
@@ -790,6 +801,11 @@ public class CloudFile implements ListFileItem {
 
     /**
      * Downloads a file.
+     * <p>
+     * If {@link FileRequestOptions#getSkipEmptyRanges()} is <code>true</code>, only the file ranges which hold data are
+     * downloaded, up to the concurrent request count at a time, and written at their offsets in the local file. The rest
+     * of the local file is left as a hole, which reads as zeros and takes no space on file systems which support sparse
+     * files.
      * 
      * @param path
      *            A <code>String</code> which represents the path to the file that will be created.
@@ -810,6 +826,13 @@ public class CloudFile implements ListFileItem {
      */
     public void downloadToFile(final String path, final AccessCondition accessCondition, FileRequestOptions options,
             OperationContext opContext) throws StorageException, IOException {
+        options = FileRequestOptions.applyDefaults(options, this.fileServiceClient);
+
+        if (options.getSkipEmptyRanges()) {
+            this.downloadToFileSparse(path, accessCondition, options, opContext);
+            return;
+        }
+
         OutputStream outputStream = new BufferedOutputStream(new java.io.FileOutputStream(path));
         try {
             this.download(outputStream, accessCondition, options, opContext);
@@ -825,6 +848,221 @@ public class CloudFile implements ListFileItem {
         }
     }
 
+    /**
+     * Downloads the ranges of a file which hold data to a local file. The ranges reported by
+     * {@link #downloadFileRanges} are split into pieces of {@link #getStreamMinimumReadSizeInBytes()} bytes, which are
+     * fetched up to {@link FileRequestOptions#getConcurrentRequestCount()} at a time on the client's
+     * {@link TransferScheduler} and written at their offsets in the local file. The file's Content-MD5 is validated over
+     * the pieces in order, with the bytes between the ranges counted as zeros.
+     * 
+     * @param path
+     *            A <code>String</code> which represents the path to the file that will be created.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the file.
+     * @param options
+     *            A {@link FileRequestOptions} object that specifies any additional options for the request.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     */
+    @DoesServiceRequest
+    private void downloadToFileSparse(final String path, final AccessCondition accessCondition,
+            final FileRequestOptions options, OperationContext opContext) throws StorageException, IOException {
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        this.downloadAttributes(accessCondition, options, opContext);
+        final long fileLength = this.properties.getLength();
+        final String expectedMD5 = this.properties.getContentMD5();
+        final boolean validateMD5 = !options.getDisableContentMD5Validation() && !Utility.isNullOrEmpty(expectedMD5);
+        final ArrayList<FileRange> dataRanges = this.downloadFileRanges(accessCondition, options, opContext);
+
+        MessageDigest digest = null;
+        if (validateMD5) {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            }
+            catch (final NoSuchAlgorithmException e) {
+                // This wont happen, throw fatal.
+                throw Utility.generateNewUnexpectedStorageException(e);
+            }
+        }
+
+        final RandomAccessFile file = new RandomAccessFile(path, "rw");
+        final TransferScheduler.Session transferSession = this.fileServiceClient.getTransferScheduler().createSession(
+                options.getConcurrentRequestCount());
+        try {
+            try {
+                this.downloadRangesToFile(file, fileLength, dataRanges, accessCondition, digest, options, opContext,
+                        transferSession);
+            }
+            finally {
+                // Wait for the ranges already running so none writes to the file once this method returns.
+                transferSession.cancelPendingTransfers();
+                transferSession.awaitRunningTransfers();
+            }
+
+            if (validateMD5) {
+                final String calculatedMD5 = Base64.encode(digest.digest());
+                if (!expectedMD5.equals(calculatedMD5)) {
+                    throw new StorageException(StorageErrorCodeStrings.INVALID_MD5, String.format(
+                            SR.FILE_HASH_MISMATCH, expectedMD5, calculatedMD5),
+                            Constants.HeaderConstants.HTTP_UNUSED_306, null, null);
+                }
+            }
+
+            file.close();
+        }
+        catch (StorageException e) {
+            deleteEmptyFileOnException(file, path);
+            throw e;
+        }
+        catch (IOException e) {
+            deleteEmptyFileOnException(file, path);
+            throw e;
+        }
+    }
+
+    /**
+     * Downloads the data ranges of the file piece by piece into the given local file, keeping at most twice the
+     * concurrent request count of pieces outstanding. Pieces are consumed in order so that the file MD5 can be computed
+     * incrementally.
+     * 
+     * @param file
+     *            A <code>RandomAccessFile</code> which represents the target file.
+     * @param fileLength
+     *            A <code>long</code> which represents the length of the file.
+     * @param dataRanges
+     *            An <code>ArrayList</code> of the {@link FileRange} objects which represent the ranges of the file to
+     *            download, in order. The rest of the local file is left as zeros.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the file.
+     * @param digest
+     *            The <code>MessageDigest</code> to update with the downloaded data, or <code>null</code>.
+     * @param options
+     *            A {@link FileRequestOptions} object that specifies any additional options for the request.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * @param transferSession
+     *            The {@link TransferScheduler.Session} used to schedule the downloads.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     */
+    @DoesServiceRequest
+    private void downloadRangesToFile(final RandomAccessFile file, final long fileLength,
+            final ArrayList<FileRange> dataRanges, final AccessCondition accessCondition, final MessageDigest digest,
+            final FileRequestOptions options, final OperationContext opContext,
+            final TransferScheduler.Session transferSession) throws StorageException, IOException {
+        // Truncate the file first so that no previous content is left between the data ranges.
+        file.setLength(0);
+        file.setLength(fileLength);
+        final FileChannel channel = file.getChannel();
+        final int pieceSize = this.getStreamMinimumReadSizeInBytes();
+        final int maxOutstandingPieces = options.getConcurrentRequestCount() * 2;
+        final LinkedList<Future<byte[]>> outstandingPieces = new LinkedList<Future<byte[]>>();
+        final LinkedList<Long> outstandingOffsets = new LinkedList<Long>();
+
+        int dataRangeIndex = 0;
+        long nextOffset = dataRanges.isEmpty() ? 0 : dataRanges.get(0).getStartOffset();
+        long digestOffset = 0;
+        while (dataRangeIndex < dataRanges.size() || !outstandingPieces.isEmpty()) {
+            while (dataRangeIndex < dataRanges.size() && outstandingPieces.size() < maxOutstandingPieces) {
+                final long dataRangeEnd = dataRanges.get(dataRangeIndex).getEndOffset() + 1;
+                final long pieceOffset = nextOffset;
+                final int pieceLength = (int) Math.min(pieceSize, dataRangeEnd - pieceOffset);
+                nextOffset += pieceLength;
+                if (nextOffset == dataRangeEnd && ++dataRangeIndex < dataRanges.size()) {
+                    nextOffset = dataRanges.get(dataRangeIndex).getStartOffset();
+                }
+
+                final FutureTask<byte[]> pieceTask = new FutureTask<byte[]>(new Callable<byte[]>() {
+                    @Override
+                    public byte[] call() throws StorageException, IOException {
+                        final byte[] buffer = new byte[pieceLength];
+                        CloudFile.this.downloadRangeInternal(pieceOffset, (long) pieceLength, buffer, 0,
+                                accessCondition, options, opContext);
+
+                        final ByteBuffer source = ByteBuffer.wrap(buffer);
+                        long position = pieceOffset;
+                        while (source.hasRemaining()) {
+                            position += channel.write(source, position);
+                        }
+
+                        return buffer;
+                    }
+                });
+
+                transferSession.execute(pieceTask);
+                outstandingPieces.add(pieceTask);
+                outstandingOffsets.add(pieceOffset);
+            }
+
+            final long pieceOffset = outstandingOffsets.removeFirst();
+            final byte[] piece = getPieceResult(outstandingPieces.removeFirst());
+            if (digest != null) {
+                updateDigestWithZeros(digest, pieceOffset - digestOffset);
+                digest.update(piece);
+                digestOffset = pieceOffset + piece.length;
+            }
+        }
+
+        if (digest != null) {
+            updateDigestWithZeros(digest, fileLength - digestOffset);
+        }
+    }
+
+    /**
+     * Waits for a piece transfer to complete and surfaces any exception it threw.
+     * 
+     * @param future
+     *            The <code>Future</code> representing the piece transfer.
+     * @return The bytes of the piece.
+     * @throws StorageException
+     * @throws IOException
+     */
+    private static byte[] getPieceResult(final Future<byte[]> future) throws StorageException, IOException {
+        try {
+            return future.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Utility.initIOException(e);
+        }
+        catch (final ExecutionException e) {
+            if (e.getCause() instanceof StorageException) {
+                throw (StorageException) e.getCause();
+            }
+            else if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+
+            throw Utility.generateNewUnexpectedStorageException(e);
+        }
+    }
+
+    /**
+     * Updates a digest with a number of zero bytes, which stand for the ranges of the file which were not downloaded.
+     * 
+     * @param digest
+     *            The <code>MessageDigest</code> to update.
+     * @param count
+     *            A <code>long</code> which represents the number of zero bytes.
+     */
+    private static void updateDigestWithZeros(final MessageDigest digest, long count) {
+        final byte[] zeros = new byte[(int) Math.min(count, Constants.BUFFER_COPY_LENGTH)];
+        while (count > 0) {
+            final int length = (int) Math.min(count, zeros.length);
+            digest.update(zeros, 0, length);
+            count -= length;
+        }
+    }
+
     /**
      * Helper to delete an empty file in the case of an exception
      * 
@@ -832,7 +1070,7 @@ public class CloudFile implements ListFileItem {
      * @param path
      * @throws IOException
      */
-    private void deleteEmptyFileOnException(OutputStream outputStream, String path) {
+    private void deleteEmptyFileOnException(Closeable outputStream, String path) {
         try {
             outputStream.close();
             File fileToDelete = new File(path);
@@ -1735,6 +1973,9 @@ public class CloudFile implements ListFileItem {
 
     /**
      * Uploads a file from a file.
+     * <p>
+     * If the concurrent request count of the request options is greater than 1, the local file is split into ranges of
+     * {@link #getStreamWriteSizeInBytes()} bytes which are read independently and uploaded in parallel.
      * 
      * @param path
      *            A <code>String</code> which represents the path to the file to be uploaded.
@@ -1755,13 +1996,178 @@ public class CloudFile implements ListFileItem {
      */
     public void uploadFromFile(final String path, final AccessCondition accessCondition, FileRequestOptions options,
             OperationContext opContext) throws StorageException, IOException {
+        options = FileRequestOptions.applyDefaults(options, this.fileServiceClient);
+
         File file = new File(path);
         long fileLength = file.length();
+        if (options.getConcurrentRequestCount() > 1) {
+            this.uploadFromFileParallel(file, fileLength, accessCondition, options, opContext);
+            return;
+        }
+
         InputStream inputStream = new BufferedInputStream(new java.io.FileInputStream(file));
         this.upload(inputStream, fileLength, accessCondition, options, opContext);
         inputStream.close();
     }
 
+    /**
+     * Creates the file and uploads a local file to it in ranges of {@link #getStreamWriteSizeInBytes()} bytes. Each
+     * range is read from the local file with a positional read, so up to
+     * {@link FileRequestOptions#getConcurrentRequestCount()} ranges are read and uploaded at a time on the client's
+     * {@link TransferScheduler}. Ranges complete in order so that the file MD5 can be computed incrementally.
+     * 
+     * @param file
+     *            A <code>File</code> object which represents the local file to upload.
+     * @param length
+     *            A <code>long</code> which represents the length, in bytes, of the local file.
+     * @param accessCondition
+     *            An {@link AccessCondition} object that represents the access conditions for the file.
+     * @param options
+     *            A {@link FileRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation.
+     * 
+     * @throws StorageException
+     *             If a storage service error occurred.
+     * @throws IOException
+     */
+    @DoesServiceRequest
+    private void uploadFromFileParallel(final File file, final long length, AccessCondition accessCondition,
+            final FileRequestOptions options, OperationContext opContext) throws StorageException, IOException {
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        if (length <= 0) {
+            throw new IllegalArgumentException(SR.INVALID_FILE_LENGTH);
+        }
+
+        MessageDigest digest = null;
+        if (options.getStoreFileContentMD5()) {
+            try {
+                digest = MessageDigest.getInstance("MD5");
+            }
+            catch (final NoSuchAlgorithmException e) {
+                // This wont happen, throw fatal.
+                throw Utility.generateNewUnexpectedStorageException(e);
+            }
+        }
+
+        this.create(length, accessCondition, options, opContext);
+
+        if (accessCondition != null) {
+            accessCondition = AccessCondition.generateLeaseCondition(accessCondition.getLeaseID());
+        }
+
+        final AccessCondition rangeAccessCondition = accessCondition;
+        final OperationContext rangeOpContext = opContext;
+        final BufferPool bufferPool = this.fileServiceClient.getBufferPool();
+        final int rangeSize = this.getStreamWriteSizeInBytes();
+        final int maxOutstandingRanges = options.getConcurrentRequestCount() * 2;
+        final LinkedList<Future<byte[]>> outstandingRanges = new LinkedList<Future<byte[]>>();
+        final LinkedList<byte[]> outstandingBuffers = new LinkedList<byte[]>();
+
+        final RandomAccessFile sourceFile = new RandomAccessFile(file, "r");
+        final TransferScheduler.Session transferSession = this.fileServiceClient.getTransferScheduler().createSession(
+                options.getConcurrentRequestCount());
+        try {
+            final FileChannel channel = sourceFile.getChannel();
+            long nextOffset = 0;
+            while (nextOffset < length || !outstandingRanges.isEmpty()) {
+                while (nextOffset < length && outstandingRanges.size() < maxOutstandingRanges) {
+                    final long rangeOffset = nextOffset;
+                    final int rangeLength = (int) Math.min(rangeSize, length - rangeOffset);
+
+                    // The buffers are acquired here, in order, and held until their ranges are consumed below. Once
+                    // some are held, waiting for more could wait on those, so the next range is consumed instead.
+                    final byte[] buffer;
+                    if (outstandingRanges.isEmpty()) {
+                        try {
+                            buffer = bufferPool.acquire(rangeLength);
+                        }
+                        catch (final InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            throw Utility.initIOException(e);
+                        }
+                    }
+                    else {
+                        buffer = bufferPool.tryAcquire(rangeLength);
+                        if (buffer == null) {
+                            break;
+                        }
+                    }
+
+                    outstandingBuffers.add(buffer);
+                    nextOffset += rangeLength;
+
+                    final FutureTask<byte[]> rangeTask = new FutureTask<byte[]>(new Callable<byte[]>() {
+                        @Override
+                        public byte[] call() throws StorageException, IOException {
+                            final ByteBuffer target = ByteBuffer.wrap(buffer);
+                            long position = rangeOffset;
+                            while (target.hasRemaining()) {
+                                final int count = channel.read(target, position);
+                                if (count < 0) {
+                                    // The local file was truncated after its length was read.
+                                    throw new StorageException(StorageErrorCodeStrings.INVALID_INPUT,
+                                            SR.INCORRECT_STREAM_LENGTH, HttpURLConnection.HTTP_FORBIDDEN, null, null);
+                                }
+
+                                position += count;
+                            }
+
+                            String md5 = null;
+                            if (options.getUseTransactionalContentMD5()) {
+                                try {
+                                    final MessageDigest rangeDigest = MessageDigest.getInstance("MD5");
+                                    rangeDigest.update(buffer);
+                                    md5 = Base64.encode(rangeDigest.digest());
+                                }
+                                catch (final NoSuchAlgorithmException e) {
+                                    // This wont happen, throw fatal.
+                                    throw Utility.generateNewUnexpectedStorageException(e);
+                                }
+                            }
+
+                            CloudFile.this.putRangeInternal(new FileRange(rangeOffset, rangeOffset + rangeLength - 1),
+                                    FileRangeOperationType.UPDATE, buffer, rangeLength, md5, rangeAccessCondition,
+                                    options, rangeOpContext);
+                            return buffer;
+                        }
+                    });
+
+                    transferSession.execute(rangeTask);
+                    outstandingRanges.add(rangeTask);
+                }
+
+                final byte[] range = getPieceResult(outstandingRanges.removeFirst());
+                outstandingBuffers.removeFirst();
+                if (digest != null) {
+                    digest.update(range);
+                }
+
+                bufferPool.release(range);
+            }
+        }
+        finally {
+            // Wait for the transfers already running so none reads the file or writes to the service once this
+            // method returns.
+            transferSession.cancelPendingTransfers();
+            transferSession.awaitRunningTransfers();
+            for (final byte[] buffer : outstandingBuffers) {
+                bufferPool.release(buffer);
+            }
+
+            sourceFile.close();
+        }
+
+        // The other properties were sent when the file was created, so they only need to be set again to add the MD5.
+        if (digest != null) {
+            this.properties.setContentMD5(Base64.encode(digest.digest()));
+            this.uploadProperties(accessCondition, options, opContext);
+        }
+    }
+
     /**
      * Uploads a file from a string using the platform's default encoding.
      * 
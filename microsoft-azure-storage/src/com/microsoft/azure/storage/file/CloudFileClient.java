@@ -261,7 +261,7 @@ public final class CloudFileClient extends ServiceClient {
 
         return new LazySegmentedIterable<CloudFileClient, Void, CloudFileShare>(this.listSharesWithPrefixSegmentedImpl(
                 prefix, detailsIncluded, null, options, segmentedRequest), this, null, options.getRetryPolicyFactory(),
-                opContext);
+                opContext, options.getPrefetchNextSegment() ? this.getTransferScheduler() : null);
     }
 
     /**
@@ -645,7 +645,8 @@ public final class CloudFileDirectory implements ListFileItem {
 
         return new LazySegmentedIterable<CloudFileClient, CloudFileDirectory, ListFileItem>(
                 this.listFilesAndDirectoriesSegmentedImpl(null, options, segmentedRequest), this.fileServiceClient, this,
-                options.getRetryPolicyFactory(), opContext);
+                options.getRetryPolicyFactory(), opContext,
+                options.getPrefetchNextSegment() ? this.fileServiceClient.getTransferScheduler() : null);
     }
 
     /**
@@ -15,23 +15,23 @@
 package com.microsoft.azure.storage.file;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorCompletionService;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
 import com.microsoft.azure.storage.AccessCondition;
+import com.microsoft.azure.storage.BufferPool;
 import com.microsoft.azure.storage.DoesServiceRequest;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.Base64;
 import com.microsoft.azure.storage.core.SR;
 import com.microsoft.azure.storage.core.Utility;
@@ -82,9 +82,21 @@ public class FileOutputStream extends OutputStream {
     private long currentOffset;
 
     /**
-     * A private buffer to store data prior to committing to the cloud.
+     * Holds the pool from which this stream borrows its buffers.
      */
-    private ByteArrayOutputStream outBuffer;
+    private final BufferPool bufferPool;
+
+    /**
+     * Holds the buffers handed to upload tasks which have not yet returned them to the pool. Guarded by its own
+     * monitor.
+     */
+    private final ArrayList<byte[]> dispatchedBuffers = new ArrayList<byte[]>();
+
+    /**
+     * A private buffer to store data prior to committing to the cloud. It is borrowed from the buffer pool on the
+     * first write after a dispatch and handed to the upload task, which returns it to the pool.
+     */
+    private byte[] outBuffer;
 
     /**
      * Holds the number of currently buffered bytes.
@@ -102,9 +114,9 @@ public class FileOutputStream extends OutputStream {
     private volatile int outstandingRequests;
 
     /**
-     * The ExecutorService used to schedule tasks for this stream.
+     * The session on the service client's {@link TransferScheduler} used to schedule tasks for this stream.
      */
-    private final ExecutorService threadExecutor;
+    private final TransferScheduler.Session transferSession;
 
     /**
      * The CompletionService used to await task completion for this stream.
@@ -139,7 +151,7 @@ public class FileOutputStream extends OutputStream {
         this.accessCondition = accessCondition;
         this.parentFileRef = parentFile;
         this.options = new FileRequestOptions(options);
-        this.outBuffer = new ByteArrayOutputStream();
+        this.bufferPool = parentFile.getServiceClient().getBufferPool();
         this.opContext = opContext;
         this.streamFaulted = false;
 
@@ -157,9 +169,9 @@ public class FileOutputStream extends OutputStream {
             }
         }
 
-        // V2 cachedThreadPool for perf.
-        this.threadExecutor = Executors.newFixedThreadPool(this.options.getConcurrentRequestCount());
-        this.completionService = new ExecutorCompletionService<Void>(this.threadExecutor);
+        this.transferSession = parentFile.getServiceClient().getTransferScheduler()
+                .createSession(this.options.getConcurrentRequestCount());
+        this.completionService = new ExecutorCompletionService<Void>(this.transferSession);
         this.internalWriteThreshold = (int) Math.min(this.parentFileRef.getStreamWriteSizeInBytes(), length);
     }
 
@@ -196,9 +208,6 @@ public class FileOutputStream extends OutputStream {
             // flush any remaining data
             this.flush();
 
-            // shut down the ExecutorService.
-            this.threadExecutor.shutdown();
-
             // try to commit the file
             try {
                 this.commit();
@@ -214,10 +223,22 @@ public class FileOutputStream extends OutputStream {
                 this.lastError = new IOException(SR.STREAM_CLOSED);
             }
 
-            // if an exception was thrown and the executor was not yet closed, call shutDownNow() to cancel all tasks 
-            // and shutdown the ExecutorService
-            if (!this.threadExecutor.isShutdown()) {
-                this.threadExecutor.shutdownNow();
+            // if an exception was thrown, discard any tasks which have not started yet and wait for the others
+            this.transferSession.cancelPendingTransfers();
+            this.transferSession.awaitRunningTransfers();
+
+            // return the buffers of discarded tasks and a buffer which was never dispatched
+            synchronized (this.dispatchedBuffers) {
+                for (final byte[] buffer : this.dispatchedBuffers) {
+                    this.bufferPool.release(buffer);
+                }
+
+                this.dispatchedBuffers.clear();
+            }
+
+            if (this.outBuffer != null) {
+                this.bufferPool.release(this.outBuffer);
+                this.outBuffer = null;
             }
         }
     }
@@ -260,7 +281,8 @@ public class FileOutputStream extends OutputStream {
             this.waitForTaskToComplete();
         }
 
-        final ByteArrayInputStream bufferRef = new ByteArrayInputStream(this.outBuffer.toByteArray());
+        final byte[] buffer = this.outBuffer;
+        final ByteArrayInputStream bufferRef = new ByteArrayInputStream(buffer, 0, writeLength);
         final CloudFile fileRef = this.parentFileRef;
         long tempOffset = this.currentOffset;
         long tempLength = writeLength;
@@ -288,15 +310,22 @@ public class FileOutputStream extends OutputStream {
                         FileOutputStream.this.lastError = Utility.initIOException(e);
                     }
                 }
+                finally {
+                    FileOutputStream.this.releaseDispatchedBuffer(buffer);
+                }
                 return null;
             }
         };
 
+        synchronized (this.dispatchedBuffers) {
+            this.dispatchedBuffers.add(buffer);
+        }
+
         // Do work and reset buffer.
         this.completionService.submit(worker);
         this.outstandingRequests++;
         this.currentBufferedBytes = 0;
-        this.outBuffer = new ByteArrayOutputStream();
+        this.outBuffer = null;
     }
 
     /**
@@ -346,6 +375,20 @@ public class FileOutputStream extends OutputStream {
         this.outstandingRequests--;
     }
 
+    /**
+     * Returns a buffer handed to an upload task to the pool.
+     * 
+     * @param buffer
+     *            A <code>byte</code> array which represents the buffer.
+     */
+    private void releaseDispatchedBuffer(final byte[] buffer) {
+        synchronized (this.dispatchedBuffers) {
+            this.dispatchedBuffers.remove(buffer);
+        }
+
+        this.bufferPool.release(buffer);
+    }
+
     /**
      * Writes <code>b.length</code> bytes from the specified byte array to this output stream.
      * 
@@ -444,12 +487,22 @@ public class FileOutputStream extends OutputStream {
             final int availableBufferBytes = this.internalWriteThreshold - this.currentBufferedBytes;
             final int nextWrite = Math.min(availableBufferBytes, length);
 
+            if (this.outBuffer == null) {
+                try {
+                    this.outBuffer = this.bufferPool.acquire(this.internalWriteThreshold);
+                }
+                catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw Utility.initIOException(e);
+                }
+            }
+
             // If we need to set MD5 then update the digest accordingly
             if (this.options.getStoreFileContentMD5()) {
                 this.md5Digest.update(data, offset, nextWrite);
             }
 
-            this.outBuffer.write(data, offset, nextWrite);
+            System.arraycopy(data, offset, this.outBuffer, this.currentBufferedBytes, nextWrite);
             this.currentBufferedBytes += nextWrite;
             offset += nextWrite;
             length -= nextWrite;
@@ -53,6 +53,12 @@ public final class FileRequestOptions extends RequestOptions {
      */
     private Boolean disableContentMD5Validation = null;
 
+    /**
+     * Specifies whether downloads to a local file should fetch only the file ranges which hold data. The default value
+     * is <code>false</code>.
+     */
+    private Boolean skipEmptyRanges = null;
+
     /**
      * Creates an instance of the <code>FileRequestOptions</code> class.
      */
@@ -74,6 +80,7 @@ public final class FileRequestOptions extends RequestOptions {
             this.setDisableContentMD5Validation(other.getDisableContentMD5Validation());
             this.setStoreFileContentMD5(other.getStoreFileContentMD5());
             this.setUseTransactionalContentMD5(other.getUseTransactionalContentMD5());
+            this.setSkipEmptyRanges(other.getSkipEmptyRanges());
         }
     }
 
@@ -116,6 +123,10 @@ public final class FileRequestOptions extends RequestOptions {
             modifiedOptions.setDisableContentMD5Validation(false);
         }
 
+        if (modifiedOptions.getSkipEmptyRanges() == null) {
+            modifiedOptions.setSkipEmptyRanges(false);
+        }
+
         return modifiedOptions;
     }
 
@@ -129,6 +140,10 @@ public final class FileRequestOptions extends RequestOptions {
             modifiedOptions.setConcurrentRequestCount(clientOptions.getConcurrentRequestCount());
         }
 
+        if (modifiedOptions.getSkipEmptyRanges() == null) {
+            modifiedOptions.setSkipEmptyRanges(clientOptions.getSkipEmptyRanges());
+        }
+
         return modifiedOptions;
     }
 
@@ -234,6 +249,35 @@ public final class FileRequestOptions extends RequestOptions {
         this.disableContentMD5Validation = disableContentMD5Validation;
     }
 
+    /**
+     * Gets whether downloads to a local file fetch only the file ranges which hold data. For more information about
+     * skipping empty ranges defaults, see {@link #setSkipEmptyRanges(Boolean)}.
+     * 
+     * @return the skipEmptyRanges
+     */
+    public Boolean getSkipEmptyRanges() {
+        return this.skipEmptyRanges;
+    }
+
+    /**
+     * Sets whether downloads to a local file fetch only the file ranges which hold data.
+     * <p>
+     * When this value is <code>true</code>, {@link CloudFile#downloadToFile} fetches only the ranges reported by
+     * {@link CloudFile#downloadFileRanges}, up to the concurrent request count at a time, and leaves the rest of the
+     * local file as a hole, which reads as zeros and takes no space on file systems which support sparse files.
+     * <p>
+     * The default skipEmptyRanges value is set in the client and is by default <code>false</code>. You can change the
+     * skipEmptyRanges value on this request by setting this property. You can also change the value on the
+     * {@link FileServiceClient#getDefaultRequestOptions()} object so that all subsequent requests made via the service
+     * client will use that skipEmptyRanges value.
+     * 
+     * @param skipEmptyRanges
+     *            the skipEmptyRanges to set
+     */
+    public void setSkipEmptyRanges(final Boolean skipEmptyRanges) {
+        this.skipEmptyRanges = skipEmptyRanges;
+    }
+
     /**
      * Sets the {@link LocationMode} for this request.
      * <p>
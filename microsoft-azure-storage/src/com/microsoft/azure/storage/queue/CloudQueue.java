@@ -30,13 +30,16 @@ import javax.xml.stream.XMLStreamException;
 
 import com.microsoft.azure.storage.Constants;
 import com.microsoft.azure.storage.DoesServiceRequest;
+import com.microsoft.azure.storage.LocationMode;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.SharedAccessPolicyHandler;
 import com.microsoft.azure.storage.SharedAccessPolicySerializer;
 import com.microsoft.azure.storage.StorageCredentialsSharedAccessSignature;
 import com.microsoft.azure.storage.StorageErrorCodeStrings;
 import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.StorageFuture;
 import com.microsoft.azure.storage.StorageUri;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.BaseResponse;
 import com.microsoft.azure.storage.core.ExecutionEngine;
 import com.microsoft.azure.storage.core.PathUtility;
@@ -284,7 +287,63 @@ public final class CloudQueue {
                 options.getRetryPolicyFactory(), opContext);
     }
 
-    private StorageRequest<CloudQueueClient, CloudQueue, Void> addMessageImpl(final CloudQueueMessage message,
+    /**
+     * Begins adding a message to the back of the queue with the specified options. The attempts run on the service
+     * client's {@link TransferScheduler} and the calling thread is not blocked.
+     * <p>
+     * See {@link #addMessage(CloudQueueMessage, int, int, QueueRequestOptions, OperationContext)}.
+     *
+     * @param message
+     *            A {@link CloudQueueMessage} object that specifies the message to add.
+     * @param timeToLiveInSeconds
+     *            The maximum time to allow the message to be in the queue. A value of zero will set the time-to-live to
+     *            the service default value of seven days.
+     * @param initialVisibilityDelayInSeconds
+     *            The length of time during which the message will be invisible, starting when it is added to the queue,
+     *            or 0 to make the message visible immediately. This value must be greater than or equal to zero and
+     *            less than or equal to the time-to-live value.
+     * @param options
+     *            A {@link QueueRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudQueueClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     *
+     * @return A {@link StorageFuture} object which completes when the message has been added.
+     *
+     * @throws StorageException
+     *             If the message could not be serialized.
+     */
+    @DoesServiceRequest
+    public StorageFuture<Void> addMessageAsync(final CloudQueueMessage message, final int timeToLiveInSeconds,
+            final int initialVisibilityDelayInSeconds, QueueRequestOptions options, OperationContext opContext)
+            throws StorageException {
+        Utility.assertNotNull("message", message);
+        Utility.assertNotNull("messageContent", message.getMessageContentAsByte());
+        Utility.assertInBounds("timeToLiveInSeconds", timeToLiveInSeconds, 0,
+                QueueConstants.MAX_TIME_TO_LIVE_IN_SECONDS);
+
+        final int realTimeToLiveInSeconds = timeToLiveInSeconds == 0 ? QueueConstants.MAX_TIME_TO_LIVE_IN_SECONDS
+                : timeToLiveInSeconds;
+        Utility.assertInBounds("initialVisibilityDelayInSeconds", initialVisibilityDelayInSeconds, 0,
+                realTimeToLiveInSeconds - 1);
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = QueueRequestOptions.applyDefaults(options, this.queueServiceClient);
+
+        return ExecutionEngine.executeWithRetryAsync(this.queueServiceClient, this,
+                this.addMessageImpl(message, realTimeToLiveInSeconds, initialVisibilityDelayInSeconds, options),
+                options.getRetryPolicyFactory(), opContext, this.queueServiceClient.getTransferScheduler()
+                        .createSession(1));
+    }
+
+    StorageRequest<CloudQueueClient, CloudQueue, Void> addMessageImpl(final CloudQueueMessage message,
             final int timeToLiveInSeconds, final int initialVisibilityDelayInSeconds, final QueueRequestOptions options)
             throws StorageException {
         final String stringToSend = message.getMessageContentForTransfer(this.shouldEncodeMessage);
@@ -479,6 +538,63 @@ public final class CloudQueue {
         return putRequest;
     }
 
+    /**
+     * Creates a consumer which passes the messages of the queue to the specified processor, using the default handler
+     * count and visibility timeout. Call {@link QueueConsumer#start()} to start consuming messages.
+     *
+     * @param processor
+     *            A {@link QueueMessageProcessor} object which processes each message.
+     *
+     * @return A {@link QueueConsumer} object.
+     */
+    public QueueConsumer createConsumer(final QueueMessageProcessor processor) {
+        return this.createConsumer(processor, QueueConstants.DEFAULT_CONSUMER_HANDLER_COUNT,
+                QueueConstants.DEFAULT_VISIBILITY_MESSAGE_TIMEOUT_IN_SECONDS, null /* options */, null /* opContext */);
+    }
+
+    /**
+     * Creates a consumer which passes the messages of the queue to the specified processor, using the specified request
+     * options and operation context. Call {@link QueueConsumer#start()} to start consuming messages.
+     * <p>
+     * The consumer keeps up to {@link QueueRequestOptions#getConcurrentRequestCount()} retrieve requests in flight, and
+     * buffers up to 32 messages per request.
+     *
+     * @param processor
+     *            A {@link QueueMessageProcessor} object which processes each message.
+     * @param handlerCount
+     *            The number of threads on which messages are processed at once.
+     * @param visibilityTimeoutInSeconds
+     *            The visibility timeout of the retrieved messages, in seconds. The consumer renews the visibility
+     *            timeout of each message it holds once half of it has elapsed.
+     * @param options
+     *            A {@link QueueRequestOptions} object that specifies any additional options for the requests. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudQueueClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. Each request
+     *            of the consumer is tracked in an operation context of its own, which carries the client request ID,
+     *            logger and event handlers of this object.
+     *
+     * @return A {@link QueueConsumer} object.
+     */
+    public QueueConsumer createConsumer(final QueueMessageProcessor processor, final int handlerCount,
+            final int visibilityTimeoutInSeconds, QueueRequestOptions options, OperationContext opContext) {
+        Utility.assertNotNull("processor", processor);
+        Utility.assertGreaterThanOrEqual("handlerCount", handlerCount, 1);
+        Utility.assertInBounds("visibilityTimeoutInSeconds", visibilityTimeoutInSeconds, 1,
+                QueueConstants.MAX_TIME_TO_LIVE_IN_SECONDS);
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = QueueRequestOptions.applyDefaults(options, this.queueServiceClient);
+        Utility.assertGreaterThanOrEqual("concurrentRequestCount", options.getConcurrentRequestCount(), 1);
+
+        return new QueueConsumer(this, processor, handlerCount, visibilityTimeoutInSeconds, options, opContext);
+    }
+
     /**
      * Creates the queue if it does not already exist.
      * 
@@ -536,6 +652,54 @@ public final class CloudQueue {
         }
     }
 
+    /**
+     * Creates a producer which adds messages to the queue without waiting for each one to be sent, using the default
+     * limit on pending messages.
+     *
+     * @return A {@link QueueProducer} object.
+     */
+    public QueueProducer createProducer() {
+        return this.createProducer(QueueConstants.DEFAULT_PRODUCER_MAXIMUM_PENDING_MESSAGES, null /* options */,
+                null /* opContext */);
+    }
+
+    /**
+     * Creates a producer which adds messages to the queue without waiting for each one to be sent, using the specified
+     * request options and operation context.
+     * <p>
+     * The producer keeps up to {@link QueueRequestOptions#getConcurrentRequestCount()} requests in flight. Since every
+     * request runs on the service client's {@link TransferScheduler}, the number of requests in flight across all
+     * producers of the client is also bounded by the scheduler.
+     *
+     * @param maximumPendingMessages
+     *            The maximum number of messages which may be added to the producer but not yet completed. Once this
+     *            many messages are pending, adding a message waits for one to complete.
+     * @param options
+     *            A {@link QueueRequestOptions} object that specifies any additional options for the requests. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudQueueClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. Each message
+     *            is sent with an operation context of its own, which carries the client request ID, logger and event
+     *            handlers of this object.
+     *
+     * @return A {@link QueueProducer} object.
+     */
+    public QueueProducer createProducer(final int maximumPendingMessages, QueueRequestOptions options,
+            OperationContext opContext) {
+        Utility.assertGreaterThanOrEqual("maximumPendingMessages", maximumPendingMessages, 1);
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = QueueRequestOptions.applyDefaults(options, this.queueServiceClient);
+        Utility.assertGreaterThanOrEqual("concurrentRequestCount", options.getConcurrentRequestCount(), 1);
+
+        return new QueueProducer(this, maximumPendingMessages, options, opContext);
+    }
+
     /**
      * Deletes the queue.
      * 
@@ -715,7 +879,45 @@ public final class CloudQueue {
                 options.getRetryPolicyFactory(), opContext);
     }
 
-    private StorageRequest<CloudQueueClient, CloudQueue, Void> deleteMessageImpl(final CloudQueueMessage message,
+    /**
+     * Begins deleting the specified message from the queue, using the specified request options and operation context.
+     * The attempts run on the service client's {@link TransferScheduler} and the calling thread is not blocked.
+     * <p>
+     * See {@link #deleteMessage(CloudQueueMessage, QueueRequestOptions, OperationContext)}.
+     *
+     * @param message
+     *            A {@link CloudQueueMessage} object that specifies the message to delete.
+     * @param options
+     *            A {@link QueueRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudQueueClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     *
+     * @return A {@link StorageFuture} object which completes when the message has been deleted.
+     */
+    @DoesServiceRequest
+    public StorageFuture<Void> deleteMessageAsync(final CloudQueueMessage message, QueueRequestOptions options,
+            OperationContext opContext) {
+        Utility.assertNotNull("message", message);
+        Utility.assertNotNullOrEmpty("messageId", message.getId());
+        Utility.assertNotNullOrEmpty("popReceipt", message.getPopReceipt());
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = QueueRequestOptions.applyDefaults(options, this.queueServiceClient);
+
+        return ExecutionEngine.executeWithRetryAsync(this.queueServiceClient, this,
+                this.deleteMessageImpl(message, options), options.getRetryPolicyFactory(), opContext,
+                this.queueServiceClient.getTransferScheduler().createSession(1));
+    }
+
+    StorageRequest<CloudQueueClient, CloudQueue, Void> deleteMessageImpl(final CloudQueueMessage message,
             final QueueRequestOptions options) {
         final String messageId = message.getId();
         final String messagePopReceipt = message.getPopReceipt();
@@ -1113,6 +1315,18 @@ public final class CloudQueue {
         opContext.initialize();
         options = QueueRequestOptions.applyDefaults(options, this.queueServiceClient);
 
+        if (ExecutionEngine.isHedged(options, this.getStorageUri())) {
+            final QueueRequestOptions primaryOptions = new QueueRequestOptions(options);
+            primaryOptions.setLocationMode(LocationMode.PRIMARY_ONLY);
+            final QueueRequestOptions secondaryOptions = new QueueRequestOptions(options);
+            secondaryOptions.setLocationMode(LocationMode.SECONDARY_ONLY);
+
+            return ExecutionEngine.executeWithHedging(this.queueServiceClient, this,
+                    this.peekMessagesImpl(numberOfMessages, primaryOptions), this,
+                    this.peekMessagesImpl(numberOfMessages, secondaryOptions), options.getRetryPolicyFactory(),
+                    opContext, options.getHedgingPolicy()).getResult();
+        }
+
         return ExecutionEngine.executeWithRetry(this.queueServiceClient, this,
                 this.peekMessagesImpl(numberOfMessages, options), options.getRetryPolicyFactory(), opContext);
     }
@@ -1266,7 +1480,49 @@ public final class CloudQueue {
                 options.getRetryPolicyFactory(), opContext);
     }
 
-    private StorageRequest<CloudQueueClient, CloudQueue, ArrayList<CloudQueueMessage>> retrieveMessagesImpl(
+    /**
+     * Begins retrieving the specified number of messages from the front of the queue using the specified request
+     * options and operation context. The attempts run on the service client's {@link TransferScheduler} and the
+     * calling thread is not blocked.
+     * <p>
+     * See {@link #retrieveMessages(int, int, QueueRequestOptions, OperationContext)}.
+     *
+     * @param numberOfMessages
+     *            The number of messages to retrieve.
+     * @param visibilityTimeoutInSeconds
+     *            Specifies the visibility timeout for the retrieved messages, in seconds.
+     * @param options
+     *            A {@link QueueRequestOptions} object that specifies any additional options for the request. Specifying
+     *            <code>null</code> will use the default request options from the associated service client (
+     *            {@link CloudQueueClient}).
+     * @param opContext
+     *            An {@link OperationContext} object that represents the context for the current operation. This object
+     *            is used to track requests to the storage service, and to provide additional runtime information about
+     *            the operation.
+     *
+     * @return A {@link StorageFuture} object which completes with the messages retrieved from the queue.
+     */
+    @DoesServiceRequest
+    public StorageFuture<ArrayList<CloudQueueMessage>> retrieveMessagesAsync(final int numberOfMessages,
+            final int visibilityTimeoutInSeconds, QueueRequestOptions options, OperationContext opContext) {
+        Utility.assertInBounds("numberOfMessages", numberOfMessages, 1, QueueConstants.MAX_NUMBER_OF_MESSAGES_TO_PEEK);
+        Utility.assertInBounds("visibilityTimeoutInSeconds", visibilityTimeoutInSeconds, 0,
+                QueueConstants.MAX_TIME_TO_LIVE_IN_SECONDS);
+
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = QueueRequestOptions.applyDefaults(options, this.queueServiceClient);
+
+        return ExecutionEngine.executeWithRetryAsync(this.queueServiceClient, this,
+                this.retrieveMessagesImpl(numberOfMessages, visibilityTimeoutInSeconds, options),
+                options.getRetryPolicyFactory(), opContext, this.queueServiceClient.getTransferScheduler()
+                        .createSession(1));
+    }
+
+    StorageRequest<CloudQueueClient, CloudQueue, ArrayList<CloudQueueMessage>> retrieveMessagesImpl(
             final int numberOfMessages, final int visibilityTimeoutInSeconds, final QueueRequestOptions options) {
         final StorageRequest<CloudQueueClient, CloudQueue, ArrayList<CloudQueueMessage>> getRequest = new StorageRequest<CloudQueueClient, CloudQueue, ArrayList<CloudQueueMessage>>(
                 options, this.getStorageUri()) {
@@ -1401,7 +1657,7 @@ public final class CloudQueue {
                 options.getRetryPolicyFactory(), opContext);
     }
 
-    private StorageRequest<CloudQueueClient, CloudQueue, Void> updateMessageImpl(final CloudQueueMessage message,
+    StorageRequest<CloudQueueClient, CloudQueue, Void> updateMessageImpl(final CloudQueueMessage message,
             final int visibilityTimeoutInSeconds, final EnumSet<MessageUpdateFields> messageUpdateFields,
             final QueueRequestOptions options) throws StorageException {
         final String stringToSend = message.getMessageContentForTransfer(this.shouldEncodeMessage);
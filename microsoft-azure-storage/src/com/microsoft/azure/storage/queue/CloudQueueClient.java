@@ -170,7 +170,8 @@ public final class CloudQueueClient extends ServiceClient {
 
         SegmentedStorageRequest segmentedRequest = new SegmentedStorageRequest();
         return new LazySegmentedIterable<CloudQueueClient, Void, CloudQueue>(this.listQueuesSegmentedImpl(prefix,
-                detailsIncluded, null, options, segmentedRequest), this, null, options.getRetryPolicyFactory(), opContext);
+                detailsIncluded, null, options, segmentedRequest), this, null, options.getRetryPolicyFactory(), opContext,
+                options.getPrefetchNextSegment() ? this.getTransferScheduler() : null);
     }
 
     /**
@@ -25,6 +25,32 @@ final class QueueConstants {
     public static final String APPROXIMATE_MESSAGES_COUNT = com.microsoft.azure.storage.Constants.PREFIX_FOR_STORAGE_HEADER
             + "approximate-messages-count";
 
+    /**
+     * The maximum interval between the polls of a {@link QueueConsumer} while the queue is empty.
+     */
+    public static final int CONSUMER_MAXIMUM_POLL_INTERVAL_IN_MS = 10 * 1000;
+
+    /**
+     * The interval between the polls of a {@link QueueConsumer} after the queue is first found empty. The interval
+     * doubles with each further empty poll.
+     */
+    public static final int CONSUMER_MINIMUM_POLL_INTERVAL_IN_MS = 100;
+
+    /**
+     * The default number of concurrent requests issued by operations which issue more than one request at a time.
+     */
+    public static final int DEFAULT_CONCURRENT_REQUEST_COUNT = 4;
+
+    /**
+     * The default number of threads on which a {@link QueueConsumer} runs its handler.
+     */
+    public static final int DEFAULT_CONSUMER_HANDLER_COUNT = 16;
+
+    /**
+     * The default maximum number of messages a {@link QueueProducer} holds which have been added but not yet completed.
+     */
+    public static final int DEFAULT_PRODUCER_MAXIMUM_PENDING_MESSAGES = 1000;
+
     /**
      * Default visibility time out for the retrieve message operation.
      */
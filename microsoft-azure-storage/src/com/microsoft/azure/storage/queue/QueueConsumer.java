@@ -0,0 +1,707 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.queue;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageCallback;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.TransferScheduler;
+import com.microsoft.azure.storage.core.ExecutionEngine;
+import com.microsoft.azure.storage.core.LogConstants;
+import com.microsoft.azure.storage.core.Logger;
+import com.microsoft.azure.storage.core.SR;
+import com.microsoft.azure.storage.core.StorageRequest;
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a consumer which retrieves messages from a queue and passes each to a {@link QueueMessageProcessor} on a
+ * pool of handler threads. Create a consumer with
+ * {@link CloudQueue#createConsumer(QueueMessageProcessor, int, int, QueueRequestOptions, OperationContext)}.
+ * <p>
+ * The consumer keeps a local buffer of messages filled by up to
+ * {@link QueueRequestOptions#getConcurrentRequestCount()} concurrent retrieve requests of 32 messages each, so that
+ * handler threads rarely wait for a round trip to the service. When a retrieve finds the queue empty, the consumer
+ * polls with a single request at an interval which doubles from 100 milliseconds up to 10 seconds, and returns to full
+ * concurrency as soon as a poll returns messages.
+ * <p>
+ * Every message the consumer holds, whether buffered or being processed, is kept invisible by renewing its visibility
+ * timeout once half of it has elapsed. When the processor returns, the message is deleted without blocking the handler
+ * thread. When the processor throws, the consumer stops renewing the message so that it becomes visible again once its
+ * visibility timeout expires.
+ * <p>
+ * Failures of the consumer's own requests are retried according to the retry policy of the request options; the last
+ * one which could not be retried is available from {@link #getLastException()}.
+ */
+public final class QueueConsumer {
+
+    /**
+     * Holds the sequence used to number the consumer threads.
+     */
+    private static final AtomicInteger threadSequence = new AtomicInteger();
+
+    /**
+     * Holds the queue the messages are retrieved from.
+     */
+    private final CloudQueue queue;
+
+    /**
+     * Holds the processor the messages are passed to.
+     */
+    private final QueueMessageProcessor processor;
+
+    /**
+     * Holds the number of handler threads.
+     */
+    private final int handlerCount;
+
+    /**
+     * Holds the visibility timeout of the messages, in seconds.
+     */
+    private final int visibilityTimeoutInSeconds;
+
+    /**
+     * Holds the request options, with the client defaults applied.
+     */
+    private final QueueRequestOptions options;
+
+    /**
+     * Holds the operation context from which the context of each request is created.
+     */
+    private final OperationContext opContext;
+
+    /**
+     * Holds the session the retrieve requests are scheduled on.
+     */
+    private final TransferScheduler.Session retrieveSession;
+
+    /**
+     * Holds the session the delete and update requests are scheduled on.
+     */
+    private final TransferScheduler.Session updateSession;
+
+    /**
+     * Holds the maximum number of retrieve requests which may be in flight at once.
+     */
+    private final int maximumRetrieves;
+
+    /**
+     * Holds the maximum number of messages which may be held at once, counting those requested by retrieves in flight.
+     */
+    private final int maximumHeldMessages;
+
+    /**
+     * Holds the lock guarding the state of the consumer.
+     */
+    private final Object consumerLock = new Object();
+
+    /**
+     * Holds the messages which have been retrieved but not yet passed to the processor, oldest first.
+     */
+    private final LinkedList<HeldMessage> bufferedMessages = new LinkedList<HeldMessage>();
+
+    /**
+     * Holds every message which has been retrieved and has not yet been deleted, released or abandoned.
+     */
+    private final HashSet<HeldMessage> heldMessages = new HashSet<HeldMessage>();
+
+    /**
+     * Holds the number of retrieve requests in flight.
+     */
+    private int retrievesInFlight;
+
+    /**
+     * Holds the number of messages requested by the retrieve requests in flight.
+     */
+    private int requestedMessages;
+
+    /**
+     * Holds the number of requests of any kind in flight.
+     */
+    private int requestsInFlight;
+
+    /**
+     * Holds the interval between polls while the queue is empty, or 0 if the last retrieve returned messages.
+     */
+    private int pollIntervalInMs;
+
+    /**
+     * Holds the next poll of an empty queue, if one is scheduled.
+     */
+    private ScheduledFuture<?> scheduledPoll;
+
+    /**
+     * Holds the timer which schedules polls and visibility renewals.
+     */
+    private ScheduledExecutorService timer;
+
+    /**
+     * Holds the handler threads.
+     */
+    private Thread[] handlerThreads;
+
+    /**
+     * Indicates whether the consumer has been started.
+     */
+    private boolean isStarted;
+
+    /**
+     * Indicates whether the consumer is retrieving and processing messages.
+     */
+    private boolean isRunning;
+
+    /**
+     * Holds the number of messages the processor has returned for.
+     */
+    private long processedMessages;
+
+    /**
+     * Holds the number of messages the processor has thrown for.
+     */
+    private long failedMessages;
+
+    /**
+     * Holds the last exception a request of the consumer failed with.
+     */
+    private StorageException lastException;
+
+    /**
+     * Reserved for internal use. Creates an instance of the <code>QueueConsumer</code> class.
+     *
+     * @param queue
+     *            The {@link CloudQueue} the messages are retrieved from.
+     * @param processor
+     *            The {@link QueueMessageProcessor} the messages are passed to.
+     * @param handlerCount
+     *            The number of handler threads.
+     * @param visibilityTimeoutInSeconds
+     *            The visibility timeout of the messages, in seconds.
+     * @param options
+     *            A {@link QueueRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object which has already been initialized.
+     */
+    QueueConsumer(final CloudQueue queue, final QueueMessageProcessor processor, final int handlerCount,
+            final int visibilityTimeoutInSeconds, final QueueRequestOptions options, final OperationContext opContext) {
+        this.queue = queue;
+        this.processor = processor;
+        this.handlerCount = handlerCount;
+        this.visibilityTimeoutInSeconds = visibilityTimeoutInSeconds;
+        this.options = options;
+        this.opContext = opContext;
+        this.maximumRetrieves = options.getConcurrentRequestCount();
+        this.maximumHeldMessages = this.maximumRetrieves * QueueConstants.MAX_NUMBER_OF_MESSAGES_TO_PEEK
+                + handlerCount;
+
+        final TransferScheduler scheduler = queue.getServiceClient().getTransferScheduler();
+        this.retrieveSession = scheduler.createSession(this.maximumRetrieves);
+        this.updateSession = scheduler.createSession(Math.max(handlerCount, this.maximumRetrieves));
+    }
+
+    /**
+     * Starts retrieving and processing messages. A consumer may only be started once.
+     */
+    public void start() {
+        synchronized (this.consumerLock) {
+            if (this.isStarted) {
+                throw new IllegalStateException(SR.QUEUE_CONSUMER_ALREADY_STARTED);
+            }
+
+            this.isStarted = true;
+            this.isRunning = true;
+
+            final ThreadFactory threadFactory = new ThreadFactory() {
+                @Override
+                public Thread newThread(final Runnable runnable) {
+                    final Thread thread = new Thread(runnable, "azure-storage-queue-consumer-"
+                            + threadSequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            };
+
+            this.timer = Executors.newSingleThreadScheduledExecutor(threadFactory);
+            final long renewalPeriodInMs = this.visibilityTimeoutInSeconds * 1000L / 4;
+            this.timer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    QueueConsumer.this.renewMessages();
+                }
+            }, renewalPeriodInMs, renewalPeriodInMs, TimeUnit.MILLISECONDS);
+
+            this.handlerThreads = new Thread[this.handlerCount];
+            for (int i = 0; i < this.handlerCount; i++) {
+                this.handlerThreads[i] = threadFactory.newThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        QueueConsumer.this.runHandler();
+                    }
+                });
+                this.handlerThreads[i].start();
+            }
+
+            this.fillBuffer();
+        }
+    }
+
+    /**
+     * Stops retrieving messages and waits for the messages being processed to complete. Buffered messages which were
+     * not yet processed are made visible again. Stopping a consumer which is not running has no effect.
+     * <p>
+     * When called from the processor, this method does not wait for the message being processed by the calling
+     * thread.
+     *
+     * @throws StorageException
+     *             if the thread is interrupted while waiting.
+     */
+    public void stop() throws StorageException {
+        final Thread[] threads;
+        synchronized (this.consumerLock) {
+            if (!this.isRunning) {
+                return;
+            }
+
+            this.isRunning = false;
+            if (this.scheduledPoll != null) {
+                this.scheduledPoll.cancel(false);
+                this.scheduledPoll = null;
+            }
+
+            threads = this.handlerThreads;
+            this.consumerLock.notifyAll();
+        }
+
+        try {
+            for (final Thread thread : threads) {
+                if (thread != Thread.currentThread()) {
+                    thread.join();
+                }
+            }
+
+            synchronized (this.consumerLock) {
+                final ArrayList<HeldMessage> unprocessedMessages = new ArrayList<HeldMessage>(this.bufferedMessages);
+                this.bufferedMessages.clear();
+                for (final HeldMessage held : unprocessedMessages) {
+                    held.disposition = Disposition.RELEASE;
+                    this.settleMessage(held);
+                }
+
+                while (this.requestsInFlight > 0) {
+                    this.consumerLock.wait();
+                }
+            }
+        }
+        catch (final InterruptedException e) {
+            throw Utility.generateNewUnexpectedStorageException(e);
+        }
+
+        this.timer.shutdown();
+    }
+
+    /**
+     * Gets the number of messages the processor has returned for since the consumer was started.
+     *
+     * @return A <code>long</code> which represents the number of processed messages.
+     */
+    public long getProcessedMessageCount() {
+        synchronized (this.consumerLock) {
+            return this.processedMessages;
+        }
+    }
+
+    /**
+     * Gets the number of messages the processor has thrown for since the consumer was started.
+     *
+     * @return A <code>long</code> which represents the number of failed messages.
+     */
+    public long getFailedMessageCount() {
+        synchronized (this.consumerLock) {
+            return this.failedMessages;
+        }
+    }
+
+    /**
+     * Gets the last exception a retrieve, delete or update request of the consumer failed with once the retry policy
+     * gave up.
+     *
+     * @return A {@link StorageException} object, or <code>null</code> if no request has failed.
+     */
+    public StorageException getLastException() {
+        synchronized (this.consumerLock) {
+            return this.lastException;
+        }
+    }
+
+    /**
+     * Takes messages from the buffer and passes them to the processor until the consumer stops. Runs on a handler
+     * thread.
+     */
+    private void runHandler() {
+        while (true) {
+            final HeldMessage held;
+            synchronized (this.consumerLock) {
+                while (this.isRunning && this.bufferedMessages.isEmpty()) {
+                    try {
+                        this.consumerLock.wait();
+                    }
+                    catch (final InterruptedException e) {
+                        return;
+                    }
+                }
+
+                if (!this.isRunning) {
+                    return;
+                }
+
+                held = this.bufferedMessages.removeFirst();
+            }
+
+            boolean processed = false;
+            try {
+                this.processor.processMessage(held.message);
+                processed = true;
+            }
+            catch (final Exception e) {
+                Logger.warn(this.opContext, LogConstants.MESSAGE_PROCESSING_FAILED, held.message.getId(), e.getClass()
+                        .getName(), e.getMessage());
+            }
+            finally {
+                synchronized (this.consumerLock) {
+                    if (processed) {
+                        this.processedMessages++;
+                        held.disposition = Disposition.DELETE;
+                    }
+                    else {
+                        this.failedMessages++;
+                        held.disposition = Disposition.ABANDON;
+                    }
+
+                    this.settleMessage(held);
+                }
+            }
+        }
+    }
+
+    /**
+     * Issues retrieve requests while there is room for their messages. While the queue is empty, schedules a single
+     * poll instead. Must be called while holding the consumer lock.
+     */
+    private void fillBuffer() {
+        if (!this.isRunning) {
+            return;
+        }
+
+        if (this.pollIntervalInMs > 0) {
+            if (this.retrievesInFlight == 0 && this.scheduledPoll == null && this.hasRoomForRetrieve()) {
+                this.scheduledPoll = this.timer.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        synchronized (QueueConsumer.this.consumerLock) {
+                            QueueConsumer.this.scheduledPoll = null;
+                            if (QueueConsumer.this.isRunning && QueueConsumer.this.retrievesInFlight == 0
+                                    && QueueConsumer.this.hasRoomForRetrieve()) {
+                                QueueConsumer.this.retrieveMessages();
+                            }
+                        }
+                    }
+                }, this.pollIntervalInMs, TimeUnit.MILLISECONDS);
+            }
+
+            return;
+        }
+
+        while (this.retrievesInFlight < this.maximumRetrieves && this.hasRoomForRetrieve()) {
+            this.retrieveMessages();
+        }
+    }
+
+    /**
+     * Returns whether the messages of another retrieve request may be held. Must be called while holding the consumer
+     * lock.
+     */
+    private boolean hasRoomForRetrieve() {
+        return this.maximumHeldMessages - this.heldMessages.size() - this.requestedMessages
+                >= QueueConstants.MAX_NUMBER_OF_MESSAGES_TO_PEEK;
+    }
+
+    /**
+     * Issues a retrieve request. Must be called while holding the consumer lock.
+     */
+    private void retrieveMessages() {
+        // The messages become visible again no later than one visibility timeout after the request is issued.
+        final long requestTime = System.currentTimeMillis();
+        this.retrievesInFlight++;
+        this.requestedMessages += QueueConstants.MAX_NUMBER_OF_MESSAGES_TO_PEEK;
+        this.requestsInFlight++;
+        this.execute(this.queue.retrieveMessagesImpl(QueueConstants.MAX_NUMBER_OF_MESSAGES_TO_PEEK,
+                this.visibilityTimeoutInSeconds, this.options), this.retrieveSession,
+                new StorageCallback<ArrayList<CloudQueueMessage>>() {
+                    @Override
+                    public void onSuccess(final ArrayList<CloudQueueMessage> result) {
+                        QueueConsumer.this.completeRetrieve(requestTime, result, null);
+                    }
+
+                    @Override
+                    public void onFailure(final StorageException exception) {
+                        QueueConsumer.this.completeRetrieve(requestTime, null, exception);
+                    }
+                });
+    }
+
+    /**
+     * Buffers the messages returned by a retrieve request, or backs off if there were none, and issues more retrieve
+     * requests.
+     */
+    private void completeRetrieve(final long requestTime, final ArrayList<CloudQueueMessage> messages,
+            final StorageException exception) {
+        synchronized (this.consumerLock) {
+            this.retrievesInFlight--;
+            this.requestedMessages -= QueueConstants.MAX_NUMBER_OF_MESSAGES_TO_PEEK;
+            this.requestsInFlight--;
+
+            if (messages == null || messages.isEmpty()) {
+                if (exception != null) {
+                    this.lastException = exception;
+                }
+
+                this.pollIntervalInMs = this.pollIntervalInMs == 0 ? QueueConstants.CONSUMER_MINIMUM_POLL_INTERVAL_IN_MS
+                        : Math.min(this.pollIntervalInMs * 2, QueueConstants.CONSUMER_MAXIMUM_POLL_INTERVAL_IN_MS);
+            }
+            else {
+                this.pollIntervalInMs = 0;
+                for (final CloudQueueMessage message : messages) {
+                    final HeldMessage held = new HeldMessage(message, requestTime + this.visibilityTimeoutInSeconds
+                            * 1000L);
+                    this.heldMessages.add(held);
+                    if (this.isRunning) {
+                        this.bufferedMessages.add(held);
+                    }
+                    else {
+                        held.disposition = Disposition.RELEASE;
+                        this.settleMessage(held);
+                    }
+                }
+            }
+
+            this.fillBuffer();
+            this.consumerLock.notifyAll();
+        }
+    }
+
+    /**
+     * Renews the visibility timeout of every held message which has used up half of it. Runs on the timer thread.
+     */
+    private void renewMessages() {
+        synchronized (this.consumerLock) {
+            final long renewalDeadline = System.currentTimeMillis() + this.visibilityTimeoutInSeconds * 1000L / 2;
+            for (final HeldMessage held : new ArrayList<HeldMessage>(this.heldMessages)) {
+                if (held.disposition == null && !held.isRenewing && held.visibleUntil < renewalDeadline) {
+                    this.updateVisibility(held, this.visibilityTimeoutInSeconds);
+                }
+            }
+        }
+    }
+
+    /**
+     * Acts on the disposition of a message once no renewal of it is in flight. Must be called while holding the
+     * consumer lock.
+     */
+    private void settleMessage(final HeldMessage held) {
+        if (held.isRenewing || held.disposition == null) {
+            // A message is settled when its renewal completes, since the renewal changes its pop receipt.
+            return;
+        }
+
+        switch (held.disposition) {
+            case DELETE:
+                this.requestsInFlight++;
+                this.execute(this.queue.deleteMessageImpl(held.message, this.options), this.updateSession,
+                        new StorageCallback<Void>() {
+                            @Override
+                            public void onSuccess(final Void result) {
+                                QueueConsumer.this.completeSettlement(held, null);
+                            }
+
+                            @Override
+                            public void onFailure(final StorageException exception) {
+                                QueueConsumer.this.completeSettlement(held, exception);
+                            }
+                        });
+                break;
+
+            case RELEASE:
+                this.updateVisibility(held, 0);
+                break;
+
+            default:
+                this.forgetMessage(held);
+                break;
+        }
+    }
+
+    /**
+     * Issues an update request which sets the visibility timeout of a held message. Must be called while holding the
+     * consumer lock.
+     */
+    private void updateVisibility(final HeldMessage held, final int visibilityTimeoutInSeconds) {
+        final long requestTime = System.currentTimeMillis();
+        final StorageRequest<CloudQueueClient, CloudQueue, Void> request;
+        try {
+            request = this.queue.updateMessageImpl(held.message, visibilityTimeoutInSeconds,
+                    EnumSet.of(MessageUpdateFields.VISIBILITY), this.options);
+        }
+        catch (final StorageException e) {
+            this.lastException = e;
+            this.forgetMessage(held);
+            return;
+        }
+
+        held.isRenewing = held.disposition == null;
+        this.requestsInFlight++;
+        this.execute(request, this.updateSession, new StorageCallback<Void>() {
+            @Override
+            public void onSuccess(final Void result) {
+                QueueConsumer.this.completeUpdate(held, requestTime, null);
+            }
+
+            @Override
+            public void onFailure(final StorageException exception) {
+                QueueConsumer.this.completeUpdate(held, requestTime, exception);
+            }
+        });
+    }
+
+    /**
+     * Records the completion of an update request and settles the message if the processor is done with it.
+     */
+    private void completeUpdate(final HeldMessage held, final long requestTime, final StorageException exception) {
+        synchronized (this.consumerLock) {
+            this.requestsInFlight--;
+            if (exception != null) {
+                this.lastException = exception;
+            }
+
+            if (!held.isRenewing) {
+                // The message was released.
+                this.forgetMessage(held);
+            }
+            else {
+                held.isRenewing = false;
+                if (exception == null) {
+                    held.visibleUntil = requestTime + this.visibilityTimeoutInSeconds * 1000L;
+                }
+
+                this.settleMessage(held);
+            }
+
+            this.consumerLock.notifyAll();
+        }
+    }
+
+    /**
+     * Records the completion of a delete request.
+     */
+    private void completeSettlement(final HeldMessage held, final StorageException exception) {
+        synchronized (this.consumerLock) {
+            this.requestsInFlight--;
+            if (exception != null) {
+                this.lastException = exception;
+            }
+
+            this.forgetMessage(held);
+            this.consumerLock.notifyAll();
+        }
+    }
+
+    /**
+     * Stops holding a message, making room for more to be retrieved. Must be called while holding the consumer lock.
+     */
+    private void forgetMessage(final HeldMessage held) {
+        this.heldMessages.remove(held);
+        this.fillBuffer();
+    }
+
+    /**
+     * Executes a request of the consumer on the specified session. Each request records its results in an operation
+     * context of its own, so a consumer which runs indefinitely does not retain them.
+     */
+    private <R> void execute(final StorageRequest<CloudQueueClient, CloudQueue, R> request,
+            final TransferScheduler.Session session, final StorageCallback<R> callback) {
+        ExecutionEngine.executeWithRetryAsync(this.queue.getServiceClient(), this.queue, request,
+                this.options.getRetryPolicyFactory(), this.opContext.createRequestContext(), session).addCallback(
+                callback);
+    }
+
+    /**
+     * Represents what becomes of a held message once the processor is done with it.
+     */
+    private enum Disposition {
+        /**
+         * The message was processed and is deleted.
+         */
+        DELETE,
+
+        /**
+         * The message failed and becomes visible again when its visibility timeout expires.
+         */
+        ABANDON,
+
+        /**
+         * The message was not processed and is made visible again immediately.
+         */
+        RELEASE
+    }
+
+    /**
+     * Represents a message held by the consumer. Accessed while holding the consumer lock.
+     */
+    private static final class HeldMessage {
+
+        /**
+         * Holds the message.
+         */
+        private final CloudQueueMessage message;
+
+        /**
+         * Holds the time, in milliseconds, before which the message is known to be invisible.
+         */
+        private long visibleUntil;
+
+        /**
+         * Indicates whether a renewal of the message's visibility timeout is in flight.
+         */
+        private boolean isRenewing;
+
+        /**
+         * Holds what becomes of the message, or <code>null</code> while it is buffered or being processed.
+         */
+        private Disposition disposition;
+
+        private HeldMessage(final CloudQueueMessage message, final long visibleUntil) {
+            this.message = message;
+            this.visibleUntil = visibleUntil;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.queue;
+
+/**
+ * Represents the processing a {@link QueueConsumer} applies to each message it retrieves.
+ * <p>
+ * Messages are processed concurrently on the consumer's handler threads, so implementations must be thread-safe.
+ */
+public interface QueueMessageProcessor {
+    /**
+     * Called once for each message retrieved from the queue. While this method runs, the consumer keeps the message
+     * invisible by renewing its visibility timeout. When this method returns, the consumer deletes the message.
+     * <p>
+     * Implementations must not delete or update the message themselves, since the consumer changes its pop receipt
+     * as it renews the message.
+     *
+     * @param message
+     *            The {@link CloudQueueMessage} to process.
+     * @throws Exception
+     *             to leave the message in the queue. The consumer stops renewing the message, so it becomes visible
+     *             again when its visibility timeout expires and may then be retrieved again.
+     */
+    void processMessage(CloudQueueMessage message) throws Exception;
+}
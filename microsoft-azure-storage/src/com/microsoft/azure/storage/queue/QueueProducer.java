@@ -0,0 +1,287 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.queue;
+
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageCallback;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.StorageFuture;
+import com.microsoft.azure.storage.TransferScheduler;
+import com.microsoft.azure.storage.core.ExecutionEngine;
+import com.microsoft.azure.storage.core.SR;
+import com.microsoft.azure.storage.core.StorageRequest;
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a producer which adds messages to a queue without waiting for each one to be sent. Create a producer with
+ * {@link CloudQueue#createProducer(int, QueueRequestOptions, OperationContext)}.
+ * <p>
+ * Each call to {@link #add(CloudQueueMessage)} serializes the message and queues it to be sent on the service client's
+ * {@link TransferScheduler}, with up to {@link QueueRequestOptions#getConcurrentRequestCount()} requests in flight at
+ * once. The call returns a {@link StorageFuture} which completes when the message has been added to the queue, or with
+ * the exception the request failed with once the retry policy gave up. When the number of pending messages reaches its
+ * limit, <code>add</code> waits for a message to complete, so a producer which outpaces the service is slowed down
+ * rather than buffering without bound. Cancelling a returned future releases the message's pending slot at once; a
+ * request which is already in progress is allowed to finish.
+ * <p>
+ * Messages are sent concurrently, so they may be added to the queue in a different order than they were added to the
+ * producer. The methods of a producer may be called from multiple threads.
+ */
+public final class QueueProducer {
+
+    /**
+     * Holds the queue the messages are added to.
+     */
+    private final CloudQueue queue;
+
+    /**
+     * Holds the request options, with the client defaults applied.
+     */
+    private final QueueRequestOptions options;
+
+    /**
+     * Holds the operation context from which the context of each message is created.
+     */
+    private final OperationContext opContext;
+
+    /**
+     * Holds the session the requests are scheduled on.
+     */
+    private final TransferScheduler.Session transferSession;
+
+    /**
+     * Holds the maximum number of messages which may be added but not yet completed.
+     */
+    private final int maximumPendingMessages;
+
+    /**
+     * Holds the lock guarding the state of the producer.
+     */
+    private final Object producerLock = new Object();
+
+    /**
+     * Holds the number of messages which have been added but not yet completed.
+     */
+    private int pendingMessages;
+
+    /**
+     * Holds the number of messages which have failed.
+     */
+    private long failedMessages;
+
+    /**
+     * Indicates whether the producer has been closed.
+     */
+    private boolean isClosed;
+
+    /**
+     * Reserved for internal use. Creates an instance of the <code>QueueProducer</code> class.
+     *
+     * @param queue
+     *            The {@link CloudQueue} the messages are added to.
+     * @param maximumPendingMessages
+     *            The maximum number of messages which may be added but not yet completed.
+     * @param options
+     *            A {@link QueueRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object which has already been initialized.
+     */
+    QueueProducer(final CloudQueue queue, final int maximumPendingMessages, final QueueRequestOptions options,
+            final OperationContext opContext) {
+        this.queue = queue;
+        this.maximumPendingMessages = maximumPendingMessages;
+        this.options = options;
+        this.opContext = opContext;
+        this.transferSession = queue.getServiceClient().getTransferScheduler()
+                .createSession(options.getConcurrentRequestCount());
+    }
+
+    /**
+     * Adds a message to be sent to the back of the queue, using the service default time-to-live and making the
+     * message visible immediately.
+     *
+     * @param message
+     *            A {@link CloudQueueMessage} object that specifies the message to add.
+     * @return A {@link StorageFuture} object which completes when the message has been added.
+     *
+     * @throws StorageException
+     *             If the message could not be serialized, or if the thread is interrupted while waiting.
+     */
+    public StorageFuture<Void> add(final CloudQueueMessage message) throws StorageException {
+        return this.add(message, 0, 0);
+    }
+
+    /**
+     * Adds a message to be sent to the back of the queue. If the number of pending messages has reached its limit, this
+     * method waits for a message to complete.
+     * <p>
+     * The content of the message is captured when this method is called, so the message may be changed or reused once
+     * it returns.
+     *
+     * @param message
+     *            A {@link CloudQueueMessage} object that specifies the message to add.
+     * @param timeToLiveInSeconds
+     *            The maximum time to allow the message to be in the queue. A value of zero will set the time-to-live to
+     *            the service default value of seven days.
+     * @param initialVisibilityDelayInSeconds
+     *            The length of time during which the message will be invisible, starting when it is added to the queue,
+     *            or 0 to make the message visible immediately. This value must be greater than or equal to zero and
+     *            less than or equal to the time-to-live value.
+     * @return A {@link StorageFuture} object which completes when the message has been added.
+     *
+     * @throws StorageException
+     *             If the message could not be serialized, or if the thread is interrupted while waiting.
+     */
+    public StorageFuture<Void> add(final CloudQueueMessage message, final int timeToLiveInSeconds,
+            final int initialVisibilityDelayInSeconds) throws StorageException {
+        Utility.assertNotNull("message", message);
+        Utility.assertNotNull("messageContent", message.getMessageContentAsByte());
+        Utility.assertInBounds("timeToLiveInSeconds", timeToLiveInSeconds, 0,
+                QueueConstants.MAX_TIME_TO_LIVE_IN_SECONDS);
+
+        final int realTimeToLiveInSeconds = timeToLiveInSeconds == 0 ? QueueConstants.MAX_TIME_TO_LIVE_IN_SECONDS
+                : timeToLiveInSeconds;
+        Utility.assertInBounds("initialVisibilityDelayInSeconds", initialVisibilityDelayInSeconds, 0,
+                realTimeToLiveInSeconds - 1);
+
+        final StorageRequest<CloudQueueClient, CloudQueue, Void> request = this.queue.addMessageImpl(message,
+                realTimeToLiveInSeconds, initialVisibilityDelayInSeconds, this.options);
+
+        synchronized (this.producerLock) {
+            while (!this.isClosed && this.pendingMessages >= this.maximumPendingMessages) {
+                this.waitForCompletion();
+            }
+
+            if (this.isClosed) {
+                throw new IllegalStateException(SR.QUEUE_PRODUCER_CLOSED);
+            }
+
+            this.pendingMessages++;
+        }
+
+        // Each message records its results in a context of its own, so a long-lived producer does not retain them.
+        final StorageFuture<Void> future = ExecutionEngine.executeWithRetryAsync(this.queue.getServiceClient(),
+                this.queue, request, this.options.getRetryPolicyFactory(), this.opContext.createRequestContext(),
+                this.transferSession);
+        future.addCallback(new StorageCallback<Void>() {
+            @Override
+            public void onSuccess(final Void result) {
+                // The message is completed by the hook below.
+            }
+
+            @Override
+            public void onFailure(final StorageException exception) {
+                QueueProducer.this.failMessage();
+            }
+        });
+
+        // Cancelling the future does not invoke its callbacks, so the pending message is released by a hook which
+        // runs on every final state.
+        future.addCompletionHook(new Runnable() {
+            @Override
+            public void run() {
+                QueueProducer.this.completeMessage();
+            }
+        });
+
+        return future;
+    }
+
+    /**
+     * Waits for every pending message to complete. Failures of individual messages are reported through the futures
+     * returned by {@link #add(CloudQueueMessage, int, int)} and do not cause this method to throw.
+     *
+     * @throws StorageException
+     *             if the thread is interrupted while waiting.
+     */
+    public void flush() throws StorageException {
+        synchronized (this.producerLock) {
+            while (this.pendingMessages > 0) {
+                this.waitForCompletion();
+            }
+        }
+    }
+
+    /**
+     * Flushes the producer and prevents further messages from being added. Closing a producer which is already closed
+     * has no effect.
+     *
+     * @throws StorageException
+     *             if the thread is interrupted while waiting.
+     */
+    public void close() throws StorageException {
+        synchronized (this.producerLock) {
+            this.isClosed = true;
+        }
+
+        this.flush();
+    }
+
+    /**
+     * Gets the number of messages which have been added but not yet completed.
+     *
+     * @return An <code>int</code> which represents the number of pending messages.
+     */
+    public int getPendingMessageCount() {
+        synchronized (this.producerLock) {
+            return this.pendingMessages;
+        }
+    }
+
+    /**
+     * Gets the number of messages which have failed since the producer was created.
+     *
+     * @return A <code>long</code> which represents the number of failed messages.
+     */
+    public long getFailedMessageCount() {
+        synchronized (this.producerLock) {
+            return this.failedMessages;
+        }
+    }
+
+    /**
+     * Records the failure of a message. The message is still pending until {@link #completeMessage()} is called.
+     */
+    private void failMessage() {
+        synchronized (this.producerLock) {
+            this.failedMessages++;
+        }
+    }
+
+    /**
+     * Records the completion of a message, whether it succeeded, failed or was cancelled.
+     */
+    private void completeMessage() {
+        synchronized (this.producerLock) {
+            this.pendingMessages--;
+            this.producerLock.notifyAll();
+        }
+    }
+
+    /**
+     * Waits for a pending message to complete. Must be called while holding the producer lock.
+     *
+     * @throws StorageException
+     *             if the thread is interrupted while waiting.
+     */
+    private void waitForCompletion() throws StorageException {
+        try {
+            this.producerLock.wait();
+        }
+        catch (final InterruptedException e) {
+            throw Utility.generateNewUnexpectedStorageException(e);
+        }
+    }
+}
@@ -22,6 +22,13 @@ import com.microsoft.azure.storage.core.Utility;
  * Represents a set of options that may be specified on a queue request.
  */
 public final class QueueRequestOptions extends RequestOptions {
+
+    /**
+     * Represents the number of concurrent requests issued by operations such as a {@link QueueConsumer} or a
+     * {@link QueueProducer}.
+     */
+    private Integer concurrentRequestCount;
+
     /**
      * Initializes a new instance of the QueueRequestOptions class.
      */
@@ -39,6 +46,9 @@ public final class QueueRequestOptions extends RequestOptions {
      */
     public QueueRequestOptions(final QueueRequestOptions other) {
         super(other);
+        if (other != null) {
+            this.setConcurrentRequestCount(other.getConcurrentRequestCount());
+        }
     }
 
     /**
@@ -54,6 +64,10 @@ public final class QueueRequestOptions extends RequestOptions {
     protected static final QueueRequestOptions applyDefaults(QueueRequestOptions options, final CloudQueueClient client) {
         QueueRequestOptions modifiedOptions = new QueueRequestOptions(options);
         RequestOptions.populateRequestOptions(modifiedOptions, client.getDefaultRequestOptions(), false);
+        if (modifiedOptions.getConcurrentRequestCount() == null) {
+            modifiedOptions.setConcurrentRequestCount(client.getDefaultRequestOptions().getConcurrentRequestCount());
+        }
+
         return QueueRequestOptions.applyDefaultsInternal(modifiedOptions, client);
     }
 
@@ -61,6 +75,37 @@ public final class QueueRequestOptions extends RequestOptions {
             CloudQueueClient client) {
         Utility.assertNotNull("modifiedOptions", modifiedOptions);
         RequestOptions.applyBaseDefaultsInternal(modifiedOptions);
+        if (modifiedOptions.getConcurrentRequestCount() == null) {
+            modifiedOptions.setConcurrentRequestCount(QueueConstants.DEFAULT_CONCURRENT_REQUEST_COUNT);
+        }
+
         return modifiedOptions;
     }
+
+    /**
+     * Gets the number of concurrent requests issued by operations which issue more than one request at a time. For
+     * more information about concurrent request count defaults, see {@link #setConcurrentRequestCount(Integer)}.
+     * 
+     * @return the concurrentRequestCount
+     */
+    public Integer getConcurrentRequestCount() {
+        return this.concurrentRequestCount;
+    }
+
+    /**
+     * Sets the number of concurrent requests issued by operations which issue more than one request at a time, such as
+     * the number of retrieve requests a {@link QueueConsumer} keeps in flight or the number of messages a
+     * {@link QueueProducer} sends at once. Operations which issue a single request at a time ignore this value.
+     * <p>
+     * The default concurrent request count is set in the client and is by default 4. You can change the concurrent
+     * request count on this request by setting this property. You can also change the value on the
+     * {@link CloudQueueClient#getDefaultRequestOptions()} object so that all subsequent requests made via the service
+     * client will use that concurrent request count.
+     * 
+     * @param concurrentRequestCount
+     *            the concurrentRequestCount to set
+     */
+    public void setConcurrentRequestCount(final Integer concurrentRequestCount) {
+        this.concurrentRequestCount = concurrentRequestCount;
+    }
 }
@@ -15,13 +15,16 @@
 
 package com.microsoft.azure.storage.table;
 
+import java.io.ByteArrayOutputStream;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 
+import com.microsoft.azure.storage.Constants;
 import com.microsoft.azure.storage.DoesServiceRequest;
 import com.microsoft.azure.storage.LocationMode;
 import com.microsoft.azure.storage.OperationContext;
@@ -36,6 +39,7 @@ import com.microsoft.azure.storage.StorageCredentials;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageExtendedErrorInformation;
 import com.microsoft.azure.storage.StorageUri;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.blob.BlobRequestOptions;
 import com.microsoft.azure.storage.blob.CloudBlobClient;
 import com.microsoft.azure.storage.core.ExecutionEngine;
@@ -44,6 +48,7 @@ import com.microsoft.azure.storage.core.SR;
 import com.microsoft.azure.storage.core.SegmentedStorageRequest;
 import com.microsoft.azure.storage.core.StorageRequest;
 import com.microsoft.azure.storage.core.Utility;
+import com.microsoft.azure.storage.table.StreamingQueryIterator.QueryResponseSegment;
 
 /**
  * Provides a service client for accessing the Microsoft Azure Table service.
@@ -362,7 +367,37 @@ public final class CloudTableClient extends ServiceClient {
 
         opContext.initialize();
         options = TableRequestOptions.applyDefaults(options, this);
+        return this.executeQuerySegmentedWithRetry(queryToExecute, resolver, continuationToken, options, opContext);
+    }
 
+    /**
+     * Reserved for internal use. Executes a segmented query as one request of an operation whose request options and
+     * operation context have already been initialized, such as a range of a parallel scan. Unlike
+     * {@link #executeQuerySegmentedImpl}, this method does not reset the operation context, so it may be called
+     * concurrently for the same operation.
+     * 
+     * @param queryToExecute
+     *            The {@link TableQuery} to execute.
+     * @param resolver
+     *            An {@link EntityResolver} instance which creates a projection of the table query result entities into
+     *            the specified type <code>R</code>. Pass <code>null</code> to return the results as the table entity
+     *            type.
+     * @param continuationToken
+     *            The {@link ResultContinuation} to pass with the operation to resume a query, if any. Pass
+     *            <code>null</code> for an initial query.
+     * @param options
+     *            A {@link TableRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object for tracking the current operation.
+     * @return
+     *         A {@link ResultSegment} containing a collection of the query results specialized for the
+     *         {@link TableEntity} or {@link EntityResolver} type returned by the query.
+     * @throws StorageException
+     *             if a Storage service error occurs.
+     */
+    <T extends TableEntity, R> ResultSegment<?> executeQuerySegmentedWithRetry(final TableQuery<T> queryToExecute,
+            final EntityResolver<R> resolver, final ResultContinuation continuationToken,
+            final TableRequestOptions options, final OperationContext opContext) throws StorageException {
         Utility.assertContinuationType(continuationToken, ResultContinuationType.TABLE);
 
         SegmentedStorageRequest segmentedRequest = new SegmentedStorageRequest();
@@ -524,6 +559,84 @@ public final class CloudTableClient extends ServiceClient {
         return getRequest;
     }
 
+    /**
+     * Reserved for internal use. Creates the request used to retrieve the segments of a streamed query. Each segment is
+     * downloaded in full but left unparsed, so that its entities may be parsed as they are iterated.
+     */
+    <T extends TableEntity, R> StorageRequest<CloudTableClient, TableQuery<T>, QueryResponseSegment> executeQuerySegmentedStreamingCoreImpl(
+            final TableQuery<T> queryToExecute, final EntityResolver<R> resolver, final TableRequestOptions options,
+            final SegmentedStorageRequest segmentedRequest) {
+
+        if (resolver == null) {
+            Utility.assertNotNull(SR.QUERY_REQUIRES_VALID_CLASSTYPE_OR_RESOLVER, queryToExecute.getClazzType());
+        }
+
+        final StorageRequest<CloudTableClient, TableQuery<T>, QueryResponseSegment> getRequest = new StorageRequest<CloudTableClient, TableQuery<T>, QueryResponseSegment>(
+                options, this.getStorageUri()) {
+
+            @Override
+            public void setRequestLocationMode() {
+                this.setRequestLocationMode(Utility.getListingLocationMode(segmentedRequest.getToken()));
+            }
+
+            @Override
+            public HttpURLConnection buildRequest(CloudTableClient client, TableQuery<T> queryRef,
+                    OperationContext context) throws Exception {
+                return TableRequest.query(client.getTransformedEndPoint(context).getUri(this.getCurrentLocation()),
+                        options, queryToExecute.generateQueryBuilder(), context, queryToExecute.getSourceTableName(),
+                        null/* identity */, segmentedRequest.getToken());
+            }
+
+            @Override
+            public void signRequest(HttpURLConnection connection, CloudTableClient client, OperationContext context)
+                    throws Exception {
+                StorageRequest.signTableRequest(connection, client, -1L, context);
+            }
+
+            @Override
+            public QueryResponseSegment preProcessResponse(TableQuery<T> queryRef, CloudTableClient client,
+                    OperationContext context) throws Exception {
+                if (this.getResult().getStatusCode() != HttpURLConnection.HTTP_OK) {
+                    throw TableServiceException.generateTableServiceException(true, this.getResult(), null, this
+                            .getConnection().getErrorStream(), options.getTablePayloadFormat());
+                }
+
+                return null;
+            }
+
+            @Override
+            public QueryResponseSegment postProcessResponse(HttpURLConnection connection, TableQuery<T> queryRef,
+                    CloudTableClient client, OperationContext context, QueryResponseSegment storageObject)
+                    throws Exception {
+                final int contentLength = connection.getContentLength();
+                final ByteArrayOutputStream payload = new ByteArrayOutputStream(
+                        contentLength > 0 ? contentLength : Constants.BUFFER_COPY_LENGTH);
+
+                final InputStream inStream = connection.getInputStream();
+                Utility.writeToOutputStream(inStream, payload, -1, false /* rewindStream */,
+                        false /* calculate MD5 */, context, options);
+
+                final ResultContinuation nextToken = TableResponse.getTableContinuationFromResponse(connection);
+                if (nextToken != null) {
+                    nextToken.setTargetLocation(this.getResult().getTargetLocation());
+                }
+
+                // Note, setting the token on the SegmentedStorageRequest is
+                // key, this is how the iterator will share the token across executions
+                segmentedRequest.setToken(nextToken);
+
+                return new QueryResponseSegment(payload.toByteArray(), nextToken);
+            }
+
+            @Override
+            public StorageExtendedErrorInformation parseErrorDetails() {
+                return TableStorageErrorDeserializer.parseErrorDetails(this);
+            }
+        };
+
+        return getRequest;
+    }
+
     protected final StorageUri getTransformedEndPoint(final OperationContext opContext) throws URISyntaxException,
             StorageException {
         return this.getCredentials().transformUri(this.getStorageUri(), opContext);
@@ -549,6 +662,7 @@ public final class CloudTableClient extends ServiceClient {
      *         An instance of <code>Iterable</code> specialized for the {@link TableEntity} or {@link EntityResolver}
      *         type returned by the query.
      */
+    @SuppressWarnings("deprecation")
     protected <T extends TableEntity, R> Iterable<?> generateIteratorForQuery(final TableQuery<T> queryRef,
             final EntityResolver<R> resolver, TableRequestOptions options, OperationContext opContext) {
 
@@ -559,17 +673,35 @@ public final class CloudTableClient extends ServiceClient {
         opContext.initialize();
         options = TableRequestOptions.applyDefaults(options, this);
 
+        if (options.getStreamQueryResults() && options.getTablePayloadFormat() != TablePayloadFormat.AtomPub) {
+            if (resolver == null) {
+                Utility.assertNotNull(SR.QUERY_REQUIRES_VALID_CLASSTYPE_OR_RESOLVER, queryRef.getClazzType());
+            }
+
+            final TableRequestOptions streamingOptions = options;
+            final OperationContext streamingOpContext = opContext;
+            return new Iterable<R>() {
+                @Override
+                public Iterator<R> iterator() {
+                    return new StreamingQueryIterator<T, R>(CloudTableClient.this, queryRef, resolver,
+                            streamingOptions, streamingOpContext);
+                }
+            };
+        }
+
         SegmentedStorageRequest segmentedRequest = new SegmentedStorageRequest();
+        final TransferScheduler prefetchScheduler = options.getPrefetchNextSegment() ? this.getTransferScheduler()
+                : null;
 
         if (resolver == null) {
             return new LazySegmentedIterable<CloudTableClient, TableQuery<T>, T>(this.executeQuerySegmentedCoreImpl(
                     queryRef, resolver, options, segmentedRequest), this, queryRef, options.getRetryPolicyFactory(),
-                    opContext);
+                    opContext, prefetchScheduler);
         }
         else {
             return new LazySegmentedIterable<CloudTableClient, TableQuery<T>, R>(
                     this.executeQuerySegmentedWithResolverCoreImpl(queryRef, resolver, options, segmentedRequest),
-                    this, queryRef, options.getRetryPolicyFactory(), opContext);
+                    this, queryRef, options.getRetryPolicyFactory(), opContext, prefetchScheduler);
         }
     }
 
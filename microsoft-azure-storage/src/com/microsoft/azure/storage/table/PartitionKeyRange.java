@@ -0,0 +1,192 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.table;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.core.SR;
+import com.microsoft.azure.storage.core.Utility;
+import com.microsoft.azure.storage.table.TableQuery.Operators;
+import com.microsoft.azure.storage.table.TableQuery.QueryComparisons;
+
+/**
+ * Represents a range of PartitionKey values scanned by
+ * {@link CloudTable#executeParallel(TableQuery, List, TableScanHandler, TableRequestOptions, com.microsoft.azure.storage.OperationContext)}
+ * , together with the progress of the scan through the range.
+ * <p>
+ * A range includes its lower bound and excludes its upper bound; a <code>null</code> bound leaves that side of the
+ * range unbounded. As each segment of the range is handled, the scan records the continuation token needed to resume
+ * after it, and marks the range complete once its last segment has been handled. A scan which fails or is abandoned
+ * may therefore be resumed by passing the same ranges, or copies restored from a checkpoint, to a new scan; ranges
+ * which are complete are skipped and the others resume from their continuation tokens.
+ */
+public final class PartitionKeyRange {
+
+    /**
+     * Holds the inclusive lower bound of the range, or <code>null</code> if the range is unbounded below.
+     */
+    private final String lowerBound;
+
+    /**
+     * Holds the exclusive upper bound of the range, or <code>null</code> if the range is unbounded above.
+     */
+    private final String upperBound;
+
+    /**
+     * Holds the continuation token from which the scan of the range resumes.
+     */
+    private volatile ResultContinuation continuationToken;
+
+    /**
+     * Indicates whether every segment of the range has been handled.
+     */
+    private volatile boolean complete;
+
+    /**
+     * Creates an instance of the <code>PartitionKeyRange</code> class.
+     *
+     * @param lowerBound
+     *            A <code>String</code> which represents the inclusive lower bound of the range, or <code>null</code>
+     *            for no lower bound.
+     * @param upperBound
+     *            A <code>String</code> which represents the exclusive upper bound of the range, or <code>null</code>
+     *            for no upper bound.
+     */
+    public PartitionKeyRange(final String lowerBound, final String upperBound) {
+        if (lowerBound != null && upperBound != null && lowerBound.compareTo(upperBound) >= 0) {
+            throw new IllegalArgumentException(String.format(SR.PARTITIONKEY_RANGE_BOUNDS_OUT_OF_ORDER, lowerBound,
+                    upperBound));
+        }
+
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+    }
+
+    /**
+     * Creates contiguous ranges which together cover every PartitionKey value, split at the specified boundaries. The
+     * first range is unbounded below and the last range is unbounded above; specifying no boundaries yields a single
+     * range covering the whole table.
+     *
+     * @param boundaries
+     *            The <code>String</code> values at which to split, in ascending order.
+     * @return A <code>List</code> of {@link PartitionKeyRange} objects, one more than the number of boundaries.
+     */
+    public static List<PartitionKeyRange> fromBoundaries(final List<String> boundaries) {
+        Utility.assertNotNull("boundaries", boundaries);
+        final ArrayList<PartitionKeyRange> ranges = new ArrayList<PartitionKeyRange>(boundaries.size() + 1);
+        String lowerBound = null;
+        for (final String boundary : boundaries) {
+            Utility.assertNotNull("boundary", boundary);
+            ranges.add(new PartitionKeyRange(lowerBound, boundary));
+            lowerBound = boundary;
+        }
+
+        ranges.add(new PartitionKeyRange(lowerBound, null));
+        return ranges;
+    }
+
+    /**
+     * Gets the inclusive lower bound of the range.
+     *
+     * @return A <code>String</code> which represents the lower bound, or <code>null</code> if the range is unbounded
+     *         below.
+     */
+    public String getLowerBound() {
+        return this.lowerBound;
+    }
+
+    /**
+     * Gets the exclusive upper bound of the range.
+     *
+     * @return A <code>String</code> which represents the upper bound, or <code>null</code> if the range is unbounded
+     *         above.
+     */
+    public String getUpperBound() {
+        return this.upperBound;
+    }
+
+    /**
+     * Gets the continuation token from which the scan of the range resumes.
+     *
+     * @return A {@link ResultContinuation} object, or <code>null</code> if the scan of the range has not started or is
+     *         complete.
+     */
+    public ResultContinuation getContinuationToken() {
+        return this.continuationToken;
+    }
+
+    /**
+     * Sets the continuation token from which the scan of the range resumes. Use this method to restore a range from a
+     * checkpoint.
+     *
+     * @param continuationToken
+     *            A {@link ResultContinuation} object, or <code>null</code> to start from the beginning of the range.
+     */
+    public void setContinuationToken(final ResultContinuation continuationToken) {
+        this.continuationToken = continuationToken;
+    }
+
+    /**
+     * Gets whether every segment of the range has been handled.
+     *
+     * @return <code>true</code> if the scan of the range is complete; otherwise <code>false</code>.
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    /**
+     * Sets whether every segment of the range has been handled. Use this method to restore a range from a checkpoint.
+     *
+     * @param complete
+     *            <code>true</code> if the scan of the range is complete; otherwise <code>false</code>.
+     */
+    public void setComplete(final boolean complete) {
+        this.complete = complete;
+    }
+
+    /**
+     * Generates a filter condition which matches the PartitionKey values in the range.
+     *
+     * @return A <code>String</code> which represents the filter condition, or <code>null</code> if the range is
+     *         unbounded on both sides.
+     */
+    public String generateFilterCondition() {
+        final String lowerCondition = this.lowerBound == null ? null : TableQuery.generateFilterCondition(
+                TableConstants.PARTITION_KEY, QueryComparisons.GREATER_THAN_OR_EQUAL, this.lowerBound);
+        final String upperCondition = this.upperBound == null ? null : TableQuery.generateFilterCondition(
+                TableConstants.PARTITION_KEY, QueryComparisons.LESS_THAN, this.upperBound);
+
+        if (lowerCondition == null) {
+            return upperCondition;
+        }
+        else if (upperCondition == null) {
+            return lowerCondition;
+        }
+
+        return TableQuery.combineFilters(lowerCondition, Operators.AND, upperCondition);
+    }
+
+    /**
+     * Returns a string which describes the bounds of the range.
+     */
+    @Override
+    public String toString() {
+        return String.format("[%s, %s)", this.lowerBound == null ? "" : this.lowerBound,
+                this.upperBound == null ? "" : this.upperBound);
+    }
+}
@@ -147,6 +147,8 @@ final class PropertyPair {
             else {
                 e.getValue().effectiveName = e.getValue().name;
             }
+
+            e.getValue().suppressAccessChecks();
         }
 
         // remove all entries for keys that should not process
@@ -167,6 +169,11 @@ final class PropertyPair {
     private Method getter = null;
     private Method setter = null;
     private String name = null;
+
+    /**
+     * Holds the type of the property, which is both the getter return type and the setter parameter type. It is
+     * resolved once when the pair is generated rather than on every invocation.
+     */
     Class<?> type = null;
     String effectiveName = null;
 
@@ -194,7 +201,7 @@ final class PropertyPair {
             this.setter.invoke(instance, prop.getValueAsString());
         }
         else if (prop.getEdmType() == EdmType.BINARY) {
-            if (this.setter.getParameterTypes()[0].equals(Byte[].class)) {
+            if (this.type == Byte[].class) {
                 this.setter.invoke(instance, (Object) prop.getValueAsByteObjectArray());
             }
             else {
@@ -202,7 +209,7 @@ final class PropertyPair {
             }
         }
         else if (prop.getEdmType() == EdmType.BOOLEAN) {
-            if (this.setter.getParameterTypes()[0].equals(Boolean.class)) {
+            if (this.type == Boolean.class) {
                 this.setter.invoke(instance, prop.getValueAsBooleanObject());
             }
             else {
@@ -210,7 +217,7 @@ final class PropertyPair {
             }
         }
         else if (prop.getEdmType() == EdmType.DOUBLE) {
-            if (this.setter.getParameterTypes()[0].equals(Double.class)) {
+            if (this.type == Double.class) {
                 this.setter.invoke(instance, prop.getValueAsDoubleObject());
             }
             else {
@@ -221,7 +228,7 @@ final class PropertyPair {
             this.setter.invoke(instance, prop.getValueAsUUID());
         }
         else if (prop.getEdmType() == EdmType.INT32) {
-            if (this.setter.getParameterTypes()[0].equals(Integer.class)) {
+            if (this.type == Integer.class) {
                 this.setter.invoke(instance, prop.getValueAsIntegerObject());
             }
             else {
@@ -229,7 +236,7 @@ final class PropertyPair {
             }
         }
         else if (prop.getEdmType() == EdmType.INT64) {
-            if (this.setter.getParameterTypes()[0].equals(Long.class)) {
+            if (this.type == Long.class) {
                 this.setter.invoke(instance, prop.getValueAsLongObject());
             }
             else {
@@ -266,9 +273,24 @@ final class PropertyPair {
      */
     protected EntityProperty generateEntityProperty(final Object instance) throws IllegalArgumentException,
             IllegalAccessException, InvocationTargetException {
-        final Class<?> getType = this.getter.getReturnType();
-        Object val = this.getter.invoke(instance, (Object[]) null);
-        return new EntityProperty(val, getType);
+        final Object val = this.getter.invoke(instance, (Object[]) null);
+        return new EntityProperty(val, this.type);
+    }
+
+    /**
+     * Reserved for internal use. Suppresses the Java language access checks on the getter and setter methods so that
+     * they are not repeated on every invocation. The property pairs of a class are cached and invoked once per
+     * property of every entity read or written, so skipping the checks matters for large query results. If a security
+     * manager denies this, the methods are invoked with the checks as before.
+     */
+    private void suppressAccessChecks() {
+        try {
+            this.getter.setAccessible(true);
+            this.setter.setAccessible(true);
+        }
+        catch (final SecurityException e) {
+            // The checks remain in place, which is only slower.
+        }
     }
 
     /**
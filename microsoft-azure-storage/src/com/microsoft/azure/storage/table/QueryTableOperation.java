@@ -18,13 +18,16 @@ package com.microsoft.azure.storage.table;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.concurrent.Executor;
 
 import javax.xml.stream.XMLStreamException;
 
 import com.fasterxml.jackson.core.JsonParseException;
+import com.microsoft.azure.storage.LocationMode;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageExtendedErrorInformation;
+import com.microsoft.azure.storage.StorageFuture;
 import com.microsoft.azure.storage.core.ExecutionEngine;
 import com.microsoft.azure.storage.core.RequestLocationMode;
 import com.microsoft.azure.storage.core.SR;
@@ -177,10 +180,49 @@ public class QueryTableOperation extends TableOperation {
     protected TableResult performRetrieve(final CloudTableClient client, final String tableName,
             final TableRequestOptions options, final OperationContext opContext) throws StorageException {
 
+        if (!this.isPrimaryOnlyRetrieve() && ExecutionEngine.isHedged(options, client.getStorageUri())) {
+            final TableRequestOptions primaryOptions = new TableRequestOptions(options);
+            primaryOptions.setLocationMode(LocationMode.PRIMARY_ONLY);
+            final TableRequestOptions secondaryOptions = new TableRequestOptions(options);
+            secondaryOptions.setLocationMode(LocationMode.SECONDARY_ONLY);
+
+            return ExecutionEngine.executeWithHedging(client, this,
+                    this.retrieveImpl(client, tableName, primaryOptions), this,
+                    this.retrieveImpl(client, tableName, secondaryOptions), options.getRetryPolicyFactory(),
+                    opContext, options.getHedgingPolicy()).getResult();
+        }
+
         return ExecutionEngine.executeWithRetry(client, this, this.retrieveImpl(client, tableName, options),
                 options.getRetryPolicyFactory(), opContext);
     }
 
+    /**
+     * Reserved for internal use. Begins performing a retrieve operation on the specified table, using the specified
+     * {@link TableRequestOptions} and {@link OperationContext}.
+     * 
+     * @param client
+     *            A {@link CloudTableClient} instance specifying the Table service endpoint and storage account
+     *            credentials to use.
+     * @param tableName
+     *            A <code>String</code> containing the name of the table to query.
+     * @param options
+     *            A {@link TableRequestOptions} object that specifies execution options such as retry policy and timeout
+     *            settings for the operation.
+     * @param opContext
+     *            An {@link OperationContext} object for tracking the current operation.
+     * @param executor
+     *            The <code>Executor</code> which runs each attempt.
+     * 
+     * @return
+     *         A {@link StorageFuture} which completes with the results of executing the query operation.
+     */
+    protected StorageFuture<TableResult> performRetrieveAsync(final CloudTableClient client, final String tableName,
+            final TableRequestOptions options, final OperationContext opContext, final Executor executor) {
+
+        return ExecutionEngine.executeWithRetryAsync(client, this, this.retrieveImpl(client, tableName, options),
+                options.getRetryPolicyFactory(), opContext, executor);
+    }
+
     private StorageRequest<CloudTableClient, QueryTableOperation, TableResult> retrieveImpl(
             final CloudTableClient client, final String tableName, final TableRequestOptions options) {
         final boolean isTableEntry = TableConstants.TABLES_SERVICE_TABLES_NAME.equals(tableName);
@@ -0,0 +1,280 @@
+/**
+ * Copyright Microsoft Corporation
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.microsoft.azure.storage.table;
+
+import java.io.ByteArrayInputStream;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
+
+import com.microsoft.azure.storage.DoesServiceRequest;
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.ResultContinuation;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.core.ExecutionEngine;
+import com.microsoft.azure.storage.core.SR;
+import com.microsoft.azure.storage.core.SegmentedStorageRequest;
+import com.microsoft.azure.storage.core.StorageRequest;
+import com.microsoft.azure.storage.table.TableDeserializer.JsonQueryResponseReader;
+
+/**
+ * Reserved for internal use. An iterator over the results of a table query which parses each entity only when the
+ * iterator reaches it.
+ * <p>
+ * Each segment is downloaded in full within its request, so that retries behave as for any other query, but it is kept
+ * as the response payload rather than as a list of entities. If prefetching is enabled, the request for the next
+ * segment is issued on the service client's transfer scheduler as soon as the current segment arrives.
+ * 
+ * @param <T>
+ *            The class type implementing {@link TableEntity} for the entities returned.
+ * @param <R>
+ *            The type of the results, which is <code>T</code> unless a resolver is given.
+ */
+final class StreamingQueryIterator<T extends TableEntity, R> implements Iterator<R> {
+
+    /**
+     * Holds the service client executing the query.
+     */
+    private final CloudTableClient client;
+
+    /**
+     * Holds the query to execute.
+     */
+    private final TableQuery<T> query;
+
+    /**
+     * Holds the resolver projecting the entities, or <code>null</code>.
+     */
+    private final EntityResolver<R> resolver;
+
+    /**
+     * Holds the request options of the query.
+     */
+    private final TableRequestOptions options;
+
+    /**
+     * Holds an object used to track the execution of the operation.
+     */
+    private final OperationContext opContext;
+
+    /**
+     * Holds the request used to retrieve each segment.
+     */
+    private final StorageRequest<CloudTableClient, TableQuery<T>, QueryResponseSegment> segmentGenerator;
+
+    /**
+     * Holds the executor on which the next segment is prefetched, or <code>null</code> if prefetching is disabled.
+     */
+    private final Executor prefetchExecutor;
+
+    /**
+     * Holds the pending request for the next segment, if one has been prefetched.
+     */
+    private FutureTask<QueryResponseSegment> pendingSegment;
+
+    /**
+     * Holds the reader over the current segment.
+     */
+    private JsonQueryResponseReader<T, R> currentReader;
+
+    /**
+     * Indicates whether there are segments left to retrieve.
+     */
+    private boolean hasMoreSegments = true;
+
+    /**
+     * Creates an instance of the <code>StreamingQueryIterator</code> class.
+     * 
+     * @param client
+     *            The {@link CloudTableClient} executing the query.
+     * @param query
+     *            The {@link TableQuery} to execute.
+     * @param resolver
+     *            An {@link EntityResolver} instance to project the entities into instances of type <code>R</code>, or
+     *            <code>null</code> to return the entities as instances of the query class type.
+     * @param options
+     *            A {@link TableRequestOptions} object with defaults applied.
+     * @param opContext
+     *            An {@link OperationContext} object for tracking the current operation.
+     */
+    StreamingQueryIterator(final CloudTableClient client, final TableQuery<T> query,
+            final EntityResolver<R> resolver, final TableRequestOptions options, final OperationContext opContext) {
+        this.client = client;
+        this.query = query;
+        this.resolver = resolver;
+        this.options = options;
+        this.opContext = opContext;
+        this.segmentGenerator = client.executeQuerySegmentedStreamingCoreImpl(query, resolver, options,
+                new SegmentedStorageRequest());
+        this.prefetchExecutor = options.getPrefetchNextSegment() ? client.getTransferScheduler().createSession(1)
+                : null;
+    }
+
+    /**
+     * Indicates if the iterator has another element.
+     */
+    @Override
+    @DoesServiceRequest
+    public boolean hasNext() {
+        try {
+            while (true) {
+                if (this.currentReader != null) {
+                    if (this.currentReader.hasNext()) {
+                        return true;
+                    }
+
+                    this.currentReader.close();
+                    this.currentReader = null;
+                }
+
+                if (!this.hasMoreSegments) {
+                    return false;
+                }
+
+                final QueryResponseSegment segment = this.nextSegment();
+                this.hasMoreSegments = segment.continuationToken != null;
+                if (this.hasMoreSegments && this.prefetchExecutor != null) {
+                    this.prefetchSegment();
+                }
+
+                this.currentReader = new JsonQueryResponseReader<T, R>(new ByteArrayInputStream(segment.payload),
+                        this.query.getClazzType(), this.resolver, this.options, this.opContext);
+            }
+        }
+        catch (final RuntimeException e) {
+            throw e;
+        }
+        catch (final Exception e) {
+            throw enumerationError(e);
+        }
+    }
+
+    /**
+     * Returns the next element.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public R next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+
+        try {
+            return (R) this.currentReader.next().getResult();
+        }
+        catch (final RuntimeException e) {
+            throw e;
+        }
+        catch (final Exception e) {
+            throw enumerationError(e);
+        }
+    }
+
+    /**
+     * Removes an element, not supported
+     */
+    @Override
+    public void remove() {
+        // read only, no-op
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Retrieves the next segment, waiting for the prefetched request if there is one.
+     */
+    private QueryResponseSegment nextSegment() throws Exception {
+        final FutureTask<QueryResponseSegment> pending = this.pendingSegment;
+        if (pending == null) {
+            return this.fetchSegment();
+        }
+
+        this.pendingSegment = null;
+        try {
+            return pending.get();
+        }
+        catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.cancel(false);
+            throw e;
+        }
+        catch (final ExecutionException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    /**
+     * Issues the request for the next segment in the background.
+     */
+    private void prefetchSegment() {
+        this.pendingSegment = new FutureTask<QueryResponseSegment>(new Callable<QueryResponseSegment>() {
+            @Override
+            public QueryResponseSegment call() throws StorageException {
+                return StreamingQueryIterator.this.fetchSegment();
+            }
+        });
+
+        this.prefetchExecutor.execute(this.pendingSegment);
+    }
+
+    /**
+     * Executes the request for the next segment on the calling thread.
+     */
+    private QueryResponseSegment fetchSegment() throws StorageException {
+        return ExecutionEngine.executeWithRetry(this.client, this.query, this.segmentGenerator,
+                this.options.getRetryPolicyFactory(), this.opContext);
+    }
+
+    /**
+     * Wraps an exception raised while enumerating so that it may be thrown from the iterator.
+     */
+    private static NoSuchElementException enumerationError(final Exception cause) {
+        final NoSuchElementException ex = new NoSuchElementException(SR.ENUMERATION_ERROR);
+        ex.initCause(cause);
+        return ex;
+    }
+
+    /**
+     * Reserved for internal use. Represents a segment of a query response which has been downloaded but not parsed.
+     */
+    static final class QueryResponseSegment {
+
+        /**
+         * Holds the response payload.
+         */
+        private final byte[] payload;
+
+        /**
+         * Holds the continuation token for the next segment, or <code>null</code> if this is the last segment.
+         */
+        private final ResultContinuation continuationToken;
+
+        /**
+         * Creates an instance of the <code>QueryResponseSegment</code> class.
+         * 
+         * @param payload
+         *            A <code>byte</code> array which contains the response payload.
+         * @param continuationToken
+         *            The {@link ResultContinuation} for the next segment, or <code>null</code>.
+         */
+        QueryResponseSegment(final byte[] payload, final ResultContinuation continuationToken) {
+            this.payload = payload;
+            this.continuationToken = continuationToken;
+        }
+    }
+}
@@ -431,6 +431,15 @@ public class TableBatchOperation extends ArrayList<TableOperation> {
             MimeHelper.writeBatchToStream(sendStream, options, tableName, client.getTransformedEndPoint(opContext)
                     .getPrimaryUri(), this, batchID, changeSet, opContext);
             final byte[] batchBytes = sendStream.toByteArray();
+
+            // The service rejects larger batches, so fail before uploading the payload.
+            if (batchBytes.length > TableConstants.BATCH_MAXIMUM_PAYLOAD_SIZE_IN_BYTES) {
+                throw new StorageException(StorageErrorCodeStrings.REQUEST_BODY_TOO_LARGE, String.format(
+                        SR.BATCH_PAYLOAD_TOO_LARGE, batchBytes.length,
+                        TableConstants.BATCH_MAXIMUM_PAYLOAD_SIZE_IN_BYTES),
+                        HttpURLConnection.HTTP_ENTITY_TOO_LARGE, null /* extendedErrorInfo */, null /* innerException */);
+            }
+
             final StorageRequest<CloudTableClient, TableBatchOperation, ArrayList<TableResult>> batchRequest = new StorageRequest<CloudTableClient, TableBatchOperation, ArrayList<TableResult>>(
                     options, client.getStorageUri()) {
 
@@ -0,0 +1,574 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.table;
+
+import java.net.HttpURLConnection;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+
+import com.microsoft.azure.storage.OperationContext;
+import com.microsoft.azure.storage.StorageErrorCodeStrings;
+import com.microsoft.azure.storage.StorageException;
+import com.microsoft.azure.storage.StorageFuture;
+import com.microsoft.azure.storage.TransferScheduler;
+import com.microsoft.azure.storage.core.SR;
+import com.microsoft.azure.storage.core.Utility;
+
+/**
+ * Represents a writer which executes an unbounded sequence of table operations as batches. Create a bulk writer with
+ * {@link CloudTable#createBulkWriter(TableRequestOptions, OperationContext)}.
+ * <p>
+ * Operations are grouped by PartitionKey and packed into batches of up to 100 operations, starting a new batch early
+ * when an operation targets an entity already in the batch. A batch whose payload exceeds the 4 MB limit is split
+ * before it is sent. Batches of different partitions are executed concurrently, up to
+ * {@link TableRequestOptions#getConcurrentRequestCount()} at once, on the service client's {@link TransferScheduler}.
+ * The batches of a single partition are executed one at a time in the order their operations were added, so operations
+ * on the same entity are applied in order.
+ * <p>
+ * Each call to {@link #add(TableOperation)} returns a {@link StorageFuture} which completes with the result of the
+ * operation, or with a {@link TableServiceException} identifying the operation if it fails. When a batch fails
+ * because of one of its operations, only that operation fails; the remaining operations are executed again in a new
+ * batch.
+ * <p>
+ * A batch is submitted once it is full or when {@link #flush()} or {@link #close()} is called. When the number of
+ * pending operations reaches its limit, <code>add</code> submits the largest partial batches while fewer batches than
+ * the concurrent request count are executing, and otherwise waits for a batch to complete.
+ * <p>
+ * The methods of a bulk writer may be called from multiple threads.
+ */
+public final class TableBulkWriter {
+
+    /**
+     * Holds the table the operations are executed on.
+     */
+    private final CloudTable table;
+
+    /**
+     * Holds the request options, with the client defaults applied.
+     */
+    private final TableRequestOptions options;
+
+    /**
+     * Holds the operation context from which the context of each batch is created.
+     */
+    private final OperationContext opContext;
+
+    /**
+     * Holds the session the batches are scheduled on.
+     */
+    private final TransferScheduler.Session transferSession;
+
+    /**
+     * Holds the maximum number of batches which may execute at once.
+     */
+    private final int maximumExecutingBatches;
+
+    /**
+     * Holds the maximum number of operations which may be added but not yet completed.
+     */
+    private final int maximumPendingOperations;
+
+    /**
+     * Holds the lock guarding the state of the writer.
+     */
+    private final Object writerLock = new Object();
+
+    /**
+     * Holds the partitions with buffered or executing batches, keyed by PartitionKey, oldest first.
+     */
+    private final LinkedHashMap<String, Partition> partitions = new LinkedHashMap<String, Partition>();
+
+    /**
+     * Holds the number of operations which have been added but not yet completed.
+     */
+    private int pendingOperations;
+
+    /**
+     * Holds the number of batches which are executing.
+     */
+    private int executingBatches;
+
+    /**
+     * Holds the number of operations which have failed.
+     */
+    private long failedOperations;
+
+    /**
+     * Indicates whether the writer has been closed.
+     */
+    private boolean isClosed;
+
+    /**
+     * Reserved for internal use. Creates an instance of the <code>TableBulkWriter</code> class.
+     *
+     * @param table
+     *            The {@link CloudTable} the operations are executed on.
+     * @param options
+     *            A {@link TableRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object which has already been initialized.
+     */
+    TableBulkWriter(final CloudTable table, final TableRequestOptions options, final OperationContext opContext) {
+        this.table = table;
+        this.options = options;
+        this.opContext = opContext;
+        this.transferSession = table.getServiceClient().getTransferScheduler()
+                .createSession(options.getConcurrentRequestCount());
+        this.maximumExecutingBatches = options.getConcurrentRequestCount();
+        this.maximumPendingOperations = Math.max(TableConstants.BULK_WRITE_MINIMUM_PENDING_OPERATIONS, 2
+                * options.getConcurrentRequestCount() * TableConstants.BATCH_MAXIMUM_OPERATIONS);
+    }
+
+    /**
+     * Adds an operation to be executed. If the number of pending operations has reached its limit, this method submits
+     * buffered batches and waits for some to complete.
+     *
+     * @param operation
+     *            The {@link TableOperation} to execute. Retrieve operations are not supported.
+     * @return A {@link StorageFuture} which completes with the {@link TableResult} of the operation.
+     *
+     * @throws StorageException
+     *             if the thread is interrupted while waiting.
+     */
+    public StorageFuture<TableResult> add(final TableOperation operation) throws StorageException {
+        Utility.assertNotNull("operation", operation);
+        if (operation.getOperationType() == TableOperationType.RETRIEVE) {
+            throw new IllegalArgumentException(SR.RETRIEVE_NOT_ALLOWED_IN_BULK_WRITE);
+        }
+
+        final TableEntity entity = operation.getEntity();
+        Utility.assertNotNull("entity", entity);
+        Utility.assertNotNull("partitionKey", entity.getPartitionKey());
+
+        final StorageFuture<TableResult> future = new StorageFuture<TableResult>();
+        synchronized (this.writerLock) {
+            if (this.isClosed) {
+                throw new IllegalStateException(SR.BULK_WRITER_CLOSED);
+            }
+
+            while (this.pendingOperations >= this.maximumPendingOperations) {
+                // Submit partial batches only while there is spare concurrency; otherwise wait for a batch to complete.
+                if (this.executingBatches >= this.maximumExecutingBatches || !this.submitLargestBufferedBatch()) {
+                    this.waitForCompletion();
+                }
+            }
+
+            Partition partition = this.partitions.get(entity.getPartitionKey());
+            if (partition == null) {
+                partition = new Partition(entity.getPartitionKey());
+                this.partitions.put(partition.partitionKey, partition);
+            }
+
+            if (partition.bufferedBatch != null && !partition.bufferedBatch.accepts(operation)) {
+                partition.closeBufferedBatch();
+            }
+
+            if (partition.bufferedBatch == null) {
+                partition.bufferedBatch = new Batch();
+            }
+
+            partition.bufferedBatch.add(operation, future);
+            this.pendingOperations++;
+            if (partition.bufferedBatch.operations.size() == TableConstants.BATCH_MAXIMUM_OPERATIONS) {
+                partition.closeBufferedBatch();
+            }
+
+            partition.submitNextBatch();
+        }
+
+        return future;
+    }
+
+    /**
+     * Submits all buffered operations and waits for every pending operation to complete. Failures of individual
+     * operations are reported through the futures returned by {@link #add(TableOperation)} and do not cause this
+     * method to throw.
+     *
+     * @throws StorageException
+     *             if the thread is interrupted while waiting.
+     */
+    public void flush() throws StorageException {
+        synchronized (this.writerLock) {
+            for (final Partition partition : new ArrayList<Partition>(this.partitions.values())) {
+                partition.closeBufferedBatch();
+                partition.submitNextBatch();
+            }
+
+            while (this.pendingOperations > 0) {
+                this.waitForCompletion();
+            }
+        }
+    }
+
+    /**
+     * Flushes the writer and prevents further operations from being added. Closing a writer which is already closed
+     * has no effect.
+     *
+     * @throws StorageException
+     *             if the thread is interrupted while waiting.
+     */
+    public void close() throws StorageException {
+        synchronized (this.writerLock) {
+            this.isClosed = true;
+        }
+
+        this.flush();
+    }
+
+    /**
+     * Gets the number of operations which have been added but not yet completed.
+     *
+     * @return An <code>int</code> which represents the number of pending operations.
+     */
+    public int getPendingOperationCount() {
+        synchronized (this.writerLock) {
+            return this.pendingOperations;
+        }
+    }
+
+    /**
+     * Gets the number of operations which have failed since the writer was created.
+     *
+     * @return A <code>long</code> which represents the number of failed operations.
+     */
+    public long getFailedOperationCount() {
+        synchronized (this.writerLock) {
+            return this.failedOperations;
+        }
+    }
+
+    /**
+     * Closes and submits the largest buffered batch of a partition which has no batch executing. Must be called while
+     * holding the writer lock.
+     *
+     * @return <code>true</code> if a batch was submitted; otherwise <code>false</code>.
+     */
+    private boolean submitLargestBufferedBatch() {
+        Partition largestPartition = null;
+        int largestSize = 0;
+        for (final Partition partition : this.partitions.values()) {
+            if (partition.bufferedBatch != null && !partition.isExecuting
+                    && partition.bufferedBatch.operations.size() > largestSize) {
+                largestPartition = partition;
+                largestSize = partition.bufferedBatch.operations.size();
+            }
+        }
+
+        if (largestPartition == null) {
+            return false;
+        }
+
+        largestPartition.closeBufferedBatch();
+        largestPartition.submitNextBatch();
+        return true;
+    }
+
+    /**
+     * Waits for an executing batch to complete. Must be called while holding the writer lock.
+     *
+     * @throws StorageException
+     *             if the thread is interrupted while waiting.
+     */
+    private void waitForCompletion() throws StorageException {
+        try {
+            this.writerLock.wait();
+        }
+        catch (final InterruptedException e) {
+            throw Utility.generateNewUnexpectedStorageException(e);
+        }
+    }
+
+    /**
+     * Executes the operations of a batch, completing the future of each operation. If the batch fails because of one
+     * of its operations, that operation fails and the others are executed again. Runs on a scheduler thread.
+     *
+     * @param operations
+     *            The {@link TableOperation} objects to execute, all with the same PartitionKey.
+     * @param futures
+     *            The {@link StorageFuture} of each operation.
+     */
+    private void executeBatch(final List<TableOperation> operations, final List<StorageFuture<TableResult>> futures) {
+        final TableBatchOperation batch = new TableBatchOperation();
+        batch.addAll(operations);
+
+        final ArrayList<TableResult> results;
+        try {
+            results = batch.execute(this.table.getServiceClient(), this.table.getName(), this.options,
+                    this.opContext.createRequestContext());
+        }
+        catch (final StorageException e) {
+            this.handleBatchFailure(operations, futures, e);
+            return;
+        }
+        catch (final RuntimeException e) {
+            this.failOperations(futures, Utility.generateNewUnexpectedStorageException(e));
+            return;
+        }
+
+        for (int i = 0; i < futures.size(); i++) {
+            futures.get(i).setResult(results.get(i));
+        }
+    }
+
+    /**
+     * Determines which operations of a failed batch failed, and executes the others again.
+     *
+     * @param operations
+     *            The {@link TableOperation} objects of the batch.
+     * @param futures
+     *            The {@link StorageFuture} of each operation.
+     * @param exception
+     *            The {@link StorageException} the batch failed with.
+     */
+    private void handleBatchFailure(final List<TableOperation> operations,
+            final List<StorageFuture<TableResult>> futures, final StorageException exception) {
+        final int size = operations.size();
+        if (size > 1 && StorageErrorCodeStrings.REQUEST_BODY_TOO_LARGE.equals(exception.getErrorCode())) {
+            // Split the batch in order, so operations on the same entity stay in order.
+            final int half = size / 2;
+            this.executeBatch(operations.subList(0, half), futures.subList(0, half));
+            this.executeBatch(operations.subList(half, size), futures.subList(half, size));
+            return;
+        }
+
+        final int failedIndex = getFailedOperationIndex(exception, size);
+        if (failedIndex >= 0) {
+            final TableOperation failedOperation = operations.get(failedIndex);
+            if (exception instanceof TableServiceException) {
+                ((TableServiceException) exception).setOperation(failedOperation);
+            }
+
+            this.failOperations(futures.subList(failedIndex, failedIndex + 1), exception);
+            if (size > 1) {
+                final ArrayList<TableOperation> remainingOperations = new ArrayList<TableOperation>(operations);
+                final ArrayList<StorageFuture<TableResult>> remainingFutures = new ArrayList<StorageFuture<TableResult>>(
+                        futures);
+                remainingOperations.remove(failedIndex);
+                remainingFutures.remove(failedIndex);
+                this.executeBatch(remainingOperations, remainingFutures);
+            }
+        }
+        else if (size > 1 && isOperationError(exception)) {
+            // The batch was rejected because of an operation it did not name, so execute the operations one at a time
+            // to find out which are at fault.
+            for (int i = 0; i < size; i++) {
+                try {
+                    futures.get(i).setResult(
+                            operations.get(i).performOperation(this.table.getServiceClient(), this.table.getName(),
+                                    this.options, this.opContext.createRequestContext()));
+                }
+                catch (final StorageException e) {
+                    this.failOperations(futures.subList(i, i + 1), e);
+                }
+            }
+        }
+        else {
+            this.failOperations(futures, exception);
+        }
+    }
+
+    /**
+     * Completes the futures of failed operations.
+     */
+    private void failOperations(final List<StorageFuture<TableResult>> futures, final StorageException exception) {
+        synchronized (this.writerLock) {
+            this.failedOperations += futures.size();
+        }
+
+        for (final StorageFuture<TableResult> future : futures) {
+            future.setException(exception);
+        }
+    }
+
+    /**
+     * Completes the futures of operations which were left incomplete because executing their batch threw an error.
+     */
+    private void failIncompleteOperations(final List<StorageFuture<TableResult>> futures) {
+        final ArrayList<StorageFuture<TableResult>> incompleteFutures = new ArrayList<StorageFuture<TableResult>>();
+        for (final StorageFuture<TableResult> future : futures) {
+            if (!future.isDone()) {
+                incompleteFutures.add(future);
+            }
+        }
+
+        if (!incompleteFutures.isEmpty()) {
+            this.failOperations(incompleteFutures, Utility.generateNewUnexpectedStorageException(null));
+        }
+    }
+
+    /**
+     * Determines whether a batch was rejected because of one of its operations, rather than because of the request as a
+     * whole, such as an authentication failure or a missing table.
+     */
+    private static boolean isOperationError(final StorageException exception) {
+        if (exception.getHttpStatusCode() == HttpURLConnection.HTTP_BAD_REQUEST) {
+            return true;
+        }
+
+        final String errorCode = exception.getErrorCode();
+        return StorageErrorCodeStrings.ENTITY_ALREADY_EXISTS.equals(errorCode)
+                || StorageErrorCodeStrings.RESOURCE_NOT_FOUND.equals(errorCode)
+                || StorageErrorCodeStrings.UPDATE_CONDITION_NOT_SATISFIED.equals(errorCode);
+    }
+
+    /**
+     * Gets the index of the operation which caused a batch to fail, as reported at the start of the error message in
+     * the form <code>index:message</code>.
+     *
+     * @return The index of the failed operation, or -1 if the error does not identify one.
+     */
+    private static int getFailedOperationIndex(final StorageException exception, final int size) {
+        if (exception.getExtendedErrorInformation() == null
+                || exception.getExtendedErrorInformation().getErrorMessage() == null) {
+            return -1;
+        }
+
+        final String message = exception.getExtendedErrorInformation().getErrorMessage();
+        final int separator = message.indexOf(':');
+        if (separator <= 0) {
+            return -1;
+        }
+
+        try {
+            final int index = Integer.parseInt(message.substring(0, separator));
+            return index < size ? index : -1;
+        }
+        catch (final NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Represents the operations of a partition which have been added but not yet completed. Accessed while holding the
+     * writer lock.
+     */
+    private final class Partition {
+
+        /**
+         * Holds the PartitionKey of the operations.
+         */
+        private final String partitionKey;
+
+        /**
+         * Holds the batch which operations are being added to, if any.
+         */
+        private Batch bufferedBatch;
+
+        /**
+         * Holds the batches which are ready to execute, in order.
+         */
+        private final LinkedList<Batch> closedBatches = new LinkedList<Batch>();
+
+        /**
+         * Indicates whether a batch of the partition is executing.
+         */
+        private boolean isExecuting;
+
+        private Partition(final String partitionKey) {
+            this.partitionKey = partitionKey;
+        }
+
+        /**
+         * Moves the buffered batch, if any, to the batches ready to execute.
+         */
+        private void closeBufferedBatch() {
+            if (this.bufferedBatch != null) {
+                this.closedBatches.add(this.bufferedBatch);
+                this.bufferedBatch = null;
+            }
+        }
+
+        /**
+         * Submits the next ready batch if no batch of the partition is executing.
+         */
+        private void submitNextBatch() {
+            if (this.isExecuting || this.closedBatches.isEmpty()) {
+                return;
+            }
+
+            final Batch batch = this.closedBatches.removeFirst();
+            this.isExecuting = true;
+            TableBulkWriter.this.executingBatches++;
+            TableBulkWriter.this.transferSession.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        TableBulkWriter.this.executeBatch(batch.operations, batch.futures);
+                    }
+                    finally {
+                        // An error thrown while executing the batch must not leave callers waiting on its futures.
+                        TableBulkWriter.this.failIncompleteOperations(batch.futures);
+                        Partition.this.completeBatch(batch);
+                    }
+                }
+            });
+        }
+
+        /**
+         * Records the completion of a batch and submits the next one.
+         */
+        private void completeBatch(final Batch batch) {
+            synchronized (TableBulkWriter.this.writerLock) {
+                TableBulkWriter.this.pendingOperations -= batch.operations.size();
+                TableBulkWriter.this.executingBatches--;
+                this.isExecuting = false;
+                this.submitNextBatch();
+                if (!this.isExecuting && this.bufferedBatch == null) {
+                    TableBulkWriter.this.partitions.remove(this.partitionKey);
+                }
+
+                TableBulkWriter.this.writerLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Represents the operations packed into a single batch.
+     */
+    private static final class Batch {
+
+        /**
+         * Holds the operations of the batch.
+         */
+        private final ArrayList<TableOperation> operations = new ArrayList<TableOperation>();
+
+        /**
+         * Holds the future of each operation.
+         */
+        private final ArrayList<StorageFuture<TableResult>> futures = new ArrayList<StorageFuture<TableResult>>();
+
+        /**
+         * Holds the RowKeys of the operations, since a batch may only operate on an entity once.
+         */
+        private final HashSet<String> rowKeys = new HashSet<String>();
+
+        /**
+         * Returns whether the operation may be added to the batch.
+         */
+        private boolean accepts(final TableOperation operation) {
+            return this.operations.size() < TableConstants.BATCH_MAXIMUM_OPERATIONS
+                    && !this.rowKeys.contains(operation.getEntity().getRowKey());
+        }
+
+        private void add(final TableOperation operation, final StorageFuture<TableResult> future) {
+            this.operations.add(operation);
+            this.futures.add(future);
+            this.rowKeys.add(operation.getEntity().getRowKey());
+        }
+    }
+}
@@ -15,6 +15,8 @@
 
 package com.microsoft.azure.storage.table;
 
+import com.microsoft.azure.storage.Constants;
+
 /**
  * RESERVED FOR INTERNAL USE. Holds the constants used for the Table Service.
  */
@@ -158,6 +160,36 @@ final class TableConstants {
 
     }
 
+    /**
+     * The maximum number of operations in a batch.
+     */
+    public static final int BATCH_MAXIMUM_OPERATIONS = 100;
+
+    /**
+     * The maximum size, in bytes, of the payload of a batch.
+     */
+    public static final int BATCH_MAXIMUM_PAYLOAD_SIZE_IN_BYTES = 4 * Constants.MB;
+
+    /**
+     * The minimum number of operations a bulk writer buffers before waiting for batches to complete.
+     */
+    public static final int BULK_WRITE_MINIMUM_PENDING_OPERATIONS = 10000;
+
+    /**
+     * The default number of concurrent requests issued by a parallel table operation.
+     */
+    public static final int DEFAULT_CONCURRENT_REQUEST_COUNT = 8;
+
+    /**
+     * The maximum length of the PartitionKey prefixes examined when sampling the ranges of a table.
+     */
+    public static final int MAXIMUM_SAMPLED_PREFIX_LENGTH = 32;
+
+    /**
+     * The maximum number of PartitionKey prefixes, per range requested, examined when sampling the ranges of a table.
+     */
+    public static final int MAXIMUM_SAMPLED_PREFIXES_PER_RANGE = 16;
+
     /**
      * The prefix used in all ETags.
      */
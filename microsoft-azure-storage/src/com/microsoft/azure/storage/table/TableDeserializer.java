@@ -393,7 +393,8 @@ final class TableDeserializer {
         ODataPayload<R> resolvedPayload = null;
         ODataPayload<?> commonPayload = null;
 
-        JsonParser parser = createJsonParserFromStream(inStream);
+        final JsonQueryResponseReader<T, R> reader = new JsonQueryResponseReader<T, R>(inStream, clazzType,
+                resolver, options, opContext);
 
         try {
 
@@ -406,58 +407,22 @@ final class TableDeserializer {
                 commonPayload = corePayload;
             }
 
-            if (!parser.hasCurrentToken()) {
-                parser.nextToken();
-            }
-
-            ODataUtilities.assertIsStartObjectJsonToken(parser);
-
-            // move into data  
-            parser.nextToken();
-
-            // if there is a clazz type and if JsonNoMetadata, create a classProperties dictionary to use for type inference once 
-            // instead of querying the cache many times
-            HashMap<String, PropertyPair> classProperties = null;
-            if (options.getTablePayloadFormat() == TablePayloadFormat.JsonNoMetadata && clazzType != null) {
-                classProperties = PropertyPair.generatePropertyPairs(clazzType);
-            }
-
-            while (parser.getCurrentToken() != null) {
-                if (parser.getCurrentToken() == JsonToken.FIELD_NAME
-                        && parser.getCurrentName().equals(ODataConstants.VALUE)) {
-                    // move to start of array
-                    parser.nextToken();
-
-                    ODataUtilities.assertIsStartArrayJsonToken(parser);
-
-                    // go to properties
-                    parser.nextToken();
-
-                    while (parser.getCurrentToken() == JsonToken.START_OBJECT) {
-                        final TableResult res = parseJsonEntity(parser, clazzType, classProperties, resolver, options,
-                                opContext);
-                        if (corePayload != null) {
-                            corePayload.tableResults.add(res);
-                        }
-
-                        if (resolver != null) {
-                            resolvedPayload.results.add((R) res.getResult());
-                        }
-                        else {
-                            corePayload.results.add((T) res.getResult());
-                        }
-
-                        parser.nextToken();
-                    }
-
-                    ODataUtilities.assertIsEndArrayJsonToken(parser);
+            while (reader.hasNext()) {
+                final TableResult res = reader.next();
+                if (corePayload != null) {
+                    corePayload.tableResults.add(res);
                 }
 
-                parser.nextToken();
+                if (resolver != null) {
+                    resolvedPayload.results.add((R) res.getResult());
+                }
+                else {
+                    corePayload.results.add((T) res.getResult());
+                }
             }
         }
         finally {
-            parser.close();
+            reader.close();
         }
 
         return commonPayload;
@@ -891,4 +856,186 @@ final class TableDeserializer {
         // allows handling of infinity, -infinity, and NaN for Doubles
         return parser.enable(JsonParser.Feature.ALLOW_NON_NUMERIC_NUMBERS);
     }
+
+    /**
+     * Reserved for internal use. Reads the entities of a JSON query response one at a time, so that a caller can
+     * process each entity before the next is parsed. {@link #parseJsonQueryResponse} uses this reader to build a whole
+     * {@link ODataPayload}, and streamed query iteration uses it to parse entities as they are consumed.
+     * 
+     * @param <T>
+     *            The class type implementing {@link TableEntity} for the entities returned.
+     * @param <R>
+     *            The type the entities are projected into by the resolver, if any.
+     */
+    static final class JsonQueryResponseReader<T extends TableEntity, R> {
+
+        /**
+         * Holds the parser reading the response.
+         */
+        private final JsonParser parser;
+
+        /**
+         * Holds the class type of the entities returned, or <code>null</code>.
+         */
+        private final Class<T> clazzType;
+
+        /**
+         * Holds the resolver projecting the entities, or <code>null</code>.
+         */
+        private final EntityResolver<R> resolver;
+
+        /**
+         * Holds the request options of the query.
+         */
+        private final TableRequestOptions options;
+
+        /**
+         * Holds the context of the operation.
+         */
+        private final OperationContext opContext;
+
+        /**
+         * Holds the property pairs used for type inference when reading JsonNoMetadata into a class type. They are
+         * looked up once rather than for every entity.
+         */
+        private final HashMap<String, PropertyPair> classProperties;
+
+        /**
+         * Indicates whether the parser has been moved to the start of the value array.
+         */
+        private boolean started;
+
+        /**
+         * Indicates whether the end of the value array has been reached.
+         */
+        private boolean finished;
+
+        /**
+         * Creates a reader over a JSON query response.
+         * 
+         * @param inStream
+         *            The <code>InputStream</code> to read the response from.
+         * @param clazzType
+         *            The class type <code>T</code> implementing {@link TableEntity} for the entities returned. Set to
+         *            <code>null</code> to ignore the returned entities and copy only response properties into the
+         *            {@link TableResult} objects.
+         * @param resolver
+         *            An {@link EntityResolver} instance to project the entities into instances of type <code>R</code>.
+         *            Set to <code>null</code> to return the entities as instances of the class type <code>T</code>.
+         * @param options
+         *            A {@link TableRequestOptions} object that specifies execution options such as retry policy and
+         *            timeout settings for the operation.
+         * @param opContext
+         *            An {@link OperationContext} object used to track the execution of the operation.
+         * @throws IOException
+         *             if an error occurs while accessing the stream.
+         * @throws JsonParseException
+         *             if an error occurs while parsing the stream.
+         */
+        JsonQueryResponseReader(final InputStream inStream, final Class<T> clazzType,
+                final EntityResolver<R> resolver, final TableRequestOptions options, final OperationContext opContext)
+                throws JsonParseException, IOException {
+            this.parser = createJsonParserFromStream(inStream);
+            this.clazzType = clazzType;
+            this.resolver = resolver;
+            this.options = options;
+            this.opContext = opContext;
+
+            // if there is a clazz type and if JsonNoMetadata, create a classProperties dictionary to use for type
+            // inference once instead of querying the cache many times
+            if (options.getTablePayloadFormat() == TablePayloadFormat.JsonNoMetadata && clazzType != null) {
+                this.classProperties = PropertyPair.generatePropertyPairs(clazzType);
+            }
+            else {
+                this.classProperties = null;
+            }
+        }
+
+        /**
+         * Indicates whether the response contains another entity.
+         * 
+         * @return <code>true</code> if {@link #next()} will return another entity; otherwise <code>false</code>.
+         * @throws IOException
+         *             if an error occurs while accessing the stream.
+         * @throws JsonParseException
+         *             if an error occurs while parsing the stream.
+         */
+        boolean hasNext() throws JsonParseException, IOException {
+            if (this.finished) {
+                return false;
+            }
+
+            if (!this.started) {
+                this.started = true;
+                if (!this.parser.hasCurrentToken()) {
+                    this.parser.nextToken();
+                }
+
+                ODataUtilities.assertIsStartObjectJsonToken(this.parser);
+
+                // move into data
+                this.parser.nextToken();
+
+                while (this.parser.getCurrentToken() != null
+                        && !(this.parser.getCurrentToken() == JsonToken.FIELD_NAME && this.parser.getCurrentName()
+                                .equals(ODataConstants.VALUE))) {
+                    this.parser.nextToken();
+                }
+
+                if (this.parser.getCurrentToken() == null) {
+                    this.finished = true;
+                    return false;
+                }
+
+                // move to start of array
+                this.parser.nextToken();
+
+                ODataUtilities.assertIsStartArrayJsonToken(this.parser);
+
+                // go to properties
+                this.parser.nextToken();
+            }
+
+            if (this.parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                return true;
+            }
+
+            ODataUtilities.assertIsEndArrayJsonToken(this.parser);
+            this.finished = true;
+            return false;
+        }
+
+        /**
+         * Parses the next entity of the response. {@link #hasNext()} must have returned <code>true</code>.
+         * 
+         * @return A {@link TableResult} object with the parsed entity.
+         * @throws InstantiationException
+         *             if an error occurs while constructing the result.
+         * @throws IllegalAccessException
+         *             if an error occurs in reflection while parsing the result.
+         * @throws StorageException
+         *             if a storage service error occurs.
+         * @throws IOException
+         *             if an error occurs while accessing the stream.
+         * @throws JsonParseException
+         *             if an error occurs while parsing the stream.
+         */
+        TableResult next() throws JsonParseException, IOException, StorageException, InstantiationException,
+                IllegalAccessException {
+            final TableResult res = parseJsonEntity(this.parser, this.clazzType, this.classProperties,
+                    this.resolver, this.options, this.opContext);
+            this.parser.nextToken();
+            return res;
+        }
+
+        /**
+         * Closes the parser.
+         * 
+         * @throws IOException
+         *             if an error occurs while closing the parser.
+         */
+        void close() throws IOException {
+            this.parser.close();
+        }
+    }
 }
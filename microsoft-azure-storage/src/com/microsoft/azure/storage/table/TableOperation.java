@@ -20,6 +20,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.HttpURLConnection;
+import java.util.concurrent.Executor;
 
 import javax.xml.stream.XMLStreamException;
 
@@ -28,6 +29,8 @@ import com.microsoft.azure.storage.Constants;
 import com.microsoft.azure.storage.OperationContext;
 import com.microsoft.azure.storage.StorageException;
 import com.microsoft.azure.storage.StorageExtendedErrorInformation;
+import com.microsoft.azure.storage.StorageFuture;
+import com.microsoft.azure.storage.TransferScheduler;
 import com.microsoft.azure.storage.core.ExecutionEngine;
 import com.microsoft.azure.storage.core.SR;
 import com.microsoft.azure.storage.core.StorageRequest;
@@ -744,6 +747,33 @@ public class TableOperation {
 
         opContext.initialize();
         options = TableRequestOptions.applyDefaults(options, client);
+        return this.performOperation(client, tableName, options, opContext);
+    }
+
+    /**
+     * Reserved for internal use. Executes this table operation as one request of an operation whose request options
+     * and operation context have already been initialized, such as an operation of a {@link TableBulkWriter}. Unlike
+     * {@link #execute}, this method does not reset the operation context, so it may be called concurrently for the
+     * same operation context.
+     * 
+     * @param client
+     *            A {@link CloudTableClient} instance specifying the Table service endpoint, storage account
+     *            credentials, and any additional query parameters.
+     * @param tableName
+     *            A <code>String</code> which specifies the name of the table.
+     * @param options
+     *            A {@link TableRequestOptions} object to which the client defaults have already been applied.
+     * @param opContext
+     *            An {@link OperationContext} object for tracking the current operation.
+     * 
+     * @return
+     *         A {@link TableResult} which represents the results of executing the operation.
+     * 
+     * @throws StorageException
+     *             if an error occurs in the storage operation.
+     */
+    TableResult performOperation(final CloudTableClient client, final String tableName,
+            final TableRequestOptions options, final OperationContext opContext) throws StorageException {
         Utility.assertNotNullOrEmpty(TableConstants.TABLE_NAME, tableName);
 
         if (this.getOperationType() == TableOperationType.INSERT
@@ -768,6 +798,65 @@ public class TableOperation {
         }
     }
 
+    /**
+     * Reserved for internal use. Begins executing this table operation on the specified table, using the specified
+     * {@link TableRequestOptions} and {@link OperationContext}. The attempts run on the client's
+     * {@link TransferScheduler}.
+     * 
+     * @param client
+     *            A {@link CloudTableClient} instance specifying the Table service endpoint, storage account
+     *            credentials, and any additional query parameters.
+     * @param tableName
+     *            A <code>String</code> which specifies the name of the table.
+     * @param options
+     *            A {@link TableRequestOptions} object that specifies execution options such as retry policy and timeout
+     *            settings for the operation.
+     * @param opContext
+     *            An {@link OperationContext} object for tracking the current operation.
+     * 
+     * @return
+     *         A {@link StorageFuture} which completes with the results of executing the operation.
+     * 
+     * @throws StorageException
+     *             if the request could not be created.
+     */
+    protected StorageFuture<TableResult> executeAsync(final CloudTableClient client, final String tableName,
+            TableRequestOptions options, OperationContext opContext) throws StorageException {
+        if (opContext == null) {
+            opContext = new OperationContext();
+        }
+
+        opContext.initialize();
+        options = TableRequestOptions.applyDefaults(options, client);
+        Utility.assertNotNullOrEmpty(TableConstants.TABLE_NAME, tableName);
+
+        final Executor executor = client.getTransferScheduler().createSession(1);
+        StorageRequest<CloudTableClient, TableOperation, TableResult> request = null;
+        if (this.getOperationType() == TableOperationType.INSERT
+                || this.getOperationType() == TableOperationType.INSERT_OR_MERGE
+                || this.getOperationType() == TableOperationType.INSERT_OR_REPLACE) {
+            request = this.insertImpl(client, tableName, options, opContext);
+        }
+        else if (this.getOperationType() == TableOperationType.DELETE) {
+            request = this.deleteImpl(client, tableName, options, opContext);
+        }
+        else if (this.getOperationType() == TableOperationType.MERGE) {
+            request = this.mergeImpl(client, tableName, options, opContext);
+        }
+        else if (this.getOperationType() == TableOperationType.REPLACE) {
+            request = this.updateImpl(client, tableName, options, opContext);
+        }
+        else if (this.getOperationType() == TableOperationType.RETRIEVE) {
+            return ((QueryTableOperation) this).performRetrieveAsync(client, tableName, options, opContext, executor);
+        }
+        else {
+            throw new IllegalArgumentException(SR.UNKNOWN_TABLE_OPERATION);
+        }
+
+        return ExecutionEngine.executeWithRetryAsync(client, this, request, options.getRetryPolicyFactory(), opContext,
+                executor);
+    }
+
     /**
      * Reserved for internal use. Generates the request identity, consisting of the specified entry name, or the
      * PartitionKey and RowKey pair from the operation, to identify the operation target.
@@ -710,6 +710,35 @@ public class TableQuery<T extends TableEntity> {
         return this;
     }
 
+    /**
+     * Reserved for internal use. Creates a copy of the table query which only matches entities within the specified
+     * range of PartitionKey values.
+     * 
+     * @param range
+     *            The {@link PartitionKeyRange} to restrict the query to.
+     * @return A new {@link TableQuery} instance combining the filter of this query with the range.
+     */
+    protected TableQuery<T> restrictToRange(final PartitionKeyRange range) {
+        final TableQuery<T> rangeQuery = new TableQuery<T>();
+        rangeQuery.clazzType = this.clazzType;
+        rangeQuery.sourceTableName = this.sourceTableName;
+        rangeQuery.columns = this.columns;
+        rangeQuery.takeCount = this.takeCount;
+
+        final String rangeFilter = range.generateFilterCondition();
+        if (rangeFilter == null) {
+            rangeQuery.filterString = this.filterString;
+        }
+        else if (Utility.isNullOrEmpty(this.filterString)) {
+            rangeQuery.filterString = rangeFilter;
+        }
+        else {
+            rangeQuery.filterString = combineFilters(this.filterString, Operators.AND, rangeFilter);
+        }
+
+        return rangeQuery;
+    }
+
     /**
      * Reserved for internal use. Creates a {@link UriQueryBuilder} object representing the table query.
      * 
@@ -68,6 +68,17 @@ public class TableRequestOptions extends RequestOptions {
      */
     private boolean dateBackwardCompatibility = false;
 
+    /**
+     * Indicates whether query results are parsed one entity at a time as they are iterated.
+     */
+    private Boolean streamQueryResults;
+
+    /**
+     * Represents the number of concurrent requests issued by parallel operations such as
+     * {@link CloudTable#executeParallel(TableQuery, java.util.List, TableScanHandler, TableRequestOptions, com.microsoft.azure.storage.OperationContext)}.
+     */
+    private Integer concurrentRequestCount;
+
     /**
      * Creates an instance of the <code>TableRequestOptions</code>
      */
@@ -88,6 +99,8 @@ public class TableRequestOptions extends RequestOptions {
             this.setTablePayloadFormat(other.getTablePayloadFormat());
             this.setPropertyResolver(other.getPropertyResolver());
             this.dateBackwardCompatibility = other.dateBackwardCompatibility;
+            this.setStreamQueryResults(other.getStreamQueryResults());
+            this.setConcurrentRequestCount(other.getConcurrentRequestCount());
         }
     }
 
@@ -118,6 +131,14 @@ public class TableRequestOptions extends RequestOptions {
             modifiedOptions.setTablePayloadFormat(TablePayloadFormat.Json);
         }
 
+        if (modifiedOptions.getStreamQueryResults() == null) {
+            modifiedOptions.setStreamQueryResults(false);
+        }
+
+        if (modifiedOptions.getConcurrentRequestCount() == null) {
+            modifiedOptions.setConcurrentRequestCount(TableConstants.DEFAULT_CONCURRENT_REQUEST_COUNT);
+        }
+
         return modifiedOptions;
     }
 
@@ -142,6 +163,14 @@ public class TableRequestOptions extends RequestOptions {
             modifiedOptions.setPropertyResolver(clientOptions.getPropertyResolver());
         }
 
+        if (modifiedOptions.getStreamQueryResults() == null) {
+            modifiedOptions.setStreamQueryResults(clientOptions.getStreamQueryResults());
+        }
+
+        if (modifiedOptions.getConcurrentRequestCount() == null) {
+            modifiedOptions.setConcurrentRequestCount(clientOptions.getConcurrentRequestCount());
+        }
+
         return modifiedOptions;
     }
 
@@ -182,6 +211,26 @@ public class TableRequestOptions extends RequestOptions {
         return this.dateBackwardCompatibility;
     }
 
+    /**
+     * Gets whether query results are parsed one entity at a time as they are iterated. For more information about
+     * streaming defaults, see {@link #setStreamQueryResults(Boolean)}.
+     * 
+     * @return <code>true</code> if query results are streamed; otherwise <code>false</code>.
+     */
+    public Boolean getStreamQueryResults() {
+        return this.streamQueryResults;
+    }
+
+    /**
+     * Gets the number of concurrent requests issued by parallel operations. For more information about concurrent
+     * request count defaults, see {@link #setConcurrentRequestCount(Integer)}.
+     * 
+     * @return the concurrentRequestCount
+     */
+    public Integer getConcurrentRequestCount() {
+        return this.concurrentRequestCount;
+    }
+
     /**
      * Sets the {@link TablePayloadFormat} to be used.
      * <p>
@@ -230,4 +279,44 @@ public class TableRequestOptions extends RequestOptions {
     public void setDateBackwardCompatibility(boolean dateBackwardCompatibility) {
         this.dateBackwardCompatibility = dateBackwardCompatibility;
     }
+
+    /**
+     * Sets whether query results are parsed one entity at a time as they are iterated.
+     * <p>
+     * By default, iterating a query with {@link CloudTable#execute(TableQuery)} parses every entity of a segment
+     * before returning the first one. When streaming is enabled, each segment is kept as the response payload and each
+     * entity is parsed, and projected by the {@link EntityResolver} if one is given, only when the iterator reaches it.
+     * This bounds the number of entity objects alive at once, which matters for segments of large entities. Combine
+     * with {@link #setPrefetchNextSegment(Boolean)} to request the next segment while the current one is consumed.
+     * <p>
+     * Streaming applies to the JSON payload formats and to iteration only; segmented query methods always return
+     * whole segments, and queries using {@link TablePayloadFormat#AtomPub} are not streamed.
+     * <p>
+     * The default is set in the client and is by default <code>false</code>. You can change the value on this request
+     * by setting this property. You can also change the value on the
+     * {@link CloudTableClient#getDefaultRequestOptions()} object so that all subsequent requests made via the service
+     * client will use that value.
+     * 
+     * @param streamQueryResults
+     *            <code>true</code> to stream query results; otherwise <code>false</code>.
+     */
+    public void setStreamQueryResults(final Boolean streamQueryResults) {
+        this.streamQueryResults = streamQueryResults;
+    }
+
+    /**
+     * Sets the number of concurrent requests issued by parallel operations, such as the number of partition key
+     * ranges a parallel scan queries at once. Operations which issue a single request at a time ignore this value.
+     * <p>
+     * The default concurrent request count is set in the client and is by default 8. You can change the concurrent
+     * request count on this request by setting this property. You can also change the value on the
+     * {@link CloudTableClient#getDefaultRequestOptions()} object so that all subsequent requests made via the service
+     * client will use that concurrent request count.
+     * 
+     * @param concurrentRequestCount
+     *            the concurrentRequestCount to set
+     */
+    public void setConcurrentRequestCount(final Integer concurrentRequestCount) {
+        this.concurrentRequestCount = concurrentRequestCount;
+    }
 }
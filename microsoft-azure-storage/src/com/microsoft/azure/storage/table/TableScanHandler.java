@@ -0,0 +1,44 @@
+/**
+ * Copyright Microsoft Corporation
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.microsoft.azure.storage.table;
+
+import com.microsoft.azure.storage.ResultSegment;
+import com.microsoft.azure.storage.StorageException;
+
+/**
+ * Represents a handler which receives the results of a parallel table scan one segment at a time.
+ * <p>
+ * The segments of a single {@link PartitionKeyRange} are delivered in order, one at a time, but segments of different
+ * ranges are delivered concurrently from different threads, so implementations must be thread-safe.
+ *
+ * @param <R>
+ *            The type of the results of the scan.
+ */
+public interface TableScanHandler<R> {
+    /**
+     * Called with each segment of results of a range. When this method returns, the range's continuation token is
+     * advanced past the segment, so a range saved as a checkpoint from this method resumes at the segment and one
+     * saved afterwards resumes after it.
+     *
+     * @param range
+     *            The {@link PartitionKeyRange} the segment belongs to.
+     * @param segment
+     *            A {@link ResultSegment} containing the results. Its continuation token is <code>null</code> for the
+     *            last segment of the range.
+     * @throws StorageException
+     *             to abort the scan. The scan also aborts if this method throws a <code>RuntimeException</code>.
+     */
+    void handleSegment(PartitionKeyRange range, ResultSegment<R> segment) throws StorageException;
+}
@@ -166,8 +166,9 @@ public class TableServiceEntity implements TableEntity {
         final HashMap<String, PropertyPair> props = PropertyPair.generatePropertyPairs(instance.getClass());
 
         for (final Entry<String, EntityProperty> p : properties.entrySet()) {
-            if (props.containsKey(p.getKey())) {
-                props.get(p.getKey()).consumeEntityProperty(p.getValue(), instance);
+            final PropertyPair propPair = props.get(p.getKey());
+            if (propPair != null) {
+                propPair.consumeEntityProperty(p.getValue(), instance);
             }
         }
     }